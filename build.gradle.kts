@@ -14,6 +14,8 @@ dependencies {
     compileOnly("com.hypixel.hytale:Server:latest.release")
     implementation(files("libs/HyUI-0.8.9-all.jar"))
 
+    // Tests build citizens and messages directly, so they need the server classes at runtime too
+    testImplementation("com.hypixel.hytale:Server:latest.release")
     testImplementation(platform("org.junit:junit-bom:5.10.0"))
     testImplementation("org.junit.jupiter:junit-jupiter")
 }
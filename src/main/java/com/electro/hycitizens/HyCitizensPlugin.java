@@ -110,7 +110,7 @@ public class HyCitizensPlugin extends JavaPlugin {
 
         // Regenerate all roles
         HytaleServer.SCHEDULED_EXECUTOR.schedule(() -> {
-            citizensManager.getRoleGenerator().regenerateAllRoles(citizensManager.getAllCitizens());
+            citizensManager.regenerateAllRoles();
         }, 250, TimeUnit.MILLISECONDS);
     }
 
@@ -129,6 +129,10 @@ public class HyCitizensPlugin extends JavaPlugin {
         if (citizensManager != null) {
             citizensManager.shutdown();
         }
+
+        if (configManager != null) {
+            configManager.shutdown();
+        }
     }
 
     private void registerEventListeners() {
@@ -154,8 +158,13 @@ public class HyCitizensPlugin extends JavaPlugin {
         this.getEntityStoreRegistry().registerSystem(new PatrolStickBlockBreakListener());
         getEventRegistry().registerGlobal(EventPriority.LAST, ChunkPreLoadProcessEvent.class, chunkPreLoadListener::onChunkPreload);
 
-        this.getEntityStoreRegistry().registerSystem(new DuplicateNPCPrevention());
-        this.getEntityStoreRegistry().registerSystem(new DuplicateNametagPrevention());
+        this.getEntityStoreRegistry().registerSystem(new DuplicateNPCPrevention(this));
+        DuplicateNametagPrevention nametagTracker = new DuplicateNametagPrevention(this);
+        this.getEntityStoreRegistry().registerSystem(nametagTracker);
+        NametagFollowSystem nametagFollowSystem = new NametagFollowSystem(this, nametagTracker);
+        this.getEntityStoreRegistry().registerSystem(nametagFollowSystem);
+        // A deleted citizen's NPC never ticks again, so its follow state would otherwise stay behind
+        citizensManager.addCitizenRemovedListener(event -> nametagFollowSystem.forget(event.getCitizen().getId()));
 
         if (Universe.get() != null) {
             for (World world : Universe.get().getWorlds().values()) {
@@ -1,9 +1,12 @@
 package com.electro.hycitizens.commands;
 
 import com.electro.hycitizens.HyCitizensPlugin;
+import com.electro.hycitizens.managers.RotationPacketStats;
 import com.electro.hycitizens.ui.CitizensUI;
+import com.electro.hycitizens.util.ConfigManager;
 import com.hypixel.hytale.component.Ref;
 import com.hypixel.hytale.component.Store;
+import com.hypixel.hytale.server.core.HytaleServer;
 import com.hypixel.hytale.server.core.Message;
 import com.hypixel.hytale.server.core.command.system.CommandContext;
 import com.hypixel.hytale.server.core.command.system.basecommands.AbstractPlayerCommand;
@@ -13,6 +16,9 @@ import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
 
 import javax.annotation.Nonnull;
 import java.awt.Color;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Map;
 
 public class CitizensCommand extends AbstractPlayerCommand{
     private final HyCitizensPlugin plugin;
@@ -23,6 +29,8 @@ public class CitizensCommand extends AbstractPlayerCommand{
         this.addAliases("citizen", "hycitizens", "hycitizen");
         this.plugin = plugin;
         this.addSubCommand(new RespawnAllCommand(plugin));
+        this.addSubCommand(new StatsCommand(plugin));
+        this.addSubCommand(new ExportCommand(plugin));
     }
 
     @Override
@@ -47,4 +55,59 @@ public class CitizensCommand extends AbstractPlayerCommand{
         }
     }
 
+    private static class StatsCommand extends AbstractPlayerCommand {
+        private final HyCitizensPlugin plugin;
+
+        private StatsCommand(@Nonnull HyCitizensPlugin plugin) {
+            super("stats", "Show citizens runtime statistics");
+            this.requirePermission("hycitizens.admin");
+            this.addAliases("metrics");
+            this.plugin = plugin;
+        }
+
+        @Override
+        protected void execute(@Nonnull CommandContext commandContext, @Nonnull Store<EntityStore> store, @Nonnull Ref<EntityStore> ref, @Nonnull PlayerRef playerRef, @Nonnull World world) {
+            Map<String, Long> snapshot = plugin.getCitizensManager().getMetrics().snapshot();
+            playerRef.sendMessage(Message.raw("Citizens: " + plugin.getCitizensManager().getCitizenCount()).color(Color.GREEN));
+            RotationPacketStats rotationStats = plugin.getCitizensManager().getRotationPacketStats();
+            playerRef.sendMessage(Message.raw(String.format("Rotation updates to you: %.1f packets/s, ~%.0f bytes/s",
+                    rotationStats.getPacketsPerSecond(playerRef.getUuid()),
+                    rotationStats.getBytesPerSecond(playerRef.getUuid()))).color(Color.GREEN));
+            if (snapshot.isEmpty()) {
+                playerRef.sendMessage(Message.raw("No statistics recorded yet.").color(Color.GRAY));
+                return;
+            }
+
+            for (Map.Entry<String, Long> entry : snapshot.entrySet()) {
+                playerRef.sendMessage(Message.raw(entry.getKey() + ": " + entry.getValue()).color(Color.GRAY));
+            }
+        }
+    }
+
+    private static class ExportCommand extends AbstractPlayerCommand {
+        private final HyCitizensPlugin plugin;
+
+        private ExportCommand(@Nonnull HyCitizensPlugin plugin) {
+            super("export", "Export all citizen data to a single editable JSON file");
+            this.requirePermission("hycitizens.admin");
+            this.plugin = plugin;
+        }
+
+        @Override
+        protected void execute(@Nonnull CommandContext commandContext, @Nonnull Store<EntityStore> store, @Nonnull Ref<EntityStore> ref, @Nonnull PlayerRef playerRef, @Nonnull World world) {
+            ConfigManager config = plugin.getConfigManager();
+            Path target = config.getDataFolder().resolve("export.json");
+
+            HytaleServer.SCHEDULED_EXECUTOR.execute(() -> {
+                try {
+                    config.exportJson(target);
+                    playerRef.sendMessage(Message.raw("Exported citizens to " + target
+                            + ". Edit it and save it as import.json to load it on the next start.").color(Color.GREEN));
+                } catch (IOException e) {
+                    playerRef.sendMessage(Message.raw("Failed to export citizens: " + e.getMessage()).color(Color.RED));
+                }
+            });
+        }
+    }
+
 }
@@ -1,6 +1,7 @@
 package com.electro.hycitizens.interactions;
 
 import com.electro.hycitizens.HyCitizensPlugin;
+import com.electro.hycitizens.managers.CitizensManager;
 import com.electro.hycitizens.models.CitizenData;
 import com.hypixel.hytale.component.Ref;
 import com.hypixel.hytale.component.Store;
@@ -117,38 +118,33 @@ public class PlayerInteractionHandler implements PacketWatcher {
             interactedUuid = uuidComponent.getUuid();
         }
 
-        List<CitizenData> citizens = HyCitizensPlugin.get().getCitizensManager().getAllCitizens();
-        for (CitizenData citizen : citizens) {
-            Ref<EntityStore> npcRef = citizen.getNpcRef();
-            boolean isDirectRefMatch = npcRef != null && npcRef.isValid() && npcRef.equals(entity);
-            boolean isUuidMatch = interactedUuid != null && citizen.getSpawnedUUID() != null
-                    && citizen.getSpawnedUUID().equals(interactedUuid);
-
-            if (!isDirectRefMatch && !isUuidMatch) {
-                continue;
+        CitizensManager citizensManager = HyCitizensPlugin.get().getCitizensManager();
+        CitizenData citizen = citizensManager.findCitizenByEntityRef(entity);
+        if (citizen == null) {
+            citizen = citizensManager.findCitizenBySpawnedUuid(interactedUuid);
+            if (citizen == null) {
+                return;
             }
 
             // If the ref became stale after chunk/entity reattachment, repair it from the interacted entity.
-            if (!isDirectRefMatch) {
-                //getLogger().atInfo().log("Recovered citizen NPC ref from UUID match for " + citizen.getId());
-                HyCitizensPlugin.get().getCitizensManager().bindCitizenEntityRef(citizen, entity);
-                World world = Universe.get().getWorld(citizen.getWorldUUID());
-                if (world != null) {
-                    world.execute(() -> HyCitizensPlugin.get().getCitizensManager().restoreResolvedCitizenState(citizen, entity, false));
-                }
+            //getLogger().atInfo().log("Recovered citizen NPC ref from UUID match for " + citizen.getId());
+            citizensManager.bindCitizenEntityRef(citizen, entity);
+            World world = Universe.get().getWorld(citizen.getWorldUUID());
+            if (world != null) {
+                CitizenData resolvedCitizen = citizen;
+                world.execute(() -> citizensManager.restoreResolvedCitizenState(resolvedCitizen, entity, false));
             }
+        }
 
-            if (type != InteractionType.Use
-                    && HyCitizensPlugin.get().getCitizensUI().tryCompleteFollowTargetSelection(playerRef, citizen)) {
-                break;
-            }
+        if (type != InteractionType.Use
+                && HyCitizensPlugin.get().getCitizensUI().tryCompleteFollowTargetSelection(playerRef, citizen)) {
+            return;
+        }
 
-            if (!handleCitizenStick(playerRef, citizen)) {
-                if (CitizenInteraction.hasConfiguredInteraction(citizen, interactionSource)) {
-                    CitizenInteraction.handleInteraction(citizen, playerRef, interactionSource);
-                }
+        if (!handleCitizenStick(playerRef, citizen)) {
+            if (CitizenInteraction.hasConfiguredInteraction(citizen, interactionSource)) {
+                CitizenInteraction.handleInteraction(citizen, playerRef, interactionSource);
             }
-            break;
         }
     }
 
@@ -2,13 +2,11 @@ package com.electro.hycitizens.listeners;
 
 import com.electro.hycitizens.HyCitizensPlugin;
 import com.electro.hycitizens.components.CitizenNpcIdentityComponent;
+import com.electro.hycitizens.managers.CitizenEntityIndex;
 import com.electro.hycitizens.models.CitizenData;
 import com.hypixel.hytale.component.Holder;
 import com.hypixel.hytale.component.Ref;
 import com.hypixel.hytale.component.Store;
-import com.hypixel.hytale.component.query.Query;
-import com.hypixel.hytale.math.util.ChunkUtil;
-import com.hypixel.hytale.math.vector.Vector3d;
 import com.hypixel.hytale.server.core.asset.type.model.config.Model;
 import com.hypixel.hytale.server.core.HytaleServer;
 import com.hypixel.hytale.server.core.entity.UUIDComponent;
@@ -24,17 +22,12 @@ import com.hypixel.hytale.server.npc.entities.NPCEntity;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
-import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.LinkedHashSet;
-import java.util.List;
-import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.CompletableFuture;
 
 import static com.hypixel.hytale.logger.HytaleLogger.getLogger;
 
@@ -58,6 +51,7 @@ public class ChunkPreLoadListener {
         sanitizeChunkPersistentModels(event);
         plugin.getCitizensManager().processPendingNpcRemovals(world, eventChunkIndex);
         plugin.getCitizensManager().processPendingHologramRemovals(world, eventChunkIndex);
+        plugin.getCitizensManager().onCitizenChunkLoaded(worldUUID, eventChunkIndex);
 
         for (CitizenData citizen : collectChunkCitizens(event, worldUUID, eventChunkIndex)) {
             // Hand off the heavy work to run outside the event
@@ -72,22 +66,9 @@ public class ChunkPreLoadListener {
                                                   @Nonnull UUID worldUUID,
                                                   long eventChunkIndex) {
         Set<CitizenData> candidates = new LinkedHashSet<>();
-        List<CitizenData> worldCitizens = new ArrayList<>();
-        Map<UUID, CitizenData> citizensByNpcUuid = new HashMap<>();
 
-        for (CitizenData citizen : plugin.getCitizensManager().getAllCitizens()) {
-            if (!shouldProcessCitizen(worldUUID, citizen)) {
-                continue;
-            }
-
-            worldCitizens.add(citizen);
-
-            UUID spawnedUuid = citizen.getSpawnedUUID();
-            if (spawnedUuid != null) {
-                citizensByNpcUuid.put(spawnedUuid, citizen);
-            }
-
-            if (isCitizenTrackedInChunk(citizen, eventChunkIndex)) {
+        for (CitizenData citizen : plugin.getCitizensManager().getCitizensInChunk(worldUUID, eventChunkIndex)) {
+            if (shouldProcessCitizen(worldUUID, citizen)) {
                 candidates.add(citizen);
             }
         }
@@ -103,7 +84,7 @@ public class ChunkPreLoadListener {
         }
 
         for (Holder<EntityStore> entityHolder : entityChunk.getEntityHolders()) {
-            CitizenData matchedCitizen = resolveChunkEntityCitizen(entityHolder, worldCitizens, citizensByNpcUuid);
+            CitizenData matchedCitizen = resolveChunkEntityCitizen(entityHolder, worldUUID);
             if (matchedCitizen != null) {
                 candidates.add(matchedCitizen);
             }
@@ -129,22 +110,8 @@ public class ChunkPreLoadListener {
         return !plugin.getCitizensManager().isCitizenSpawning(citizen.getId());
     }
 
-    private boolean isCitizenTrackedInChunk(@Nonnull CitizenData citizen, long chunkIndex) {
-        Vector3d currentPosition = citizen.getCurrentPosition() != null ? citizen.getCurrentPosition() : citizen.getPosition();
-        long currentChunkIndex = ChunkUtil.indexChunkFromBlock(currentPosition.x, currentPosition.z);
-        if (chunkIndex == currentChunkIndex) {
-            return true;
-        }
-
-        Vector3d basePosition = citizen.getPosition();
-        long baseChunkIndex = ChunkUtil.indexChunkFromBlock(basePosition.x, basePosition.z);
-        return chunkIndex == baseChunkIndex;
-    }
-
     @Nullable
-    private CitizenData resolveChunkEntityCitizen(@Nullable Holder<EntityStore> entityHolder,
-                                                  @Nonnull List<CitizenData> worldCitizens,
-                                                  @Nonnull Map<UUID, CitizenData> citizensByNpcUuid) {
+    private CitizenData resolveChunkEntityCitizen(@Nullable Holder<EntityStore> entityHolder, @Nonnull UUID worldUUID) {
         if (entityHolder == null) {
             return null;
         }
@@ -157,33 +124,28 @@ public class ChunkPreLoadListener {
         CitizenNpcIdentityComponent identityComponent =
                 entityHolder.getComponent(CitizenNpcIdentityComponent.getComponentType());
         if (identityComponent != null) {
-            for (CitizenData citizen : worldCitizens) {
-                if (citizen.getId().equals(identityComponent.getCitizenId())) {
-                    return citizen;
-                }
+            CitizenData matchedById = plugin.getCitizensManager().getCitizen(identityComponent.getCitizenId());
+            if (matchedById != null && shouldProcessCitizen(worldUUID, matchedById)) {
+                return matchedById;
             }
         }
 
         UUIDComponent uuidComponent = entityHolder.getComponent(UUIDComponent.getComponentType());
         if (uuidComponent != null) {
-            CitizenData matchedByUuid = citizensByNpcUuid.get(uuidComponent.getUuid());
-            if (matchedByUuid != null) {
+            CitizenData matchedByUuid = plugin.getCitizensManager().findCitizenBySpawnedUuid(uuidComponent.getUuid());
+            if (matchedByUuid != null && shouldProcessCitizen(worldUUID, matchedByUuid)) {
                 return matchedByUuid;
             }
         }
 
-        String roleName = npc.getRole().getRoleName();
-        if (roleName == null || !roleName.startsWith("HyCitizens_")) {
+        // Legacy entities without an identity component, only matchable by role name
+        String citizenId = CitizenEntityIndex.extractCitizenIdFromRoleName(npc.getRole().getRoleName());
+        if (citizenId == null) {
             return null;
         }
 
-        for (CitizenData citizen : worldCitizens) {
-            if (roleName.startsWith("HyCitizens_" + citizen.getId() + "_")) {
-                return citizen;
-            }
-        }
-
-        return null;
+        CitizenData matchedByRole = plugin.getCitizensManager().getCitizen(citizenId);
+        return matchedByRole != null && shouldProcessCitizen(worldUUID, matchedByRole) ? matchedByRole : null;
     }
 
     private void processCitizenAsync(World world, CitizenData citizen, long chunkIndex) {
@@ -441,45 +403,7 @@ public class ChunkPreLoadListener {
     }
 
     Ref<EntityStore> checkIfNpcExists(Store<EntityStore> store, CitizenData citizen) {
-        String rolePrefix = "HyCitizens_" + citizen.getId() + "_";
-        Query<EntityStore> query = NPCEntity.getComponentType();
-        CompletableFuture<Ref<EntityStore>> found = new CompletableFuture<>();
-
-        store.forEachEntityParallel(query, (index, archetypeChunk, cb) -> {
-            if (found.isDone()) {
-                return;
-            }
-
-            Ref<EntityStore> otherRef = archetypeChunk.getReferenceTo(index);
-            if (otherRef == null || !otherRef.isValid()) {
-                return;
-            }
-
-            NPCEntity npc = archetypeChunk.getComponent(index, NPCEntity.getComponentType());
-            if (npc == null || npc.getRole() == null) {
-                return;
-            }
-
-            CitizenNpcIdentityComponent identityComponent =
-                    archetypeChunk.getComponent(index, CitizenNpcIdentityComponent.getComponentType());
-            if (identityComponent != null && citizen.getId().equals(identityComponent.getCitizenId())) {
-                found.complete(otherRef);
-                return;
-            }
-
-            UUIDComponent uuidComponent = archetypeChunk.getComponent(index, UUIDComponent.getComponentType());
-            if (citizen.getSpawnedUUID() != null && uuidComponent != null
-                    && citizen.getSpawnedUUID().equals(uuidComponent.getUuid())) {
-                found.complete(otherRef);
-                return;
-            }
-
-            String roleName = npc.getRole().getRoleName();
-            if (roleName != null && roleName.startsWith(rolePrefix)) {
-                found.complete(otherRef);
-            }
-        });
-
-        return found.isDone() ? found.join() : null;
+        Ref<EntityStore> ref = plugin.getCitizensManager().getEntityIndex().getNpcRef(citizen.getId());
+        return ref != null && ref.getStore() == store ? ref : null;
     }
 }
@@ -1,6 +1,8 @@
 package com.electro.hycitizens.listeners;
 
+import com.electro.hycitizens.HyCitizensPlugin;
 import com.electro.hycitizens.components.CitizenNpcIdentityComponent;
+import com.electro.hycitizens.managers.CitizenEntityIndex;
 import com.hypixel.hytale.component.AddReason;
 import com.hypixel.hytale.component.CommandBuffer;
 import com.hypixel.hytale.component.Ref;
@@ -12,10 +14,8 @@ import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
 import com.hypixel.hytale.server.npc.entities.NPCEntity;
 import com.hypixel.hytale.server.npc.role.Role;
 
-import java.util.Map;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
-import java.util.concurrent.ConcurrentHashMap;
 import javax.annotation.Nonnull;
 
 public class DuplicateNPCPrevention extends RefSystem<EntityStore> {
@@ -27,57 +27,37 @@ public class DuplicateNPCPrevention extends RefSystem<EntityStore> {
     @Nonnull
     private final Query<EntityStore> query = NPCEntity.getComponentType();
 
-    @Nonnull
-    private final Map<String, Ref<EntityStore>> activeCitizenRoles = new ConcurrentHashMap<>();
+    private final HyCitizensPlugin plugin;
+    private final CitizenEntityIndex entityIndex;
+
+    public DuplicateNPCPrevention(@Nonnull HyCitizensPlugin plugin) {
+        this.plugin = plugin;
+        this.entityIndex = plugin.getCitizensManager().getEntityIndex();
+    }
 
     @Override
     public void onEntityAdded(@Nonnull Ref<EntityStore> ref, @Nonnull AddReason reason, @Nonnull Store<EntityStore> store, @Nonnull CommandBuffer<EntityStore> commandBuffer) {
-        NPCEntity npc = store.getComponent(ref, NPCEntity.getComponentType());
-        if (npc == null) {
-            return;
-        }
-
-        Role role = npc.getRole();
-        if (role == null) {
-            return;
-        }
-
-        String roleName = role.getRoleName();
-        String citizenKey = extractCitizenKey(ref, store, roleName);
+        String citizenKey = extractCitizenKey(ref, store);
         if (citizenKey == null) {
             return;
         }
 
-        Ref<EntityStore> existingRef = this.activeCitizenRoles.get(citizenKey);
-        if (existingRef != null && existingRef.isValid() && !existingRef.equals(ref)) {
+        Ref<EntityStore> existingRef = this.entityIndex.getNpcRef(citizenKey);
+        if (existingRef != null && !existingRef.equals(ref)) {
             commandBuffer.removeEntity(ref, RemoveReason.REMOVE);
             return;
         }
 
-        this.activeCitizenRoles.put(citizenKey, ref);
+        this.entityIndex.putNpcRef(citizenKey, ref);
+        this.plugin.getCitizensManager().onCitizenNpcAdded(citizenKey);
     }
 
     @Override
     public void onEntityRemove(@Nonnull Ref<EntityStore> ref, @Nonnull RemoveReason reason, @Nonnull Store<EntityStore> store, @Nonnull CommandBuffer<EntityStore> commandBuffer) {
-        NPCEntity npc = store.getComponent(ref, NPCEntity.getComponentType());
-        if (npc == null) {
-            return;
-        }
-
-        Role role = npc.getRole();
-        if (role == null) {
-            return;
-        }
-
-        String roleName = role.getRoleName();
-        String citizenKey = extractCitizenKey(ref, store, roleName);
-        if (citizenKey == null) {
-            return;
-        }
-
-        Ref<EntityStore> existingRef = this.activeCitizenRoles.get(citizenKey);
-        if (existingRef != null && existingRef.equals(ref)) {
-            this.activeCitizenRoles.remove(citizenKey);
+        // The index remembers which key each ref went in under, so removal never re-reads the role
+        String citizenKey = this.entityIndex.removeNpcRef(ref);
+        if (citizenKey != null) {
+            this.plugin.getCitizensManager().onCitizenNpcRemoved(citizenKey);
         }
     }
 
@@ -87,20 +67,31 @@ public class DuplicateNPCPrevention extends RefSystem<EntityStore> {
         return this.query;
     }
 
-    private boolean isTrackedCitizenRole(@Nonnull String roleName) {
-        return roleName.startsWith("HyCitizens_") || roleName.startsWith("Citizens_");
-    }
+    private String extractCitizenKey(@Nonnull Ref<EntityStore> ref, @Nonnull Store<EntityStore> store) {
+        CitizenNpcIdentityComponent identityComponent =
+                store.getComponent(ref, CitizenNpcIdentityComponent.getComponentType());
+        if (identityComponent != null && !identityComponent.getCitizenId().isBlank()) {
+            return identityComponent.getCitizenId();
+        }
 
-    private String extractCitizenKey(Ref<EntityStore> ref, Store<EntityStore> store, String roleName) {
-        if (ref != null && store != null) {
-            CitizenNpcIdentityComponent identityComponent =
-                    store.getComponent(ref, CitizenNpcIdentityComponent.getComponentType());
-            if (identityComponent != null && !identityComponent.getCitizenId().isBlank()) {
-                return identityComponent.getCitizenId();
-            }
+        NPCEntity npc = store.getComponent(ref, NPCEntity.getComponentType());
+        if (npc == null) {
+            return null;
+        }
+
+        Role role = npc.getRole();
+        if (role == null) {
+            return null;
+        }
+
+        String roleName = role.getRoleName();
+        String citizenId = CitizenEntityIndex.extractCitizenIdFromRoleName(roleName);
+        if (citizenId != null) {
+            return citizenId;
         }
 
-        if (roleName == null || !isTrackedCitizenRole(roleName)) {
+        // Roles from before the HyCitizens_ prefix
+        if (roleName == null || !roleName.startsWith("Citizens_")) {
             return null;
         }
 
@@ -1,6 +1,8 @@
 package com.electro.hycitizens.listeners;
 
+import com.electro.hycitizens.HyCitizensPlugin;
 import com.electro.hycitizens.components.CitizenNametagComponent;
+import com.electro.hycitizens.managers.CitizenEntityIndex;
 import com.hypixel.hytale.component.AddReason;
 import com.hypixel.hytale.component.CommandBuffer;
 import com.hypixel.hytale.component.ComponentType;
@@ -12,8 +14,7 @@ import com.hypixel.hytale.component.system.RefSystem;
 import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
 
 import javax.annotation.Nonnull;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import javax.annotation.Nullable;
 
 public class DuplicateNametagPrevention extends RefSystem<EntityStore> {
 
@@ -23,8 +24,11 @@ public class DuplicateNametagPrevention extends RefSystem<EntityStore> {
     @Nonnull
     private final Query<EntityStore> query = this.nametagComponentType;
 
-    @Nonnull
-    private final Map<String, Ref<EntityStore>> activeNametags = new ConcurrentHashMap<>();
+    private final CitizenEntityIndex entityIndex;
+
+    public DuplicateNametagPrevention(@Nonnull HyCitizensPlugin plugin) {
+        this.entityIndex = plugin.getCitizensManager().getEntityIndex();
+    }
 
     @Override
     public void onEntityAdded(@Nonnull Ref<EntityStore> ref, @Nonnull AddReason reason, @Nonnull Store<EntityStore> store, @Nonnull CommandBuffer<EntityStore> commandBuffer) {
@@ -33,14 +37,13 @@ public class DuplicateNametagPrevention extends RefSystem<EntityStore> {
             return;
         }
 
-        String identityKey = nametagComponent.getCitizenId() + ":" + nametagComponent.getLineIndex();
-        Ref<EntityStore> existingRef = this.activeNametags.get(identityKey);
-        if (existingRef != null && existingRef.isValid() && !existingRef.equals(ref)) {
+        Ref<EntityStore> existingRef = this.entityIndex.getNametagRef(nametagComponent.getCitizenId(), nametagComponent.getLineIndex());
+        if (existingRef != null && !existingRef.equals(ref)) {
             commandBuffer.removeEntity(ref, RemoveReason.REMOVE);
             return;
         }
 
-        this.activeNametags.put(identityKey, ref);
+        this.entityIndex.putNametagRef(nametagComponent.getCitizenId(), nametagComponent.getLineIndex(), ref);
     }
 
     @Override
@@ -53,11 +56,12 @@ public class DuplicateNametagPrevention extends RefSystem<EntityStore> {
             return;
         }
 
-        String identityKey = nametagComponent.getCitizenId() + ":" + nametagComponent.getLineIndex();
-        Ref<EntityStore> existingRef = this.activeNametags.get(identityKey);
-        if (existingRef != null && existingRef.equals(ref)) {
-            this.activeNametags.remove(identityKey);
-        }
+        this.entityIndex.removeNametagRef(nametagComponent.getCitizenId(), nametagComponent.getLineIndex(), ref);
+    }
+
+    @Nullable
+    public Ref<EntityStore> getNametagRef(@Nonnull String citizenId, int lineIndex) {
+        return this.entityIndex.getNametagRef(citizenId, lineIndex);
     }
 
     @Nonnull
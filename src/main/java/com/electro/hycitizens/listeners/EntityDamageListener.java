@@ -3,6 +3,7 @@ package com.electro.hycitizens.listeners;
 import com.electro.hycitizens.HyCitizensPlugin;
 import com.electro.hycitizens.events.CitizenDeathEvent;
 import com.electro.hycitizens.interactions.CitizenInteraction;
+import com.electro.hycitizens.managers.CitizensManager;
 import com.electro.hycitizens.models.*;
 import com.hypixel.hytale.component.*;
 import com.hypixel.hytale.component.query.Query;
@@ -62,7 +63,7 @@ public class EntityDamageListener extends DamageEventSystem {
                 return;
             }
 
-            List<CitizenData> citizens = HyCitizensPlugin.get().getCitizensManager().getAllCitizens();
+            CitizensManager citizensManager = HyCitizensPlugin.get().getCitizensManager();
             Damage.Source source = event.getSource();
             Ref<EntityStore> attackerEntityRef = getAttackerEntityRef(source);
             UUID attackerUuid = getEntityUuid(attackerEntityRef);
@@ -74,12 +75,12 @@ public class EntityDamageListener extends DamageEventSystem {
 //                attackerPlayerRef = attackerEntityRef.getStore().getComponent(attackerEntityRef, PlayerRef.getComponentType());
 //            }
 
-            CitizenData attackerCitizen = findCitizenByEntity(citizens, attackerEntityRef, attackerUuid);
+            CitizenData attackerCitizen = citizensManager.findCitizenByEntity(attackerEntityRef, attackerUuid);
             if (attackerCitizen != null && attackerCitizen.isOverrideDamage() && attackerCitizen.getDamageAmount() >= 0) {
                 event.setAmount(attackerCitizen.getDamageAmount());
             }
 
-            CitizenData targetCitizen = findCitizenByEntity(citizens, targetRef, uuidComponent.getUuid());
+            CitizenData targetCitizen = citizensManager.findCitizenByEntity(targetRef, uuidComponent.getUuid());
             if (targetCitizen == null) {
                 return;
             }
@@ -100,17 +101,16 @@ public class EntityDamageListener extends DamageEventSystem {
                 if (invulnerable == null) {
                     event.setCancelled(true);
                     event.setAmount(0);
-                    World world = Universe.get().getWorld(targetCitizen.getWorldUUID());
                     TransformComponent transformComponent = store.getComponent(targetRef, TransformComponent.getComponentType());
-                    if (transformComponent != null && world != null) {
-                        Vector3d lockedPosition = new Vector3d(transformComponent.getPosition());
-                        scheduleKnockbackLock(world, targetRef, targetCitizen, lockedPosition);
+                    if (transformComponent != null) {
+                        citizensManager.lockCitizenKnockback(targetCitizen, targetRef, transformComponent.getPosition());
                     }
                 }
                 return;
             }
 
             targetCitizen.setLastDamageTakenAt(System.currentTimeMillis());
+            citizensManager.onCitizenDamaged(targetCitizen);
 
             if (!targetCitizen.isAwaitingRespawn() && isLethalDamage(store, targetRef, event)) {
                 CitizenDeathEvent deathEvent = new CitizenDeathEvent(targetCitizen, attackerPlayerRef);
@@ -226,30 +226,6 @@ public class EntityDamageListener extends DamageEventSystem {
         return attackerEntityRef.getStore().getComponent(attackerEntityRef, PlayerRef.getComponentType());
     }
 
-    private void scheduleKnockbackLock(@Nonnull World world,
-                                       @Nonnull Ref<EntityStore> targetRef,
-                                       @Nonnull CitizenData targetCitizen,
-                                       @Nonnull Vector3d lockedPosition) {
-        ScheduledFuture<?> lockTask = HytaleServer.SCHEDULED_EXECUTOR.scheduleAtFixedRate(() -> world.execute(() -> {
-            if (!targetRef.isValid()) {
-                return;
-            }
-
-            TransformComponent liveTransform = targetRef.getStore().getComponent(targetRef, TransformComponent.getComponentType());
-            if (liveTransform == null) {
-                return;
-            }
-
-            Vector3d currentPosition = liveTransform.getPosition();
-            if (!currentPosition.equals(lockedPosition)) {
-                liveTransform.setPosition(new Vector3d(lockedPosition));
-                targetCitizen.setCurrentPosition(new Vector3d(lockedPosition));
-            }
-        }), 0, 20, TimeUnit.MILLISECONDS);
-
-        HytaleServer.SCHEDULED_EXECUTOR.schedule(() -> lockTask.cancel(false), 2000, TimeUnit.MILLISECONDS);
-    }
-
     private boolean isLethalDamage(@Nonnull Store<EntityStore> store,
                                    @Nonnull Ref<EntityStore> targetRef,
                                    @Nonnull Damage event) {
@@ -266,26 +242,6 @@ public class EntityDamageListener extends DamageEventSystem {
         return (healthValue.get() - event.getAmount()) <= 0;
     }
 
-    @Nullable
-    private CitizenData findCitizenByEntity(@Nonnull List<CitizenData> citizens,
-                                            @Nullable Ref<EntityStore> entityRef,
-                                            @Nullable UUID entityUuid) {
-        for (CitizenData citizen : citizens) {
-            if (entityRef != null && entityRef.isValid()
-                    && citizen.getNpcRef() != null
-                    && citizen.getNpcRef().isValid()
-                    && citizen.getNpcRef().equals(entityRef)) {
-                return citizen;
-            }
-
-            if (entityUuid != null && entityUuid.equals(citizen.getSpawnedUUID())) {
-                return citizen;
-            }
-        }
-
-        return null;
-    }
-
     @Nullable
     public Query<EntityStore> getQuery() {
         return Query.and(new Query[]{UUIDComponent.getComponentType()});
@@ -2,7 +2,7 @@ package com.electro.hycitizens.listeners;
 
 import com.electro.hycitizens.HyCitizensPlugin;
 import com.electro.hycitizens.events.CitizenDeathEvent;
-import com.electro.hycitizens.interactions.CitizenInteraction;
+import com.electro.hycitizens.managers.CitizenInteractionStateStore;
 import com.electro.hycitizens.models.*;
 import com.electro.hycitizens.util.CommandExecutionUtil;
 import com.electro.hycitizens.util.UpdateChecker;
@@ -36,18 +36,11 @@ import java.util.List;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 import static com.hypixel.hytale.logger.HytaleLogger.getLogger;
 
 public class EntityDeathListener extends DeathSystems.OnDeathSystem {
     private static final Random RANDOM = new Random();
-    private static final Pattern PLAYER_NAME_PATTERN = Pattern.compile("\\{PlayerName}", Pattern.CASE_INSENSITIVE);
-    private static final Pattern CITIZEN_NAME_PATTERN = Pattern.compile("\\{CitizenName}", Pattern.CASE_INSENSITIVE);
-    private static final Pattern NPC_X_PATTERN = Pattern.compile("\\{NpcX}", Pattern.CASE_INSENSITIVE);
-    private static final Pattern NPC_Y_PATTERN = Pattern.compile("\\{NpcY}", Pattern.CASE_INSENSITIVE);
-    private static final Pattern NPC_Z_PATTERN = Pattern.compile("\\{NpcZ}", Pattern.CASE_INSENSITIVE);
     private static final UUID NON_PLAYER_CONTEXT_UUID = new UUID(0L, 0L);
 
     private final HyCitizensPlugin plugin;
@@ -199,7 +192,7 @@ public class EntityDeathListener extends DeathSystems.OnDeathSystem {
 
         List<CommandAction> eligible = commands.stream()
                 .filter(cmd -> RANDOM.nextFloat() * 100.0f <= cmd.getChancePercent())
-                .filter(cmd -> attackerPlayerRef != null || !containsPlayerPlaceholder(cmd.getCommand()))
+                .filter(cmd -> attackerPlayerRef != null || !cmd.getTemplate().uses(MessageTemplate.Placeholder.PLAYER_NAME))
                 .collect(java.util.stream.Collectors.toList());
         if (eligible.isEmpty()) {
             return;
@@ -208,7 +201,8 @@ public class EntityDeathListener extends DeathSystems.OnDeathSystem {
         List<CommandAction> toRun = selectCommandsByModeAndCount(
                 eligible,
                 dc.getCommandSelectionMode(),
-                citizen.getSequentialDeathCommandIndex(),
+                citizen,
+                CitizenInteractionStateStore.Cursor.DEATH_COMMAND,
                 selectionContextUuid,
                 dc.getCommandCountMin(),
                 dc.getCommandCountMax()
@@ -225,14 +219,11 @@ public class EntityDeathListener extends DeathSystems.OnDeathSystem {
                 }
                 return CompletableFuture.completedFuture(null);
             }).thenCompose(v -> {
-                String command = replacePlaceholders(cmd.getCommand(), attackerPlayerRef, citizen);
-
-                if (command.startsWith("{SendMessage}")) {
+                if (cmd.isSendMessage()) {
                     if (attackerPlayerRef == null) {
                         return CompletableFuture.completedFuture(null);
                     }
-                    String messageContent = command.substring("{SendMessage}".length()).trim();
-                    Message msg = CitizenInteraction.parseColoredMessage(messageContent);
+                    Message msg = cmd.getTemplate().renderMessage(attackerPlayerRef, citizen);
                     if (msg != null) {
                         attackerPlayerRef.sendMessage(msg);
                     }
@@ -242,6 +233,7 @@ public class EntityDeathListener extends DeathSystems.OnDeathSystem {
                         getLogger().atWarning().log("[HyCitizens] Skipping death command as player: attacker entity is unavailable.");
                         return CompletableFuture.completedFuture(null);
                     }
+                    String command = cmd.getTemplate().renderText(attackerPlayerRef, citizen);
                     return CommandExecutionUtil.execute(commandPlayer, command, cmd.isRunAsServer());
                 }
             });
@@ -269,7 +261,8 @@ public class EntityDeathListener extends DeathSystems.OnDeathSystem {
         List<CitizenMessage> toSend = selectMessagesByModeAndCount(
                 eligible,
                 dc.getMessageSelectionMode(),
-                citizen.getSequentialDeathMessageIndex(),
+                citizen,
+                CitizenInteractionStateStore.Cursor.DEATH_MESSAGE,
                 attackerPlayerRef.getUuid(),
                 dc.getMessageCountMin(),
                 dc.getMessageCountMax()
@@ -294,9 +287,7 @@ public class EntityDeathListener extends DeathSystems.OnDeathSystem {
 
     private void dispatchDeathMessage(@Nonnull CitizenData citizen, @Nonnull PlayerRef playerRef,
                                       @Nonnull CitizenMessage cm) {
-        String text = replacePlaceholders(cm.getMessage(), playerRef, citizen);
-
-        Message parsed = CitizenInteraction.parseColoredMessage(text);
+        Message parsed = cm.getTemplate().renderMessage(playerRef, citizen);
         if (parsed == null) {
             return;
         }
@@ -314,7 +305,8 @@ public class EntityDeathListener extends DeathSystems.OnDeathSystem {
     @Nonnull
     private List<CommandAction> selectCommandsByModeAndCount(@Nonnull List<CommandAction> source,
                                                              @Nonnull String mode,
-                                                             @Nonnull Map<UUID, Integer> sequentialMap,
+                                                             @Nonnull CitizenData citizen,
+                                                             @Nonnull CitizenInteractionStateStore.Cursor sequentialCursor,
                                                              @Nonnull UUID playerUuid,
                                                              int minCount,
                                                              int maxCount) {
@@ -332,11 +324,11 @@ public class EntityDeathListener extends DeathSystems.OnDeathSystem {
 
         if ("SEQUENTIAL".equals(normalized)) {
             List<CommandAction> selected = new ArrayList<>();
-            int start = sequentialMap.getOrDefault(playerUuid, 0);
+            int start = plugin.getCitizensManager().getInteractionState()
+                    .advance(citizen.getId(), playerUuid, sequentialCursor, desiredCount);
             for (int i = 0; i < desiredCount; i++) {
-                selected.add(source.get((start + i) % source.size()));
+                selected.add(source.get(Math.floorMod(start + i, source.size())));
             }
-            sequentialMap.put(playerUuid, start + desiredCount);
             return selected;
         }
 
@@ -346,7 +338,8 @@ public class EntityDeathListener extends DeathSystems.OnDeathSystem {
     @Nonnull
     private List<CitizenMessage> selectMessagesByModeAndCount(@Nonnull List<CitizenMessage> source,
                                                               @Nonnull String mode,
-                                                              @Nonnull Map<UUID, Integer> sequentialMap,
+                                                              @Nonnull CitizenData citizen,
+                                                              @Nonnull CitizenInteractionStateStore.Cursor sequentialCursor,
                                                               @Nonnull UUID playerUuid,
                                                               int minCount,
                                                               int maxCount) {
@@ -364,11 +357,11 @@ public class EntityDeathListener extends DeathSystems.OnDeathSystem {
 
         if ("SEQUENTIAL".equals(normalized)) {
             List<CitizenMessage> selected = new ArrayList<>();
-            int start = sequentialMap.getOrDefault(playerUuid, 0);
+            int start = plugin.getCitizensManager().getInteractionState()
+                    .advance(citizen.getId(), playerUuid, sequentialCursor, desiredCount);
             for (int i = 0; i < desiredCount; i++) {
-                selected.add(source.get((start + i) % source.size()));
+                selected.add(source.get(Math.floorMod(start + i, source.size())));
             }
-            sequentialMap.put(playerUuid, start + desiredCount);
             return selected;
         }
 
@@ -409,43 +402,4 @@ public class EntityDeathListener extends DeathSystems.OnDeathSystem {
         }
         return clampedMin + RANDOM.nextInt(clampedMax - clampedMin + 1);
     }
-
-    @Nonnull
-    private String replacePlaceholders(@Nonnull String text, @Nullable PlayerRef playerRef, @Nonnull CitizenData citizen) {
-        Vector3d npcPos = citizen.getCurrentPosition() != null ? citizen.getCurrentPosition() : citizen.getPosition();
-        String npcX = String.format(Locale.ROOT, "%.2f", npcPos.x);
-        String npcY = String.format(Locale.ROOT, "%.2f", npcPos.y);
-        String npcZ = String.format(Locale.ROOT, "%.2f", npcPos.z);
-
-        if (playerRef != null) {
-            text = PLAYER_NAME_PATTERN
-                    .matcher(text)
-                    .replaceAll(Matcher.quoteReplacement(playerRef.getUsername()));
-        }
-        text = CITIZEN_NAME_PATTERN
-                .matcher(text)
-                .replaceAll(Matcher.quoteReplacement(formatCitizenNamePlaceholder(citizen)));
-        text = NPC_X_PATTERN
-                .matcher(text)
-                .replaceAll(Matcher.quoteReplacement(npcX));
-        text = NPC_Y_PATTERN
-                .matcher(text)
-                .replaceAll(Matcher.quoteReplacement(npcY));
-        text = NPC_Z_PATTERN
-                .matcher(text)
-                .replaceAll(Matcher.quoteReplacement(npcZ));
-        return text;
-    }
-
-    private boolean containsPlayerPlaceholder(@Nonnull String text) {
-        return PLAYER_NAME_PATTERN.matcher(text).find();
-    }
-
-    @Nonnull
-    private static String formatCitizenNamePlaceholder(@Nonnull CitizenData citizen) {
-        return citizen.getName()
-                .replace("\\n", " ")
-                .replace('\r', ' ')
-                .replace('\n', ' ');
-    }
 }
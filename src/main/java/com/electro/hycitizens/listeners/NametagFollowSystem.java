@@ -0,0 +1,207 @@
+package com.electro.hycitizens.listeners;
+
+import com.electro.hycitizens.HyCitizensPlugin;
+import com.electro.hycitizens.components.CitizenNametagComponent;
+import com.electro.hycitizens.components.CitizenNpcIdentityComponent;
+import com.electro.hycitizens.managers.CitizenLodManager;
+import com.electro.hycitizens.managers.CitizensManager;
+import com.electro.hycitizens.models.CitizenData;
+import com.hypixel.hytale.component.ArchetypeChunk;
+import com.hypixel.hytale.component.CommandBuffer;
+import com.hypixel.hytale.component.Ref;
+import com.hypixel.hytale.component.Store;
+import com.hypixel.hytale.component.query.Query;
+import com.hypixel.hytale.component.system.tick.EntityTickingSystem;
+import com.hypixel.hytale.math.vector.Vector3d;
+import com.hypixel.hytale.math.vector.Vector3f;
+import com.hypixel.hytale.server.core.modules.entity.component.TransformComponent;
+import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
+
+import javax.annotation.Nonnull;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class NametagFollowSystem extends EntityTickingSystem<EntityStore> {
+    private static final double POSITION_EPSILON_SQ = 0.0001 * 0.0001;
+    private static final float ROTATION_EPSILON = 0.0001f;
+
+    private static final class FollowState {
+        private Ref<EntityStore> npcRef;
+        private double x = Double.NaN;
+        private double y;
+        private double z;
+        private float pitch;
+        private float yaw;
+        private float roll;
+        private double heightOffset = Double.NaN;
+        private long ticks;
+        private boolean linesStale;
+        @SuppressWarnings("unchecked")
+        private Ref<EntityStore>[] lineRefs = new Ref[0];
+    }
+
+    private final HyCitizensPlugin plugin;
+    private final DuplicateNametagPrevention nametagTracker;
+    private final Query<EntityStore> query = Query.and(
+            CitizenNpcIdentityComponent.getComponentType(),
+            TransformComponent.getComponentType()
+    );
+    private final Map<String, FollowState> states = new ConcurrentHashMap<>();
+
+    public NametagFollowSystem(@Nonnull HyCitizensPlugin plugin, @Nonnull DuplicateNametagPrevention nametagTracker) {
+        this.plugin = plugin;
+        this.nametagTracker = nametagTracker;
+    }
+
+    @Override
+    public void tick(float dt, int index, @Nonnull ArchetypeChunk<EntityStore> archetypeChunk,
+                     @Nonnull Store<EntityStore> store, @Nonnull CommandBuffer<EntityStore> commandBuffer) {
+        CitizenNpcIdentityComponent identity = archetypeChunk.getComponent(index, CitizenNpcIdentityComponent.getComponentType());
+        TransformComponent transform = archetypeChunk.getComponent(index, TransformComponent.getComponentType());
+        if (identity == null || transform == null || transform.getPosition() == null) {
+            return;
+        }
+
+        CitizensManager citizensManager = plugin.getCitizensManager();
+        if (citizensManager == null) {
+            return;
+        }
+
+        String citizenId = identity.getCitizenId();
+        CitizenData citizen = citizensManager.getCitizen(citizenId);
+        if (citizen == null) {
+            states.remove(citizenId);
+            return;
+        }
+
+        // A stale duplicate can still carry the identity for a tick or two; only the bound NPC drives the nametag
+        Ref<EntityStore> ref = archetypeChunk.getReferenceTo(index);
+        if (!ref.equals(citizen.getNpcRef())) {
+            return;
+        }
+
+        FollowState state = states.computeIfAbsent(citizenId, k -> new FollowState());
+        Vector3d position = transform.getPosition();
+        Vector3f rotation = transform.getRotation();
+        double heightOffset = citizensManager.getNametagHeightOffset(citizen);
+
+        state.ticks++;
+        if (ref.equals(state.npcRef) && !hasMoved(state, position, rotation) && state.heightOffset == heightOffset
+                && !state.linesStale) {
+            return;
+        }
+
+        state.npcRef = ref;
+        state.x = position.x;
+        state.y = position.y;
+        state.z = position.z;
+        if (rotation != null) {
+            state.pitch = rotation.x;
+            state.yaw = rotation.y;
+            state.roll = rotation.z;
+        }
+        state.heightOffset = heightOffset;
+
+        // Track the NPC's actual position
+        citizen.setCurrentPosition(new Vector3d(position));
+        citizensManager.updateCitizenChunkIndex(citizen);
+
+        if (citizen.getMovementBehavior().getType().equals("IDLE")) {
+            return;
+        }
+
+        // Distant or unobserved citizens move their lines less often; the next allowed tick catches them up
+        if (!citizensManager.getLodManager().shouldRun(citizen, CitizenLodManager.Behavior.NAMETAG_FOLLOW, state.ticks)) {
+            state.linesStale = true;
+            return;
+        }
+        state.linesStale = false;
+
+        List<UUID> lineUuids = citizen.getHologramLineUuids();
+        int totalLines = lineUuids.size();
+        if (totalLines == 0) {
+            return;
+        }
+
+        if (state.lineRefs.length != totalLines) {
+            @SuppressWarnings("unchecked")
+            Ref<EntityStore>[] resized = new Ref[totalLines];
+            System.arraycopy(state.lineRefs, 0, resized, 0, Math.min(state.lineRefs.length, totalLines));
+            state.lineRefs = resized;
+        }
+
+        for (int i = 0; i < totalLines; i++) {
+            Ref<EntityStore> lineRef = resolveLineRef(state, store, citizenId, i, lineUuids.get(i));
+            if (lineRef == null) {
+                continue;
+            }
+
+            TransformComponent lineTransform = store.getComponent(lineRef, TransformComponent.getComponentType());
+            if (lineTransform == null) {
+                continue;
+            }
+
+            lineTransform.setPosition(new Vector3d(
+                    position.x,
+                    position.y + heightOffset + ((totalLines - 1 - i) * CitizensManager.NAMETAG_LINE_SPACING),
+                    position.z
+            ));
+            lineTransform.setRotation(rotation);
+        }
+    }
+
+    public void forget(@Nonnull String citizenId) {
+        states.remove(citizenId);
+    }
+
+    private boolean hasMoved(@Nonnull FollowState state, @Nonnull Vector3d position, Vector3f rotation) {
+        double dx = position.x - state.x;
+        double dy = position.y - state.y;
+        double dz = position.z - state.z;
+        if (Double.isNaN(dx) || dx * dx + dy * dy + dz * dz > POSITION_EPSILON_SQ) {
+            return true;
+        }
+
+        return rotation != null
+                && (Math.abs(rotation.x - state.pitch) > ROTATION_EPSILON
+                || Math.abs(rotation.y - state.yaw) > ROTATION_EPSILON
+                || Math.abs(rotation.z - state.roll) > ROTATION_EPSILON);
+    }
+
+    private Ref<EntityStore> resolveLineRef(@Nonnull FollowState state, @Nonnull Store<EntityStore> store,
+                                            @Nonnull String citizenId, int lineIndex, UUID lineUuid) {
+        Ref<EntityStore> cached = state.lineRefs[lineIndex];
+        if (isLineRef(cached, store, citizenId, lineIndex)) {
+            return cached;
+        }
+
+        // The nametag component is what identifies a line, so a rebound or respawned line invalidates the cache
+        Ref<EntityStore> resolved = nametagTracker.getNametagRef(citizenId, lineIndex);
+        if (!isLineRef(resolved, store, citizenId, lineIndex) && lineUuid != null) {
+            resolved = store.getExternalData().getWorld().getEntityRef(lineUuid);
+            if (resolved != null && !resolved.isValid()) {
+                resolved = null;
+            }
+        }
+
+        state.lineRefs[lineIndex] = resolved;
+        return resolved;
+    }
+
+    private boolean isLineRef(Ref<EntityStore> ref, @Nonnull Store<EntityStore> store, @Nonnull String citizenId, int lineIndex) {
+        if (ref == null || !ref.isValid()) {
+            return false;
+        }
+
+        CitizenNametagComponent nametag = store.getComponent(ref, CitizenNametagComponent.getComponentType());
+        return nametag != null && nametag.getLineIndex() == lineIndex && citizenId.equals(nametag.getCitizenId());
+    }
+
+    @Nonnull
+    @Override
+    public Query<EntityStore> getQuery() {
+        return this.query;
+    }
+}
@@ -0,0 +1,241 @@
+package com.electro.hycitizens.managers;
+
+import com.electro.hycitizens.util.CitizensMetrics;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static com.hypixel.hytale.logger.HytaleLogger.getLogger;
+
+// Runs the messages and commands a citizen hands to a player. Each citizen, player and channel gets a lane that runs
+// one action at a time, in the order the actions became ready, and holds the lane until a command's future completes.
+// Messages have their own channel, so chat never waits on a slow command, and one citizen's pending command never
+// holds up another's. Delays are kept on a private timer and the lanes drain on a small fixed pool, so a crowd of
+// players hitting a reward NPC never queues onto the shared server executor. The pool queue holds at most one drain
+// per lane.
+public class CitizenActionPipeline {
+    public static final int DEFAULT_THREADS = 2;
+    private static final long ACTION_TIMEOUT_MS = 30_000L;
+
+    public enum Channel {
+        MESSAGES,
+        COMMANDS
+    }
+
+    public static final class Action {
+        private final long delayMs;
+        private final Supplier<CompletableFuture<Void>> task;
+
+        public Action(long delayMs, @Nonnull Supplier<CompletableFuture<Void>> task) {
+            this.delayMs = Math.max(0L, delayMs);
+            this.task = task;
+        }
+    }
+
+    private record LaneKey(@Nonnull String citizenId, @Nonnull UUID playerUuid, @Nonnull Channel channel) {
+    }
+
+    private static final class Chain {
+        private final LaneKey laneKey;
+        private final List<Action> actions;
+
+        private Chain(@Nonnull LaneKey laneKey, @Nonnull List<Action> actions) {
+            this.laneKey = laneKey;
+            this.actions = actions;
+        }
+    }
+
+    private static final class Step {
+        private final Chain chain;
+        private final int index;
+        private final long readyAtNanos;
+
+        private Step(@Nonnull Chain chain, int index, long readyAtNanos) {
+            this.chain = chain;
+            this.index = index;
+            this.readyAtNanos = readyAtNanos;
+        }
+    }
+
+    private static final class Lane {
+        private final ArrayDeque<Step> ready = new ArrayDeque<>();
+        private boolean busy;
+    }
+
+    private final Map<LaneKey, Lane> lanes = new ConcurrentHashMap<>();
+    private final CitizensMetrics metrics;
+    private final ExecutorService workers;
+    private final ScheduledThreadPoolExecutor timer;
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicInteger delayed = new AtomicInteger();
+
+    public CitizenActionPipeline(@Nonnull CitizensMetrics metrics, int threads) {
+        this.metrics = metrics;
+
+        AtomicInteger workerIds = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(Math.max(1, threads), runnable -> {
+            Thread thread = new Thread(runnable, "hycitizens-actions-" + workerIds.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        this.timer = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "hycitizens-action-timer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.timer.setRemoveOnCancelPolicy(true);
+    }
+
+    public void submit(@Nonnull String citizenId, @Nonnull UUID playerUuid, @Nonnull Channel channel,
+                       @Nonnull List<Action> actions) {
+        if (actions.isEmpty()) {
+            return;
+        }
+
+        metrics.add("actions.submitted", actions.size());
+        advance(new Chain(new LaneKey(citizenId, playerUuid, channel), List.copyOf(actions)), 0);
+        publishDepth();
+    }
+
+    public int getQueuedCount() {
+        return queued.get();
+    }
+
+    public int getDelayedCount() {
+        return delayed.get();
+    }
+
+    public int getLaneCount() {
+        return lanes.size();
+    }
+
+    public void shutdown() {
+        timer.shutdownNow();
+        workers.shutdownNow();
+        lanes.clear();
+        queued.set(0);
+        delayed.set(0);
+    }
+
+    private void advance(@Nonnull Chain chain, int index) {
+        if (index >= chain.actions.size()) {
+            return;
+        }
+
+        long delayMs = chain.actions.get(index).delayMs;
+        if (delayMs <= 0L) {
+            enqueue(chain, index);
+            return;
+        }
+
+        delayed.incrementAndGet();
+        try {
+            timer.schedule(() -> {
+                delayed.decrementAndGet();
+                enqueue(chain, index);
+            }, delayMs, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            delayed.decrementAndGet();
+        }
+    }
+
+    private void enqueue(@Nonnull Chain chain, int index) {
+        Step step = new Step(chain, index, System.nanoTime());
+        while (true) {
+            Lane lane = lanes.computeIfAbsent(chain.laneKey, k -> new Lane());
+            synchronized (lane) {
+                // A lane that emptied out may have been unmapped between the lookup and the lock
+                if (lanes.get(chain.laneKey) != lane) {
+                    continue;
+                }
+
+                lane.ready.add(step);
+                queued.incrementAndGet();
+                if (lane.busy) {
+                    return;
+                }
+                lane.busy = true;
+            }
+
+            dispatch(chain.laneKey, lane);
+            return;
+        }
+    }
+
+    private void dispatch(@Nonnull LaneKey laneKey, @Nonnull Lane lane) {
+        try {
+            workers.execute(() -> runNext(laneKey, lane));
+        } catch (RejectedExecutionException e) {
+            synchronized (lane) {
+                queued.addAndGet(-lane.ready.size());
+                lane.ready.clear();
+                lane.busy = false;
+            }
+        }
+    }
+
+    private void runNext(@Nonnull LaneKey laneKey, @Nonnull Lane lane) {
+        Step step;
+        synchronized (lane) {
+            step = lane.ready.poll();
+            if (step == null) {
+                lane.busy = false;
+                lanes.remove(laneKey, lane);
+                return;
+            }
+        }
+        queued.decrementAndGet();
+        metrics.add("actions.latency-nanos", System.nanoTime() - step.readyAtNanos);
+        publishDepth();
+
+        CompletableFuture<Void> execution = start(step);
+        if (!execution.isDone()) {
+            // Commands hold the lane until the command manager reports back, or until the timeout gives up on them.
+            // The timeout goes on a copy: the command's own future must only complete when the command does, since
+            // whatever hangs off it (temporary permissions, for one) would otherwise be undone mid-command.
+            execution = execution.copy().orTimeout(ACTION_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        }
+        execution.whenComplete((ignored, throwable) -> finish(step, laneKey, lane, throwable));
+    }
+
+    @Nonnull
+    private CompletableFuture<Void> start(@Nonnull Step step) {
+        try {
+            CompletableFuture<Void> execution = step.chain.actions.get(step.index).task.get();
+            return execution != null ? execution : CompletableFuture.completedFuture(null);
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private void finish(@Nonnull Step step, @Nonnull LaneKey laneKey, @Nonnull Lane lane, @Nullable Throwable throwable) {
+        metrics.increment("actions.executed");
+        if (throwable != null) {
+            metrics.increment("actions.failed");
+            getLogger().atWarning().log("Citizen action failed for player " + laneKey.playerUuid() + ": " + throwable.getMessage());
+        }
+
+        advance(step.chain, step.index + 1);
+        dispatch(laneKey, lane);
+    }
+
+    private void publishDepth() {
+        metrics.set("actions.queued", queued.get());
+        metrics.set("actions.delayed", delayed.get());
+        metrics.set("actions.lanes", lanes.size());
+    }
+}
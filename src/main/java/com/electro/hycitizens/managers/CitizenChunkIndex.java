@@ -0,0 +1,244 @@
+package com.electro.hycitizens.managers;
+
+import com.electro.hycitizens.models.CitizenData;
+import com.hypixel.hytale.math.util.ChunkUtil;
+import com.hypixel.hytale.math.vector.Vector3d;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class CitizenChunkIndex {
+    private static final class IndexedLocation {
+        private final UUID worldUUID;
+        private final long currentChunkIndex;
+        private final long baseChunkIndex;
+
+        private IndexedLocation(@Nonnull UUID worldUUID, long currentChunkIndex, long baseChunkIndex) {
+            this.worldUUID = worldUUID;
+            this.currentChunkIndex = currentChunkIndex;
+            this.baseChunkIndex = baseChunkIndex;
+        }
+
+        private boolean matches(@Nonnull UUID worldUUID, long currentChunkIndex, long baseChunkIndex) {
+            return this.currentChunkIndex == currentChunkIndex
+                    && this.baseChunkIndex == baseChunkIndex
+                    && this.worldUUID.equals(worldUUID);
+        }
+    }
+
+    // Citizens are indexed under both their live chunk and their spawn chunk, since either one loading
+    // can be what brings the citizen back
+    private final Map<UUID, Map<Long, Set<CitizenData>>> citizensByWorldChunk = new ConcurrentHashMap<>();
+    private final Map<String, IndexedLocation> locations = new ConcurrentHashMap<>();
+
+    public void update(@Nonnull CitizenData citizen) {
+        UUID worldUUID = citizen.getWorldUUID();
+        Vector3d basePosition = citizen.getPosition();
+        if (worldUUID == null || basePosition == null) {
+            remove(citizen);
+            return;
+        }
+
+        Vector3d currentPosition = citizen.getCurrentPosition() != null ? citizen.getCurrentPosition() : basePosition;
+        long currentChunkIndex = ChunkUtil.indexChunkFromBlock(currentPosition.x, currentPosition.z);
+        long baseChunkIndex = ChunkUtil.indexChunkFromBlock(basePosition.x, basePosition.z);
+
+        // Most calls come from the per-tick position tracking and land in the same chunk
+        IndexedLocation existing = locations.get(citizen.getId());
+        if (existing != null && existing.matches(worldUUID, currentChunkIndex, baseChunkIndex)) {
+            return;
+        }
+
+        synchronized (this) {
+            IndexedLocation previous = locations.put(citizen.getId(),
+                    new IndexedLocation(worldUUID, currentChunkIndex, baseChunkIndex));
+            if (previous != null) {
+                unlink(citizen, previous);
+            }
+
+            Map<Long, Set<CitizenData>> chunks = citizensByWorldChunk.computeIfAbsent(worldUUID, k -> new ConcurrentHashMap<>());
+            chunks.computeIfAbsent(currentChunkIndex, k -> ConcurrentHashMap.newKeySet()).add(citizen);
+            chunks.computeIfAbsent(baseChunkIndex, k -> ConcurrentHashMap.newKeySet()).add(citizen);
+        }
+    }
+
+    public synchronized void remove(@Nonnull CitizenData citizen) {
+        IndexedLocation previous = locations.remove(citizen.getId());
+        if (previous != null) {
+            unlink(citizen, previous);
+        }
+    }
+
+    public synchronized void clear() {
+        citizensByWorldChunk.clear();
+        locations.clear();
+    }
+
+    private void unlink(@Nonnull CitizenData citizen, @Nonnull IndexedLocation location) {
+        Map<Long, Set<CitizenData>> chunks = citizensByWorldChunk.get(location.worldUUID);
+        if (chunks == null) {
+            return;
+        }
+
+        unlinkChunk(chunks, location.currentChunkIndex, citizen);
+        unlinkChunk(chunks, location.baseChunkIndex, citizen);
+
+        if (chunks.isEmpty()) {
+            citizensByWorldChunk.remove(location.worldUUID, chunks);
+        }
+    }
+
+    private void unlinkChunk(@Nonnull Map<Long, Set<CitizenData>> chunks, long chunkIndex, @Nonnull CitizenData citizen) {
+        Set<CitizenData> chunkCitizens = chunks.get(chunkIndex);
+        if (chunkCitizens == null) {
+            return;
+        }
+
+        chunkCitizens.remove(citizen);
+        if (chunkCitizens.isEmpty()) {
+            chunks.remove(chunkIndex, chunkCitizens);
+        }
+    }
+
+    @Nonnull
+    public Set<CitizenData> getCitizensInChunk(@Nonnull UUID worldUUID, long chunkIndex) {
+        Map<Long, Set<CitizenData>> chunks = citizensByWorldChunk.get(worldUUID);
+        if (chunks == null) {
+            return Collections.emptySet();
+        }
+
+        Set<CitizenData> chunkCitizens = chunks.get(chunkIndex);
+        return chunkCitizens != null ? Collections.unmodifiableSet(chunkCitizens) : Collections.emptySet();
+    }
+
+    @Nonnull
+    public List<CitizenData> getCitizensNear(@Nullable UUID worldUUID, @Nonnull Vector3d position, double maxDistance) {
+        List<CitizenData> nearby = new ArrayList<>();
+        // NaN matches nothing, same as the distance comparison would; an infinite radius means the whole world
+        if (Double.isNaN(maxDistance) || maxDistance < 0
+                || Double.isNaN(position.x) || Double.isNaN(position.y) || Double.isNaN(position.z)) {
+            return nearby;
+        }
+        if (maxDistance == Double.POSITIVE_INFINITY) {
+            collectAll(worldUUID, nearby);
+            return nearby;
+        }
+        if (!Double.isFinite(position.x) || !Double.isFinite(position.z)) {
+            return nearby;
+        }
+
+        // Chunks the search square overlaps; past the number of indexed chunks it is cheaper to visit those instead
+        double chunkSpan = Math.floor(maxDistance * 2.0 / ChunkUtil.SIZE) + 2.0;
+        double chunksInRange = chunkSpan * chunkSpan;
+        Set<Long> chunkIndexes = null;
+        Set<CitizenData> candidates = new LinkedHashSet<>();
+
+        Iterable<Map<Long, Set<CitizenData>>> worlds = worldUUID != null
+                ? Collections.singletonList(citizensByWorldChunk.get(worldUUID))
+                : citizensByWorldChunk.values();
+        for (Map<Long, Set<CitizenData>> chunks : worlds) {
+            if (chunks == null) {
+                continue;
+            }
+
+            if (chunksInRange > chunks.size()) {
+                for (Set<CitizenData> chunkCitizens : chunks.values()) {
+                    candidates.addAll(chunkCitizens);
+                }
+                continue;
+            }
+
+            if (chunkIndexes == null) {
+                chunkIndexes = getChunkIndexesInRange(position, maxDistance);
+            }
+            collectCandidates(chunks, chunkIndexes, candidates);
+        }
+
+        double maxDistSq = maxDistance * maxDistance;
+        for (CitizenData citizen : candidates) {
+            Vector3d citizenPos = citizen.getPosition();
+
+            double dx = citizenPos.x - position.x;
+            double dy = citizenPos.y - position.y;
+            double dz = citizenPos.z - position.z;
+
+            if (dx * dx + dy * dy + dz * dz <= maxDistSq) {
+                nearby.add(citizen);
+            }
+        }
+
+        return nearby;
+    }
+
+    private void collectAll(@Nullable UUID worldUUID, @Nonnull List<CitizenData> nearby) {
+        Iterable<Map<Long, Set<CitizenData>>> worlds = worldUUID != null
+                ? Collections.singletonList(citizensByWorldChunk.get(worldUUID))
+                : citizensByWorldChunk.values();
+        Set<CitizenData> all = new LinkedHashSet<>();
+        for (Map<Long, Set<CitizenData>> chunks : worlds) {
+            if (chunks == null) {
+                continue;
+            }
+            for (Set<CitizenData> chunkCitizens : chunks.values()) {
+                all.addAll(chunkCitizens);
+            }
+        }
+        nearby.addAll(all);
+    }
+
+    private void collectCandidates(@Nonnull Map<Long, Set<CitizenData>> chunks,
+                                   @Nonnull Set<Long> chunkIndexes,
+                                   @Nonnull Set<CitizenData> candidates) {
+        for (long chunkIndex : chunkIndexes) {
+            Set<CitizenData> chunkCitizens = chunks.get(chunkIndex);
+            if (chunkCitizens != null) {
+                candidates.addAll(chunkCitizens);
+            }
+        }
+    }
+
+    @Nonnull
+    private Set<Long> getChunkIndexesInRange(@Nonnull Vector3d position, double maxDistance) {
+        Set<Long> chunkIndexes = new LinkedHashSet<>();
+        double minX = position.x - maxDistance;
+        double maxX = position.x + maxDistance;
+        double minZ = position.z - maxDistance;
+        double maxZ = position.z + maxDistance;
+
+        // Step by one chunk width and always include the far edge so every overlapped chunk is visited
+        for (double x = minX; ; x += ChunkUtil.SIZE) {
+            double sampleX = Math.min(x, maxX);
+            for (double z = minZ; ; z += ChunkUtil.SIZE) {
+                double sampleZ = Math.min(z, maxZ);
+                chunkIndexes.add(ChunkUtil.indexChunkFromBlock(sampleX, sampleZ));
+                if (sampleZ >= maxZ) {
+                    break;
+                }
+            }
+
+            if (sampleX >= maxX) {
+                break;
+            }
+        }
+
+        return chunkIndexes;
+    }
+
+    @Nullable
+    public long[] getIndexedChunks(@Nonnull CitizenData citizen) {
+        IndexedLocation location = locations.get(citizen.getId());
+        if (location == null) {
+            return null;
+        }
+
+        return new long[] { location.currentChunkIndex, location.baseChunkIndex };
+    }
+}
@@ -0,0 +1,84 @@
+package com.electro.hycitizens.managers;
+
+import com.hypixel.hytale.component.Ref;
+import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Live citizen NPC and nametag refs keyed by citizen id, kept current by the duplicate-prevention ref systems as
+// entities enter and leave the store, so resolving a citizen's entity never needs a store scan
+public class CitizenEntityIndex {
+    private static final String ROLE_PREFIX = "HyCitizens_";
+
+    private final Map<String, Ref<EntityStore>> npcRefs = new ConcurrentHashMap<>();
+    private final Map<Ref<EntityStore>, String> npcKeysByRef = new ConcurrentHashMap<>();
+    private final Map<String, Ref<EntityStore>> nametagRefs = new ConcurrentHashMap<>();
+
+    @Nullable
+    public Ref<EntityStore> getNpcRef(@Nonnull String citizenId) {
+        Ref<EntityStore> ref = npcRefs.get(citizenId);
+        return ref != null && ref.isValid() ? ref : null;
+    }
+
+    public void putNpcRef(@Nonnull String citizenKey, @Nonnull Ref<EntityStore> ref) {
+        Ref<EntityStore> previous = npcRefs.put(citizenKey, ref);
+        if (previous != null && !previous.equals(ref)) {
+            npcKeysByRef.remove(previous, citizenKey);
+        }
+        npcKeysByRef.put(ref, citizenKey);
+    }
+
+    // Returns the key the ref was indexed under, or null if it was never indexed or has been superseded
+    @Nullable
+    public String removeNpcRef(@Nonnull Ref<EntityStore> ref) {
+        String citizenKey = npcKeysByRef.remove(ref);
+        if (citizenKey == null) {
+            return null;
+        }
+        return npcRefs.remove(citizenKey, ref) ? citizenKey : null;
+    }
+
+    @Nullable
+    public Ref<EntityStore> getNametagRef(@Nonnull String citizenId, int lineIndex) {
+        Ref<EntityStore> ref = nametagRefs.get(nametagKey(citizenId, lineIndex));
+        return ref != null && ref.isValid() ? ref : null;
+    }
+
+    public void putNametagRef(@Nonnull String citizenId, int lineIndex, @Nonnull Ref<EntityStore> ref) {
+        nametagRefs.put(nametagKey(citizenId, lineIndex), ref);
+    }
+
+    public void removeNametagRef(@Nonnull String citizenId, int lineIndex, @Nonnull Ref<EntityStore> ref) {
+        nametagRefs.remove(nametagKey(citizenId, lineIndex), ref);
+    }
+
+    public int getNpcCount() {
+        return npcRefs.size();
+    }
+
+    public int getNametagCount() {
+        return nametagRefs.size();
+    }
+
+    // Generated roles are named HyCitizens_<citizenId>_Role, and citizen ids never contain an underscore
+    @Nullable
+    public static String extractCitizenIdFromRoleName(@Nullable String roleName) {
+        if (roleName == null || !roleName.startsWith(ROLE_PREFIX)) {
+            return null;
+        }
+
+        int end = roleName.indexOf('_', ROLE_PREFIX.length());
+        if (end <= ROLE_PREFIX.length()) {
+            return null;
+        }
+        return roleName.substring(ROLE_PREFIX.length(), end);
+    }
+
+    @Nonnull
+    private static String nametagKey(@Nonnull String citizenId, int lineIndex) {
+        return citizenId + ":" + lineIndex;
+    }
+}
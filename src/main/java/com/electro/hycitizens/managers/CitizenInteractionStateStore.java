@@ -0,0 +1,194 @@
+package com.electro.hycitizens.managers;
+
+import javax.annotation.Nonnull;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Transient per-player interaction state for every citizen, held per player rather than per citizen so a player
+// who leaves can be dropped in one step. Each (citizen, player) pair is a single int[] of sequential cursors plus a
+// flag word. Players who disconnect keep their cursors until they have been idle for the eviction window.
+public class CitizenInteractionStateStore {
+    public enum Cursor {
+        MESSAGE,
+        COMMAND,
+        DEATH_MESSAGE,
+        DEATH_COMMAND,
+        FIRST_MESSAGE,
+        FIRST_COMMAND
+    }
+
+    private static final int FLAGS_SLOT = Cursor.values().length;
+    private static final int SLOT_COUNT = FLAGS_SLOT + 1;
+    private static final int FLAG_IN_PROXIMITY = 1;
+
+    private static final class PlayerState {
+        private final Map<String, int[]> byCitizen = new HashMap<>();
+        private volatile long lastActiveAt;
+        private volatile long offlineSince;
+        // Set under the state's lock once it has been unmapped, so a touch that raced the eviction retries
+        private boolean evicted;
+    }
+
+    private final Map<UUID, PlayerState> players = new ConcurrentHashMap<>();
+
+    // Returns the cursor's current value and moves it forward by step
+    public int advance(@Nonnull String citizenId, @Nonnull UUID playerUuid, @Nonnull Cursor cursor, int step) {
+        PlayerState state = touch(playerUuid);
+        synchronized (state) {
+            int[] slots = state.byCitizen.computeIfAbsent(citizenId, k -> new int[SLOT_COUNT]);
+            int current = slots[cursor.ordinal()];
+            slots[cursor.ordinal()] = current + step;
+            return current;
+        }
+    }
+
+    public boolean isInProximity(@Nonnull String citizenId, @Nonnull UUID playerUuid) {
+        PlayerState state = players.get(playerUuid);
+        if (state == null) {
+            return false;
+        }
+        synchronized (state) {
+            int[] slots = state.byCitizen.get(citizenId);
+            return slots != null && (slots[FLAGS_SLOT] & FLAG_IN_PROXIMITY) != 0;
+        }
+    }
+
+    public void setInProximity(@Nonnull String citizenId, @Nonnull UUID playerUuid, boolean inProximity) {
+        PlayerState state = inProximity ? touch(playerUuid) : players.get(playerUuid);
+        if (state == null) {
+            return;
+        }
+        synchronized (state) {
+            int[] slots = inProximity
+                    ? state.byCitizen.computeIfAbsent(citizenId, k -> new int[SLOT_COUNT])
+                    : state.byCitizen.get(citizenId);
+            if (slots == null) {
+                return;
+            }
+            if (inProximity) {
+                slots[FLAGS_SLOT] |= FLAG_IN_PROXIMITY;
+            } else {
+                slots[FLAGS_SLOT] &= ~FLAG_IN_PROXIMITY;
+                dropIfEmpty(state, citizenId, slots);
+            }
+        }
+    }
+
+    // Proximity only means something while the player is connected; the cursors are kept for a quick rejoin
+    public void markOffline(@Nonnull UUID playerUuid, long now) {
+        PlayerState state = players.get(playerUuid);
+        if (state == null) {
+            return;
+        }
+        synchronized (state) {
+            Iterator<Map.Entry<String, int[]>> it = state.byCitizen.entrySet().iterator();
+            while (it.hasNext()) {
+                int[] slots = it.next().getValue();
+                slots[FLAGS_SLOT] = 0;
+                if (isEmpty(slots)) {
+                    it.remove();
+                }
+            }
+            state.offlineSince = now;
+            if (state.byCitizen.isEmpty() && players.remove(playerUuid, state)) {
+                state.evicted = true;
+            }
+        }
+    }
+
+    public void removeCitizen(@Nonnull String citizenId) {
+        for (PlayerState state : players.values()) {
+            synchronized (state) {
+                state.byCitizen.remove(citizenId);
+            }
+        }
+    }
+
+    public void resetCursor(@Nonnull String citizenId, @Nonnull Cursor cursor) {
+        for (PlayerState state : players.values()) {
+            synchronized (state) {
+                int[] slots = state.byCitizen.get(citizenId);
+                if (slots != null) {
+                    slots[cursor.ordinal()] = 0;
+                    dropIfEmpty(state, citizenId, slots);
+                }
+            }
+        }
+    }
+
+    // Drops players who went offline and have not interacted with anything for at least idleMs
+    public int evictIdle(long now, long idleMs) {
+        int evicted = 0;
+        for (Map.Entry<UUID, PlayerState> entry : players.entrySet()) {
+            PlayerState state = entry.getValue();
+            if (!isIdle(state, now, idleMs)) {
+                continue;
+            }
+
+            // Re-checked under the lock so a player who came back since the first look is kept
+            synchronized (state) {
+                if (isIdle(state, now, idleMs) && players.remove(entry.getKey(), state)) {
+                    state.evicted = true;
+                    evicted++;
+                }
+            }
+        }
+        return evicted;
+    }
+
+    public int getPlayerCount() {
+        return players.size();
+    }
+
+    public int getEntryCount() {
+        int count = 0;
+        for (PlayerState state : players.values()) {
+            synchronized (state) {
+                count += state.byCitizen.size();
+            }
+        }
+        return count;
+    }
+
+    public void clear() {
+        players.clear();
+    }
+
+    @Nonnull
+    private PlayerState touch(@Nonnull UUID playerUuid) {
+        while (true) {
+            PlayerState state = players.computeIfAbsent(playerUuid, k -> new PlayerState());
+            synchronized (state) {
+                if (state.evicted) {
+                    continue;
+                }
+                state.lastActiveAt = System.currentTimeMillis();
+                state.offlineSince = 0L;
+                return state;
+            }
+        }
+    }
+
+    private static boolean isIdle(@Nonnull PlayerState state, long now, long idleMs) {
+        long offlineSince = state.offlineSince;
+        return offlineSince > 0L && now - offlineSince >= idleMs && now - state.lastActiveAt >= idleMs;
+    }
+
+    private static void dropIfEmpty(@Nonnull PlayerState state, @Nonnull String citizenId, @Nonnull int[] slots) {
+        if (isEmpty(slots)) {
+            state.byCitizen.remove(citizenId);
+        }
+    }
+
+    private static boolean isEmpty(@Nonnull int[] slots) {
+        for (int slot : slots) {
+            if (slot != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,222 @@
+package com.electro.hycitizens.managers;
+
+import com.electro.hycitizens.models.AnimationBehaviorTable;
+import com.electro.hycitizens.models.CitizenData;
+import com.electro.hycitizens.util.CitizensMetrics;
+import com.electro.hycitizens.util.ConfigManager;
+import com.hypixel.hytale.math.vector.Vector3d;
+
+import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class CitizenLodManager {
+    public static final double DEFAULT_NEAR_DISTANCE = 16.0;
+    public static final double DEFAULT_MID_DISTANCE = 48.0;
+    public static final double DEFAULT_FAR_DISTANCE = 96.0;
+
+    public enum Behavior {
+        LOOK_AT("look-at", true, 1, 2, 5, 0),
+        PROXIMITY_ANIMATIONS("proximity-animations", true, 1, 2, 5, 0),
+        NAMETAG_FOLLOW("nametag-follow", false, 1, 2, 4, 0),
+        DEFAULT_ANIMATIONS("default-animations", false, 1, 1, 3, 0),
+        HEALTH_REGEN("health-regen", false, 1, 1, 2, 5);
+
+        private final String configKey;
+        // Reacts to players within a range the citizen sets itself, which can reach past far-distance
+        private final boolean rangeBound;
+        private final int[] defaultStrides;
+
+        Behavior(@Nonnull String configKey, boolean rangeBound, int near, int mid, int far, int noObservers) {
+            this.configKey = configKey;
+            this.rangeBound = rangeBound;
+            this.defaultStrides = new int[] { near, mid, far, noObservers };
+        }
+    }
+
+    private final Map<String, CitizenLodTier> tiers = new ConcurrentHashMap<>();
+    // NO_OBSERVERS citizens whose world does have players, just none within far-distance of them
+    private final Set<String> playersBeyondFar = ConcurrentHashMap.newKeySet();
+    private volatile boolean enabled = true;
+    private volatile double nearDistanceSq = DEFAULT_NEAR_DISTANCE * DEFAULT_NEAR_DISTANCE;
+    private volatile double midDistanceSq = DEFAULT_MID_DISTANCE * DEFAULT_MID_DISTANCE;
+    private volatile double farDistance = DEFAULT_FAR_DISTANCE;
+    // Indexed [tier][behavior]; a behaviour runs on every Nth pass of its phase, and 0 suspends it
+    private volatile int[][] strides = defaultStrides();
+
+    public void load(@Nonnull ConfigManager config) {
+        enabled = config.getBoolean("settings.lod.enabled", true);
+
+        double near = Math.max(0.0, config.getDouble("settings.lod.near-distance", DEFAULT_NEAR_DISTANCE));
+        double mid = Math.max(near, config.getDouble("settings.lod.mid-distance", DEFAULT_MID_DISTANCE));
+        double far = Math.max(mid, config.getDouble("settings.lod.far-distance", DEFAULT_FAR_DISTANCE));
+        nearDistanceSq = near * near;
+        midDistanceSq = mid * mid;
+        farDistance = far;
+
+        int[][] loaded = defaultStrides();
+        for (CitizenLodTier tier : CitizenLodTier.values()) {
+            for (Behavior behavior : Behavior.values()) {
+                String path = "settings.lod." + tier.getConfigKey() + "." + behavior.configKey;
+                loaded[tier.ordinal()][behavior.ordinal()] = Math.max(0, config.getInt(path, loaded[tier.ordinal()][behavior.ordinal()]));
+            }
+        }
+        strides = loaded;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Nonnull
+    public CitizenLodTier getTier(@Nonnull String citizenId) {
+        if (!enabled) {
+            return CitizenLodTier.NEAR;
+        }
+
+        // Citizens that have not been classified yet behave as if someone is standing next to them
+        return tiers.getOrDefault(citizenId, CitizenLodTier.NEAR);
+    }
+
+    public int getStride(@Nonnull CitizenLodTier tier, @Nonnull Behavior behavior) {
+        return strides[tier.ordinal()][behavior.ordinal()];
+    }
+
+    public boolean shouldRun(@Nonnull CitizenData citizen, @Nonnull Behavior behavior, long run) {
+        CitizenLodTier tier = getTier(citizen.getId());
+        // A player past far-distance can still be inside a long look-at or proximity range; those citizens run at
+        // the far stride rather than going quiet on a player they should be reacting to
+        if (tier == CitizenLodTier.NO_OBSERVERS && behavior.rangeBound && playersBeyondFar.contains(citizen.getId())
+                && getRange(citizen, behavior) > farDistance) {
+            tier = CitizenLodTier.FAR;
+        }
+
+        int stride = getStride(tier, behavior);
+        if (stride <= 0) {
+            return false;
+        }
+        if (stride == 1) {
+            return true;
+        }
+
+        // Offset by citizen so a crowd sharing a tier is spread across passes instead of all landing on one
+        return Math.floorMod(run + citizen.getId().hashCode(), (long) stride) == 0L;
+    }
+
+    public void classify(@Nonnull Collection<CitizenData> worldCitizens, @Nonnull List<Vector3d> playerPositions) {
+        if (playerPositions.isEmpty()) {
+            markUnobserved(worldCitizens);
+            return;
+        }
+
+        // Bucket players into cells one far-distance wide so each citizen only checks the 3x3 around it
+        double cellSize = Math.max(1.0, farDistance);
+        double farDistanceSq = farDistance * farDistance;
+        Map<Long, List<Vector3d>> cells = new HashMap<>();
+        for (Vector3d playerPos : playerPositions) {
+            cells.computeIfAbsent(cellKey(Math.floor(playerPos.x / cellSize), Math.floor(playerPos.z / cellSize)),
+                    k -> new ArrayList<>()).add(playerPos);
+        }
+
+        for (CitizenData citizen : worldCitizens) {
+            Vector3d citizenPos = citizen.getCurrentPosition() != null ? citizen.getCurrentPosition() : citizen.getPosition();
+            double cellX = Math.floor(citizenPos.x / cellSize);
+            double cellZ = Math.floor(citizenPos.z / cellSize);
+
+            double nearestSq = Double.MAX_VALUE;
+            for (int offsetX = -1; offsetX <= 1; offsetX++) {
+                for (int offsetZ = -1; offsetZ <= 1; offsetZ++) {
+                    List<Vector3d> cellPlayers = cells.get(cellKey(cellX + offsetX, cellZ + offsetZ));
+                    if (cellPlayers == null) {
+                        continue;
+                    }
+
+                    for (Vector3d playerPos : cellPlayers) {
+                        double dx = playerPos.x - citizenPos.x;
+                        double dy = playerPos.y - citizenPos.y;
+                        double dz = playerPos.z - citizenPos.z;
+                        nearestSq = Math.min(nearestSq, dx * dx + dy * dy + dz * dz);
+                    }
+                }
+            }
+
+            CitizenLodTier tier;
+            if (nearestSq <= nearDistanceSq) {
+                tier = CitizenLodTier.NEAR;
+            } else if (nearestSq <= midDistanceSq) {
+                tier = CitizenLodTier.MID;
+            } else if (nearestSq <= farDistanceSq) {
+                tier = CitizenLodTier.FAR;
+            } else {
+                tier = CitizenLodTier.NO_OBSERVERS;
+            }
+            tiers.put(citizen.getId(), tier);
+            if (tier == CitizenLodTier.NO_OBSERVERS) {
+                playersBeyondFar.add(citizen.getId());
+            } else {
+                playersBeyondFar.remove(citizen.getId());
+            }
+        }
+    }
+
+    public void markUnobserved(@Nonnull Collection<CitizenData> worldCitizens) {
+        for (CitizenData citizen : worldCitizens) {
+            tiers.put(citizen.getId(), CitizenLodTier.NO_OBSERVERS);
+            playersBeyondFar.remove(citizen.getId());
+        }
+    }
+
+    public void recordMetrics(@Nonnull CitizensMetrics metrics) {
+        long[] counts = new long[CitizenLodTier.values().length];
+        for (CitizenLodTier tier : tiers.values()) {
+            counts[tier.ordinal()]++;
+        }
+
+        for (CitizenLodTier tier : CitizenLodTier.values()) {
+            metrics.set("lod." + tier.getConfigKey(), counts[tier.ordinal()]);
+        }
+    }
+
+    public void remove(@Nonnull String citizenId) {
+        tiers.remove(citizenId);
+        playersBeyondFar.remove(citizenId);
+    }
+
+    public void clear() {
+        tiers.clear();
+        playersBeyondFar.clear();
+    }
+
+    private static double getRange(@Nonnull CitizenData citizen, @Nonnull Behavior behavior) {
+        if (behavior == Behavior.LOOK_AT) {
+            return citizen.getLookAtDistance();
+        }
+
+        AnimationBehaviorTable table = citizen.getAnimationTable();
+        double maxRangeSq = 0.0;
+        for (int i = 0; i < table.getProximityCount(); i++) {
+            maxRangeSq = Math.max(maxRangeSq, table.getProximityRangeSq(i));
+        }
+        return Math.sqrt(maxRangeSq);
+    }
+
+    private static long cellKey(double cellX, double cellZ) {
+        return (((long) cellX) << 32) ^ (((long) cellZ) & 0xFFFFFFFFL);
+    }
+
+    @Nonnull
+    private static int[][] defaultStrides() {
+        int[][] defaults = new int[CitizenLodTier.values().length][Behavior.values().length];
+        for (Behavior behavior : Behavior.values()) {
+            for (CitizenLodTier tier : CitizenLodTier.values()) {
+                defaults[tier.ordinal()][behavior.ordinal()] = behavior.defaultStrides[tier.ordinal()];
+            }
+        }
+        return defaults;
+    }
+}
@@ -0,0 +1,21 @@
+package com.electro.hycitizens.managers;
+
+import javax.annotation.Nonnull;
+
+public enum CitizenLodTier {
+    NEAR("near"),
+    MID("mid"),
+    FAR("far"),
+    NO_OBSERVERS("no-observers");
+
+    private final String configKey;
+
+    CitizenLodTier(@Nonnull String configKey) {
+        this.configKey = configKey;
+    }
+
+    @Nonnull
+    public String getConfigKey() {
+        return configKey;
+    }
+}
@@ -0,0 +1,192 @@
+package com.electro.hycitizens.managers;
+
+import com.electro.hycitizens.models.CitizenData;
+import com.electro.hycitizens.util.CitizensMetrics;
+import com.electro.hycitizens.util.ThreadedScheduler;
+import com.hypixel.hytale.server.core.universe.world.World;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static com.hypixel.hytale.logger.HytaleLogger.getLogger;
+
+public class CitizenTickEngine {
+    public static final long TICK_INTERVAL_MS = 15L;
+
+    public interface Phase {
+        void tick(@Nonnull TickContext context);
+    }
+
+    public interface CitizenPhase {
+        void tick(@Nonnull CitizenData citizen, @Nonnull TickContext context);
+    }
+
+    private static final class RegisteredPhase {
+        private final String name;
+        private final long periodMs;
+        private final Phase phase;
+        private final CitizenPhase citizenPhase;
+        private final String runsMetric;
+        private final String nanosMetric;
+        private final String worldNanosMetric;
+        private long nextRunAtMs;
+        private long runs;
+
+        private RegisteredPhase(@Nonnull String name, long initialDelayMs, long periodMs, Phase phase, CitizenPhase citizenPhase) {
+            this.name = name;
+            this.periodMs = Math.max(TICK_INTERVAL_MS, periodMs);
+            this.phase = phase;
+            this.citizenPhase = citizenPhase;
+            this.runsMetric = "tick.phase." + name + ".runs";
+            this.nanosMetric = "tick.phase." + name + ".nanos";
+            this.worldNanosMetric = "tick.phase." + name + ".world-nanos";
+            this.nextRunAtMs = System.currentTimeMillis() + Math.max(0L, initialDelayMs);
+        }
+    }
+
+    public static final class TickContext {
+        private final long now;
+        private final WorldTaskQueue worldTaskQueue;
+        private RegisteredPhase currentPhase;
+
+        private TickContext(long now, @Nonnull WorldTaskQueue worldTaskQueue) {
+            this.now = now;
+            this.worldTaskQueue = worldTaskQueue;
+        }
+
+        public long getNow() {
+            return now;
+        }
+
+        // How many times the running phase has come due, counting this one
+        public long getPhaseRun() {
+            return currentPhase != null ? currentPhase.runs : 0L;
+        }
+
+        // Queues world-thread work; the world's task queue drains it alongside everything else pending there
+        public void submit(@Nonnull World world, @Nonnull Runnable task) {
+            submit(world, task, null);
+        }
+
+        // onDropped runs in place of the task if its world unloads first
+        public void submit(@Nonnull World world, @Nonnull Runnable task, @Nullable Runnable onDropped) {
+            worldTaskQueue.enqueue(world, currentPhase != null ? currentPhase.worldNanosMetric : null, task, onDropped);
+        }
+
+        // Like submit, but a task from an earlier run of this phase still waiting on the world is replaced, not joined
+        public void submitLatest(@Nonnull World world, @Nonnull Runnable task) {
+            if (currentPhase == null) {
+                submit(world, task);
+                return;
+            }
+            worldTaskQueue.enqueueLatest(world, currentPhase.worldNanosMetric, currentPhase.name, task);
+        }
+    }
+
+    private final Supplier<Collection<CitizenData>> citizenSource;
+    private final CitizensMetrics metrics;
+    private final WorldTaskQueue worldTaskQueue;
+    private final List<RegisteredPhase> phases = new CopyOnWriteArrayList<>();
+    private final ThreadedScheduler scheduler = new ThreadedScheduler();
+
+    public CitizenTickEngine(@Nonnull Supplier<Collection<CitizenData>> citizenSource, @Nonnull CitizensMetrics metrics,
+                             @Nonnull WorldTaskQueue worldTaskQueue) {
+        this.citizenSource = citizenSource;
+        this.metrics = metrics;
+        this.worldTaskQueue = worldTaskQueue;
+    }
+
+    public void registerPhase(@Nonnull String name, long initialDelayMs, long periodMs, @Nonnull Phase phase) {
+        phases.add(new RegisteredPhase(name, initialDelayMs, periodMs, phase, null));
+    }
+
+    public void registerCitizenPhase(@Nonnull String name, long initialDelayMs, long periodMs, @Nonnull CitizenPhase phase) {
+        phases.add(new RegisteredPhase(name, initialDelayMs, periodMs, null, phase));
+    }
+
+    public void start() {
+        if (scheduler.isRunning()) {
+            return;
+        }
+
+        scheduler.scheduleAtFixedRate("citizens-tick", this::tick, TICK_INTERVAL_MS, TimeUnit.MILLISECONDS);
+    }
+
+    public void stop() {
+        scheduler.stop();
+    }
+
+    private void tick() {
+        long startNanos = System.nanoTime();
+        long now = System.currentTimeMillis();
+        TickContext context = new TickContext(now, worldTaskQueue);
+        List<RegisteredPhase> dueCitizenPhases = new ArrayList<>();
+
+        for (RegisteredPhase registered : phases) {
+            if (now < registered.nextRunAtMs) {
+                continue;
+            }
+
+            // Skip missed runs rather than bursting to catch up after a stall
+            registered.nextRunAtMs += registered.periodMs;
+            if (registered.nextRunAtMs <= now) {
+                registered.nextRunAtMs = now + registered.periodMs;
+            }
+            registered.runs++;
+            if (registered.citizenPhase != null) {
+                dueCitizenPhases.add(registered);
+                continue;
+            }
+
+            context.currentPhase = registered;
+            long start = System.nanoTime();
+            try {
+                registered.phase.tick(context);
+            } catch (Exception e) {
+                getLogger().atWarning().log("Citizens tick phase '" + registered.name + "' failed: " + e.getMessage());
+            }
+            recordPhase(registered, System.nanoTime() - start);
+        }
+
+        if (!dueCitizenPhases.isEmpty()) {
+            tickCitizenPhases(dueCitizenPhases, context);
+        }
+
+        metrics.add("tick.runs", 1L);
+        metrics.set("tick.last-duration-micros", (System.nanoTime() - startNanos) / 1000L);
+    }
+
+    private void tickCitizenPhases(@Nonnull List<RegisteredPhase> dueCitizenPhases, @Nonnull TickContext context) {
+        long[] phaseNanos = new long[dueCitizenPhases.size()];
+
+        // One pass over the citizens serves every phase that is due this tick
+        for (CitizenData citizen : citizenSource.get()) {
+            for (int i = 0; i < dueCitizenPhases.size(); i++) {
+                RegisteredPhase registered = dueCitizenPhases.get(i);
+                context.currentPhase = registered;
+                long start = System.nanoTime();
+                try {
+                    registered.citizenPhase.tick(citizen, context);
+                } catch (Exception e) {
+                    getLogger().atWarning().log("Citizens tick phase '" + registered.name + "' failed for citizen " + citizen.getId() + ": " + e.getMessage());
+                }
+                phaseNanos[i] += System.nanoTime() - start;
+            }
+        }
+
+        for (int i = 0; i < dueCitizenPhases.size(); i++) {
+            recordPhase(dueCitizenPhases.get(i), phaseNanos[i]);
+        }
+    }
+
+    private void recordPhase(@Nonnull RegisteredPhase registered, long elapsedNanos) {
+        metrics.add(registered.runsMetric, 1L);
+        metrics.add(registered.nanosMetric, elapsedNanos);
+    }
+}
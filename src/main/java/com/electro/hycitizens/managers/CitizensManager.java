@@ -13,11 +13,13 @@ import com.electro.hycitizens.events.CitizenRemovedEvent;
 import com.electro.hycitizens.events.CitizenRemovedListener;
 import com.electro.hycitizens.models.*;
 import com.electro.hycitizens.roles.RoleGenerator;
+import com.electro.hycitizens.util.CitizensMetrics;
 import com.electro.hycitizens.util.ConfigManager;
+import com.electro.hycitizens.util.ConfigSection;
+import com.electro.hycitizens.util.PositionJournal;
 import com.electro.hycitizens.util.SkinUtilities;
-import com.electro.hycitizens.util.ThreadedScheduler;
+import com.electro.hycitizens.util.TimerWheel;
 import com.hypixel.hytale.component.*;
-import com.hypixel.hytale.component.query.Query;
 import com.hypixel.hytale.math.util.ChunkUtil;
 import com.hypixel.hytale.math.vector.Vector3d;
 import com.hypixel.hytale.math.vector.Vector3f;
@@ -58,7 +60,9 @@ import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import static com.hypixel.hytale.logger.HytaleLogger.getLogger;
 
@@ -66,15 +70,44 @@ public class CitizensManager {
     private static final int MAX_PENDING_HOLOGRAM_REMOVAL_ATTEMPTS = 20;
     private static final int MAX_PENDING_NPC_REMOVAL_ATTEMPTS = 24;
     private static final float NAMETAG_OFFSET_EPSILON = 0.0001f;
-    private static final double NAMETAG_LINE_SPACING = 0.25;
+    public static final double NAMETAG_LINE_SPACING = 0.25;
     private static final long FOLLOW_TICK_INTERVAL_MS = 250L;
     private static final long WANDER_UNSTICK_TICK_INTERVAL_MS = 1_000L;
+    private static final long ROTATE_TICK_INTERVAL_MS = 60L;
+    private static final long LOD_TICK_INTERVAL_MS = 500L;
+    private static final long NPC_REF_RECONCILE_INTERVAL_MS = 1_000L;
+    private static final long NPC_REF_RECONCILE_MAX_BACKOFF_MS = 60_000L;
+    private static final long NPC_REF_RECONCILE_IN_FLIGHT_TIMEOUT_MS = 30_000L;
+    private static final long NPC_REF_SWEEP_INTERVAL_MS = 30_000L;
+    private static final long ANIMATION_TICK_INTERVAL_MS = 1_000L;
+    private static final long HEALTH_REGEN_TICK_INTERVAL_MS = 250L;
+    private static final long HEALTH_REGEN_RETRY_MS = 5_000L;
+    // Roughly one world tick; a pass is only queued once the previous one for that world has run
+    private static final long KNOCKBACK_LOCK_TICK_INTERVAL_MS = 30L;
+    private static final long KNOCKBACK_LOCK_DURATION_MS = 2_000L;
+    private static final long INTERACTION_STATE_EVICT_INTERVAL_MS = 60_000L;
+    private static final long WORLD_QUEUE_PRUNE_INTERVAL_MS = 10_000L;
+    private static final long DEFAULT_INTERACTION_STATE_IDLE_MS = 30L * 60L * 1000L;
+    private static final long POSITION_SAVE_INTERVAL_MS = 5_000L;
+    private static final long SKIN_UPDATE_INTERVAL_MS = 30L * 60L * 1000L;
+    private static final long SHUTDOWN_SAVE_TIMEOUT_MS = 10_000L;
+    private static final int DEFAULT_ROLE_WRITE_PARALLELISM = 4;
+    // Look-at updates are suppressed until the angle moves this far; farther players tolerate a coarser threshold
+    private static final float LOOK_THRESHOLD_BASE_RAD = 0.02f;
+    private static final float LOOK_THRESHOLD_PER_BLOCK_RAD = 0.004f;
+    private static final float LOOK_THRESHOLD_MAX_RAD = 0.12f;
+    private static final long POSITION_JOURNAL_COMPACT_INTERVAL_MS = 5L * 60L * 1000L;
+    private static final long POSITION_JOURNAL_COMPACT_BYTES = 1L << 20;
     private static final long WANDER_STUCK_TIMEOUT_MS = 35_000L;
     private static final long WANDER_RECOVERY_COOLDOWN_MS = 20_000L;
     private static final long LOOK_RESET_DELAY_MS = 3_000L;
+    private static final long TIMER_WHEEL_TICK_MS = 50L;
+    private static final int TIMER_WHEEL_SIZE = 512;
     private static final double WANDER_PROGRESS_DISTANCE_SQUARED = 0.64;
     private static final long NPC_SPAWN_RETRY_INTERVAL_MS = 50L;
     private static final int MAX_PENDING_NPC_SPAWN_RETRIES = 120;
+    private static final double MIN_PLAYER_CELL_SIZE = 8.0;
+    private static final double MAX_PLAYER_CELL_SIZE = 64.0;
 
     private static final class PendingHologramRemoval {
         private final long chunkIndex;
@@ -108,6 +141,15 @@ public class CitizensManager {
         private long lastRecoveryAtMs = 0L;
     }
 
+    private static final class NpcRefReconcileState {
+        private int failures;
+        private long nextAttemptAtMs;
+        // When the current attempt was handed to the world, or 0 when none is out; attempt tells a late finish
+        // from a stale attempt apart from the current one
+        private long inFlightSinceMs;
+        private long attempt;
+    }
+
     private final HyCitizensPlugin plugin;
     private final ConfigManager config;
     private final Map<String, CitizenData> citizens;
@@ -115,18 +157,15 @@ public class CitizensManager {
     private final List<CitizenRemovedListener> removedListeners = new ArrayList<>();
     private final List<CitizenInteractListener> interactListeners = new ArrayList<>();
     private final List<CitizenDeathListener> deathListeners = new ArrayList<>();
-    private ThreadedScheduler skinUpdateTask = new ThreadedScheduler();
-    private ThreadedScheduler rotateTask = new ThreadedScheduler();
-    private ThreadedScheduler nametagMoveTask = new ThreadedScheduler();
-    private ThreadedScheduler animationTask = new ThreadedScheduler();
-    private ThreadedScheduler healthRegenTask = new ThreadedScheduler();
-    private ThreadedScheduler npcRefReconcileTask = new ThreadedScheduler();
-    private ThreadedScheduler citizensByWorldTask = new ThreadedScheduler();
-    private final Map<UUID, List<CitizenData>> citizensByWorld = new HashMap<>();
+    // Copy-on-write snapshot of citizens with a bound NPC, republished whenever membership changes
+    private volatile Map<UUID, List<CitizenData>> citizensByWorld = Collections.emptyMap();
+    private final Map<String, UUID> citizenWorldRegistrations = new HashMap<>();
     private final Set<String> groups = new HashSet<>();
     private final Set<String> registeredNoLoopAnimations = ConcurrentHashMap.newKeySet();
     private final RoleGenerator roleGenerator;
-    private ScheduledFuture<?> positionSaveTask;
+    private final CitizensMetrics metrics = new CitizensMetrics();
+    private final WorldTaskQueue worldTaskQueue = new WorldTaskQueue(metrics, WorldTaskQueue.DEFAULT_DRAIN_BUDGET_MS);
+    private final CitizenTickEngine tickEngine = new CitizenTickEngine(() -> citizens.values(), metrics, worldTaskQueue);
     private final Set<String> citizensCurrentlySpawning = ConcurrentHashMap.newKeySet();
     private final Set<String> hologramsCurrentlySpawning = ConcurrentHashMap.newKeySet();
     private final Map<UUID, Map<UUID, PendingHologramRemoval>> pendingHologramRemovals = new ConcurrentHashMap<>();
@@ -134,40 +173,75 @@ public class CitizensManager {
     private final Set<String> pendingNpcRemovalTasks = ConcurrentHashMap.newKeySet();
     private final Set<UUID> pendingImmediateNpcDespawns = ConcurrentHashMap.newKeySet();
     private final Map<String, FollowSession> standaloneFollowSessions = new ConcurrentHashMap<>();
+    private final FollowFormationRegistry followFormations = new FollowFormationRegistry();
     private final Map<String, WanderRecoveryState> wanderRecoveryStates = new ConcurrentHashMap<>();
+    private final Map<String, NpcRefReconcileState> pendingNpcRefReconciles = new ConcurrentHashMap<>();
     private final Map<String, ScheduledFuture<?>> pendingNpcSpawnRetryTasks = new ConcurrentHashMap<>();
     private final Map<String, ScheduledFuture<?>> pendingRespawnTasks = new ConcurrentHashMap<>();
     private final Map<String, ScheduledFuture<?>> pendingTemporaryNametagRecoveryTasks = new ConcurrentHashMap<>();
+    private final Map<UUID, CitizenData> citizensBySpawnedUuid = new ConcurrentHashMap<>();
+    private final Map<Ref<EntityStore>, CitizenData> citizensByEntityRef = new ConcurrentHashMap<>();
+    private final Map<UUID, CitizenData> citizensByHologramUuid = new ConcurrentHashMap<>();
+    private final CitizenChunkIndex citizenChunkIndex = new CitizenChunkIndex();
+    private final CitizenEntityIndex entityIndex = new CitizenEntityIndex();
+    private final RotationPacketStats rotationPacketStats = new RotationPacketStats();
+    private final CitizenLodManager lodManager = new CitizenLodManager();
+    private final TimerWheel timerWheel = new TimerWheel(TIMER_WHEEL_TICK_MS, TIMER_WHEEL_SIZE);
+    private final HealthRegenQueue healthRegenQueue = new HealthRegenQueue();
+    private final KnockbackLockRegistry knockbackLocks = new KnockbackLockRegistry();
+    private final CitizenInteractionStateStore interactionState = new CitizenInteractionStateStore();
+    private final CitizenActionPipeline actionPipeline;
+    private final PositionJournal positionJournal;
+    private long lastPositionCompactionMs = System.currentTimeMillis();
+    private final AtomicBoolean positionCompactionInFlight = new AtomicBoolean(false);
     private PatrolManager patrolManager;
     private ScheduleManager scheduleManager;
-    private ThreadedScheduler followCitizenTask = new ThreadedScheduler();
-    private ThreadedScheduler movementUnstickTask = new ThreadedScheduler();
 
     public CitizensManager(@Nonnull HyCitizensPlugin plugin) {
         this.plugin = plugin;
         this.config = plugin.getConfigManager();
         this.citizens = new ConcurrentHashMap<>();
         this.roleGenerator = new RoleGenerator(plugin.getGeneratedRolesPath());
+        this.positionJournal = new PositionJournal(config.getDataFolder());
+        worldTaskQueue.setDrainBudgetMs(config.getLong("settings.world-task-budget-ms", WorldTaskQueue.DEFAULT_DRAIN_BUDGET_MS));
+        this.actionPipeline = new CitizenActionPipeline(metrics,
+                config.getInt("settings.action-pipeline-threads", CitizenActionPipeline.DEFAULT_THREADS));
+        lodManager.load(config);
 
         loadAllCitizens();
+        long phaseStart = System.nanoTime();
         startSkinUpdateScheduler();
+        startTimerWheel();
+        startLodScheduler();
         startRotateScheduler();
-        startCitizensByWorldScheduler();
         startNpcRefReconcileScheduler();
         startAnimationScheduler();
         startHealthRegenScheduler();
-        startNametagMoveScheduler();
+        startKnockbackLockScheduler();
+        startInteractionStateEvictionScheduler();
+        startWorldQueuePruneScheduler();
         startPositionSaveScheduler();
         this.patrolManager = new PatrolManager(plugin.getConfigManager(), this);
         startFollowCitizenScheduler();
         this.scheduleManager = new ScheduleManager(this);
         startMovementUnstickScheduler();
+        tickEngine.start();
+        phaseStart = logStartupPhase("schedulers", phaseStart);
         scheduleLoadedRespawns();
+        logStartupPhase("respawn-scheduling", phaseStart);
+    }
+
+    private long logStartupPhase(@Nonnull String phase, long startNanos) {
+        long now = System.nanoTime();
+        long elapsedMs = (now - startNanos) / 1_000_000L;
+        metrics.set("startup." + phase + "-ms", elapsedMs);
+        getLogger().atInfo().log("Startup phase '" + phase + "' took " + elapsedMs + " ms");
+        return now;
     }
 
     private void startSkinUpdateScheduler() {
-        skinUpdateTask.scheduleAtFixedRate("citizens-skin-update", () -> {
-            long currentTime = System.currentTimeMillis();
+        tickEngine.registerPhase("skin-update", SKIN_UPDATE_INTERVAL_MS, SKIN_UPDATE_INTERVAL_MS, context -> {
+            long currentTime = context.getNow();
             long thirtyMinutes = 30 * 60 * 1000;
 
             for (CitizenData citizen : citizens.values()) {
@@ -183,95 +257,78 @@ public class CitizensManager {
                     }
                 }
             }
-        }, 30, 30, TimeUnit.MINUTES);
+        });
     }
 
-    private void startRotateScheduler() {
-        rotateTask.scheduleAtFixedRate("citizens-rotate", () -> {
-            // Group citizens by world
-            Map<UUID, List<CitizenData>> snapshot;
-
-            synchronized (citizensByWorld) {
-                snapshot = new HashMap<>(citizensByWorld);
+    private void startTimerWheel() {
+        tickEngine.registerPhase("timers", TIMER_WHEEL_TICK_MS, TIMER_WHEEL_TICK_MS, context -> {
+            Map<UUID, List<TimerWheel.Timeout>> expired = timerWheel.advance(context.getNow());
+            metrics.set("timers.pending", timerWheel.getPendingCount());
+            if (expired.isEmpty()) {
+                return;
             }
 
-            // Process each world once
-            for (Map.Entry<UUID, List<CitizenData>> entry : snapshot.entrySet()) {
-                UUID worldUUID = entry.getKey();
-                List<CitizenData> worldCitizens = entry.getValue();
+            // One world task per world runs everything that came due there this tick
+            for (Map.Entry<UUID, List<TimerWheel.Timeout>> entry : expired.entrySet()) {
+                List<TimerWheel.Timeout> timeouts = entry.getValue();
+                metrics.add("timers.fired", timeouts.size());
 
-                World world = Universe.get().getWorld(worldUUID);
-                if (world == null)
-                    continue;
-
-                Collection<PlayerRef> players = world.getPlayerRefs();
-                if (players.isEmpty()) {
+                World world = entry.getKey() != null ? Universe.get().getWorld(entry.getKey()) : null;
+                if (world == null) {
+                    timeouts.forEach(TimerWheel.Timeout::cancel);
                     continue;
                 }
 
-                // Execute all rotation logic for this world
-                world.execute(() -> {
-                    for (CitizenData citizen : worldCitizens) {
-                        if (citizen.getSpawnedUUID() == null || citizen.getNpcRef() == null || !citizen.getNpcRef().isValid())
-                            continue;
-
-                        Vector3d citizenPos = citizen.getCurrentPosition() != null ? citizen.getCurrentPosition() : citizen.getPosition();
-
-                        long chunkIndex = ChunkUtil.indexChunkFromBlock(citizenPos.x, citizenPos.z);
-                        WorldChunk chunk = world.getChunkIfLoaded(chunkIndex);
-                        if (chunk == null)
-                            continue;
-
-                        for (PlayerRef playerRef : players) {
-                            if (!isPlayerRefValid(playerRef)) {
-                                continue;
-                            }
-
-                            float maxDistance = Math.max(0.0f, citizen.getLookAtDistance());
-                            float maxDistanceSq = maxDistance * maxDistance;
-
-                            double dx = playerRef.getTransform().getPosition().x - citizenPos.x;
-                            double dz = playerRef.getTransform().getPosition().z - citizenPos.z;
-
-                            double distSq = dx * dx + dz * dz;
-                            double lookDistanceSq = distanceSquared(playerRef.getTransform().getPosition(), citizenPos);
-                            boolean withinLookDistance = lookDistanceSq <= maxDistanceSq;
+                context.submit(world, () -> {
+                    for (TimerWheel.Timeout timeout : timeouts) {
+                        try {
+                            timeout.run();
+                        } catch (Exception e) {
+                            getLogger().atWarning().withCause(e).log("Citizen timer failed");
+                        }
+                    }
+                }, () -> timeouts.forEach(TimerWheel.Timeout::cancel));
+            }
+        });
+    }
 
-                            if (withinLookDistance && !citizen.getAnimationBehaviors().isEmpty()) {
-                                checkProximityAnimations(citizen, playerRef, distSq);
-                            }
+    private void startLodScheduler() {
+        tickEngine.registerPhase("lod", 0L, LOD_TICK_INTERVAL_MS, context -> {
+            if (!lodManager.isEnabled()) {
+                return;
+            }
 
-                            boolean shouldRotateCitizen = withinLookDistance
-                                    && citizen.getRotateTowardsPlayer()
-                                    && citizen.getMovementBehavior().getType().equals("IDLE");
-                            if (shouldRotateCitizen) {
-                                cancelPendingLookReset(citizen, playerRef.getUuid());
-                                rotateCitizenToPlayer(citizen, playerRef);
-                            } else {
-                                scheduleLookResetIfNeeded(citizen, playerRef.getUuid());
-                            }
+            for (Map.Entry<UUID, List<CitizenData>> entry : citizensByWorld.entrySet()) {
+                List<CitizenData> worldCitizens = entry.getValue();
+                World world = Universe.get().getWorld(entry.getKey());
+                if (world == null || world.getPlayerRefs().isEmpty()) {
+                    lodManager.markUnobserved(worldCitizens);
+                    continue;
+                }
 
-                            if (withinLookDistance && shouldRotateModelNametagTowardsPlayer(citizen, playerRef)) {
-                                cancelPendingNametagLookReset(citizen, playerRef.getUuid());
-                                rotateModelNametagToPlayer(citizen, playerRef);
-                            } else {
-                                scheduleNametagLookResetIfNeeded(citizen, playerRef.getUuid());
-                            }
+                context.submitLatest(world, () -> {
+                    List<Vector3d> playerPositions = new ArrayList<>();
+                    for (PlayerRef playerRef : world.getPlayerRefs()) {
+                        if (isPlayerRefValid(playerRef)) {
+                            playerPositions.add(playerRef.getTransform().getPosition());
                         }
                     }
+                    lodManager.classify(worldCitizens, playerPositions);
                 });
             }
-        }, 60, TimeUnit.MILLISECONDS);
+
+            lodManager.recordMetrics(metrics);
+        });
     }
 
-    private void startNametagMoveScheduler() {
-        nametagMoveTask.scheduleAtFixedRate("citizens-nametag-move", () -> {
-            // Group citizens by world
-            Map<UUID, List<CitizenData>> snapshot;
+    @Nonnull
+    public CitizenLodManager getLodManager() {
+        return lodManager;
+    }
 
-            synchronized (citizensByWorld) {
-                snapshot = new HashMap<>(citizensByWorld);
-            }
+    private void startRotateScheduler() {
+        tickEngine.registerPhase("rotate", 0L, ROTATE_TICK_INTERVAL_MS, context -> {
+            Map<UUID, List<CitizenData>> snapshot = citizensByWorld;
 
             // Process each world once
             for (Map.Entry<UUID, List<CitizenData>> entry : snapshot.entrySet()) {
@@ -287,158 +344,412 @@ public class CitizensManager {
                     continue;
                 }
 
-                // Execute all movement logic for this world
-                world.execute(() -> {
-                    for (CitizenData citizen : worldCitizens) {
-                        if (citizen.getSpawnedUUID() == null || citizen.getNpcRef() == null || !citizen.getNpcRef().isValid()) {
-                            continue;
-                        }
+                // Execute all rotation logic for this world
+                long run = context.getPhaseRun();
+                context.submitLatest(world, () -> tickWorldRotation(world, worldCitizens, players, run));
+            }
+        });
+    }
 
-                        TransformComponent npcTransformComponent = citizen.getNpcRef().getStore().getComponent(citizen.getNpcRef(), TransformComponent.getComponentType());
-                        if (npcTransformComponent == null) {
-                            continue;
-                        }
+    private void tickWorldRotation(@Nonnull World world, @Nonnull List<CitizenData> worldCitizens,
+                                   @Nonnull Collection<PlayerRef> players, long run) {
+        // Bucket players once per tick so each citizen only looks at players in neighbouring cells
+        float maxLookAtDistance = 0.0f;
+        for (CitizenData citizen : worldCitizens) {
+            maxLookAtDistance = Math.max(maxLookAtDistance, citizen.getLookAtDistance());
+        }
 
-                        Vector3d npcPosition = npcTransformComponent.getPosition();
+        double cellSize = Math.max(MIN_PLAYER_CELL_SIZE, Math.min(MAX_PLAYER_CELL_SIZE, maxLookAtDistance));
+        Map<Long, List<PlayerRef>> playerCells = new HashMap<>();
+        Map<UUID, PlayerRef> playersByUuid = new HashMap<>();
+        for (PlayerRef playerRef : players) {
+            if (!isPlayerRefValid(playerRef)) {
+                continue;
+            }
 
-                        long chunkIndex = ChunkUtil.indexChunkFromBlock(npcPosition.x, npcPosition.z);
-                        WorldChunk chunk = world.getChunkIfLoaded(chunkIndex);
-                        if (chunk == null)
-                            continue;
+            Vector3d playerPos = playerRef.getTransform().getPosition();
+            playerCells.computeIfAbsent(playerCellKey(playerPos.x, playerPos.z, cellSize), k -> new ArrayList<>()).add(playerRef);
+            playersByUuid.put(playerRef.getUuid(), playerRef);
+        }
 
-                        // Track the NPC's actual position
-                        citizen.setCurrentPosition(new Vector3d(npcPosition));
+        if (playersByUuid.isEmpty()) {
+            return;
+        }
 
-                        if (citizen.getMovementBehavior().getType().equals("IDLE")) {
-                            continue;
-                        }
+        long pairChecks = 0L;
+        long lodSkips = 0L;
+        Set<UUID> visitedPlayers = new HashSet<>();
+        RotationUpdateBatch rotationBatch = new RotationUpdateBatch();
 
-                        // Todo: It would be better to store the nametags as a ref
+        for (CitizenData citizen : worldCitizens) {
+            if (citizen.getSpawnedUUID() == null || citizen.getNpcRef() == null || !citizen.getNpcRef().isValid())
+                continue;
 
-                        int totalLines = citizen.getHologramLineUuids().size();
-                        if (totalLines == 0) {
-                            continue;
-                        }
+            boolean runLookAt = lodManager.shouldRun(citizen, CitizenLodManager.Behavior.LOOK_AT, run);
+            boolean runProximityAnimations = citizen.getAnimationTable().hasProximity()
+                    && lodManager.shouldRun(citizen, CitizenLodManager.Behavior.PROXIMITY_ANIMATIONS, run);
+            if (!runLookAt && !runProximityAnimations) {
+                lodSkips++;
+                continue;
+            }
 
-                        // Calculate the same offsets as in spawn
-                        double scale = Math.max(0.01, citizen.getScale() + citizen.getNametagOffset());
-                        double baseOffset = 1.65;
-                        double extraPerScale = 0.40;
-                        double yOffset = baseOffset * scale + (scale - 1.0) * extraPerScale;
-                        double lineSpacing = 0.25;
-
-                        // Update each hologram line
-                        for (int i = 0; i < totalLines; i++) {
-                            UUID uuid = citizen.getHologramLineUuids().get(i);
-                            if (uuid == null) {
-                                continue;
-                            }
+            Vector3d citizenPos = citizen.getCurrentPosition() != null ? citizen.getCurrentPosition() : citizen.getPosition();
 
-                            Ref<EntityStore> entityRef = world.getEntityRef(uuid);
-                            if (entityRef == null || !entityRef.isValid()) {
-                                continue;
-                            }
+            long chunkIndex = ChunkUtil.indexChunkFromBlock(citizenPos.x, citizenPos.z);
+            WorldChunk chunk = world.getChunkIfLoaded(chunkIndex);
+            if (chunk == null)
+                continue;
 
-                            TransformComponent nametagTransformComponent = entityRef.getStore().getComponent(entityRef, TransformComponent.getComponentType());
-                            if (nametagTransformComponent == null) {
-                                continue;
-                            }
+            float maxDistance = Math.max(0.0f, citizen.getLookAtDistance());
+            float maxDistanceSq = maxDistance * maxDistance;
+            int cellRadius = (int) Math.ceil(maxDistance / cellSize);
 
-                            // Position this line
-                            Vector3d linePos = new Vector3d(
-                                    npcPosition.x,
-                                    npcPosition.y + yOffset + ((totalLines - 1 - i) * lineSpacing),
-                                    npcPosition.z
-                            );
+            visitedPlayers.clear();
+            for (List<PlayerRef> cellPlayers : collectNearbyPlayerCells(playerCells, citizenPos, cellSize, cellRadius)) {
+                for (PlayerRef playerRef : cellPlayers) {
+                    pairChecks++;
+                    visitedPlayers.add(playerRef.getUuid());
 
-                            nametagTransformComponent.setPosition(linePos);
-                            nametagTransformComponent.setRotation(npcTransformComponent.getRotation());
-                        }
+                    Vector3d playerPos = playerRef.getTransform().getPosition();
+                    double dx = playerPos.x - citizenPos.x;
+                    double dz = playerPos.z - citizenPos.z;
+
+                    double distSq = dx * dx + dz * dz;
+                    double lookDistanceSq = distanceSquared(playerPos, citizenPos);
+                    boolean withinLookDistance = lookDistanceSq <= maxDistanceSq;
+
+                    if (withinLookDistance && runProximityAnimations) {
+                        checkProximityAnimations(citizen, playerRef, distSq);
                     }
-                });
+                    if (!runLookAt) {
+                        continue;
+                    }
+
+                    boolean shouldRotateCitizen = withinLookDistance
+                            && citizen.getRotateTowardsPlayer()
+                            && citizen.getMovementBehavior().getType().equals("IDLE");
+                    if (shouldRotateCitizen) {
+                        cancelPendingLookReset(citizen, playerRef.getUuid());
+                        rotateCitizenToPlayer(citizen, playerRef, rotationBatch);
+                    } else {
+                        scheduleLookResetIfNeeded(citizen, playerRef.getUuid());
+                    }
+
+                    if (withinLookDistance && shouldRotateModelNametagTowardsPlayer(citizen, playerRef)) {
+                        cancelPendingNametagLookReset(citizen, playerRef.getUuid());
+                        rotateModelNametagToPlayer(citizen, playerRef, rotationBatch);
+                    } else {
+                        scheduleNametagLookResetIfNeeded(citizen, playerRef.getUuid());
+                    }
+                }
             }
-        }, 0, 15, TimeUnit.MILLISECONDS);
+
+            // Players outside the neighbouring cells are out of range, so only ones this citizen is still facing need a reset
+            if (runLookAt) {
+                resetLooksForUnvisitedPlayers(citizen, playersByUuid, visitedPlayers);
+            }
+        }
+
+        rotationBatch.flush(metrics, rotationPacketStats);
+        metrics.add("rotate.pair-checks", pairChecks);
+        metrics.add("rotate.lod-skips", lodSkips);
+        metrics.add("rotate.pair-checks-naive", (long) worldCitizens.size() * playersByUuid.size());
+        metrics.set("rotate.last-tick-pair-checks", pairChecks);
     }
 
-    private void startCitizensByWorldScheduler() {
-        citizensByWorldTask.scheduleAtFixedRate("citizens-by-world", () -> {
-            Map<UUID, List<CitizenData>> tmp = new HashMap<>();
+    private void resetLooksForUnvisitedPlayers(@Nonnull CitizenData citizen,
+                                               @Nonnull Map<UUID, PlayerRef> playersByUuid,
+                                               @Nonnull Set<UUID> visitedPlayers) {
+        if (!citizen.lastLookDirections.isEmpty() || !citizen.getPendingLookResetTasks().isEmpty()) {
+            Set<UUID> trackedPlayers = new HashSet<>(citizen.lastLookDirections.keySet());
+            trackedPlayers.addAll(citizen.getPendingLookResetTasks().keySet());
+            for (UUID playerUuid : trackedPlayers) {
+                if (playersByUuid.containsKey(playerUuid) && !visitedPlayers.contains(playerUuid)) {
+                    scheduleLookResetIfNeeded(citizen, playerUuid);
+                }
+            }
+        }
 
-            for (CitizenData citizen : citizens.values()) {
-                if (citizen.getSpawnedUUID() == null) {
-                    continue;
+        if (!citizen.lastNametagLookDirections.isEmpty() || !citizen.getPendingNametagLookResetTasks().isEmpty()) {
+            Set<UUID> trackedPlayers = new HashSet<>(citizen.lastNametagLookDirections.keySet());
+            trackedPlayers.addAll(citizen.getPendingNametagLookResetTasks().keySet());
+            for (UUID playerUuid : trackedPlayers) {
+                if (playersByUuid.containsKey(playerUuid) && !visitedPlayers.contains(playerUuid)) {
+                    scheduleNametagLookResetIfNeeded(citizen, playerUuid);
                 }
+            }
+        }
+    }
 
-                if (citizen.getNpcRef() == null || !citizen.getNpcRef().isValid()) {
-                    continue;
+    @Nonnull
+    private static Collection<List<PlayerRef>> collectNearbyPlayerCells(@Nonnull Map<Long, List<PlayerRef>> playerCells,
+                                                                       @Nonnull Vector3d center,
+                                                                       double cellSize,
+                                                                       int cellRadius) {
+        // A very large look distance spans more cells than are occupied, so just take them all
+        long span = 2L * cellRadius + 1L;
+        if (cellRadius > 1 && span * span >= playerCells.size()) {
+            return playerCells.values();
+        }
+
+        long centerCellX = (long) Math.floor(center.x / cellSize);
+        long centerCellZ = (long) Math.floor(center.z / cellSize);
+        List<List<PlayerRef>> nearbyCells = new ArrayList<>();
+        for (long cellX = centerCellX - cellRadius; cellX <= centerCellX + cellRadius; cellX++) {
+            for (long cellZ = centerCellZ - cellRadius; cellZ <= centerCellZ + cellRadius; cellZ++) {
+                List<PlayerRef> cellPlayers = playerCells.get(playerCellKey(cellX, cellZ));
+                if (cellPlayers != null) {
+                    nearbyCells.add(cellPlayers);
                 }
+            }
+        }
+
+        return nearbyCells;
+    }
+
+    private static long playerCellKey(double x, double z, double cellSize) {
+        return playerCellKey((long) Math.floor(x / cellSize), (long) Math.floor(z / cellSize));
+    }
+
+    private static long playerCellKey(long cellX, long cellZ) {
+        return (cellX << 32) ^ (cellZ & 0xFFFFFFFFL);
+    }
 
-                UUID worldUUID = citizen.getWorldUUID();
-                tmp.computeIfAbsent(worldUUID, k -> new ArrayList<>()).add(citizen);
+    private void registerCitizenInWorld(@Nonnull CitizenData citizen) {
+        UUID worldUUID = citizen.getWorldUUID();
+        if (worldUUID == null) {
+            unregisterCitizenFromWorld(citizen);
+            return;
+        }
+
+        synchronized (citizenWorldRegistrations) {
+            UUID previousWorldUUID = citizenWorldRegistrations.put(citizen.getId(), worldUUID);
+            List<CitizenData> currentList = citizensByWorld.get(worldUUID);
+            if (worldUUID.equals(previousWorldUUID) && currentList != null && currentList.contains(citizen)) {
+                return;
             }
 
-            synchronized (citizensByWorld) {
-                citizensByWorld.clear();
-                citizensByWorld.putAll(tmp);
+            Map<UUID, List<CitizenData>> next = new HashMap<>(citizensByWorld);
+            if (previousWorldUUID != null) {
+                removeFromWorldList(next, previousWorldUUID, citizen.getId());
             }
-        }, 0, 1000, TimeUnit.MILLISECONDS);
+
+            List<CitizenData> worldCitizens = new ArrayList<>(next.getOrDefault(worldUUID, Collections.emptyList()));
+            worldCitizens.add(citizen);
+            next.put(worldUUID, List.copyOf(worldCitizens));
+            citizensByWorld = Collections.unmodifiableMap(next);
+        }
     }
 
-    private void startNpcRefReconcileScheduler() {
-        npcRefReconcileTask.scheduleAtFixedRate("citizens-npc-ref-reconcile", () -> {
-            Map<UUID, List<CitizenData>> unresolvedByWorld = new HashMap<>();
+    private void refreshCitizenWorldRegistration(@Nonnull CitizenData citizen) {
+        boolean registered;
+        synchronized (citizenWorldRegistrations) {
+            registered = citizenWorldRegistrations.containsKey(citizen.getId());
+        }
+
+        // Picks up world changes and replaced CitizenData instances for citizens that are already live
+        if (registered) {
+            registerCitizenInWorld(citizen);
+        }
+    }
+
+    private void unregisterCitizenFromWorld(@Nonnull CitizenData citizen) {
+        synchronized (citizenWorldRegistrations) {
+            UUID previousWorldUUID = citizenWorldRegistrations.remove(citizen.getId());
+            if (previousWorldUUID == null) {
+                return;
+            }
+
+            Map<UUID, List<CitizenData>> next = new HashMap<>(citizensByWorld);
+            removeFromWorldList(next, previousWorldUUID, citizen.getId());
+            citizensByWorld = Collections.unmodifiableMap(next);
+        }
+    }
+
+    private void removeFromWorldList(@Nonnull Map<UUID, List<CitizenData>> worlds, @Nonnull UUID worldUUID, @Nonnull String citizenId) {
+        List<CitizenData> worldCitizens = worlds.get(worldUUID);
+        if (worldCitizens == null) {
+            return;
+        }
+
+        List<CitizenData> remaining = new ArrayList<>(worldCitizens.size());
+        for (CitizenData worldCitizen : worldCitizens) {
+            if (!worldCitizen.getId().equals(citizenId)) {
+                remaining.add(worldCitizen);
+            }
+        }
+
+        if (remaining.isEmpty()) {
+            worlds.remove(worldUUID);
+        } else {
+            worlds.put(worldUUID, List.copyOf(remaining));
+        }
+    }
 
+    private void startNpcRefReconcileScheduler() {
+        // Chunk loads and NPC add/remove signals queue citizens directly; this slow sweep only catches refs
+        // that went stale without either signal reaching us
+        tickEngine.registerPhase("npc-ref-sweep", NPC_REF_RECONCILE_INTERVAL_MS, NPC_REF_SWEEP_INTERVAL_MS, context -> {
             for (CitizenData citizen : citizens.values()) {
-                if (citizen.getSpawnedUUID() == null) {
-                    continue;
+                if (needsNpcRefReconcile(citizen)) {
+                    pendingNpcRefReconciles.computeIfAbsent(citizen.getId(), k -> new NpcRefReconcileState());
                 }
+            }
+            metrics.set("entity-index.npcs", entityIndex.getNpcCount());
+            metrics.set("entity-index.nametags", entityIndex.getNametagCount());
+        });
 
-                Ref<EntityStore> npcRef = citizen.getNpcRef();
-                if (npcRef != null && npcRef.isValid()) {
+        tickEngine.registerPhase("npc-ref-reconcile", NPC_REF_RECONCILE_INTERVAL_MS, NPC_REF_RECONCILE_INTERVAL_MS, context -> {
+            long now = context.getNow();
+            for (Map.Entry<String, NpcRefReconcileState> entry : pendingNpcRefReconciles.entrySet()) {
+                NpcRefReconcileState state = entry.getValue();
+                CitizenData citizen = citizens.get(entry.getKey());
+                if (citizen == null || !needsNpcRefReconcile(citizen)) {
+                    synchronized (state) {
+                        if (!isNpcRefReconcileInFlight(state, now)) {
+                            pendingNpcRefReconciles.remove(entry.getKey(), state);
+                        }
+                    }
                     continue;
                 }
 
-                unresolvedByWorld.computeIfAbsent(citizen.getWorldUUID(), k -> new ArrayList<>()).add(citizen);
-            }
+                long attempt;
+                synchronized (state) {
+                    if (state.inFlightSinceMs != 0L && !isNpcRefReconcileInFlight(state, now)) {
+                        // The world task never ran (world stopping, task dropped); count it as a miss and back off
+                        metrics.increment("npc-ref-reconcile.timeouts");
+                        recordNpcRefReconcileMiss(state);
+                    }
+                    if (state.inFlightSinceMs != 0L || now < state.nextAttemptAtMs) {
+                        continue;
+                    }
+                    state.inFlightSinceMs = now;
+                    attempt = ++state.attempt;
+                }
 
-            for (Map.Entry<UUID, List<CitizenData>> entry : unresolvedByWorld.entrySet()) {
-                UUID worldUUID = entry.getKey();
-                List<CitizenData> unresolvedCitizens = entry.getValue();
-                World world = Universe.get().getWorld(worldUUID);
+                World world = Universe.get().getWorld(citizen.getWorldUUID());
                 if (world == null) {
+                    finishNpcRefReconcile(citizen.getId(), state, attempt, false);
                     continue;
                 }
 
-                world.execute(() -> {
-                    for (CitizenData citizen : unresolvedCitizens) {
-                        UUID npcUuid = citizen.getSpawnedUUID();
-                        if (npcUuid == null) {
-                            continue;
-                        }
+                metrics.increment("npc-ref-reconcile.attempts");
+                context.submit(world, () -> {
+                    boolean resolved = false;
+                    try {
+                        resolved = reconcileCitizenNpcRef(world, citizen);
+                    } finally {
+                        finishNpcRefReconcile(citizen.getId(), state, attempt, resolved);
+                    }
+                }, () -> finishNpcRefReconcile(citizen.getId(), state, attempt, false));
+            }
+            metrics.set("npc-ref-reconcile.pending", pendingNpcRefReconciles.size());
+        });
+    }
 
-                        Ref<EntityStore> resolvedRef = world.getEntityRef(npcUuid);
-                        if (resolvedRef == null || !resolvedRef.isValid()) {
-                            resolvedRef = findExistingCitizenNpcRef(world.getEntityStore().getStore(), citizen);
-                        }
+    private boolean needsNpcRefReconcile(@Nonnull CitizenData citizen) {
+        if (citizen.getSpawnedUUID() == null) {
+            return false;
+        }
 
-                        if (resolvedRef == null || !resolvedRef.isValid()) {
-                            if (citizen.isAwaitingRespawn() || isCitizenSpawning(citizen.getId())) {
-                                continue;
-                            }
+        Ref<EntityStore> npcRef = citizen.getNpcRef();
+        return npcRef == null || !npcRef.isValid();
+    }
 
-                            if (!isCitizenChunkLoaded(world, citizen)) {
-                                continue;
-                            }
+    // Caller holds the state's lock
+    private static boolean isNpcRefReconcileInFlight(@Nonnull NpcRefReconcileState state, long now) {
+        return state.inFlightSinceMs != 0L && now - state.inFlightSinceMs < NPC_REF_RECONCILE_IN_FLIGHT_TIMEOUT_MS;
+    }
 
-                            spawnCitizenNPC(citizen, true);
-                            continue;
-                        }
+    private void finishNpcRefReconcile(@Nonnull String citizenId, @Nonnull NpcRefReconcileState state, long attempt,
+                                       boolean resolved) {
+        synchronized (state) {
+            // An attempt already written off as timed out has nothing left to report; the next pass re-checks
+            if (state.attempt != attempt || state.inFlightSinceMs == 0L) {
+                return;
+            }
 
-                        restoreResolvedCitizenState(citizen, resolvedRef, true);
-                    }
-                });
+            if (resolved) {
+                state.inFlightSinceMs = 0L;
+                pendingNpcRefReconciles.remove(citizenId, state);
+                metrics.increment("npc-ref-reconcile.successes");
+                return;
             }
-        }, 1, 1, TimeUnit.SECONDS);
+
+            recordNpcRefReconcileMiss(state);
+        }
+    }
+
+    // Caller holds the state's lock
+    private static void recordNpcRefReconcileMiss(@Nonnull NpcRefReconcileState state) {
+        state.inFlightSinceMs = 0L;
+
+        // Doubles per miss so citizens parked in unloaded areas settle at one check a minute
+        state.failures = Math.min(state.failures + 1, 16);
+        long backoffMs = Math.min(NPC_REF_RECONCILE_MAX_BACKOFF_MS,
+                NPC_REF_RECONCILE_INTERVAL_MS << Math.min(state.failures, 6));
+        state.nextAttemptAtMs = System.currentTimeMillis() + backoffMs;
+    }
+
+    private void wakeNpcRefReconcile(@Nonnull String citizenId, long delayMs) {
+        if (!citizens.containsKey(citizenId)) {
+            return;
+        }
+
+        NpcRefReconcileState state = pendingNpcRefReconciles.computeIfAbsent(citizenId, k -> new NpcRefReconcileState());
+        synchronized (state) {
+            state.failures = 0;
+            state.nextAttemptAtMs = System.currentTimeMillis() + delayMs;
+        }
+    }
+
+    public void onCitizenChunkLoaded(@Nonnull UUID worldUUID, long chunkIndex) {
+        for (CitizenData citizen : citizenChunkIndex.getCitizensInChunk(worldUUID, chunkIndex)) {
+            if (needsNpcRefReconcile(citizen)) {
+                wakeNpcRefReconcile(citizen.getId(), NPC_REF_RECONCILE_INTERVAL_MS);
+            }
+        }
+    }
+
+    public void onCitizenNpcAdded(@Nonnull String citizenId) {
+        CitizenData citizen = citizens.get(citizenId);
+        if (citizen != null && needsNpcRefReconcile(citizen)) {
+            wakeNpcRefReconcile(citizenId, 0L);
+        }
+    }
+
+    public void onCitizenNpcRemoved(@Nonnull String citizenId) {
+        // The ref only reads as invalid once the removal lands, so let the next pass decide
+        wakeNpcRefReconcile(citizenId, NPC_REF_RECONCILE_INTERVAL_MS);
+    }
+
+    private boolean reconcileCitizenNpcRef(@Nonnull World world, @Nonnull CitizenData citizen) {
+        UUID npcUuid = citizen.getSpawnedUUID();
+        if (npcUuid == null) {
+            return false;
+        }
+
+        Ref<EntityStore> resolvedRef = world.getEntityRef(npcUuid);
+        if (resolvedRef == null || !resolvedRef.isValid()) {
+            // Nothing to find while the citizen's chunk is unloaded, so back off until it loads
+            if (!isCitizenChunkLoaded(world, citizen)) {
+                return false;
+            }
+            resolvedRef = findExistingCitizenNpcRef(world.getEntityStore().getStore(), citizen);
+        }
+
+        if (resolvedRef == null || !resolvedRef.isValid()) {
+            if (citizen.isAwaitingRespawn() || isCitizenSpawning(citizen.getId())) {
+                return false;
+            }
+
+            spawnCitizenNPC(citizen, true);
+            metrics.increment("npc-ref-reconcile.spawns");
+            return false;
+        }
+
+        restoreResolvedCitizenState(citizen, resolvedRef, true);
+        return true;
     }
 
     private void cancelPendingTemporaryNametagRecovery(@Nonnull String citizenId) {
@@ -482,6 +793,7 @@ public class CitizensManager {
                         npcRef.getStore().getComponent(npcRef, TransformComponent.getComponentType());
                 if (transformComponent != null && transformComponent.getPosition() != null) {
                     citizen.setCurrentPosition(new Vector3d(transformComponent.getPosition()));
+                    citizenChunkIndex.update(citizen);
                 }
 
                 despawnCitizenHologram(citizen);
@@ -492,6 +804,11 @@ public class CitizensManager {
     }
 
     private boolean isCitizenChunkLoaded(@Nonnull World world, @Nonnull CitizenData citizen) {
+        long[] indexedChunks = citizenChunkIndex.getIndexedChunks(citizen);
+        if (indexedChunks != null) {
+            return world.getChunkIfLoaded(indexedChunks[0]) != null || world.getChunkIfLoaded(indexedChunks[1]) != null;
+        }
+
         Vector3d currentPosition = citizen.getCurrentPosition() != null ? citizen.getCurrentPosition() : citizen.getPosition();
         long currentChunkIndex = ChunkUtil.indexChunkFromBlock(currentPosition.x, currentPosition.z);
         if (world.getChunkIfLoaded(currentChunkIndex) != null) {
@@ -505,177 +822,307 @@ public class CitizensManager {
 
     @Nullable
     private Ref<EntityStore> findExistingCitizenNpcRef(@Nonnull Store<EntityStore> store, @Nonnull CitizenData citizen) {
-        String rolePrefix = "HyCitizens_" + citizen.getId() + "_";
-        Query<EntityStore> query = NPCEntity.getComponentType();
-        Ref<EntityStore>[] foundRef = new Ref[] { null };
+        Ref<EntityStore> ref = entityIndex.getNpcRef(citizen.getId());
+        if (ref == null || ref.getStore() != store) {
+            return null;
+        }
 
-        store.forEachEntityParallel(query, (index, archetypeChunk, cb) -> {
-            if (foundRef[0] != null && foundRef[0].isValid()) {
-                return;
-            }
+        UUIDComponent uuidComponent = store.getComponent(ref, UUIDComponent.getComponentType());
+        if (uuidComponent != null && pendingImmediateNpcDespawns.contains(uuidComponent.getUuid())) {
+            return null;
+        }
+        return ref;
+    }
 
-            NPCEntity npc = archetypeChunk.getComponent(index, NPCEntity.getComponentType());
-            if (npc == null || npc.getRole() == null) {
-                return;
-            }
+    // Todo: move position saving to chunk unload event when it becomes available
+    private void startPositionSaveScheduler() {
+        tickEngine.registerPhase("position-save", POSITION_SAVE_INTERVAL_MS, POSITION_SAVE_INTERVAL_MS, context -> {
+            // Moving citizens only append to the journal; the store picks their positions up at compaction
+            for (CitizenData citizen : citizens.values()) {
+                if (citizen.getSpawnedUUID() == null || citizen.getNpcRef() == null || !citizen.getNpcRef().isValid())
+                    continue;
 
-            UUIDComponent uuidComponent = archetypeChunk.getComponent(index, UUIDComponent.getComponentType());
-            if (uuidComponent != null && pendingImmediateNpcDespawns.contains(uuidComponent.getUuid())) {
-                return;
+                positionJournal.append(citizen.getId(), citizen.getCurrentPosition());
             }
+            positionJournal.flush();
 
-            CitizenNpcIdentityComponent identityComponent =
-                    archetypeChunk.getComponent(index, CitizenNpcIdentityComponent.getComponentType());
-            if (identityComponent != null && citizen.getId().equals(identityComponent.getCitizenId())) {
-                Ref<EntityStore> ref = archetypeChunk.getReferenceTo(index);
-                if (ref != null && ref.isValid()) {
-                    foundRef[0] = ref;
-                }
-                return;
-            }
-            if (citizen.getSpawnedUUID() != null && uuidComponent != null
-                    && citizen.getSpawnedUUID().equals(uuidComponent.getUuid())) {
-                Ref<EntityStore> ref = archetypeChunk.getReferenceTo(index);
-                if (ref != null && ref.isValid()) {
-                    foundRef[0] = ref;
-                }
-                return;
+            long journalBytes = positionJournal.getBytesWritten();
+            metrics.set("position-journal.bytes", journalBytes);
+            if (journalBytes >= POSITION_JOURNAL_COMPACT_BYTES
+                    || context.getNow() - lastPositionCompactionMs >= POSITION_JOURNAL_COMPACT_INTERVAL_MS) {
+                compactPositionJournal();
             }
+        });
+    }
 
-            String roleName = npc.getRole().getRoleName();
-            if (roleName == null || !roleName.startsWith(rolePrefix)) {
-                return;
-            }
+    private void compactPositionJournal() {
+        if (positionCompactionInFlight.get()) {
+            return;
+        }
 
-            Ref<EntityStore> ref = archetypeChunk.getReferenceTo(index);
-            if (ref == null || !ref.isValid()) {
-                return;
-            }
+        if (positionJournal.isCompactionInProgress()) {
+            // The last compaction's store write failed or timed out. Its positions are still in the store and any
+            // shard that failed is dirty again, so writing the store out again is all a retry needs
+            metrics.increment("position-journal.compaction-retries");
+            finishPositionCompactionWhenDurable();
+            return;
+        }
 
-            foundRef[0] = ref;
-        });
+        Map<String, Vector3d> positions = positionJournal.beginCompaction();
+        if (positions == null) {
+            return;
+        }
 
-        return foundRef[0] != null && foundRef[0].isValid() ? foundRef[0] : null;
+        lastPositionCompactionMs = System.currentTimeMillis();
+        storeJournaledPositions(positions);
+        finishPositionCompactionWhenDurable();
+        metrics.increment("position-journal.compactions");
     }
 
-    // Todo: move position saving to chunk unload event when it becomes available
-    private void startPositionSaveScheduler() {
-        positionSaveTask = HytaleServer.SCHEDULED_EXECUTOR.scheduleAtFixedRate(() -> {
-            config.beginBatch();
-            try {
-                for (CitizenData citizen : citizens.values()) {
-                    if (citizen.getSpawnedUUID() == null || citizen.getNpcRef() == null || !citizen.getNpcRef().isValid())
-                        continue;
+    // The rotated journal is the only copy until the store write lands. Nothing blocks on the write; the next
+    // position-save pass retries if it fails or takes too long
+    private void finishPositionCompactionWhenDurable() {
+        positionCompactionInFlight.set(true);
+        config.flush()
+                .orTimeout(SHUTDOWN_SAVE_TIMEOUT_MS, TimeUnit.MILLISECONDS)
+                .whenComplete((durable, throwable) -> {
+                    if (throwable == null && Boolean.TRUE.equals(durable)) {
+                        positionJournal.finishCompaction();
+                    } else {
+                        metrics.increment("position-journal.compaction-failures");
+                    }
+                    positionCompactionInFlight.set(false);
+                });
+    }
 
-                    String basePath = "citizens." + citizen.getId();
-                    config.setVector3d(basePath + ".current-position", citizen.getCurrentPosition());
+    // The entities a citizen is bound to; next startup's reconcile and duplicate checks find them by these UUIDs
+    private void saveCitizenRuntimeIdentity(@Nonnull CitizenData citizen) {
+        String basePath = "citizens." + citizen.getId();
+        config.setUUID(basePath + ".npc-uuid", citizen.getSpawnedUUID());
+        config.setUUIDList(basePath + ".hologram-uuids", citizen.getHologramLineUuids());
+    }
+
+    private void storeJournaledPositions(@Nonnull Map<String, Vector3d> positions) {
+        if (positions.isEmpty()) {
+            return;
+        }
+
+        config.beginBatch();
+        try {
+            for (Map.Entry<String, Vector3d> entry : positions.entrySet()) {
+                if (citizens.containsKey(entry.getKey())) {
+                    config.setVector3d("citizens." + entry.getKey() + ".current-position", entry.getValue());
                 }
-            } finally {
-                config.endBatch();
             }
-        }, 5, 5, TimeUnit.SECONDS);
+        } finally {
+            config.endBatch();
+        }
     }
 
     private void startFollowCitizenScheduler() {
-        followCitizenTask.scheduleAtFixedRate("citizens-follow", () -> {
-            for (CitizenData citizen : citizens.values()) {
-                try {
-                    tickStandaloneFollowCitizen(citizen);
-                } catch (Exception e) {
-                    getLogger().atWarning().log("Standalone follow tick error for citizen " + citizen.getId() + ": " + e.getMessage());
-                }
-            }
-        }, FOLLOW_TICK_INTERVAL_MS, FOLLOW_TICK_INTERVAL_MS, TimeUnit.MILLISECONDS);
+        tickEngine.registerCitizenPhase("follow", FOLLOW_TICK_INTERVAL_MS, FOLLOW_TICK_INTERVAL_MS,
+                (citizen, context) -> tickStandaloneFollowCitizen(citizen));
     }
 
     private void startMovementUnstickScheduler() {
-        movementUnstickTask.scheduleAtFixedRate("citizens-unstick", () -> {
-            for (CitizenData citizen : citizens.values()) {
-                try {
-                    tickWanderUnstick(citizen);
-                } catch (Exception e) {
-                    getLogger().atWarning().log("Wander unstuck tick error for citizen " + citizen.getId() + ": " + e.getMessage());
-                }
-            }
-        }, WANDER_UNSTICK_TICK_INTERVAL_MS, WANDER_UNSTICK_TICK_INTERVAL_MS, TimeUnit.MILLISECONDS);
+        tickEngine.registerCitizenPhase("wander-unstick", WANDER_UNSTICK_TICK_INTERVAL_MS, WANDER_UNSTICK_TICK_INTERVAL_MS,
+                (citizen, context) -> tickWanderUnstick(citizen));
     }
 
     private void startHealthRegenScheduler() {
-        healthRegenTask.scheduleAtFixedRate("citizens-health-regen", () -> {
-            long now = System.currentTimeMillis();
+        tickEngine.registerPhase("health-regen", HEALTH_REGEN_TICK_INTERVAL_MS, HEALTH_REGEN_TICK_INTERVAL_MS, context -> {
+            long now = context.getNow();
+            List<String> due = healthRegenQueue.pollDue(now);
+            metrics.set("health-regen.queued", healthRegenQueue.size());
+            if (due.isEmpty()) {
+                return;
+            }
 
-            for (CitizenData citizen : citizens.values()) {
-                if (!citizen.isHealthRegenEnabled()) {
-                    continue;
-                }
-                if (citizen.getNpcRef() == null || !citizen.getNpcRef().isValid()) {
-                    continue;
-                }
-                if (citizen.getHealthRegenAmount() <= 0.0f || citizen.getHealthRegenIntervalSeconds() <= 0.0f) {
+            Map<UUID, List<CitizenData>> dueByWorld = new HashMap<>();
+            for (String citizenId : due) {
+                CitizenData citizen = citizens.get(citizenId);
+                if (citizen == null || !canRegenerateHealth(citizen)) {
                     continue;
                 }
+                dueByWorld.computeIfAbsent(citizen.getWorldUUID(), k -> new ArrayList<>()).add(citizen);
+            }
 
-                long sinceLastDamage = now - citizen.getLastDamageTakenAt();
-                long delayMs = (long) (citizen.getHealthRegenDelayAfterDamageSeconds() * 1000L);
-                if (sinceLastDamage < delayMs) {
+            // One world task per world heals everything that came due there this pass
+            for (Map.Entry<UUID, List<CitizenData>> entry : dueByWorld.entrySet()) {
+                List<CitizenData> worldCitizens = entry.getValue();
+                World world = Universe.get().getWorld(entry.getKey());
+                if (world == null) {
+                    // Unloaded for now; keep them queued so regen picks up again once the world is back
+                    for (CitizenData citizen : worldCitizens) {
+                        retryHealthRegen(citizen, now);
+                    }
                     continue;
                 }
 
-                long sinceLastRegen = now - citizen.getLastHealthRegenAt();
-                long intervalMs = (long) (citizen.getHealthRegenIntervalSeconds() * 1000L);
-                if (sinceLastRegen < intervalMs) {
+                metrics.add("health-regen.applied", worldCitizens.size());
+                context.submit(world, () -> {
+                    for (CitizenData citizen : worldCitizens) {
+                        applyHealthRegen(citizen, now);
+                    }
+                }, () -> {
+                    // Already taken off the heap by pollDue; put them back so regen resumes once the world returns
+                    for (CitizenData citizen : worldCitizens) {
+                        retryHealthRegen(citizen, System.currentTimeMillis());
+                    }
+                });
+            }
+        });
+    }
+
+    private void startKnockbackLockScheduler() {
+        tickEngine.registerPhase("knockback-lock", KNOCKBACK_LOCK_TICK_INTERVAL_MS, KNOCKBACK_LOCK_TICK_INTERVAL_MS, context -> {
+            Set<UUID> lockedWorlds = knockbackLocks.getLockedWorlds();
+            metrics.set("knockback-lock.active", knockbackLocks.size());
+            if (lockedWorlds.isEmpty()) {
+                return;
+            }
+
+            long claimedAt = context.getNow();
+            for (UUID worldUUID : lockedWorlds) {
+                if (!knockbackLocks.markApplyQueued(worldUUID, claimedAt)) {
                     continue;
                 }
 
-                World world = Universe.get().getWorld(citizen.getWorldUUID());
+                World world = Universe.get().getWorld(worldUUID);
                 if (world == null) {
+                    knockbackLocks.clearWorld(worldUUID);
                     continue;
                 }
 
-                world.execute(() -> {
-                    Ref<EntityStore> npcRef = citizen.getNpcRef();
-                    if (npcRef == null || !npcRef.isValid()) {
-                        return;
-                    }
+                // Dropped with its world: the locks go too, claim included
+                context.submit(world, () -> {
+                    int corrected = knockbackLocks.apply(worldUUID, claimedAt, System.currentTimeMillis(), this::updateCitizenChunkIndex);
+                    metrics.add("knockback-lock.corrections", corrected);
+                }, () -> knockbackLocks.clearWorld(worldUUID));
+            }
+        });
+    }
 
-                    EntityStatMap statMap = npcRef.getStore().getComponent(npcRef, EntityStatsModule.get().getEntityStatMapComponentType());
-                    if (statMap == null) {
-                        return;
-                    }
+    public void lockCitizenKnockback(@Nonnull CitizenData citizen, @Nonnull Ref<EntityStore> ref, @Nonnull Vector3d position) {
+        UUID worldUUID = citizen.getWorldUUID();
+        if (worldUUID == null) {
+            return;
+        }
+        knockbackLocks.lock(worldUUID, citizen, ref, position, System.currentTimeMillis() + KNOCKBACK_LOCK_DURATION_MS);
+    }
 
-                    EntityStatValue healthStat = statMap.get(DefaultEntityStatTypes.getHealth());
-                    if (healthStat == null) {
-                        return;
-                    }
+    private void startInteractionStateEvictionScheduler() {
+        long idleMs = config.getLong("settings.interaction-state-idle-ms", DEFAULT_INTERACTION_STATE_IDLE_MS);
+        tickEngine.registerPhase("interaction-state-evict", INTERACTION_STATE_EVICT_INTERVAL_MS,
+                INTERACTION_STATE_EVICT_INTERVAL_MS, context -> {
+                    int evicted = interactionState.evictIdle(context.getNow(), idleMs);
+                    metrics.add("interaction-state.evicted", evicted);
+                    metrics.set("interaction-state.players", interactionState.getPlayerCount());
+                    metrics.set("interaction-state.entries", interactionState.getEntryCount());
+                });
+    }
 
-                    float currentHealth = healthStat.get();
-                    float maxHealth = healthStat.getMax();
-                    if (currentHealth >= maxHealth) {
-                        return;
-                    }
+    private void startWorldQueuePruneScheduler() {
+        tickEngine.registerPhase("world-queue-prune", WORLD_QUEUE_PRUNE_INTERVAL_MS, WORLD_QUEUE_PRUNE_INTERVAL_MS, context -> {
+            // Unloaded worlds will never drain again; without this their queues would pin the World forever
+            worldTaskQueue.pruneWorlds(worldUUID -> Universe.get().getWorld(worldUUID) != null);
+            metrics.set("world-queue.pending", worldTaskQueue.getPendingCount());
+        });
+    }
 
-                    float nextHealth = Math.min(maxHealth, currentHealth + citizen.getHealthRegenAmount());
-                    setHealthValueClamped(statMap, nextHealth);
-                    citizen.setLastHealthRegenAt(System.currentTimeMillis());
-                });
-            }
-        }, 1, 1, TimeUnit.SECONDS);
+    private boolean canRegenerateHealth(@Nonnull CitizenData citizen) {
+        return citizen.isHealthRegenEnabled()
+                && citizen.getHealthRegenAmount() > 0.0f
+                && citizen.getHealthRegenIntervalSeconds() > 0.0f;
     }
 
-    public void shutdown() {
-        skinUpdateTask.stop();
-        rotateTask.stop();
-        animationTask.stop();
-        healthRegenTask.stop();
-        nametagMoveTask.stop();
+    public void onCitizenDamaged(@Nonnull CitizenData citizen) {
+        if (!canRegenerateHealth(citizen)) {
+            return;
+        }
+
+        // Each hit pushes the citizen's next regen back to the end of the post-damage delay
+        long delayMs = (long) (citizen.getHealthRegenDelayAfterDamageSeconds() * 1000L);
+        healthRegenQueue.schedule(citizen.getId(), citizen.getLastDamageTakenAt() + delayMs);
+    }
+
+    // pollDue already took the citizen off the heap, so anything short of a final answer has to put it back
+    private void retryHealthRegen(@Nonnull CitizenData citizen, long now) {
+        healthRegenQueue.scheduleIfAbsent(citizen.getId(), now + HEALTH_REGEN_RETRY_MS);
+    }
+
+    private void applyHealthRegen(@Nonnull CitizenData citizen, long now) {
+        // Unbound (chunk unloading, respawn in progress) or missing stats are transient: check back later, and
+        // bindCitizenEntityRef queues the citizen again as soon as a new NPC is bound
+        Ref<EntityStore> npcRef = citizen.getNpcRef();
+        if (npcRef == null || !npcRef.isValid()) {
+            retryHealthRegen(citizen, now);
+            return;
+        }
+
+        EntityStatMap statMap = npcRef.getStore().getComponent(npcRef, EntityStatsModule.get().getEntityStatMapComponentType());
+        if (statMap == null) {
+            retryHealthRegen(citizen, now);
+            return;
+        }
+
+        EntityStatValue healthStat = statMap.get(DefaultEntityStatTypes.getHealth());
+        if (healthStat == null) {
+            retryHealthRegen(citizen, now);
+            return;
+        }
+
+        float currentHealth = healthStat.get();
+        float maxHealth = healthStat.getMax();
+        if (currentHealth >= maxHealth) {
+            return;
+        }
+
+        // A hit that landed after pollDue pushed regen back; wait out the post-damage delay instead of healing
+        long delayMs = (long) (citizen.getHealthRegenDelayAfterDamageSeconds() * 1000L);
+        long regenStart = citizen.getLastDamageTakenAt() + delayMs;
+        if (citizen.getLastDamageTakenAt() > 0L && now < regenStart) {
+            healthRegenQueue.schedule(citizen.getId(), regenStart);
+            return;
+        }
+
+        long intervalMs = Math.max(1L, (long) (citizen.getHealthRegenIntervalSeconds() * 1000L));
+        int stride = lodManager.getStride(lodManager.getTier(citizen.getId()), CitizenLodManager.Behavior.HEALTH_REGEN);
+        if (stride <= 0) {
+            // Suspended tier: stay queued without healing until someone comes back into range
+            citizen.setLastHealthRegenAt(now);
+            healthRegenQueue.schedule(citizen.getId(), now + intervalMs);
+            return;
+        }
 
-        followCitizenTask.stop();
-        movementUnstickTask.stop();
-        npcRefReconcileTask.stop();
+        // Heal for every interval that elapsed since regen could first apply, so a throttled tier that wakes
+        // less often than the interval still ends up at the same health
+        long intervals;
+        if (citizen.getLastDamageTakenAt() <= 0L) {
+            intervals = 1L;
+        } else if (citizen.getLastHealthRegenAt() < regenStart) {
+            intervals = 1L + Math.max(0L, now - regenStart) / intervalMs;
+        } else {
+            intervals = Math.max(1L, (now - citizen.getLastHealthRegenAt()) / intervalMs);
+        }
 
-        if (positionSaveTask != null && !positionSaveTask.isCancelled()) {
-            positionSaveTask.cancel(false);
+        float nextHealth = Math.min(maxHealth, currentHealth + citizen.getHealthRegenAmount() * intervals);
+        setHealthValueClamped(statMap, nextHealth);
+        citizen.setLastHealthRegenAt(now);
+
+        // Back at full health the citizen leaves the queue until it is hit again
+        if (nextHealth < maxHealth) {
+            healthRegenQueue.schedule(citizen.getId(), now + intervalMs * stride);
         }
+    }
+
+    public void shutdown() {
+        tickEngine.stop();
+        worldTaskQueue.clear();
+        actionPipeline.shutdown();
+        rotationPacketStats.clear();
+        lodManager.clear();
+
         pendingRespawnTasks.values().forEach(task -> task.cancel(false));
         pendingRespawnTasks.clear();
 
@@ -700,19 +1147,57 @@ public class CitizensManager {
         }
         pendingTemporaryNametagRecoveryTasks.clear();
 
-        for (CitizenData citizen : citizens.values()) {
-            cancelAllPendingLookResets(citizen);
-            saveCitizen(citizen);
+        // Edited fields are saved as they change. Positions and the bound npc/hologram entity UUIDs change at runtime
+        // without a save: positions go through the journal, and the UUIDs are written here. Both only dirty the
+        // citizens whose values actually moved on from what is stored.
+        config.beginBatch();
+        try {
+            for (CitizenData citizen : citizens.values()) {
+                cancelAllPendingLookResets(citizen);
+                positionJournal.append(citizen.getId(), citizen.getCurrentPosition());
+                saveCitizenRuntimeIdentity(citizen);
+            }
+        } finally {
+            config.endBatch();
+        }
+        positionJournal.flush();
+        Map<String, Vector3d> journaledPositions = positionJournal.beginCompaction();
+        if (journaledPositions != null) {
+            storeJournaledPositions(journaledPositions);
         }
+        timerWheel.clear();
+        healthRegenQueue.clear();
+        knockbackLocks.clear();
+        interactionState.clear();
 
         pendingHologramRemovals.clear();
         pendingNpcRemovals.clear();
         pendingNpcRemovalTasks.clear();
         standaloneFollowSessions.clear();
+        followFormations.clear();
         wanderRecoveryStates.clear();
+        pendingNpcRefReconciles.clear();
+        citizensBySpawnedUuid.clear();
+        citizensByEntityRef.clear();
+        citizensByHologramUuid.clear();
+        citizenChunkIndex.clear();
+        synchronized (citizenWorldRegistrations) {
+            citizenWorldRegistrations.clear();
+            citizensByWorld = Collections.emptyMap();
+        }
+
+        if (config.awaitDurable(SHUTDOWN_SAVE_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+            // Every rotated position is in the store now, including one left by a compaction that was still in flight
+            positionJournal.finishCompaction();
+            config.writeBinarySnapshot();
+        } else {
+            getLogger().atWarning().log("Citizen data may not have been fully written to disk before shutdown");
+        }
+        positionJournal.close();
     }
 
     private void loadAllCitizens() {
+        long phaseStart = System.nanoTime();
         citizens.clear();
         groups.clear();
 
@@ -724,13 +1209,21 @@ public class CitizensManager {
             }
         }
 
-        // Get all citizen IDs from the nested "citizens" map
-        Set<String> citizenIds = config.getKeys("citizens");
+        // Every record is detached from the config in one pass, so the parallel decode never touches the config lock;
+        // results are merged back in id order
+        Map<String, ConfigSection> records = config.getChildSections("citizens");
+        List<String> citizenIds = new ArrayList<>(records.keySet());
+        CitizenData[] loaded = new CitizenData[citizenIds.size()];
+        IntStream.range(0, loaded.length).parallel().forEach(i -> {
+            String citizenId = citizenIds.get(i);
+            loaded[i] = loadCitizen(citizenId, records.get(citizenId));
+        });
+        phaseStart = logStartupPhase("citizen-decode", phaseStart);
 
-        for (String citizenId : citizenIds) {
-            CitizenData citizen = loadCitizen(citizenId);
+        for (CitizenData citizen : loaded) {
             if (citizen != null) {
-                citizens.put(citizenId, citizen);
+                citizens.put(citizen.getId(), citizen);
+                indexLoadedCitizen(citizen);
 
                 if (!citizen.getGroup().isEmpty()) {
                     addGroupHierarchy(citizen.getGroup());
@@ -739,88 +1232,104 @@ public class CitizensManager {
         }
 
         cleanupUnusedGroups();
+        phaseStart = logStartupPhase("citizen-index", phaseStart);
+
+        // Positions journaled since the last compaction are newer than what the store holds
+        Map<String, Vector3d> journaledPositions = positionJournal.replay();
+        for (Map.Entry<String, Vector3d> entry : journaledPositions.entrySet()) {
+            CitizenData citizen = citizens.get(entry.getKey());
+            if (citizen != null) {
+                citizen.setCurrentPosition(entry.getValue());
+                citizenChunkIndex.update(citizen);
+            }
+        }
+
+        if (!journaledPositions.isEmpty()) {
+            // Stored up front so a rotated journal that could not be merged back is safe to retire on the retry
+            storeJournaledPositions(journaledPositions);
+            compactPositionJournal();
+        }
+        logStartupPhase("position-journal-replay", phaseStart);
     }
 
     @Nullable
-    private CitizenData loadCitizen(@Nonnull String citizenId) {
-        String basePath = "citizens." + citizenId;
-
-        String name = config.getString(basePath + ".name");
+    private CitizenData loadCitizen(@Nonnull String citizenId, @Nonnull ConfigSection record) {
+        String name = record.getString("name");
         if (name == null) {
             getLogger().atWarning().log("Failed to load a citizen with the ID: " + citizenId);
             return null;
         }
 
-        String modelId = config.getString(basePath + ".model-id");
+        String modelId = record.getString("model-id");
         if (modelId == null) {
             getLogger().atWarning().log("Failed to load citizen: " + name + ". Failed to get model ID.");
             return null;
         }
 
-        UUID worldUUID = config.getUUID(basePath + ".model-world-uuid");
+        UUID worldUUID = record.getUUID("model-world-uuid");
         if (worldUUID == null) {
             getLogger().atWarning().log("Failed to load citizen: " + name + ". Failed to get world UUID.");
             return null;
         }
 
-        Vector3d position = config.getVector3d(basePath + ".position");
-        Vector3f rotation = config.getVector3f(basePath + ".rotation");
+        Vector3d position = record.getVector3d("position");
+        Vector3f rotation = record.getVector3f("rotation");
 
         if (position == null || rotation == null) {
             getLogger().atWarning().log("Failed to load citizen: " + name + ". Failed to get position or rotation.");
             return null;
         }
 
-        float scale = config.getFloat(basePath + ".scale", 1);
+        float scale = record.getFloat("scale", 1);
 
-        String permission = config.getString(basePath + ".permission", "");
-        String permMessage = config.getString(basePath + ".permission-message", "");
+        String permission = record.getString("permission", "");
+        String permMessage = record.getString("permission-message", "");
 
         // Load command actions
         List<CommandAction> actions = new ArrayList<>();
-        int commandCount = config.getInt(basePath + ".commands.count", 0);
-        String commandSelectionMode = config.getString(basePath + ".commands.mode", "ALL");
+        int commandCount = record.getInt("commands.count", 0);
+        String commandSelectionMode = record.getString("commands.mode", "ALL");
 
         for (int i = 0; i < commandCount; i++) {
-            String commandPath = basePath + ".commands." + i;
-            String command = config.getString(commandPath + ".command");
-            boolean runAsServer = config.getBoolean(commandPath + ".run-as-server", false);
-            float delay = config.getFloat(commandPath + ".delay", 0.0f);
-            float chancePercent = config.getFloat(commandPath + ".chance", 100.0f);
+            String commandPath = "commands." + i;
+            String command = record.getString(commandPath + ".command");
+            boolean runAsServer = record.getBoolean(commandPath + ".run-as-server", false);
+            float delay = record.getFloat(commandPath + ".delay", 0.0f);
+            float chancePercent = record.getFloat(commandPath + ".chance", 100.0f);
             // null = not yet set, will be migrated below
-            String trigger = config.getString(commandPath + ".interaction-trigger", null);
+            String trigger = record.getString(commandPath + ".interaction-trigger", null);
 
             if (command != null) {
                 actions.add(new CommandAction(command, runAsServer, delay, trigger, chancePercent));
             }
         }
 
-        UUID npcUUID = config.getUUID(basePath + ".npc-uuid");
+        UUID npcUUID = record.getUUID("npc-uuid");
 
         // Load hologram
-        List<UUID> hologramUuids = config.getUUIDList(basePath + ".hologram-uuids");
+        List<UUID> hologramUuids = record.getUUIDList("hologram-uuids");
         if (hologramUuids == null) {
             hologramUuids = new ArrayList<>();
         }
 
         if (hologramUuids.isEmpty()) {
             // Backwards compatibility
-            UUID hologramUUID = config.getUUID(basePath + ".hologram-uuid");
+            UUID hologramUUID = record.getUUID("hologram-uuid");
             if (hologramUUID != null) {
                 hologramUuids.add(hologramUUID);
                 getLogger().atInfo().log("Loaded Hologram UUID: " + hologramUUID);
             }
         }
 
-        boolean rotateTowardsPlayer = config.getBoolean(basePath + ".rotate-towards-player", false);
-        float lookAtDistance = config.getFloat(basePath + ".look-at-distance", 25.0f);
+        boolean rotateTowardsPlayer = record.getBoolean("rotate-towards-player", false);
+        float lookAtDistance = record.getFloat("look-at-distance", 25.0f);
 
         // Load skin data
-        boolean isPlayerModel = config.getBoolean(basePath + ".is-player-model", false);
-        boolean useLiveSkin = config.getBoolean(basePath + ".use-live-skin", false);
-        String skinUsername = config.getString(basePath + ".skin-username", "");
-        PlayerSkin cachedSkin = config.getPlayerSkin(basePath + ".cached-skin");
-        long lastSkinUpdate = config.getLong(basePath + ".last-skin-update", 0L);
+        boolean isPlayerModel = record.getBoolean("is-player-model", false);
+        boolean useLiveSkin = record.getBoolean("use-live-skin", false);
+        String skinUsername = record.getString("skin-username", "");
+        PlayerSkin cachedSkin = record.getPlayerSkin("cached-skin");
+        long lastSkinUpdate = record.getLong("last-skin-update", 0L);
 
         CitizenData citizenData = new CitizenData(citizenId, name, modelId, worldUUID, position, rotation, scale, npcUUID, hologramUuids,
                 permission, permMessage, actions, isPlayerModel, useLiveSkin, skinUsername, cachedSkin, lastSkinUpdate, rotateTowardsPlayer);
@@ -828,81 +1337,82 @@ public class CitizensManager {
         citizenData.setCommandSelectionMode(commandSelectionMode);
         citizenData.setLookAtDistance(lookAtDistance);
 
-        Vector3d currentPosition = config.getVector3d(basePath + ".current-position");
+        Vector3d currentPosition = record.getVector3d("current-position");
         if (currentPosition == null) {
             currentPosition = position;
         }
         citizenData.setCurrentPosition(currentPosition);
 
         // Load item data
-        citizenData.setNpcHelmet(config.getString(basePath + ".npc-helmet", null));
-        citizenData.setNpcChest(config.getString(basePath + ".npc-chest", null));
-        citizenData.setNpcLeggings(config.getString(basePath + ".npc-leggings", null));
-        citizenData.setNpcGloves(config.getString(basePath + ".npc-gloves", null));
-        citizenData.setNpcHand(config.getString(basePath + ".npc-hand", null));
-        citizenData.setNpcOffHand(config.getString(basePath + ".npc-offhand", null));
+        citizenData.setNpcHelmet(record.getString("npc-helmet", null));
+        citizenData.setNpcChest(record.getString("npc-chest", null));
+        citizenData.setNpcLeggings(record.getString("npc-leggings", null));
+        citizenData.setNpcGloves(record.getString("npc-gloves", null));
+        citizenData.setNpcHand(record.getString("npc-hand", null));
+        citizenData.setNpcOffHand(record.getString("npc-offhand", null));
 
         // Misc
-        citizenData.setHideNametag(config.getBoolean(basePath + ".hide-nametag", false));
-        citizenData.setHideNpc(config.getBoolean(basePath + ".hide-npc", false));
-        citizenData.setNametagOffset(config.getFloat(basePath + ".nametag-offset", 0));
-        citizenData.setModelNametagEnabled(config.getBoolean(basePath + ".nametag.model.enabled", false));
-        citizenData.setNametagModelId(config.getString(basePath + ".nametag.model.id", ""));
-        citizenData.setNametagModelScale(config.getFloat(basePath + ".nametag.model.scale", 1.0f));
-        citizenData.setRotateNametagTowardsPlayer(config.getBoolean(basePath + ".nametag.model.rotate-towards-player", true));
+        citizenData.setHideNametag(record.getBoolean("hide-nametag", false));
+        citizenData.setHideNpc(record.getBoolean("hide-npc", false));
+        citizenData.setNametagOffset(record.getFloat("nametag-offset", 0));
+        citizenData.setModelNametagEnabled(record.getBoolean("nametag.model.enabled", false));
+        citizenData.setNametagModelId(record.getString("nametag.model.id", ""));
+        citizenData.setNametagModelScale(record.getFloat("nametag.model.scale", 1.0f));
+        citizenData.setRotateNametagTowardsPlayer(record.getBoolean("nametag.model.rotate-towards-player", true));
 
         // Backwards compatibility
-        citizenData.setFKeyInteractionEnabled(config.getBoolean(basePath + ".f-key-interaction", true));
+        citizenData.setFKeyInteractionEnabled(record.getBoolean("f-key-interaction", true));
 
-        citizenData.setForceFKeyInteractionText(config.getBoolean(basePath + ".force-f-key-interaction-text", false));
-        citizenData.setMapMarkerEnabled(config.getBoolean(basePath + ".map-marker.enabled", false));
-        citizenData.setMapMarkerType(config.getString(basePath + ".map-marker.type", CitizenData.MAP_MARKER_TYPE_PIN));
-        citizenData.setMapMarkerName(config.getString(basePath + ".map-marker.name", ""));
+        citizenData.setForceFKeyInteractionText(record.getBoolean("force-f-key-interaction-text", false));
+        citizenData.setMapMarkerEnabled(record.getBoolean("map-marker.enabled", false));
+        citizenData.setMapMarkerType(record.getString("map-marker.type", CitizenData.MAP_MARKER_TYPE_PIN));
+        citizenData.setMapMarkerName(record.getString("map-marker.name", ""));
 
         // Load animation behaviors
         List<AnimationBehavior> animBehaviors = new ArrayList<>();
-        int animCount = config.getInt(basePath + ".animations.count", 0);
+        int animCount = record.getInt("animations.count", 0);
         for (int i = 0; i < animCount; i++) {
-            String animPath = basePath + ".animations." + i;
-            String animType = config.getString(animPath + ".type", "DEFAULT");
-            String animName = config.getString(animPath + ".animation-name", "");
-            int animSlot = config.getInt(animPath + ".animation-slot", 0);
-            float interval = config.getFloat(animPath + ".interval-seconds", 5.0f);
-            float proxRange = config.getFloat(animPath + ".proximity-range", 8.0f);
-            boolean stopAfterTime = config.getBoolean(animPath + ".stop-after-time", false);
-            String stopAnimName = config.getString(animPath + ".stop-animation-name", "");
-            float stopTime = config.getFloat(animPath + ".stop-time-seconds", 3.0f);
+            String animPath = "animations." + i;
+            String animType = record.getString(animPath + ".type", "DEFAULT");
+            String animName = record.getString(animPath + ".animation-name", "");
+            int animSlot = record.getInt(animPath + ".animation-slot", 0);
+            float interval = record.getFloat(animPath + ".interval-seconds", 5.0f);
+            float proxRange = record.getFloat(animPath + ".proximity-range", 8.0f);
+            boolean stopAfterTime = record.getBoolean(animPath + ".stop-after-time", false);
+            String stopAnimName = record.getString(animPath + ".stop-animation-name", "");
+            float stopTime = record.getFloat(animPath + ".stop-time-seconds", 3.0f);
             animBehaviors.add(new AnimationBehavior(animType, animName, animSlot, interval, proxRange, stopAfterTime, stopAnimName, stopTime));
         }
         citizenData.setAnimationBehaviors(animBehaviors);
 
         // Load movement behavior
-        String moveType = config.getString(basePath + ".movement.type", "IDLE");
-        String walkSpeedPath = basePath + ".movement.walk-speed";
+        String moveType = record.getString("movement.type", "IDLE");
+        String walkSpeedPath = "movement.walk-speed";
         float defaultWalkSpeed = "FOLLOW_CITIZEN".equals(moveType) ? 4.0f : 10.0f;
-        float walkSpeed = config.getFloat(walkSpeedPath, defaultWalkSpeed);
-        float runSpeed = config.getFloat(basePath + ".movement.run-speed", 6.0f);
-        float wanderRadius = config.getFloat(basePath + ".movement.wander-radius", 10.0f);
-        float wanderWidth = config.getFloat(basePath + ".movement.wander-width", 10.0f);
-        float wanderDepth = config.getFloat(basePath + ".movement.wander-depth", 10.0f);
+        float walkSpeed = record.getFloat(walkSpeedPath, defaultWalkSpeed);
+        float runSpeed = record.getFloat("movement.run-speed", 6.0f);
+        float wanderRadius = record.getFloat("movement.wander-radius", 10.0f);
+        float wanderWidth = record.getFloat("movement.wander-width", 10.0f);
+        float wanderDepth = record.getFloat("movement.wander-depth", 10.0f);
         citizenData.setMovementBehavior(new MovementBehavior(moveType, walkSpeed, runSpeed, wanderRadius, wanderWidth, wanderDepth));
-        citizenData.setFollowCitizenEnabled(config.getBoolean(basePath + ".follow-citizen.enabled", false));
-        citizenData.setFollowCitizenId(config.getString(basePath + ".follow-citizen.id", ""));
-        citizenData.setFollowDistance(config.getFloat(basePath + ".follow-citizen.distance", 2.0f));
-        citizenData.setScheduleConfig(loadScheduleConfig(basePath));
+        citizenData.setFollowCitizenEnabled(record.getBoolean("follow-citizen.enabled", false));
+        citizenData.setFollowCitizenId(record.getString("follow-citizen.id", ""));
+        citizenData.setFollowDistance(record.getFloat("follow-citizen.distance", 2.0f));
+        citizenData.setFollowFormation(FollowFormation.fromString(record.getString("follow-citizen.formation", "RING")));
+        citizenData.setScheduleConfig(loadScheduleConfig(record));
 
         // Load messages config
-        int msgCount = config.getInt(basePath + ".messages.count", 0);
-        String msgMode = config.getString(basePath + ".messages.mode", "RANDOM");
-        boolean msgEnabled = config.getBoolean(basePath + ".messages.enabled", true);
+        int msgCount = record.getInt("messages.count", 0);
+        String msgMode = record.getString("messages.mode", "RANDOM");
+        boolean msgEnabled = record.getBoolean("messages.enabled", true);
         List<CitizenMessage> messages = new ArrayList<>();
         for (int i = 0; i < msgCount; i++) {
-            String msgPath = basePath + ".messages." + i;
-            String msg = config.getString(msgPath + ".message", "");
+            String msgPath = "messages." + i;
+            String msg = record.getString(msgPath + ".message", "");
             // null = not yet set, will be migrated below
-            String msgTrigger = config.getString(msgPath + ".interaction-trigger", null);
-            float msgDelay = config.getFloat(msgPath + ".delay", 0.0f);
-            float msgChance = config.getFloat(msgPath + ".chance", 100.0f);
+            String msgTrigger = record.getString(msgPath + ".interaction-trigger", null);
+            float msgDelay = record.getFloat(msgPath + ".delay", 0.0f);
+            float msgChance = record.getFloat(msgPath + ".chance", 100.0f);
             messages.add(new CitizenMessage(msg, msgTrigger, msgDelay, msgChance));
         }
         citizenData.setMessagesConfig(new MessagesConfig(messages, msgMode, msgEnabled));
@@ -931,40 +1441,40 @@ public class CitizensManager {
         }
 
         // Load attitude and damage settings
-        citizenData.setAttitude(config.getString(basePath + ".attitude", "PASSIVE"));
-        citizenData.setTakesDamage(config.getBoolean(basePath + ".takes-damage", false));
-        citizenData.setOverrideHealth(config.getBoolean(basePath + ".override-health", false));
-        citizenData.setHealthAmount(config.getFloat(basePath + ".health-amount", 100));
-        citizenData.setOverrideDamage(config.getBoolean(basePath + ".override-damage", false));
-        citizenData.setDamageAmount(config.getFloat(basePath + ".damage-amount", 10));
+        citizenData.setAttitude(record.getString("attitude", "PASSIVE"));
+        citizenData.setTakesDamage(record.getBoolean("takes-damage", false));
+        citizenData.setOverrideHealth(record.getBoolean("override-health", false));
+        citizenData.setHealthAmount(record.getFloat("health-amount", 100));
+        citizenData.setOverrideDamage(record.getBoolean("override-damage", false));
+        citizenData.setDamageAmount(record.getFloat("damage-amount", 10));
 
         // Load respawn settings
-        citizenData.setRespawnOnDeath(config.getBoolean(basePath + ".respawn-on-death", true));
-        citizenData.setRespawnDelaySeconds(config.getFloat(basePath + ".respawn-delay", 5.0f));
-        citizenData.setRespawnReadyAtMillis(config.getLong(basePath + ".respawn-ready-at", 0L));
+        citizenData.setRespawnOnDeath(record.getBoolean("respawn-on-death", true));
+        citizenData.setRespawnDelaySeconds(record.getFloat("respawn-delay", 5.0f));
+        citizenData.setRespawnReadyAtMillis(record.getLong("respawn-ready-at", 0L));
 
         // Load group (backwards compatible - defaults to empty string)
-        citizenData.setGroup(config.getString(basePath + ".group", ""));
+        citizenData.setGroup(record.getString("group", ""));
 
         // Load death config
         DeathConfig deathConfig = new DeathConfig();
-        deathConfig.setCommandSelectionMode(config.getString(basePath + ".death.command-mode", "ALL"));
-        deathConfig.setMessageSelectionMode(config.getString(basePath + ".death.message-mode", "ALL"));
-        deathConfig.setDropCountMin(config.getInt(basePath + ".death.drop-count-min", 0));
-        deathConfig.setDropCountMax(config.getInt(basePath + ".death.drop-count-max", 0));
-        deathConfig.setCommandCountMin(config.getInt(basePath + ".death.command-count-min", 0));
-        deathConfig.setCommandCountMax(config.getInt(basePath + ".death.command-count-max", 0));
-        deathConfig.setMessageCountMin(config.getInt(basePath + ".death.message-count-min", 0));
-        deathConfig.setMessageCountMax(config.getInt(basePath + ".death.message-count-max", 0));
+        deathConfig.setCommandSelectionMode(record.getString("death.command-mode", "ALL"));
+        deathConfig.setMessageSelectionMode(record.getString("death.message-mode", "ALL"));
+        deathConfig.setDropCountMin(record.getInt("death.drop-count-min", 0));
+        deathConfig.setDropCountMax(record.getInt("death.drop-count-max", 0));
+        deathConfig.setCommandCountMin(record.getInt("death.command-count-min", 0));
+        deathConfig.setCommandCountMax(record.getInt("death.command-count-max", 0));
+        deathConfig.setMessageCountMin(record.getInt("death.message-count-min", 0));
+        deathConfig.setMessageCountMax(record.getInt("death.message-count-max", 0));
 
         List<DeathDropItem> drops = new ArrayList<>();
 
-        for (String key : config.getKeys(basePath + ".death.drops")) {
-            String dropPath = basePath + ".death.drops." + key;
+        for (String key : record.getKeys("death.drops")) {
+            String dropPath = "death.drops." + key;
 
-            String itemId = config.getString(dropPath + ".item-id", "");
-            int quantity = config.getInt(dropPath + ".quantity", 1);
-            float chancePercent = config.getFloat(dropPath + ".chance", 100.0f);
+            String itemId = record.getString(dropPath + ".item-id", "");
+            int quantity = record.getInt(dropPath + ".quantity", 1);
+            float chancePercent = record.getFloat(dropPath + ".chance", 100.0f);
 
             if (!itemId.isEmpty()) {
                 drops.add(new DeathDropItem(itemId, quantity, chancePercent));
@@ -978,13 +1488,13 @@ public class CitizensManager {
 
         List<CommandAction> deathCommands = new ArrayList<>();
 
-        for (String key : config.getKeys(basePath + ".death.commands")) {
-            String cmdPath = basePath + ".death.commands." + key;
+        for (String key : record.getKeys("death.commands")) {
+            String cmdPath = "death.commands." + key;
 
-            String cmd = config.getString(cmdPath + ".command", "");
-            boolean runAsServer = config.getBoolean(cmdPath + ".run-as-server", true);
-            float delay = config.getFloat(cmdPath + ".delay", 0);
-            float chance = config.getFloat(cmdPath + ".chance", 100.0f);
+            String cmd = record.getString(cmdPath + ".command", "");
+            boolean runAsServer = record.getBoolean(cmdPath + ".run-as-server", true);
+            float delay = record.getFloat(cmdPath + ".delay", 0);
+            float chance = record.getFloat(cmdPath + ".chance", 100.0f);
 
             if (!cmd.isEmpty()) {
                 deathCommands.add(new CommandAction(cmd, runAsServer, delay, chance));
@@ -998,12 +1508,12 @@ public class CitizensManager {
 
         List<CitizenMessage> deathMessages = new ArrayList<>();
 
-        for (String key : config.getKeys(basePath + ".death.messages")) {
-            String msgPath = basePath + ".death.messages." + key;
+        for (String key : record.getKeys("death.messages")) {
+            String msgPath = "death.messages." + key;
 
-            String msg = config.getString(msgPath + ".message", "");
-            float delay = config.getFloat(msgPath + ".delay", 0);
-            float chance = config.getFloat(msgPath + ".chance", 100.0f);
+            String msg = record.getString(msgPath + ".message", "");
+            float delay = record.getFloat(msgPath + ".delay", 0);
+            float chance = record.getFloat(msgPath + ".chance", 100.0f);
 
             if (!msg.isEmpty()) {
                 deathMessages.add(new CitizenMessage(msg, null, delay, chance));
@@ -1017,167 +1527,167 @@ public class CitizensManager {
         citizenData.setDeathConfig(deathConfig);
 
         // Load first interaction config
-        citizenData.setFirstInteractionEnabled(config.getBoolean(basePath + ".first-interaction.enabled", false));
-        String firstCommandMode = config.getString(basePath + ".first-interaction.commands.mode", "ALL");
+        citizenData.setFirstInteractionEnabled(record.getBoolean("first-interaction.enabled", false));
+        String firstCommandMode = record.getString("first-interaction.commands.mode", "ALL");
         if (!"ALL".equalsIgnoreCase(firstCommandMode) && !"RANDOM".equalsIgnoreCase(firstCommandMode)) {
             firstCommandMode = "RANDOM";
         } else {
             firstCommandMode = firstCommandMode.toUpperCase(Locale.ROOT);
         }
         citizenData.setFirstInteractionCommandSelectionMode(firstCommandMode);
-        citizenData.setPostFirstInteractionBehavior(config.getString(basePath + ".first-interaction.post-behavior", "NORMAL"));
-        citizenData.setRunNormalOnFirstInteraction(config.getBoolean(basePath + ".first-interaction.run-normal-on-first", false));
+        citizenData.setPostFirstInteractionBehavior(record.getString("first-interaction.post-behavior", "NORMAL"));
+        citizenData.setRunNormalOnFirstInteraction(record.getBoolean("first-interaction.run-normal-on-first", false));
 
         List<CommandAction> firstCommands = new ArrayList<>();
-        int firstCommandCount = config.getInt(basePath + ".first-interaction.commands.count", 0);
+        int firstCommandCount = record.getInt("first-interaction.commands.count", 0);
         for (int i = 0; i < firstCommandCount; i++) {
-            String cmdPath = basePath + ".first-interaction.commands." + i;
-            String cmd = config.getString(cmdPath + ".command", "");
-            boolean runAsServer = config.getBoolean(cmdPath + ".run-as-server", false);
-            float delay = config.getFloat(cmdPath + ".delay", 0.0f);
-            String trigger = config.getString(cmdPath + ".interaction-trigger", "BOTH");
-            float chance = config.getFloat(cmdPath + ".chance", 100.0f);
+            String cmdPath = "first-interaction.commands." + i;
+            String cmd = record.getString(cmdPath + ".command", "");
+            boolean runAsServer = record.getBoolean(cmdPath + ".run-as-server", false);
+            float delay = record.getFloat(cmdPath + ".delay", 0.0f);
+            String trigger = record.getString(cmdPath + ".interaction-trigger", "BOTH");
+            float chance = record.getFloat(cmdPath + ".chance", 100.0f);
             if (!cmd.isEmpty()) {
                 firstCommands.add(new CommandAction(cmd, runAsServer, delay, trigger, chance));
             }
         }
         citizenData.setFirstInteractionCommandActions(firstCommands);
 
-        int firstMsgCount = config.getInt(basePath + ".first-interaction.messages.count", 0);
-        String firstMsgModeRaw = config.getString(basePath + ".first-interaction.messages.mode", "RANDOM");
+        int firstMsgCount = record.getInt("first-interaction.messages.count", 0);
+        String firstMsgModeRaw = record.getString("first-interaction.messages.mode", "RANDOM");
         String firstMsgMode = "ALL".equalsIgnoreCase(firstMsgModeRaw) ? "ALL" : "RANDOM";
-        boolean firstMsgEnabled = config.getBoolean(basePath + ".first-interaction.messages.enabled", true);
+        boolean firstMsgEnabled = record.getBoolean("first-interaction.messages.enabled", true);
         List<CitizenMessage> firstMessages = new ArrayList<>();
         for (int i = 0; i < firstMsgCount; i++) {
-            String msgPath = basePath + ".first-interaction.messages." + i;
-            String msg = config.getString(msgPath + ".message", "");
-            String trigger = config.getString(msgPath + ".interaction-trigger", "BOTH");
-            float delay = config.getFloat(msgPath + ".delay", 0.0f);
-            float chance = config.getFloat(msgPath + ".chance", 100.0f);
+            String msgPath = "first-interaction.messages." + i;
+            String msg = record.getString(msgPath + ".message", "");
+            String trigger = record.getString(msgPath + ".interaction-trigger", "BOTH");
+            float delay = record.getFloat(msgPath + ".delay", 0.0f);
+            float chance = record.getFloat(msgPath + ".chance", 100.0f);
             firstMessages.add(new CitizenMessage(msg, trigger, delay, chance));
         }
         citizenData.setFirstInteractionMessagesConfig(new MessagesConfig(firstMessages, firstMsgMode, firstMsgEnabled));
 
-        List<UUID> firstPlayers = config.getUUIDList(basePath + ".first-interaction.completed-players");
+        List<UUID> firstPlayers = record.getUUIDList("first-interaction.completed-players");
         if (firstPlayers != null && !firstPlayers.isEmpty()) {
             citizenData.setPlayersWhoCompletedFirstInteraction(new HashSet<>(firstPlayers));
         }
 
         // Load new config fields
-        citizenData.setMaxHealth(config.getFloat(basePath + ".max-health", 100));
-        citizenData.setLeashDistance(config.getFloat(basePath + ".leash-distance", 45));
-        citizenData.setDefaultNpcAttitude(config.getString(basePath + ".default-npc-attitude", "Ignore"));
-        citizenData.setApplySeparation(config.getBoolean(basePath + ".apply-separation", true));
+        citizenData.setMaxHealth(record.getFloat("max-health", 100));
+        citizenData.setLeashDistance(record.getFloat("leash-distance", 45));
+        citizenData.setDefaultNpcAttitude(record.getString("default-npc-attitude", "Ignore"));
+        citizenData.setApplySeparation(record.getBoolean("apply-separation", true));
 
         // Load combat config
         CombatConfig combatConfig = new CombatConfig();
-        combatConfig.setAttackType(config.getString(basePath + ".combat.attack-type", "Root_NPC_Attack_Melee"));
-        combatConfig.setAttackDistance(config.getFloat(basePath + ".combat.attack-distance", 2.0f));
-        combatConfig.setChaseSpeed(config.getFloat(basePath + ".combat.chase-speed", 0.67f));
-        combatConfig.setCombatBehaviorDistance(config.getFloat(basePath + ".combat.combat-behavior-distance", 5.0f));
-        combatConfig.setCombatStrafeWeight(config.getInt(basePath + ".combat.combat-strafe-weight", 10));
-        combatConfig.setCombatDirectWeight(config.getInt(basePath + ".combat.combat-direct-weight", 10));
-        combatConfig.setBackOffAfterAttack(config.getBoolean(basePath + ".combat.back-off-after-attack", true));
-        combatConfig.setBackOffDistance(config.getFloat(basePath + ".combat.back-off-distance", 4.0f));
-        combatConfig.setDesiredAttackDistanceMin(config.getFloat(basePath + ".combat.desired-attack-dist-min", 1.5f));
-        combatConfig.setDesiredAttackDistanceMax(config.getFloat(basePath + ".combat.desired-attack-dist-max", 1.5f));
-        combatConfig.setAttackPauseMin(config.getFloat(basePath + ".combat.attack-pause-min", 1.5f));
-        combatConfig.setAttackPauseMax(config.getFloat(basePath + ".combat.attack-pause-max", 2.0f));
-        combatConfig.setCombatRelativeTurnSpeed(config.getFloat(basePath + ".combat.combat-relative-turn-speed", 1.5f));
-        combatConfig.setCombatAlwaysMovingWeight(config.getInt(basePath + ".combat.combat-always-moving-weight", 0));
-        combatConfig.setCombatStrafingDurationMin(config.getFloat(basePath + ".combat.strafing-duration-min", 1.0f));
-        combatConfig.setCombatStrafingDurationMax(config.getFloat(basePath + ".combat.strafing-duration-max", 1.0f));
-        combatConfig.setCombatStrafingFrequencyMin(config.getFloat(basePath + ".combat.strafing-frequency-min", 2.0f));
-        combatConfig.setCombatStrafingFrequencyMax(config.getFloat(basePath + ".combat.strafing-frequency-max", 2.0f));
-        combatConfig.setCombatAttackPreDelayMin(config.getFloat(basePath + ".combat.attack-pre-delay-min", 0.2f));
-        combatConfig.setCombatAttackPreDelayMax(config.getFloat(basePath + ".combat.attack-pre-delay-max", 0.2f));
-        combatConfig.setCombatAttackPostDelayMin(config.getFloat(basePath + ".combat.attack-post-delay-min", 0.2f));
-        combatConfig.setCombatAttackPostDelayMax(config.getFloat(basePath + ".combat.attack-post-delay-max", 0.2f));
-        combatConfig.setBackOffDurationMin(config.getFloat(basePath + ".combat.back-off-duration-min", 2.0f));
-        combatConfig.setBackOffDurationMax(config.getFloat(basePath + ".combat.back-off-duration-max", 3.0f));
-        combatConfig.setBlockAbility(config.getString(basePath + ".combat.block-ability", "Shield_Block"));
-        combatConfig.setBlockProbability(config.getInt(basePath + ".combat.block-probability", 50));
-        combatConfig.setCombatFleeIfTooCloseDistance(config.getFloat(basePath + ".combat.flee-if-too-close", 0f));
-        combatConfig.setTargetSwitchTimerMin(config.getFloat(basePath + ".combat.target-switch-min", 5.0f));
-        combatConfig.setTargetSwitchTimerMax(config.getFloat(basePath + ".combat.target-switch-max", 5.0f));
-        combatConfig.setTargetRange(config.getFloat(basePath + ".combat.target-range", 4.0f));
-        combatConfig.setCombatMovingRelativeSpeed(config.getFloat(basePath + ".combat.combat-moving-speed", 0.6f));
-        combatConfig.setCombatBackwardsRelativeSpeed(config.getFloat(basePath + ".combat.combat-backwards-speed", 0.3f));
-        combatConfig.setUseCombatActionEvaluator(config.getBoolean(basePath + ".combat.use-combat-action-evaluator", false));
+        combatConfig.setAttackType(record.getString("combat.attack-type", "Root_NPC_Attack_Melee"));
+        combatConfig.setAttackDistance(record.getFloat("combat.attack-distance", 2.0f));
+        combatConfig.setChaseSpeed(record.getFloat("combat.chase-speed", 0.67f));
+        combatConfig.setCombatBehaviorDistance(record.getFloat("combat.combat-behavior-distance", 5.0f));
+        combatConfig.setCombatStrafeWeight(record.getInt("combat.combat-strafe-weight", 10));
+        combatConfig.setCombatDirectWeight(record.getInt("combat.combat-direct-weight", 10));
+        combatConfig.setBackOffAfterAttack(record.getBoolean("combat.back-off-after-attack", true));
+        combatConfig.setBackOffDistance(record.getFloat("combat.back-off-distance", 4.0f));
+        combatConfig.setDesiredAttackDistanceMin(record.getFloat("combat.desired-attack-dist-min", 1.5f));
+        combatConfig.setDesiredAttackDistanceMax(record.getFloat("combat.desired-attack-dist-max", 1.5f));
+        combatConfig.setAttackPauseMin(record.getFloat("combat.attack-pause-min", 1.5f));
+        combatConfig.setAttackPauseMax(record.getFloat("combat.attack-pause-max", 2.0f));
+        combatConfig.setCombatRelativeTurnSpeed(record.getFloat("combat.combat-relative-turn-speed", 1.5f));
+        combatConfig.setCombatAlwaysMovingWeight(record.getInt("combat.combat-always-moving-weight", 0));
+        combatConfig.setCombatStrafingDurationMin(record.getFloat("combat.strafing-duration-min", 1.0f));
+        combatConfig.setCombatStrafingDurationMax(record.getFloat("combat.strafing-duration-max", 1.0f));
+        combatConfig.setCombatStrafingFrequencyMin(record.getFloat("combat.strafing-frequency-min", 2.0f));
+        combatConfig.setCombatStrafingFrequencyMax(record.getFloat("combat.strafing-frequency-max", 2.0f));
+        combatConfig.setCombatAttackPreDelayMin(record.getFloat("combat.attack-pre-delay-min", 0.2f));
+        combatConfig.setCombatAttackPreDelayMax(record.getFloat("combat.attack-pre-delay-max", 0.2f));
+        combatConfig.setCombatAttackPostDelayMin(record.getFloat("combat.attack-post-delay-min", 0.2f));
+        combatConfig.setCombatAttackPostDelayMax(record.getFloat("combat.attack-post-delay-max", 0.2f));
+        combatConfig.setBackOffDurationMin(record.getFloat("combat.back-off-duration-min", 2.0f));
+        combatConfig.setBackOffDurationMax(record.getFloat("combat.back-off-duration-max", 3.0f));
+        combatConfig.setBlockAbility(record.getString("combat.block-ability", "Shield_Block"));
+        combatConfig.setBlockProbability(record.getInt("combat.block-probability", 50));
+        combatConfig.setCombatFleeIfTooCloseDistance(record.getFloat("combat.flee-if-too-close", 0f));
+        combatConfig.setTargetSwitchTimerMin(record.getFloat("combat.target-switch-min", 5.0f));
+        combatConfig.setTargetSwitchTimerMax(record.getFloat("combat.target-switch-max", 5.0f));
+        combatConfig.setTargetRange(record.getFloat("combat.target-range", 4.0f));
+        combatConfig.setCombatMovingRelativeSpeed(record.getFloat("combat.combat-moving-speed", 0.6f));
+        combatConfig.setCombatBackwardsRelativeSpeed(record.getFloat("combat.combat-backwards-speed", 0.3f));
+        combatConfig.setUseCombatActionEvaluator(record.getBoolean("combat.use-combat-action-evaluator", false));
         citizenData.setCombatConfig(combatConfig);
 
         // Load detection config
         DetectionConfig detectionConfig = new DetectionConfig();
-        detectionConfig.setViewRange(config.getFloat(basePath + ".detection.view-range", 15));
-        detectionConfig.setViewSector(config.getFloat(basePath + ".detection.view-sector", 180));
-        detectionConfig.setHearingRange(config.getFloat(basePath + ".detection.hearing-range", 8));
-        detectionConfig.setAbsoluteDetectionRange(config.getFloat(basePath + ".detection.absolute-detection-range", 2));
-        detectionConfig.setAlertedRange(config.getFloat(basePath + ".detection.alerted-range", 45));
-        detectionConfig.setAlertedTimeMin(config.getFloat(basePath + ".detection.alerted-time-min", 1.0f));
-        detectionConfig.setAlertedTimeMax(config.getFloat(basePath + ".detection.alerted-time-max", 2.0f));
-        detectionConfig.setChanceToBeAlertedWhenReceivingCallForHelp(config.getInt(basePath + ".detection.chance-alerted-call-for-help", 70));
-        detectionConfig.setConfusedTimeMin(config.getFloat(basePath + ".detection.confused-time-min", 1.0f));
-        detectionConfig.setConfusedTimeMax(config.getFloat(basePath + ".detection.confused-time-max", 2.0f));
-        detectionConfig.setSearchTimeMin(config.getFloat(basePath + ".detection.search-time-min", 10.0f));
-        detectionConfig.setSearchTimeMax(config.getFloat(basePath + ".detection.search-time-max", 14.0f));
-        detectionConfig.setInvestigateRange(config.getFloat(basePath + ".detection.investigate-range", 40.0f));
+        detectionConfig.setViewRange(record.getFloat("detection.view-range", 15));
+        detectionConfig.setViewSector(record.getFloat("detection.view-sector", 180));
+        detectionConfig.setHearingRange(record.getFloat("detection.hearing-range", 8));
+        detectionConfig.setAbsoluteDetectionRange(record.getFloat("detection.absolute-detection-range", 2));
+        detectionConfig.setAlertedRange(record.getFloat("detection.alerted-range", 45));
+        detectionConfig.setAlertedTimeMin(record.getFloat("detection.alerted-time-min", 1.0f));
+        detectionConfig.setAlertedTimeMax(record.getFloat("detection.alerted-time-max", 2.0f));
+        detectionConfig.setChanceToBeAlertedWhenReceivingCallForHelp(record.getInt("detection.chance-alerted-call-for-help", 70));
+        detectionConfig.setConfusedTimeMin(record.getFloat("detection.confused-time-min", 1.0f));
+        detectionConfig.setConfusedTimeMax(record.getFloat("detection.confused-time-max", 2.0f));
+        detectionConfig.setSearchTimeMin(record.getFloat("detection.search-time-min", 10.0f));
+        detectionConfig.setSearchTimeMax(record.getFloat("detection.search-time-max", 14.0f));
+        detectionConfig.setInvestigateRange(record.getFloat("detection.investigate-range", 40.0f));
         citizenData.setDetectionConfig(detectionConfig);
 
         // Load path config
         PathConfig pathConfig = new PathConfig();
-        pathConfig.setFollowPath(config.getBoolean(basePath + ".path.follow-path", false));
-        pathConfig.setPathName(config.getString(basePath + ".path.path-name", ""));
-        pathConfig.setPatrol(config.getBoolean(basePath + ".path.patrol", false));
-        pathConfig.setPatrolWanderDistance(config.getFloat(basePath + ".path.patrol-wander-distance", 25));
-        pathConfig.setLoopMode(config.getString(basePath + ".path.loop-mode", "LOOP"));
-        pathConfig.setPluginPatrolPath(config.getString(basePath + ".path.plugin-patrol-path", ""));
-        pathConfig.setPluginPatrolSpeed(config.getFloat(basePath + ".path.plugin-patrol-speed", 2.0f));
+        pathConfig.setFollowPath(record.getBoolean("path.follow-path", false));
+        pathConfig.setPathName(record.getString("path.path-name", ""));
+        pathConfig.setPatrol(record.getBoolean("path.patrol", false));
+        pathConfig.setPatrolWanderDistance(record.getFloat("path.patrol-wander-distance", 25));
+        pathConfig.setLoopMode(record.getString("path.loop-mode", "LOOP"));
+        pathConfig.setPluginPatrolPath(record.getString("path.plugin-patrol-path", ""));
+        pathConfig.setPluginPatrolSpeed(record.getFloat("path.plugin-patrol-speed", 2.0f));
         citizenData.setPathConfig(pathConfig);
 
         // Load extended Template_Citizen parameters
-        citizenData.setDropList(config.getString(basePath + ".drop-list", "Empty"));
-        citizenData.setRunThreshold(config.getFloat(basePath + ".run-threshold", 0.3f));
-        citizenData.setWakingIdleBehaviorComponent(config.getString(basePath + ".waking-idle-behavior", "Component_Instruction_Waking_Idle"));
-        citizenData.setDayFlavorAnimation(config.getString(basePath + ".day-flavor-animation", ""));
-        citizenData.setDayFlavorAnimationLengthMin(config.getFloat(basePath + ".day-flavor-anim-length-min", 3.0f));
-        citizenData.setDayFlavorAnimationLengthMax(config.getFloat(basePath + ".day-flavor-anim-length-max", 5.0f));
-        citizenData.setAttitudeGroup(config.getString(basePath + ".attitude-group", "Empty"));
-        citizenData.setNameTranslationKey(config.getString(basePath + ".name-translation-key", "Citizen"));
-        citizenData.setBreathesInWater(config.getBoolean(basePath + ".breathes-in-water", false));
-        citizenData.setLeashMinPlayerDistance(config.getFloat(basePath + ".leash-min-player-distance", 4.0f));
-        citizenData.setLeashTimerMin(config.getFloat(basePath + ".leash-timer-min", 3.0f));
-        citizenData.setLeashTimerMax(config.getFloat(basePath + ".leash-timer-max", 5.0f));
-        citizenData.setHardLeashDistance(config.getFloat(basePath + ".hard-leash-distance", 200.0f));
-        citizenData.setDefaultHotbarSlot(config.getInt(basePath + ".default-hotbar-slot", 0));
-        citizenData.setRandomIdleHotbarSlot(config.getInt(basePath + ".random-idle-hotbar-slot", -1));
-        citizenData.setChanceToEquipFromIdleHotbarSlot(config.getInt(basePath + ".chance-equip-idle-hotbar", 5));
-        citizenData.setDefaultOffHandSlot(config.getInt(basePath + ".default-offhand-slot", -1));
-        citizenData.setNighttimeOffhandSlot(config.getInt(basePath + ".nighttime-offhand-slot", -1));
-        citizenData.setKnockbackScale(config.getFloat(basePath + ".knockback-scale", 0.5f));
-        citizenData.setHealthRegenEnabled(config.getBoolean(basePath + ".health-regen.enabled", false));
-        citizenData.setHealthRegenAmount(config.getFloat(basePath + ".health-regen.amount", 1.0f));
-        citizenData.setHealthRegenIntervalSeconds(config.getFloat(basePath + ".health-regen.interval-seconds", 5.0f));
-        citizenData.setHealthRegenDelayAfterDamageSeconds(config.getFloat(basePath + ".health-regen.delay-after-damage-seconds", 5.0f));
-        List<String> weaponsList = config.getStringList(basePath + ".weapons");
+        citizenData.setDropList(record.getString("drop-list", "Empty"));
+        citizenData.setRunThreshold(record.getFloat("run-threshold", 0.3f));
+        citizenData.setWakingIdleBehaviorComponent(record.getString("waking-idle-behavior", "Component_Instruction_Waking_Idle"));
+        citizenData.setDayFlavorAnimation(record.getString("day-flavor-animation", ""));
+        citizenData.setDayFlavorAnimationLengthMin(record.getFloat("day-flavor-anim-length-min", 3.0f));
+        citizenData.setDayFlavorAnimationLengthMax(record.getFloat("day-flavor-anim-length-max", 5.0f));
+        citizenData.setAttitudeGroup(record.getString("attitude-group", "Empty"));
+        citizenData.setNameTranslationKey(record.getString("name-translation-key", "Citizen"));
+        citizenData.setBreathesInWater(record.getBoolean("breathes-in-water", false));
+        citizenData.setLeashMinPlayerDistance(record.getFloat("leash-min-player-distance", 4.0f));
+        citizenData.setLeashTimerMin(record.getFloat("leash-timer-min", 3.0f));
+        citizenData.setLeashTimerMax(record.getFloat("leash-timer-max", 5.0f));
+        citizenData.setHardLeashDistance(record.getFloat("hard-leash-distance", 200.0f));
+        citizenData.setDefaultHotbarSlot(record.getInt("default-hotbar-slot", 0));
+        citizenData.setRandomIdleHotbarSlot(record.getInt("random-idle-hotbar-slot", -1));
+        citizenData.setChanceToEquipFromIdleHotbarSlot(record.getInt("chance-equip-idle-hotbar", 5));
+        citizenData.setDefaultOffHandSlot(record.getInt("default-offhand-slot", -1));
+        citizenData.setNighttimeOffhandSlot(record.getInt("nighttime-offhand-slot", -1));
+        citizenData.setKnockbackScale(record.getFloat("knockback-scale", 0.5f));
+        citizenData.setHealthRegenEnabled(record.getBoolean("health-regen.enabled", false));
+        citizenData.setHealthRegenAmount(record.getFloat("health-regen.amount", 1.0f));
+        citizenData.setHealthRegenIntervalSeconds(record.getFloat("health-regen.interval-seconds", 5.0f));
+        citizenData.setHealthRegenDelayAfterDamageSeconds(record.getFloat("health-regen.delay-after-damage-seconds", 5.0f));
+        List<String> weaponsList = record.getStringList("weapons");
         if (weaponsList != null) citizenData.setWeapons(weaponsList);
-        List<String> offHandItemsList = config.getStringList(basePath + ".offhand-items");
+        List<String> offHandItemsList = record.getStringList("offhand-items");
         if (offHandItemsList != null) citizenData.setOffHandItems(offHandItemsList);
-        List<String> combatTargetGroups = config.getStringList(basePath + ".combat-message-target-groups");
+        List<String> combatTargetGroups = record.getStringList("combat-message-target-groups");
         if (combatTargetGroups != null) citizenData.setCombatMessageTargetGroups(combatTargetGroups);
-        List<String> flockArr = config.getStringList(basePath + ".flock-array");
+        List<String> flockArr = record.getStringList("flock-array");
         if (flockArr != null) citizenData.setFlockArray(flockArr);
-        List<String> disableDmgGroups = config.getStringList(basePath + ".disable-damage-groups");
+        List<String> disableDmgGroups = record.getStringList("disable-damage-groups");
         if (disableDmgGroups != null) citizenData.setDisableDamageGroups(disableDmgGroups);
 
         return citizenData;
     }
 
     @Nonnull
-    private ScheduleConfig loadScheduleConfig(@Nonnull String basePath) {
+    private ScheduleConfig loadScheduleConfig(@Nonnull ConfigSection record) {
         ScheduleConfig scheduleConfig = new ScheduleConfig();
-        scheduleConfig.setEnabled(config.getBoolean(basePath + ".schedule.enabled", false));
+        scheduleConfig.setEnabled(record.getBoolean("schedule.enabled", false));
 
-        String fallbackModeName = config.getString(basePath + ".schedule.fallback-mode",
+        String fallbackModeName = record.getString("schedule.fallback-mode",
                 ScheduleFallbackMode.USE_BASE_BEHAVIOR.name());
         try {
             scheduleConfig.setFallbackMode(ScheduleFallbackMode.valueOf(fallbackModeName));
@@ -1185,17 +1695,17 @@ public class CitizensManager {
             scheduleConfig.setFallbackMode(ScheduleFallbackMode.USE_BASE_BEHAVIOR);
         }
 
-        scheduleConfig.setDefaultLocationId(config.getString(basePath + ".schedule.default-location-id", ""));
+        scheduleConfig.setDefaultLocationId(record.getString("schedule.default-location-id", ""));
 
-        int locationCount = config.getInt(basePath + ".schedule.locations.count", 0);
+        int locationCount = record.getInt("schedule.locations.count", 0);
         List<ScheduleLocation> locations = new ArrayList<>();
         for (int i = 0; i < locationCount; i++) {
-            String locationPath = basePath + ".schedule.locations." + i;
-            String id = config.getString(locationPath + ".id", "");
-            String name = config.getString(locationPath + ".name", "Location");
-            UUID worldUuid = config.getUUID(locationPath + ".world-uuid");
-            Vector3d position = config.getVector3d(locationPath + ".position");
-            Vector3f rotation = config.getVector3f(locationPath + ".rotation");
+            String locationPath = "schedule.locations." + i;
+            String id = record.getString(locationPath + ".id", "");
+            String name = record.getString(locationPath + ".name", "Location");
+            UUID worldUuid = record.getUUID(locationPath + ".world-uuid");
+            Vector3d position = record.getVector3d(locationPath + ".position");
+            Vector3f rotation = record.getVector3f(locationPath + ".rotation");
             if (id.isEmpty() || worldUuid == null || position == null || rotation == null) {
                 continue;
             }
@@ -1203,32 +1713,32 @@ public class CitizensManager {
         }
         scheduleConfig.setLocations(locations);
 
-        int entryCount = config.getInt(basePath + ".schedule.entries.count", 0);
+        int entryCount = record.getInt("schedule.entries.count", 0);
         List<ScheduleEntry> entries = new ArrayList<>();
         for (int i = 0; i < entryCount; i++) {
-            String entryPath = basePath + ".schedule.entries." + i;
+            String entryPath = "schedule.entries." + i;
             ScheduleEntry entry = new ScheduleEntry();
-            entry.setId(config.getString(entryPath + ".id", ""));
-            entry.setName(config.getString(entryPath + ".name", "Entry"));
-            entry.setEnabled(config.getBoolean(entryPath + ".enabled", true));
-            entry.setStartTime24(config.getDouble(entryPath + ".start-time-24", 8.0));
-            entry.setEndTime24(config.getDouble(entryPath + ".end-time-24", 12.0));
-            entry.setLocationId(config.getString(entryPath + ".location-id", ""));
+            entry.setId(record.getString(entryPath + ".id", ""));
+            entry.setName(record.getString(entryPath + ".name", "Entry"));
+            entry.setEnabled(record.getBoolean(entryPath + ".enabled", true));
+            entry.setStartTime24(record.getDouble(entryPath + ".start-time-24", 8.0));
+            entry.setEndTime24(record.getDouble(entryPath + ".end-time-24", 12.0));
+            entry.setLocationId(record.getString(entryPath + ".location-id", ""));
             try {
                 entry.setActivityType(ScheduleActivityType.valueOf(
-                        config.getString(entryPath + ".activity-type", ScheduleActivityType.IDLE.name())));
+                        record.getString(entryPath + ".activity-type", ScheduleActivityType.IDLE.name())));
             } catch (IllegalArgumentException ignored) {
                 entry.setActivityType(ScheduleActivityType.IDLE);
             }
-            entry.setArrivalRadius(config.getFloat(entryPath + ".arrival-radius", 1.5f));
-            entry.setTravelSpeed(config.getFloat(entryPath + ".travel-speed", 10.0f));
-            entry.setWanderRadius(config.getFloat(entryPath + ".wander-radius", 5.0f));
-            entry.setPatrolPathName(config.getString(entryPath + ".patrol-path-name", ""));
-            entry.setFollowCitizenId(config.getString(entryPath + ".follow-citizen-id", ""));
-            entry.setFollowDistance(config.getFloat(entryPath + ".follow-distance", 2.0f));
-            entry.setArrivalAnimationName(config.getString(entryPath + ".arrival-animation-name", ""));
-            entry.setArrivalAnimationSlot(config.getInt(entryPath + ".arrival-animation-slot", 0));
-            entry.setPriority(config.getInt(entryPath + ".priority", 0));
+            entry.setArrivalRadius(record.getFloat(entryPath + ".arrival-radius", 1.5f));
+            entry.setTravelSpeed(record.getFloat(entryPath + ".travel-speed", 10.0f));
+            entry.setWanderRadius(record.getFloat(entryPath + ".wander-radius", 5.0f));
+            entry.setPatrolPathName(record.getString(entryPath + ".patrol-path-name", ""));
+            entry.setFollowCitizenId(record.getString(entryPath + ".follow-citizen-id", ""));
+            entry.setFollowDistance(record.getFloat(entryPath + ".follow-distance", 2.0f));
+            entry.setArrivalAnimationName(record.getString(entryPath + ".arrival-animation-name", ""));
+            entry.setArrivalAnimationSlot(record.getInt(entryPath + ".arrival-animation-slot", 0));
+            entry.setPriority(record.getInt(entryPath + ".priority", 0));
             if (!entry.getId().isEmpty()) {
                 entries.add(entry);
             }
@@ -1284,6 +1794,12 @@ public class CitizensManager {
     }
 
     public void saveCitizen(@Nonnull CitizenData citizen, boolean respawnIfRoleChanged) {
+        // Regen may have just been switched on for a citizen that is already hurt; a full-health one drops out
+        // again on its first pass
+        if (canRegenerateHealth(citizen)) {
+            healthRegenQueue.scheduleIfAbsent(citizen.getId(), System.currentTimeMillis());
+        }
+
         config.beginBatch();
 
         try {
@@ -1295,13 +1811,14 @@ public class CitizensManager {
             config.setVector3d(basePath + ".position", citizen.getPosition());
             config.setVector3f(basePath + ".rotation", citizen.getRotation());
             config.setVector3d(basePath + ".current-position", citizen.getCurrentPosition());
+            // Keeps replay from rolling the citizen back to an older journaled position
+            positionJournal.append(citizen.getId(), citizen.getCurrentPosition());
             config.set(basePath + ".scale", citizen.getScale());
             config.set(basePath + ".permission", citizen.getRequiredPermission());
             config.set(basePath + ".permission-message", citizen.getNoPermissionMessage());
             config.set(basePath + ".rotate-towards-player", citizen.getRotateTowardsPlayer());
             config.set(basePath + ".look-at-distance", citizen.getLookAtDistance());
-            config.setUUID(basePath + ".npc-uuid", citizen.getSpawnedUUID());
-            config.setUUIDList(basePath + ".hologram-uuids", citizen.getHologramLineUuids());
+            saveCitizenRuntimeIdentity(citizen);
 
             // Save item data
             config.set(basePath + ".npc-helmet", citizen.getNpcHelmet());
@@ -1376,6 +1893,7 @@ public class CitizensManager {
             config.set(basePath + ".follow-citizen.enabled", citizen.isFollowCitizenEnabled());
             config.set(basePath + ".follow-citizen.id", citizen.getFollowCitizenId());
             config.set(basePath + ".follow-citizen.distance", citizen.getFollowDistance());
+            config.set(basePath + ".follow-citizen.formation", citizen.getFollowFormation().name());
 
             // Save messages config
             MessagesConfig mc = citizen.getMessagesConfig();
@@ -1620,6 +2138,7 @@ public class CitizensManager {
         citizen.setCreatedAt(System.currentTimeMillis());
 
         citizens.put(citizen.getId(), citizen);
+        citizenChunkIndex.update(citizen);
         fireCitizenAddedEvent(new CitizenAddedEvent(citizen));
 
         if (save)
@@ -1630,6 +2149,8 @@ public class CitizensManager {
 
     public void updateCitizen(@Nonnull CitizenData citizen, boolean save) {
         citizens.put(citizen.getId(), citizen);
+        citizenChunkIndex.update(citizen);
+        refreshCitizenWorldRegistration(citizen);
 
         if (save)
             saveCitizen(citizen);
@@ -1754,7 +2275,13 @@ public class CitizensManager {
         CitizenData citizen = citizens.remove(citizenId);
 
         config.set("citizens." + citizenId, null);
+        positionJournal.forget(citizenId);
+        lodManager.remove(citizenId);
+        healthRegenQueue.remove(citizenId);
+        interactionState.removeCitizen(citizenId);
+        pendingNpcRefReconciles.remove(citizenId);
         standaloneFollowSessions.remove(citizenId);
+        followFormations.remove(citizenId);
 
         if (scheduleManager != null) {
             scheduleManager.clearCitizen(citizenId);
@@ -1767,6 +2294,10 @@ public class CitizensManager {
 
         cancelAllPendingLookResets(citizen);
         despawnCitizenForDeletion(citizen);
+        unindexCitizenEntity(citizen);
+        unindexCitizenHologramUuids(citizen, citizen.getHologramLineUuids());
+        unregisterCitizenFromWorld(citizen);
+        citizenChunkIndex.remove(citizen);
         fireCitizenRemovedEvent(new CitizenRemovedEvent(citizen));
         cleanupUnusedGroups();
     }
@@ -1855,6 +2386,7 @@ public class CitizensManager {
                 resolvedRef.getStore().getComponent(resolvedRef, TransformComponent.getComponentType());
         if (transformComponent != null && transformComponent.getPosition() != null) {
             citizen.setCurrentPosition(new Vector3d(transformComponent.getPosition()));
+            citizenChunkIndex.update(citizen);
         }
 
         World world = Universe.get().getWorld(citizen.getWorldUUID());
@@ -1891,7 +2423,9 @@ public class CitizensManager {
     }
 
     public void bindCitizenEntityRef(@Nonnull CitizenData citizen, @Nonnull Ref<EntityStore> ref) {
+        unindexCitizenEntity(citizen);
         citizen.setNpcRef(ref);
+        citizensByEntityRef.put(ref, citizen);
         cancelPendingNpcSpawnRetry(citizen.getId());
         ref.getStore().putComponent(ref, CitizenNpcIdentityComponent.getComponentType(),
                 new CitizenNpcIdentityComponent(citizen.getId()));
@@ -1900,15 +2434,62 @@ public class CitizensManager {
         UUIDComponent uuidComponent = ref.getStore().getComponent(ref, UUIDComponent.getComponentType());
         if (uuidComponent != null) {
             citizen.setSpawnedUUID(uuidComponent.getUuid());
+            citizensBySpawnedUuid.put(uuidComponent.getUuid(), citizen);
+            registerCitizenInWorld(citizen);
+        }
+
+        // An NPC can come back hurt (persisted damage, chunk reload); a full-health one drops out on its first pass
+        if (canRegenerateHealth(citizen)) {
+            healthRegenQueue.scheduleIfAbsent(citizen.getId(), System.currentTimeMillis());
         }
     }
 
     public void clearCitizenEntityRef(@Nonnull CitizenData citizen) {
+        unindexCitizenEntity(citizen);
+        unregisterCitizenFromWorld(citizen);
         citizen.setSpawnedUUID(null);
         citizen.setNpcRef(null);
         cancelPendingTemporaryNametagRecovery(citizen.getId());
     }
 
+    private void unindexCitizenEntity(@Nonnull CitizenData citizen) {
+        Ref<EntityStore> ref = citizen.getNpcRef();
+        if (ref != null) {
+            citizensByEntityRef.remove(ref, citizen);
+        }
+
+        UUID spawnedUuid = citizen.getSpawnedUUID();
+        if (spawnedUuid != null) {
+            citizensBySpawnedUuid.remove(spawnedUuid, citizen);
+        }
+    }
+
+    private void indexLoadedCitizen(@Nonnull CitizenData citizen) {
+        UUID spawnedUuid = citizen.getSpawnedUUID();
+        if (spawnedUuid != null) {
+            citizensBySpawnedUuid.put(spawnedUuid, citizen);
+        }
+
+        indexCitizenHologramUuids(citizen);
+        citizenChunkIndex.update(citizen);
+    }
+
+    private void indexCitizenHologramUuids(@Nonnull CitizenData citizen) {
+        for (UUID uuid : citizen.getHologramLineUuids()) {
+            if (uuid != null) {
+                citizensByHologramUuid.put(uuid, citizen);
+            }
+        }
+    }
+
+    private void unindexCitizenHologramUuids(@Nonnull CitizenData citizen, @Nonnull Collection<UUID> hologramUuids) {
+        for (UUID uuid : hologramUuids) {
+            if (uuid != null) {
+                citizensByHologramUuid.remove(uuid, citizen);
+            }
+        }
+    }
+
     private void cancelPendingRespawn(@Nonnull String citizenId) {
         ScheduledFuture<?> pendingTask = pendingRespawnTasks.remove(citizenId);
         if (pendingTask != null) {
@@ -2589,12 +3170,16 @@ public class CitizensManager {
         return new Vector3d(citizen.getPosition());
     }
 
-    @Nonnull
-    private Vector3d getBaseHologramPosition(@Nonnull CitizenData citizen) {
+    public double getNametagHeightOffset(@Nonnull CitizenData citizen) {
         double scale = Math.max(0.01, citizen.getScale() + citizen.getNametagOffset());
         double baseOffset = 1.65;
         double extraPerScale = 0.40;
-        double yOffset = baseOffset * scale + (scale - 1.0) * extraPerScale;
+        return baseOffset * scale + (scale - 1.0) * extraPerScale;
+    }
+
+    @Nonnull
+    private Vector3d getBaseHologramPosition(@Nonnull CitizenData citizen) {
+        double yOffset = getNametagHeightOffset(citizen);
         Vector3d anchorPosition = getNametagAnchorPosition(citizen);
 
         return new Vector3d(
@@ -3156,6 +3741,7 @@ public class CitizensManager {
                         citizen.getHologramLineUuids().add(spawnedUuids.get(i));
                         world.getEntityStore().getStore().addEntity(holders.get(i), AddReason.SPAWN);
                     }
+                    indexCitizenHologramUuids(citizen);
 
                     if (save) {
                         saveCitizen(citizen);
@@ -3178,6 +3764,7 @@ public class CitizensManager {
         }
         cancelPendingNpcSpawnRetry(citizen.getId());
         citizensCurrentlySpawning.remove(citizen.getId());
+        healthRegenQueue.remove(citizen.getId());
         citizen.setAwaitingRespawn(false);
 
         World world = Universe.get().getWorld(citizen.getWorldUUID());
@@ -3239,6 +3826,7 @@ public class CitizensManager {
         }
         cancelPendingNpcSpawnRetry(citizen.getId());
         citizensCurrentlySpawning.remove(citizen.getId());
+        healthRegenQueue.remove(citizen.getId());
         citizen.setAwaitingRespawn(false);
 
         UUID npcUUID = citizen.getSpawnedUUID();
@@ -3279,6 +3867,7 @@ public class CitizensManager {
 
         List<UUID> hologramUuids = new ArrayList<>(citizen.getHologramLineUuids());
         citizen.getHologramLineUuids().clear();
+        unindexCitizenHologramUuids(citizen, hologramUuids);
 
         World world = Universe.get().getWorld(citizen.getWorldUUID());
         if (world == null) {
@@ -3582,6 +4171,7 @@ public class CitizensManager {
                     }
                 }
                 // Remove the extra UUIDs from the list
+                unindexCitizenHologramUuids(citizen, existingUuids.subList(newCount, existingCount));
                 existingUuids.subList(newCount, existingCount).clear();
             }
 
@@ -3617,6 +4207,7 @@ public class CitizensManager {
                     existingUuids.add(newUuids.get(i));
                     world.getEntityStore().getStore().addEntity(holdersToAdd.get(i), AddReason.SPAWN);
                 }
+                indexCitizenHologramUuids(citizen);
             }
 
             if (save) {
@@ -3628,37 +4219,16 @@ public class CitizensManager {
     public boolean rebindCitizenHologramEntities(@Nonnull World world, @Nonnull CitizenData citizen) {
         int desiredEntityCount = getDesiredNametagEntityCount(citizen);
         if (desiredEntityCount <= 0) {
+            unindexCitizenHologramUuids(citizen, citizen.getHologramLineUuids());
             citizen.getHologramLineUuids().clear();
             return true;
         }
 
         Store<EntityStore> store = world.getEntityStore().getStore();
-        Query<EntityStore> query = CitizenNametagComponent.getComponentType();
-        Map<Integer, Ref<EntityStore>> resolvedRefs = new ConcurrentHashMap<>();
-
-        store.forEachEntityParallel(query, (index, archetypeChunk, cb) -> {
-            CitizenNametagComponent nametagComponent =
-                    archetypeChunk.getComponent(index, CitizenNametagComponent.getComponentType());
-            if (nametagComponent == null || !citizen.getId().equals(nametagComponent.getCitizenId())) {
-                return;
-            }
-
-            Ref<EntityStore> ref = archetypeChunk.getReferenceTo(index);
-            if (ref == null || !ref.isValid()) {
-                return;
-            }
-
-            resolvedRefs.put(nametagComponent.getLineIndex(), ref);
-        });
-
-        if (resolvedRefs.isEmpty()) {
-            return false;
-        }
-
         List<UUID> reboundUuids = new ArrayList<>();
         for (int i = 0; i < desiredEntityCount; i++) {
-            Ref<EntityStore> ref = resolvedRefs.get(i);
-            if (ref == null || !ref.isValid()) {
+            Ref<EntityStore> ref = entityIndex.getNametagRef(citizen.getId(), i);
+            if (ref == null || ref.getStore() != store) {
                 return false;
             }
 
@@ -3674,7 +4244,9 @@ public class CitizensManager {
             reboundUuids.add(uuidComponent.getUuid());
         }
 
+        unindexCitizenHologramUuids(citizen, citizen.getHologramLineUuids());
         citizen.setHologramLineUuids(reboundUuids);
+        indexCitizenHologramUuids(citizen);
         return true;
     }
 
@@ -3740,7 +4312,9 @@ public class CitizensManager {
             migratedUuids.add(uuidComponent.getUuid());
         }
 
+        unindexCitizenHologramUuids(citizen, citizen.getHologramLineUuids());
         citizen.setHologramLineUuids(migratedUuids);
+        indexCitizenHologramUuids(citizen);
         return true;
     }
 
@@ -3770,6 +4344,10 @@ public class CitizensManager {
     }
 
     public void rotateCitizenToPlayer(CitizenData citizen, PlayerRef playerRef) {
+        rotateCitizenToPlayer(citizen, playerRef, null);
+    }
+
+    private void rotateCitizenToPlayer(CitizenData citizen, PlayerRef playerRef, @Nullable RotationUpdateBatch batch) {
         if (!isPlayerRefValid(playerRef)) {
             return;
         }
@@ -3811,19 +4389,19 @@ public class CitizensManager {
             UUID playerUUID = playerRef.getUuid();
             Direction lastLook = citizen.lastLookDirections.get(playerUUID);
             if (lastLook != null) {
-                float yawThreshold = 0.02f;
-                float pitchThreshold = 0.02f;
+                float threshold = getLookThreshold(Math.sqrt(horizontalDistance * horizontalDistance + dy * dy));
                 float yawDiff = Math.abs(lookDirection.yaw - lastLook.yaw);
                 float pitchDiff = Math.abs(lookDirection.pitch - lastLook.pitch);
 
-                if (yawDiff < yawThreshold && pitchDiff < pitchThreshold) {
+                if (yawDiff < threshold && pitchDiff < threshold) {
+                    metrics.increment("rotate.suppressed");
                     return;
                 }
             }
 
             citizen.lastLookDirections.put(playerUUID, lookDirection);
 
-            sendRotationUpdate(citizenNetworkId, playerRef, lookDirection, bodyDirection);
+            sendRotationUpdate(citizenNetworkId, playerRef, lookDirection, bodyDirection, batch);
         }
     }
 
@@ -3833,14 +4411,9 @@ public class CitizensManager {
             citizen.lastLookDirections.remove(playerUuid);
             cancelPendingNametagLookReset(citizen, playerUuid);
             citizen.lastNametagLookDirections.remove(playerUuid);
-            citizen.getSequentialMessageIndex().remove(playerUuid);
-            citizen.getSequentialCommandIndex().remove(playerUuid);
-            citizen.getSequentialDeathMessageIndex().remove(playerUuid);
-            citizen.getSequentialDeathCommandIndex().remove(playerUuid);
-            citizen.getSequentialFirstInteractionMessageIndex().remove(playerUuid);
-            citizen.getSequentialFirstInteractionCommandIndex().remove(playerUuid);
-            citizen.getPlayersInProximity().remove(playerUuid);
         }
+        interactionState.markOffline(playerUuid, System.currentTimeMillis());
+        rotationPacketStats.remove(playerUuid);
     }
 
     private void scheduleLookResetIfNeeded(@Nonnull CitizenData citizen, @Nonnull UUID playerUuid) {
@@ -3849,116 +4422,99 @@ public class CitizensManager {
             return;
         }
 
-        ScheduledFuture<?> existingTask = citizen.getPendingLookResetTasks().get(playerUuid);
+        TimerWheel.Timeout existingTask = citizen.getPendingLookResetTasks().get(playerUuid);
         if (existingTask != null && !existingTask.isDone()) {
             return;
-        }
-
-        final ScheduledFuture<?>[] futureRef = new ScheduledFuture<?>[1];
-        futureRef[0] = HytaleServer.SCHEDULED_EXECUTOR.schedule(() ->
-                        resetCitizenLookForPlayer(citizen, playerUuid, futureRef[0]),
-                LOOK_RESET_DELAY_MS,
-                TimeUnit.MILLISECONDS);
+        }
 
-        citizen.getPendingLookResetTasks().put(playerUuid, futureRef[0]);
+        TimerWheel.Timeout timeout = timerWheel.schedule(citizen.getWorldUUID(), LOOK_RESET_DELAY_MS,
+                expired -> resetCitizenLookForPlayer(citizen, playerUuid, expired));
+        citizen.getPendingLookResetTasks().put(playerUuid, timeout);
+        metrics.increment("timers.scheduled");
     }
 
+    // Runs on the citizen's world thread, batched with the other timers that expired there
     private void resetCitizenLookForPlayer(@Nonnull CitizenData citizen, @Nonnull UUID playerUuid,
-                                           @Nonnull ScheduledFuture<?> expectedTask) {
-        ScheduledFuture<?> activeTask = citizen.getPendingLookResetTasks().get(playerUuid);
+                                           @Nonnull TimerWheel.Timeout expectedTask) {
+        TimerWheel.Timeout activeTask = citizen.getPendingLookResetTasks().get(playerUuid);
         if (activeTask != expectedTask) {
             return;
         }
 
         UUID worldUuid = citizen.getWorldUUID();
-        World world = Universe.get().getWorld(worldUuid);
-        if (world == null) {
-            clearPendingLookResetState(citizen, playerUuid, expectedTask);
-            return;
-        }
-
-        world.execute(() -> {
-            try {
-                ScheduledFuture<?> worldThreadTask = citizen.getPendingLookResetTasks().get(playerUuid);
-                if (worldThreadTask != expectedTask) {
-                    return;
-                }
-
-                PlayerRef playerRef = Universe.get().getPlayer(playerUuid);
-                if (!isPlayerRefValid(playerRef)) {
-                    clearPendingLookResetState(citizen, playerUuid, expectedTask);
-                    return;
-                }
-
-                if (!worldUuid.equals(playerRef.getWorldUuid())) {
-                    clearPendingLookResetState(citizen, playerUuid, expectedTask);
-                    return;
-                }
-
-                if (!citizen.lastLookDirections.containsKey(playerUuid)) {
-                    clearPendingLookResetState(citizen, playerUuid, expectedTask);
-                    return;
-                }
-
-                if (shouldRotateCitizenTowardsPlayer(citizen, playerRef)) {
-                    clearPendingLookResetState(citizen, playerUuid, expectedTask);
-                    return;
-                }
+        try {
+            PlayerRef playerRef = Universe.get().getPlayer(playerUuid);
+            if (!isPlayerRefValid(playerRef)) {
+                clearPendingLookResetState(citizen, playerUuid, expectedTask);
+                return;
+            }
 
-                if (citizen.getSpawnedUUID() == null || citizen.getNpcRef() == null || !citizen.getNpcRef().isValid()) {
-                    clearPendingLookResetState(citizen, playerUuid, expectedTask);
-                    return;
-                }
+            if (!worldUuid.equals(playerRef.getWorldUuid())) {
+                clearPendingLookResetState(citizen, playerUuid, expectedTask);
+                return;
+            }
 
-                NetworkId citizenNetworkId = citizen.getNpcRef().getStore().getComponent(citizen.getNpcRef(), NetworkId.getComponentType());
-                TransformComponent npcTransformComponent = citizen.getNpcRef().getStore().getComponent(citizen.getNpcRef(), TransformComponent.getComponentType());
-                if (citizenNetworkId == null || npcTransformComponent == null) {
-                    clearPendingLookResetState(citizen, playerUuid, expectedTask);
-                    return;
-                }
+            if (!citizen.lastLookDirections.containsKey(playerUuid)) {
+                clearPendingLookResetState(citizen, playerUuid, expectedTask);
+                return;
+            }
 
-                Vector3f baseRotation = npcTransformComponent.getRotation();
-                Direction baseLookDirection = toPacketDirection(baseRotation, true);
-                Direction baseBodyDirection = toPacketDirection(baseRotation, true);
-                sendRotationUpdate(citizenNetworkId, playerRef, baseLookDirection, baseBodyDirection);
+            if (shouldRotateCitizenTowardsPlayer(citizen, playerRef)) {
+                clearPendingLookResetState(citizen, playerUuid, expectedTask);
+                return;
+            }
 
-                citizen.lastLookDirections.remove(playerUuid);
+            if (citizen.getSpawnedUUID() == null || citizen.getNpcRef() == null || !citizen.getNpcRef().isValid()) {
                 clearPendingLookResetState(citizen, playerUuid, expectedTask);
-            } catch (Exception e) {
+                return;
+            }
+
+            NetworkId citizenNetworkId = citizen.getNpcRef().getStore().getComponent(citizen.getNpcRef(), NetworkId.getComponentType());
+            TransformComponent npcTransformComponent = citizen.getNpcRef().getStore().getComponent(citizen.getNpcRef(), TransformComponent.getComponentType());
+            if (citizenNetworkId == null || npcTransformComponent == null) {
                 clearPendingLookResetState(citizen, playerUuid, expectedTask);
-                getLogger().atWarning().withCause(e)
-                        .log("Failed to reset look rotation for citizen " + citizen.getId() + " and player " + playerUuid);
+                return;
             }
-        });
+
+            Vector3f baseRotation = npcTransformComponent.getRotation();
+            Direction baseLookDirection = toPacketDirection(baseRotation, true);
+            Direction baseBodyDirection = toPacketDirection(baseRotation, true);
+            sendRotationUpdate(citizenNetworkId, playerRef, baseLookDirection, baseBodyDirection);
+
+            citizen.lastLookDirections.remove(playerUuid);
+            clearPendingLookResetState(citizen, playerUuid, expectedTask);
+        } catch (Exception e) {
+            clearPendingLookResetState(citizen, playerUuid, expectedTask);
+            getLogger().atWarning().withCause(e)
+                    .log("Failed to reset look rotation for citizen " + citizen.getId() + " and player " + playerUuid);
+        }
     }
 
     private void cancelPendingLookReset(@Nonnull CitizenData citizen, @Nonnull UUID playerUuid) {
-        ScheduledFuture<?> existingTask = citizen.getPendingLookResetTasks().remove(playerUuid);
-        if (existingTask != null) {
-            existingTask.cancel(false);
+        TimerWheel.Timeout existingTask = citizen.getPendingLookResetTasks().remove(playerUuid);
+        if (existingTask != null && existingTask.cancel()) {
+            metrics.increment("timers.cancelled");
         }
     }
 
     private void cancelAllPendingLookResets(@Nonnull CitizenData citizen) {
-        for (Map.Entry<UUID, ScheduledFuture<?>> entry : citizen.getPendingLookResetTasks().entrySet()) {
-            ScheduledFuture<?> task = entry.getValue();
+        for (TimerWheel.Timeout task : citizen.getPendingLookResetTasks().values()) {
             if (task != null) {
-                task.cancel(false);
+                task.cancel();
             }
         }
         citizen.getPendingLookResetTasks().clear();
 
-        for (Map.Entry<UUID, ScheduledFuture<?>> entry : citizen.getPendingNametagLookResetTasks().entrySet()) {
-            ScheduledFuture<?> task = entry.getValue();
+        for (TimerWheel.Timeout task : citizen.getPendingNametagLookResetTasks().values()) {
             if (task != null) {
-                task.cancel(false);
+                task.cancel();
             }
         }
         citizen.getPendingNametagLookResetTasks().clear();
     }
 
     private void clearPendingLookResetState(@Nonnull CitizenData citizen, @Nonnull UUID playerUuid,
-                                            @Nonnull ScheduledFuture<?> expectedTask) {
+                                            @Nonnull TimerWheel.Timeout expectedTask) {
         citizen.getPendingLookResetTasks().remove(playerUuid, expectedTask);
     }
 
@@ -4048,28 +4604,45 @@ public class CitizensManager {
         return new Direction(yaw, pitch, rotation.z);
     }
 
+    private static float getLookThreshold(double distance) {
+        return (float) Math.min(LOOK_THRESHOLD_MAX_RAD, LOOK_THRESHOLD_BASE_RAD + distance * LOOK_THRESHOLD_PER_BLOCK_RAD);
+    }
+
     private void sendRotationUpdate(@Nonnull NetworkId citizenNetworkId, @Nonnull PlayerRef playerRef,
                                     @Nonnull Direction lookDirection, @Nonnull Direction bodyDirection) {
+        sendRotationUpdate(citizenNetworkId, playerRef, lookDirection, bodyDirection, null);
+    }
+
+    private void sendRotationUpdate(@Nonnull NetworkId citizenNetworkId, @Nonnull PlayerRef playerRef,
+                                    @Nonnull Direction lookDirection, @Nonnull Direction bodyDirection,
+                                    @Nullable RotationUpdateBatch batch) {
         if (!isPlayerRefValid(playerRef)) {
             return;
         }
 
-        ModelTransform transform = new ModelTransform();
-        transform.lookOrientation = lookDirection;
-        transform.bodyOrientation = bodyDirection;
-
-        TransformUpdate update = new TransformUpdate(transform);
-        EntityUpdate entityUpdate = new EntityUpdate(
-                citizenNetworkId.getId(),
-                null,
-                new ComponentUpdate[] { update }
-        );
+        if (batch != null) {
+            batch.add(playerRef, citizenNetworkId.getId(), lookDirection, bodyDirection);
+            return;
+        }
 
+        EntityUpdate entityUpdate = RotationUpdateBatch.createRotationUpdate(citizenNetworkId.getId(), lookDirection, bodyDirection);
         EntityUpdates packet = new EntityUpdates(null, new EntityUpdate[] { entityUpdate });
         playerRef.getPacketHandler().write(packet);
+
+        long bytes = RotationUpdateBatch.ESTIMATED_PACKET_OVERHEAD_BYTES + RotationUpdateBatch.ESTIMATED_UPDATE_BYTES;
+        rotationPacketStats.record(playerRef.getUuid(), 1L, bytes);
+        metrics.add("rotate.packets", 1L);
+        metrics.add("rotate.entity-updates", 1L);
+        metrics.add("rotate.bytes-estimated", bytes);
+    }
+
+    @Nonnull
+    public RotationPacketStats getRotationPacketStats() {
+        return rotationPacketStats;
     }
 
-    private void rotateModelNametagToPlayer(@Nonnull CitizenData citizen, @Nonnull PlayerRef playerRef) {
+    private void rotateModelNametagToPlayer(@Nonnull CitizenData citizen, @Nonnull PlayerRef playerRef,
+                                            @Nullable RotationUpdateBatch batch) {
         if (!isPlayerRefValid(playerRef)) {
             return;
         }
@@ -4110,13 +4683,14 @@ public class CitizensManager {
             float yawDiff = Math.abs(lookDirection.yaw - lastLook.yaw);
 //            float pitchDiff = Math.abs(lookDirection.pitch - lastLook.pitch);
 //            if (yawDiff < 0.02f && pitchDiff < 0.02f) {
-            if (yawDiff < 0.02f) {
+            if (yawDiff < getLookThreshold(Math.sqrt(dx * dx + dz * dz))) {
+                metrics.increment("rotate.suppressed");
                 return;
             }
         }
 
         citizen.lastNametagLookDirections.put(playerUuid, lookDirection);
-        sendRotationUpdate(nametagNetworkId, playerRef, lookDirection, bodyDirection);
+        sendRotationUpdate(nametagNetworkId, playerRef, lookDirection, bodyDirection, batch);
     }
 
     private void scheduleNametagLookResetIfNeeded(@Nonnull CitizenData citizen, @Nonnull UUID playerUuid) {
@@ -4125,22 +4699,20 @@ public class CitizensManager {
             return;
         }
 
-        ScheduledFuture<?> existingTask = citizen.getPendingNametagLookResetTasks().get(playerUuid);
+        TimerWheel.Timeout existingTask = citizen.getPendingNametagLookResetTasks().get(playerUuid);
         if (existingTask != null && !existingTask.isDone()) {
             return;
         }
 
-        final ScheduledFuture<?>[] futureRef = new ScheduledFuture<?>[1];
-        futureRef[0] = HytaleServer.SCHEDULED_EXECUTOR.schedule(() ->
-                        resetModelNametagLookForPlayer(citizen, playerUuid, futureRef[0]),
-                LOOK_RESET_DELAY_MS,
-                TimeUnit.MILLISECONDS);
-
-        citizen.getPendingNametagLookResetTasks().put(playerUuid, futureRef[0]);
+        TimerWheel.Timeout timeout = timerWheel.schedule(citizen.getWorldUUID(), LOOK_RESET_DELAY_MS,
+                expired -> resetModelNametagLookForPlayer(citizen, playerUuid, expired));
+        citizen.getPendingNametagLookResetTasks().put(playerUuid, timeout);
+        metrics.increment("timers.scheduled");
     }
 
-    private void resetModelNametagLookForPlayer(@Nonnull CitizenData citizen, @Nonnull UUID playerUuid, @Nonnull ScheduledFuture<?> expectedTask) {
-        ScheduledFuture<?> activeTask = citizen.getPendingNametagLookResetTasks().get(playerUuid);
+    // Runs on the citizen's world thread, batched with the other timers that expired there
+    private void resetModelNametagLookForPlayer(@Nonnull CitizenData citizen, @Nonnull UUID playerUuid, @Nonnull TimerWheel.Timeout expectedTask) {
+        TimerWheel.Timeout activeTask = citizen.getPendingNametagLookResetTasks().get(playerUuid);
         if (activeTask != expectedTask) {
             return;
         }
@@ -4152,64 +4724,57 @@ public class CitizensManager {
             return;
         }
 
-        world.execute(() -> {
-            try {
-                ScheduledFuture<?> worldThreadTask = citizen.getPendingNametagLookResetTasks().get(playerUuid);
-                if (worldThreadTask != expectedTask) {
-                    return;
-                }
-
-                PlayerRef playerRef = Universe.get().getPlayer(playerUuid);
-                if (!isPlayerRefValid(playerRef) || !worldUuid.equals(playerRef.getWorldUuid())) {
-                    clearPendingNametagLookResetState(citizen, playerUuid, expectedTask);
-                    return;
-                }
-
-                if (!citizen.lastNametagLookDirections.containsKey(playerUuid)) {
-                    clearPendingNametagLookResetState(citizen, playerUuid, expectedTask);
-                    return;
-                }
-
-                if (shouldRotateModelNametagTowardsPlayer(citizen, playerRef)) {
-                    clearPendingNametagLookResetState(citizen, playerUuid, expectedTask);
-                    return;
-                }
-
-                Ref<EntityStore> nametagRef = getPrimaryNametagRef(world, citizen);
-                if (nametagRef == null) {
-                    clearPendingNametagLookResetState(citizen, playerUuid, expectedTask);
-                    return;
-                }
+        try {
+            PlayerRef playerRef = Universe.get().getPlayer(playerUuid);
+            if (!isPlayerRefValid(playerRef) || !worldUuid.equals(playerRef.getWorldUuid())) {
+                clearPendingNametagLookResetState(citizen, playerUuid, expectedTask);
+                return;
+            }
 
-                NetworkId nametagNetworkId = nametagRef.getStore().getComponent(nametagRef, NetworkId.getComponentType());
-                TransformComponent nametagTransform = nametagRef.getStore().getComponent(nametagRef, TransformComponent.getComponentType());
-                if (nametagNetworkId == null || nametagTransform == null) {
-                    clearPendingNametagLookResetState(citizen, playerUuid, expectedTask);
-                    return;
-                }
+            if (!citizen.lastNametagLookDirections.containsKey(playerUuid)) {
+                clearPendingNametagLookResetState(citizen, playerUuid, expectedTask);
+                return;
+            }
 
-                Vector3f baseRotation = nametagTransform.getRotation();
-                Direction baseLookDirection = toPacketDirection(baseRotation, true);
-                Direction baseBodyDirection = toPacketDirection(baseRotation, true);
-                sendRotationUpdate(nametagNetworkId, playerRef, baseLookDirection, baseBodyDirection);
+            if (shouldRotateModelNametagTowardsPlayer(citizen, playerRef)) {
+                clearPendingNametagLookResetState(citizen, playerUuid, expectedTask);
+                return;
+            }
 
-                citizen.lastNametagLookDirections.remove(playerUuid);
+            Ref<EntityStore> nametagRef = getPrimaryNametagRef(world, citizen);
+            if (nametagRef == null) {
                 clearPendingNametagLookResetState(citizen, playerUuid, expectedTask);
-            } catch (Exception e) {
+                return;
+            }
+
+            NetworkId nametagNetworkId = nametagRef.getStore().getComponent(nametagRef, NetworkId.getComponentType());
+            TransformComponent nametagTransform = nametagRef.getStore().getComponent(nametagRef, TransformComponent.getComponentType());
+            if (nametagNetworkId == null || nametagTransform == null) {
                 clearPendingNametagLookResetState(citizen, playerUuid, expectedTask);
-                getLogger().atWarning().withCause(e).log("Failed to reset nametag look rotation for citizen " + citizen.getId() + " and player " + playerUuid);
+                return;
             }
-        });
+
+            Vector3f baseRotation = nametagTransform.getRotation();
+            Direction baseLookDirection = toPacketDirection(baseRotation, true);
+            Direction baseBodyDirection = toPacketDirection(baseRotation, true);
+            sendRotationUpdate(nametagNetworkId, playerRef, baseLookDirection, baseBodyDirection);
+
+            citizen.lastNametagLookDirections.remove(playerUuid);
+            clearPendingNametagLookResetState(citizen, playerUuid, expectedTask);
+        } catch (Exception e) {
+            clearPendingNametagLookResetState(citizen, playerUuid, expectedTask);
+            getLogger().atWarning().withCause(e).log("Failed to reset nametag look rotation for citizen " + citizen.getId() + " and player " + playerUuid);
+        }
     }
 
     private void cancelPendingNametagLookReset(@Nonnull CitizenData citizen, @Nonnull UUID playerUuid) {
-        ScheduledFuture<?> existingTask = citizen.getPendingNametagLookResetTasks().remove(playerUuid);
-        if (existingTask != null) {
-            existingTask.cancel(false);
+        TimerWheel.Timeout existingTask = citizen.getPendingNametagLookResetTasks().remove(playerUuid);
+        if (existingTask != null && existingTask.cancel()) {
+            metrics.increment("timers.cancelled");
         }
     }
 
-    private void clearPendingNametagLookResetState(@Nonnull CitizenData citizen, @Nonnull UUID playerUuid, @Nonnull ScheduledFuture<?> expectedTask) {
+    private void clearPendingNametagLookResetState(@Nonnull CitizenData citizen, @Nonnull UUID playerUuid, @Nonnull TimerWheel.Timeout expectedTask) {
         citizen.getPendingNametagLookResetTasks().remove(playerUuid, expectedTask);
     }
 
@@ -4223,6 +4788,74 @@ public class CitizensManager {
         return new ArrayList<>(citizens.values());
     }
 
+    @Nullable
+    public CitizenData findCitizenByEntityRef(@Nullable Ref<EntityStore> ref) {
+        if (ref == null || !ref.isValid()) {
+            return null;
+        }
+
+        CitizenData citizen = citizensByEntityRef.get(ref);
+        if (citizen == null) {
+            return null;
+        }
+
+        // Drop entries whose citizen has been rebound or removed since indexing
+        if (!ref.equals(citizen.getNpcRef()) || citizens.get(citizen.getId()) != citizen) {
+            citizensByEntityRef.remove(ref, citizen);
+            return null;
+        }
+
+        return citizen;
+    }
+
+    @Nullable
+    public CitizenData findCitizenBySpawnedUuid(@Nullable UUID uuid) {
+        if (uuid == null) {
+            return null;
+        }
+
+        CitizenData citizen = citizensBySpawnedUuid.get(uuid);
+        if (citizen == null) {
+            return null;
+        }
+
+        if (!uuid.equals(citizen.getSpawnedUUID()) || citizens.get(citizen.getId()) != citizen) {
+            citizensBySpawnedUuid.remove(uuid, citizen);
+            return null;
+        }
+
+        return citizen;
+    }
+
+    @Nullable
+    public CitizenData findCitizenByHologramUuid(@Nullable UUID uuid) {
+        if (uuid == null) {
+            return null;
+        }
+
+        CitizenData citizen = citizensByHologramUuid.get(uuid);
+        if (citizen == null) {
+            return null;
+        }
+
+        if (!citizen.getHologramLineUuids().contains(uuid) || citizens.get(citizen.getId()) != citizen) {
+            citizensByHologramUuid.remove(uuid, citizen);
+            return null;
+        }
+
+        return citizen;
+    }
+
+    @Nullable
+    public CitizenData findCitizenByEntity(@Nullable Ref<EntityStore> ref, @Nullable UUID uuid) {
+        CitizenData citizen = findCitizenByEntityRef(ref);
+        if (citizen != null) {
+            return citizen;
+        }
+
+        return findCitizenBySpawnedUuid(uuid);
+    }
+
     public int getCitizenCount() {
         return citizens.size();
     }
@@ -4233,71 +4866,70 @@ public class CitizensManager {
 
     @Nonnull
     public List<CitizenData> getCitizensNear(@Nonnull Vector3d position, double maxDistance) {
-        List<CitizenData> nearby = new ArrayList<>();
-        double maxDistSq = maxDistance * maxDistance;
-
-        for (CitizenData citizen : citizens.values()) {
-            Vector3d citizenPos = citizen.getPosition();
+        return citizenChunkIndex.getCitizensNear(null, position, maxDistance);
+    }
 
-            double dx = citizenPos.x - position.x;
-            double dy = citizenPos.y - position.y;
-            double dz = citizenPos.z - position.z;
+    @Nonnull
+    public List<CitizenData> getCitizensNear(@Nonnull UUID worldUUID, @Nonnull Vector3d position, double maxDistance) {
+        return citizenChunkIndex.getCitizensNear(worldUUID, position, maxDistance);
+    }
 
-            double distSq = dx * dx + dy * dy + dz * dz;
+    @Nonnull
+    public CitizenEntityIndex getEntityIndex() {
+        return entityIndex;
+    }
 
-            if (distSq <= maxDistSq) {
-                nearby.add(citizen);
-            }
-        }
+    @Nonnull
+    public CitizenInteractionStateStore getInteractionState() {
+        return interactionState;
+    }
 
-        return nearby;
+    @Nonnull
+    public CitizenActionPipeline getActionPipeline() {
+        return actionPipeline;
     }
 
-    private void startAnimationScheduler() {
-        animationTask.scheduleAtFixedRate("citizens-animations", () -> {
-            long now = System.currentTimeMillis();
+    @Nonnull
+    public Set<CitizenData> getCitizensInChunk(@Nonnull UUID worldUUID, long chunkIndex) {
+        return citizenChunkIndex.getCitizensInChunk(worldUUID, chunkIndex);
+    }
 
-            for (CitizenData citizen : citizens.values()) {
-                if (citizen.getSpawnedUUID() == null || citizen.getNpcRef() == null || !citizen.getNpcRef().isValid())
-                    continue;
+    public void updateCitizenChunkIndex(@Nonnull CitizenData citizen) {
+        citizenChunkIndex.update(citizen);
+    }
 
-                for (AnimationBehavior ab : citizen.getAnimationBehaviors()) {
-                    if (!"TIMED".equals(ab.getType()) && !"DEFAULT".equals(ab.getType()))
-                        continue;
+    private void startAnimationScheduler() {
+        tickEngine.registerCitizenPhase("animations", ANIMATION_TICK_INTERVAL_MS, ANIMATION_TICK_INTERVAL_MS, (citizen, context) -> {
+            long now = context.getNow();
 
-                    // DEFAULT animations loop every 2 seconds to keep them playing
-                    if ("DEFAULT".equals(ab.getType())) {
-                        String key = "default_" + ab.getAnimationName() + "_" + ab.getAnimationSlot();
-                        long lastPlay = citizen.getLastTimedAnimationPlay().getOrDefault(key, 0L);
-                        if (now - lastPlay >= 2000) {
-                            citizen.getLastTimedAnimationPlay().put(key, now);
-                            World world = Universe.get().getWorld(citizen.getWorldUUID());
-                            if (world != null) {
-                                world.execute(() -> {
-                                    playAnimationForCitizen(citizen, ab.getAnimationName(), ab.getAnimationSlot(), ab);
-                                });
-                            }
-                        }
-                        continue;
-                    }
+            if (citizen.getSpawnedUUID() == null || citizen.getNpcRef() == null || !citizen.getNpcRef().isValid())
+                return;
 
-                    String key = ab.getAnimationName() + "_" + ab.getAnimationSlot();
-                    long lastPlay = citizen.getLastTimedAnimationPlay().getOrDefault(key, 0L);
-                    long intervalMs = (long) (ab.getIntervalSeconds() * 1000);
+            AnimationBehaviorTable table = citizen.getAnimationTable();
+            if (table.getScheduledCount() == 0)
+                return;
 
-                    if (now - lastPlay >= intervalMs) {
-                        citizen.getLastTimedAnimationPlay().put(key, now);
+            boolean runDefaultAnimations = lodManager.shouldRun(citizen, CitizenLodManager.Behavior.DEFAULT_ANIMATIONS, context.getPhaseRun());
+            World world = null;
+            for (int i = 0; i < table.getScheduledCount(); i++) {
+                if (!table.isDue(i, now))
+                    continue;
+                if (table.isScheduledDefault(i) && !runDefaultAnimations)
+                    continue;
 
-                        World world = Universe.get().getWorld(citizen.getWorldUUID());
-                        if (world != null) {
-                            world.execute(() -> {
-                                playAnimationForCitizen(citizen, ab.getAnimationName(), ab.getAnimationSlot(), ab);
-                            });
-                        }
-                    }
+                if (world == null) {
+                    world = Universe.get().getWorld(citizen.getWorldUUID());
+                    if (world == null)
+                        return;
                 }
+
+                table.markFired(i, now);
+                AnimationBehavior ab = table.getScheduled(i);
+                context.submit(world, () -> {
+                    playAnimationForCitizen(citizen, ab.getAnimationName(), ab.getAnimationSlot(), ab);
+                });
             }
-        }, 1, 1, TimeUnit.SECONDS);
+        });
     }
 
     public void playAnimationForCitizen(@Nonnull CitizenData citizen, @Nonnull String animName, int slot) {
@@ -4322,9 +4954,9 @@ public class CitizensManager {
         String taskKey = animName + "_" + slot;
 
         // Cancel any existing stop task for this animation
-        ScheduledFuture<?> existingTask = citizen.getAnimationStopTasks().get(taskKey);
-        if (existingTask != null && !existingTask.isDone()) {
-            existingTask.cancel(false);
+        TimerWheel.Timeout existingTask = citizen.getAnimationStopTasks().get(taskKey);
+        if (existingTask != null && existingTask.cancel()) {
+            metrics.increment("timers.cancelled");
         }
 
         // Determine stop behavior
@@ -4354,75 +4986,68 @@ public class CitizensManager {
         if (shouldStop) {
             int finalSlot = slot;
             String finalStopAnimName = stopAnimName;
-            ScheduledFuture<?> stopTask = HytaleServer.SCHEDULED_EXECUTOR.schedule(() -> {
-                if (npc.getReference() == null || !npc.getReference().isValid())
-                    return;
+            TimerWheel.Timeout stopTask = timerWheel.schedule(citizen.getWorldUUID(), (long) (stopTime * 1000), expired -> {
+                // Remove from tracking map
+                citizen.getAnimationStopTasks().remove(taskKey, expired);
 
-                World world = Universe.get().getWorld(citizen.getWorldUUID());
-                if (world == null)
+                if (npc.getReference() == null || !npc.getReference().isValid())
                     return;
 
-                world.execute(() -> {
-                    AnimationUtils.playAnimation(npc.getReference(), slots[finalSlot], finalStopAnimName, false, npc.getReference().getStore());
-                });
-
-                // Remove from tracking map
-                citizen.getAnimationStopTasks().remove(taskKey);
-
-            }, (long)(stopTime * 1000), TimeUnit.MILLISECONDS);
+                AnimationUtils.playAnimation(npc.getReference(), slots[finalSlot], finalStopAnimName, false, npc.getReference().getStore());
+            });
 
             // Track the stop task
             citizen.getAnimationStopTasks().put(taskKey, stopTask);
+            metrics.increment("timers.scheduled");
         }
     }
 
     @Nullable
     private String findDefaultAnimation(@Nonnull CitizenData citizen, int slot) {
-        for (AnimationBehavior ab : citizen.getAnimationBehaviors()) {
-            if ("DEFAULT".equals(ab.getType()) && ab.getAnimationSlot() == slot) {
-                return ab.getAnimationName();
-            }
-        }
-        return null;
+        return citizen.getAnimationTable().getDefaultAnimation(slot);
     }
 
     public void triggerAnimations(@Nonnull CitizenData citizen, @Nonnull String type) {
         if (citizen.getNpcRef() == null || !citizen.getNpcRef().isValid())
             return;
 
-        for (AnimationBehavior ab : citizen.getAnimationBehaviors()) {
-            if (ab.getType().equals(type)) {
-                World world = Universe.get().getWorld(citizen.getWorldUUID());
-                if (world != null) {
-                    world.execute(() -> {
-                        playAnimationForCitizen(citizen, ab.getAnimationName(), ab.getAnimationSlot(), ab);
-                    });
-                }
-            }
+        AnimationBehaviorTable.Trigger trigger = AnimationBehaviorTable.Trigger.fromString(type);
+        if (trigger == null)
+            return;
+
+        AnimationBehavior[] behaviors = citizen.getAnimationTable().get(trigger);
+        if (behaviors.length == 0)
+            return;
+
+        World world = Universe.get().getWorld(citizen.getWorldUUID());
+        if (world == null)
+            return;
+
+        for (AnimationBehavior ab : behaviors) {
+            world.execute(() -> {
+                playAnimationForCitizen(citizen, ab.getAnimationName(), ab.getAnimationSlot(), ab);
+            });
         }
     }
 
     private void checkProximityAnimations(@Nonnull CitizenData citizen, @Nonnull PlayerRef playerRef, double distanceSq) {
         UUID playerUUID = playerRef.getUuid();
 
-        for (AnimationBehavior ab : citizen.getAnimationBehaviors()) {
-            if (!"ON_PROXIMITY_ENTER".equals(ab.getType()) && !"ON_PROXIMITY_EXIT".equals(ab.getType()))
-                continue;
-
-            float range = ab.getProximityRange();
-            double rangeSq = range * range;
+        AnimationBehaviorTable table = citizen.getAnimationTable();
+        for (int i = 0; i < table.getProximityCount(); i++) {
+            AnimationBehavior ab = table.getProximity(i);
             //String key = citizen.getId() + "_" + playerUUID;
-            boolean wasInRange = citizen.getPlayersInProximity().getOrDefault(playerUUID, false);
-            boolean isInRange = distanceSq <= rangeSq;
+            boolean wasInRange = interactionState.isInProximity(citizen.getId(), playerUUID);
+            boolean isInRange = distanceSq <= table.getProximityRangeSq(i);
 
             if (isInRange && !wasInRange) {
-                citizen.getPlayersInProximity().put(playerUUID, true);
-                if ("ON_PROXIMITY_ENTER".equals(ab.getType())) {
+                interactionState.setInProximity(citizen.getId(), playerUUID, true);
+                if (table.isProximityEnter(i)) {
                     playAnimationForCitizen(citizen, ab.getAnimationName(), ab.getAnimationSlot(), ab);
                 }
             } else if (!isInRange && wasInRange) {
-                citizen.getPlayersInProximity().put(playerUUID, false);
-                if ("ON_PROXIMITY_EXIT".equals(ab.getType())) {
+                interactionState.setInProximity(citizen.getId(), playerUUID, false);
+                if (!table.isProximityEnter(i)) {
                     playAnimationForCitizen(citizen, ab.getAnimationName(), ab.getAnimationSlot(), ab);
                 }
             }
@@ -4501,6 +5126,23 @@ public class CitizensManager {
         }, 5, TimeUnit.SECONDS);
     }
 
+    public void regenerateAllRoles() {
+        long phaseStart = System.nanoTime();
+        Collection<CitizenData> allCitizens = List.copyOf(citizens.values());
+
+        Map<String, String> contentByRole = roleGenerator.renderAllRoles(allCitizens);
+        phaseStart = logStartupPhase("role-render", phaseStart);
+
+        int parallelism = config.getInt("settings.role-write-parallelism", DEFAULT_ROLE_WRITE_PARALLELISM);
+        roleGenerator.writeRoleFiles(contentByRole, parallelism);
+        phaseStart = logStartupPhase("role-write", phaseStart);
+
+        int removed = roleGenerator.cleanupStaleGeneratedRoles(allCitizens, contentByRole.keySet());
+        logStartupPhase("role-cleanup", phaseStart);
+        metrics.set("startup.roles-written", contentByRole.size());
+        metrics.set("startup.roles-removed", removed);
+    }
+
     public RoleGenerator getRoleGenerator() {
         return roleGenerator;
     }
@@ -4928,6 +5570,7 @@ public class CitizensManager {
 
     private void clearStandaloneFollowState(@Nonnull String citizenId, boolean stopMovement) {
         standaloneFollowSessions.remove(citizenId);
+        followFormations.remove(citizenId);
         if (stopMovement) {
             stopCitizenMovement(citizenId);
         }
@@ -5001,23 +5644,8 @@ public class CitizensManager {
     @Nullable
     private Vector3d computeStandaloneFollowTargetPosition(@Nonnull CitizenData follower, @Nonnull CitizenData leader,
                                                            @Nonnull Vector3d leaderPosition, @Nonnull FollowSession session) {
-        List<CitizenData> activeFollowers = new ArrayList<>();
-        for (CitizenData otherCitizen : citizens.values()) {
-            if (!"FOLLOW_CITIZEN".equals(otherCitizen.getMovementBehavior().getType())) {
-                continue;
-            }
-            if (!leader.getId().equals(otherCitizen.getFollowCitizenId())) {
-                continue;
-            }
-            activeFollowers.add(otherCitizen);
-        }
-
-        activeFollowers.sort(Comparator.comparing(CitizenData::getId));
-        int followerIndex = Math.max(0, activeFollowers.indexOf(follower));
-        int slotsPerRing = 6;
-        int ringIndex = followerIndex / slotsPerRing;
-        int slotIndex = followerIndex % slotsPerRing;
-        int followersInRing = Math.min(slotsPerRing, Math.max(1, activeFollowers.size() - (ringIndex * slotsPerRing)));
+        FollowFormation formation = follower.getFollowFormation();
+        FollowFormationRegistry.Slot slot = followFormations.assign(follower.getId(), leader.getId());
 
         double baseAngle = session.anchorAngleRadians;
         if (!Double.isFinite(baseAngle)) {
@@ -5031,18 +5659,46 @@ public class CitizensManager {
                 baseAngle = Math.atan2(dz, dx) + Math.PI;
             }
         }
+        session.anchorAngleRadians = baseAngle;
+
+        double spacing = Math.max(0.1f, follower.getFollowDistance());
+        double behind;
+        double beside = 0.0;
+        switch (formation) {
+            case COLUMN -> behind = spacing * (slot.index() + 1);
+            case WEDGE -> {
+                // Followers alternate sides, each pair one row further back than the last
+                int row = (slot.index() / 2) + 1;
+                behind = spacing * row;
+                beside = spacing * row * 0.75 * ((slot.index() % 2 == 0) ? -1.0 : 1.0);
+            }
+            default -> {
+                int slotsPerRing = 6;
+                int ringIndex = slot.index() / slotsPerRing;
+                int slotIndex = slot.index() % slotsPerRing;
+                int followersInRing = Math.min(slotsPerRing, Math.max(1, slot.count() - (ringIndex * slotsPerRing)));
+
+                double angle = baseAngle;
+                if (followersInRing > 1) {
+                    angle += (Math.PI * 2.0 * slotIndex) / followersInRing;
+                }
 
-        double angle = baseAngle;
-        if (followersInRing > 1) {
-            angle += (Math.PI * 2.0 * slotIndex) / followersInRing;
+                double radius = spacing + (ringIndex * 0.85);
+                return new Vector3d(
+                        leaderPosition.x + (Math.cos(angle) * radius),
+                        leaderPosition.y,
+                        leaderPosition.z + (Math.sin(angle) * radius)
+                );
+            }
         }
-        session.anchorAngleRadians = baseAngle;
 
-        double radius = Math.max(0.1f, follower.getFollowDistance()) + (ringIndex * 0.85);
+        // baseAngle points away from the leader's heading, so "behind" runs along it and "beside" across it
+        double backX = Math.cos(baseAngle);
+        double backZ = Math.sin(baseAngle);
         return new Vector3d(
-                leaderPosition.x + (Math.cos(angle) * radius),
+                leaderPosition.x + (backX * behind) - (backZ * beside),
                 leaderPosition.y,
-                leaderPosition.z + (Math.sin(angle) * radius)
+                leaderPosition.z + (backZ * behind) + (backX * beside)
         );
     }
 
@@ -5076,7 +5732,7 @@ public class CitizensManager {
             return;
         }
 
-        world.execute(() -> {
+        submitWorldTask(world, () -> {
             Ref<EntityStore> liveRef = citizen.getNpcRef();
             if (liveRef == null || !liveRef.isValid()) {
                 return;
@@ -5126,9 +5782,34 @@ public class CitizensManager {
             }
 
             citizen.setCurrentPosition(new Vector3d(targetPosition.x, targetPosition.y, targetPosition.z));
+            citizenChunkIndex.update(citizen);
         });
     }
 
+    @Nonnull
+    public WorldTaskQueue getWorldTaskQueue() {
+        return worldTaskQueue;
+    }
+
+    // Routes recurring citizen upkeep through the budgeted per-world queue instead of a world.execute each
+    public void submitWorldTask(@Nonnull World world, @Nonnull Runnable task) {
+        worldTaskQueue.enqueue(world, task);
+    }
+
+    public void submitWorldTask(@Nonnull World world, @Nonnull Runnable task, @Nullable Runnable onDropped) {
+        worldTaskQueue.enqueue(world, null, task, onDropped);
+    }
+
+    @Nonnull
+    public CitizenTickEngine getTickEngine() {
+        return tickEngine;
+    }
+
+    @Nonnull
+    public CitizensMetrics getMetrics() {
+        return metrics;
+    }
+
     @Nonnull
     public PatrolManager getPatrolManager() {
         return patrolManager;
@@ -0,0 +1,76 @@
+package com.electro.hycitizens.managers;
+
+import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Keeps each leader's followers in a stable id order so a follower's formation slot is a lookup rather than a
+// scan over every citizen. Slots are numbered per leader across every formation mode, so followers of one leader
+// that use different formations never share a slot and stack on the same spot.
+public class FollowFormationRegistry {
+    public record Slot(int index, int count) {
+    }
+
+    private static final class Membership {
+        private final String leaderId;
+        private final List<String> group;
+        private int index;
+
+        private Membership(@Nonnull String leaderId, @Nonnull List<String> group) {
+            this.leaderId = leaderId;
+            this.group = group;
+        }
+    }
+
+    private final Map<String, List<String>> groups = new HashMap<>();
+    private final Map<String, Membership> memberships = new HashMap<>();
+
+    // Cheap when nothing changed; only a join or leave reorders the affected group
+    @Nonnull
+    public synchronized Slot assign(@Nonnull String followerId, @Nonnull String leaderId) {
+        Membership membership = memberships.get(followerId);
+        if (membership != null && membership.leaderId.equals(leaderId)) {
+            return new Slot(membership.index, membership.group.size());
+        }
+
+        remove(followerId);
+
+        List<String> group = groups.computeIfAbsent(leaderId, k -> new ArrayList<>());
+        int insertAt = Collections.binarySearch(group, followerId);
+        insertAt = insertAt >= 0 ? insertAt : -insertAt - 1;
+        group.add(insertAt, followerId);
+
+        memberships.put(followerId, new Membership(leaderId, group));
+        reindex(group, insertAt);
+        return new Slot(insertAt, group.size());
+    }
+
+    public synchronized void remove(@Nonnull String followerId) {
+        Membership membership = memberships.remove(followerId);
+        if (membership == null) {
+            return;
+        }
+
+        int index = membership.index;
+        membership.group.remove(index);
+        if (membership.group.isEmpty()) {
+            groups.remove(membership.leaderId);
+            return;
+        }
+        reindex(membership.group, index);
+    }
+
+    public synchronized void clear() {
+        groups.clear();
+        memberships.clear();
+    }
+
+    private void reindex(@Nonnull List<String> group, int fromIndex) {
+        for (int i = fromIndex; i < group.size(); i++) {
+            memberships.get(group.get(i)).index = i;
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.electro.hycitizens.managers;
+
+import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+// Min-heap of citizens that are below max health, keyed by when they next regenerate. Rescheduling leaves the
+// old heap entry behind and it is skipped when it surfaces, so every operation stays O(log n).
+public class HealthRegenQueue {
+    private static final class Entry {
+        private final String citizenId;
+        private final long dueAt;
+
+        private Entry(@Nonnull String citizenId, long dueAt) {
+            this.citizenId = citizenId;
+            this.dueAt = dueAt;
+        }
+    }
+
+    private final PriorityQueue<Entry> heap = new PriorityQueue<>((a, b) -> Long.compare(a.dueAt, b.dueAt));
+    private final Map<String, Entry> scheduled = new HashMap<>();
+
+    public synchronized void schedule(@Nonnull String citizenId, long dueAt) {
+        Entry entry = new Entry(citizenId, dueAt);
+        scheduled.put(citizenId, entry);
+        heap.add(entry);
+    }
+
+    public synchronized void scheduleIfAbsent(@Nonnull String citizenId, long dueAt) {
+        if (!scheduled.containsKey(citizenId)) {
+            schedule(citizenId, dueAt);
+        }
+    }
+
+    public synchronized void remove(@Nonnull String citizenId) {
+        scheduled.remove(citizenId);
+    }
+
+    // Removes and returns every citizen whose regen is due; callers reschedule the ones still below max health
+    @Nonnull
+    public synchronized List<String> pollDue(long now) {
+        List<String> due = new ArrayList<>();
+        Entry head;
+        while ((head = heap.peek()) != null && head.dueAt <= now) {
+            heap.poll();
+            if (scheduled.get(head.citizenId) == head) {
+                scheduled.remove(head.citizenId);
+                due.add(head.citizenId);
+            }
+        }
+
+        // Superseded entries pile up when a citizen keeps getting hit; rebuild once they outnumber live ones
+        if (heap.size() > 64 && heap.size() > scheduled.size() * 4) {
+            heap.clear();
+            heap.addAll(scheduled.values());
+        }
+        return due;
+    }
+
+    public synchronized int size() {
+        return scheduled.size();
+    }
+
+    public synchronized void clear() {
+        heap.clear();
+        scheduled.clear();
+    }
+}
@@ -0,0 +1,140 @@
+package com.electro.hycitizens.managers;
+
+import com.electro.hycitizens.models.CitizenData;
+import com.hypixel.hytale.component.Ref;
+import com.hypixel.hytale.math.vector.Vector3d;
+import com.hypixel.hytale.server.core.modules.entity.component.TransformComponent;
+import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
+
+import javax.annotation.Nonnull;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+// Invulnerable citizens without the Invulnerable component still take knockback, so a hit pins them to where they
+// stood for a short while. One entry per citizen, grouped by world and applied in one pass per world tick; further
+// hits only push the expiry out, however fast they come in.
+public class KnockbackLockRegistry {
+    // A pass queued longer ago than this was lost on the way (dropped drain, world swapped out under it) and no
+    // longer blocks the next one; a few world ticks, well inside the lock duration
+    private static final long APPLY_CLAIM_STALE_MS = 250L;
+
+    private static final class Lock {
+        private final Ref<EntityStore> ref;
+        private final CitizenData citizen;
+        private final double x;
+        private final double y;
+        private final double z;
+        private volatile long expiresAt;
+
+        private Lock(@Nonnull Ref<EntityStore> ref, @Nonnull CitizenData citizen, @Nonnull Vector3d position, long expiresAt) {
+            this.ref = ref;
+            this.citizen = citizen;
+            this.x = position.x;
+            this.y = position.y;
+            this.z = position.z;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    private static final class WorldLocks {
+        private final Map<String, Lock> locks = new ConcurrentHashMap<>();
+        // Time the pending apply pass was claimed, or 0 when none is pending
+        private final AtomicLong applyQueuedAt = new AtomicLong(0L);
+    }
+
+    private final Map<UUID, WorldLocks> worlds = new ConcurrentHashMap<>();
+
+    public void lock(@Nonnull UUID worldUuid, @Nonnull CitizenData citizen, @Nonnull Ref<EntityStore> ref,
+                     @Nonnull Vector3d position, long expiresAt) {
+        // Done inside the world entry's compute so an apply pass cannot drop the entry while it is being added to
+        worlds.compute(worldUuid, (k, worldLocks) -> {
+            WorldLocks target = worldLocks != null ? worldLocks : new WorldLocks();
+            target.locks.compute(citizen.getId(), (id, existing) -> {
+                if (existing != null && existing.ref.equals(ref)) {
+                    existing.expiresAt = Math.max(existing.expiresAt, expiresAt);
+                    return existing;
+                }
+                return new Lock(ref, citizen, position, expiresAt);
+            });
+            return target;
+        });
+    }
+
+    @Nonnull
+    public Set<UUID> getLockedWorlds() {
+        return worlds.keySet();
+    }
+
+    // Claims the world's next apply pass at claimedAt; false while a pass queued recently is still pending
+    public boolean markApplyQueued(@Nonnull UUID worldUuid, long claimedAt) {
+        WorldLocks worldLocks = worlds.get(worldUuid);
+        if (worldLocks == null) {
+            return false;
+        }
+
+        long queuedAt = worldLocks.applyQueuedAt.get();
+        if (queuedAt != 0L && claimedAt - queuedAt < APPLY_CLAIM_STALE_MS) {
+            return false;
+        }
+        return claimedAt != 0L && worldLocks.applyQueuedAt.compareAndSet(queuedAt, claimedAt);
+    }
+
+    // Must run on the world thread. Returns how many citizens had to be moved back.
+    public int apply(@Nonnull UUID worldUuid, long claimedAt, long now, @Nonnull Consumer<CitizenData> onCorrected) {
+        WorldLocks worldLocks = worlds.get(worldUuid);
+        if (worldLocks == null) {
+            return 0;
+        }
+
+        int corrected = 0;
+        try {
+            Iterator<Lock> it = worldLocks.locks.values().iterator();
+            while (it.hasNext()) {
+                Lock lock = it.next();
+                if (now >= lock.expiresAt || !lock.ref.isValid()) {
+                    it.remove();
+                    continue;
+                }
+
+                TransformComponent transform = lock.ref.getStore().getComponent(lock.ref, TransformComponent.getComponentType());
+                if (transform == null) {
+                    continue;
+                }
+
+                Vector3d position = transform.getPosition();
+                if (position.x != lock.x || position.y != lock.y || position.z != lock.z) {
+                    transform.setPosition(new Vector3d(lock.x, lock.y, lock.z));
+                    lock.citizen.setCurrentPosition(new Vector3d(lock.x, lock.y, lock.z));
+                    onCorrected.accept(lock.citizen);
+                    corrected++;
+                }
+            }
+        } finally {
+            // A pass written off as stale may still turn up late; it must not clear its successor's claim
+            worldLocks.applyQueuedAt.compareAndSet(claimedAt, 0L);
+            worlds.computeIfPresent(worldUuid, (k, current) -> current.locks.isEmpty() ? null : current);
+        }
+        return corrected;
+    }
+
+    public void clearWorld(@Nonnull UUID worldUuid) {
+        worlds.remove(worldUuid);
+    }
+
+    public int size() {
+        int count = 0;
+        for (WorldLocks worldLocks : worlds.values()) {
+            count += worldLocks.locks.size();
+        }
+        return count;
+    }
+
+    public void clear() {
+        worlds.clear();
+    }
+}
@@ -7,7 +7,6 @@ import com.electro.hycitizens.util.ConfigManager;
 import com.hypixel.hytale.component.*;
 import com.hypixel.hytale.math.vector.Vector3d;
 import com.hypixel.hytale.math.vector.Vector3f;
-import com.hypixel.hytale.server.core.HytaleServer;
 import com.hypixel.hytale.server.core.entity.UUIDComponent;
 import com.hypixel.hytale.server.core.entity.entities.ProjectileComponent;
 import com.hypixel.hytale.server.core.modules.entity.component.Intangible;
@@ -23,8 +22,6 @@ import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ScheduledFuture;
-import java.util.concurrent.TimeUnit;
 
 import static com.hypixel.hytale.logger.HytaleLogger.getLogger;
 
@@ -43,7 +40,7 @@ public class PatrolManager {
     private final Map<String, PatrolPath> paths = new ConcurrentHashMap<>();
     private final Map<String, PatrolSession> activeSessions = new ConcurrentHashMap<>();
     private final Map<String, Ref<EntityStore>> moveTargets = new ConcurrentHashMap<>();
-    private ScheduledFuture<?> monitorTask;
+    private volatile boolean monitorRunning = true;
 
     private static final class PatrolSession {
         final String citizenId;
@@ -81,7 +78,11 @@ public class PatrolManager {
     }
 
     private void startMonitor() {
-        monitorTask = HytaleServer.SCHEDULED_EXECUTOR.scheduleAtFixedRate(() -> {
+        citizensManager.getTickEngine().registerPhase("patrol", MONITOR_INTERVAL_MS, MONITOR_INTERVAL_MS, context -> {
+            if (!monitorRunning) {
+                return;
+            }
+
             for (PatrolSession session : activeSessions.values()) {
                 try {
                     tickSession(session);
@@ -89,7 +90,7 @@ public class PatrolManager {
                     getLogger().atWarning().log("Patrol tick error for citizen " + session.citizenId + ": " + e.getMessage());
                 }
             }
-        }, MONITOR_INTERVAL_MS, MONITOR_INTERVAL_MS, TimeUnit.MILLISECONDS);
+        });
     }
 
     private void tickSession(@Nonnull PatrolSession session) {
@@ -134,7 +135,7 @@ public class PatrolManager {
         }
         final int currentIndex = capturedIndex;
 
-        world.execute(() -> {
+        citizensManager.submitWorldTask(world, () -> {
             Vector3d waypointPosition = waypoints.get(currentIndex).toVector3d();
             Ref<EntityStore> targetRef = ensureMoveTarget(citizen, world, waypointPosition);
             if (targetRef == null || !targetRef.isValid()) {
@@ -484,7 +485,7 @@ public class PatrolManager {
         }
 
         activeSessions.remove(citizenId);
-        world.execute(() -> {
+        citizensManager.submitWorldTask(world, () -> {
             cleanupMoveTarget(citizen, world);
             restartPatrolInternal(citizen, world, path, 0, true);
         });
@@ -508,7 +509,7 @@ public class PatrolManager {
             return;
         }
 
-        world.execute(() -> cleanupMoveTarget(citizen, world));
+        citizensManager.submitWorldTask(world, () -> cleanupMoveTarget(citizen, world));
     }
 
     public void moveCitizenToPosition(@Nonnull String citizenId, @Nonnull Vector3d position) {
@@ -526,7 +527,7 @@ public class PatrolManager {
         }
 
         activeSessions.remove(citizenId);
-        world.execute(() -> {
+        citizensManager.submitWorldTask(world, () -> {
             cleanupMoveTarget(citizen, world);
             spawnMoveTarget(citizen, world, new Vector3d(position.x, position.y, position.z));
         });
@@ -546,7 +547,7 @@ public class PatrolManager {
             return;
         }
 
-        world.execute(() -> {
+        citizensManager.submitWorldTask(world, () -> {
             ensureMoveTarget(citizen, world, new Vector3d(position.x, position.y, position.z));
         });
     }
@@ -711,7 +712,7 @@ public class PatrolManager {
         World world = Universe.get().getWorld(citizen.getWorldUUID());
         if (world == null) return;
 
-        world.execute(() -> {
+        citizensManager.submitWorldTask(world, () -> {
             try {
                 if (targetRef.isValid()) {
                     world.getEntityStore().getStore().removeEntity(targetRef, RemoveReason.REMOVE);
@@ -721,9 +722,7 @@ public class PatrolManager {
     }
 
     public void shutdown() {
-        if (monitorTask != null && !monitorTask.isCancelled()) {
-            monitorTask.cancel(false);
-        }
+        monitorRunning = false;
     }
 
     private void loadPaths() {
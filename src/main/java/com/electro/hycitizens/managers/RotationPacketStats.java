@@ -0,0 +1,80 @@
+package com.electro.hycitizens.managers;
+
+import javax.annotation.Nonnull;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Per-player rotation packet rates, measured over fixed windows so they can be read back for tuning
+public class RotationPacketStats {
+    private static final long WINDOW_MS = 5_000L;
+
+    private static final class PlayerStats {
+        private long windowStartMs;
+        private long packets;
+        private long bytes;
+        private double packetsPerSecond;
+        private double bytesPerSecond;
+
+        private PlayerStats(long now) {
+            this.windowStartMs = now;
+        }
+
+        private void rollWindow(long now) {
+            long elapsed = now - windowStartMs;
+            if (elapsed < WINDOW_MS) {
+                return;
+            }
+
+            packetsPerSecond = packets * 1000.0 / elapsed;
+            bytesPerSecond = bytes * 1000.0 / elapsed;
+            packets = 0L;
+            bytes = 0L;
+            windowStartMs = now;
+        }
+    }
+
+    private final Map<UUID, PlayerStats> stats = new ConcurrentHashMap<>();
+
+    public void record(@Nonnull UUID playerUuid, long packets, long bytes) {
+        long now = System.currentTimeMillis();
+        PlayerStats playerStats = stats.computeIfAbsent(playerUuid, k -> new PlayerStats(now));
+        synchronized (playerStats) {
+            playerStats.rollWindow(now);
+            playerStats.packets += packets;
+            playerStats.bytes += bytes;
+        }
+    }
+
+    public double getPacketsPerSecond(@Nonnull UUID playerUuid) {
+        PlayerStats playerStats = stats.get(playerUuid);
+        if (playerStats == null) {
+            return 0.0;
+        }
+
+        synchronized (playerStats) {
+            playerStats.rollWindow(System.currentTimeMillis());
+            return playerStats.packetsPerSecond;
+        }
+    }
+
+    public double getBytesPerSecond(@Nonnull UUID playerUuid) {
+        PlayerStats playerStats = stats.get(playerUuid);
+        if (playerStats == null) {
+            return 0.0;
+        }
+
+        synchronized (playerStats) {
+            playerStats.rollWindow(System.currentTimeMillis());
+            return playerStats.bytesPerSecond;
+        }
+    }
+
+    public void remove(@Nonnull UUID playerUuid) {
+        stats.remove(playerUuid);
+    }
+
+    public void clear() {
+        stats.clear();
+    }
+}
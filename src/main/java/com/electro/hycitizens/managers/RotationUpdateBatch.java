@@ -0,0 +1,78 @@
+package com.electro.hycitizens.managers;
+
+import com.electro.hycitizens.util.CitizensMetrics;
+import com.hypixel.hytale.protocol.ComponentUpdate;
+import com.hypixel.hytale.protocol.Direction;
+import com.hypixel.hytale.protocol.EntityUpdate;
+import com.hypixel.hytale.protocol.ModelTransform;
+import com.hypixel.hytale.protocol.TransformUpdate;
+import com.hypixel.hytale.protocol.packets.entities.EntityUpdates;
+import com.hypixel.hytale.server.core.universe.PlayerRef;
+
+import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+// Collects the look-at rotations produced during one rotate tick so each player gets a single EntityUpdates
+// packet instead of one per citizen
+public class RotationUpdateBatch {
+    // Rough wire size of one transform-only EntityUpdate (network id, component tag, two orientations)
+    static final int ESTIMATED_UPDATE_BYTES = 40;
+    static final int ESTIMATED_PACKET_OVERHEAD_BYTES = 8;
+
+    private static final class PlayerBatch {
+        private final PlayerRef playerRef;
+        private final List<EntityUpdate> updates = new ArrayList<>();
+
+        private PlayerBatch(@Nonnull PlayerRef playerRef) {
+            this.playerRef = playerRef;
+        }
+    }
+
+    private final Map<UUID, PlayerBatch> batches = new HashMap<>();
+
+    public void add(@Nonnull PlayerRef playerRef, int networkId, @Nonnull Direction lookDirection, @Nonnull Direction bodyDirection) {
+        batches.computeIfAbsent(playerRef.getUuid(), k -> new PlayerBatch(playerRef)).updates.add(
+                createRotationUpdate(networkId, lookDirection, bodyDirection));
+    }
+
+    public boolean isEmpty() {
+        return batches.isEmpty();
+    }
+
+    public void flush(@Nonnull CitizensMetrics metrics, @Nonnull RotationPacketStats stats) {
+        for (Map.Entry<UUID, PlayerBatch> entry : batches.entrySet()) {
+            PlayerBatch batch = entry.getValue();
+            if (batch.updates.isEmpty() || batch.playerRef.getPacketHandler() == null) {
+                continue;
+            }
+
+            int updateCount = batch.updates.size();
+            batch.playerRef.getPacketHandler().write(
+                    new EntityUpdates(null, batch.updates.toArray(new EntityUpdate[0])));
+
+            long bytes = ESTIMATED_PACKET_OVERHEAD_BYTES + (long) updateCount * ESTIMATED_UPDATE_BYTES;
+            stats.record(entry.getKey(), 1L, bytes);
+            metrics.add("rotate.packets", 1L);
+            metrics.add("rotate.entity-updates", updateCount);
+            metrics.add("rotate.bytes-estimated", bytes);
+        }
+        batches.clear();
+    }
+
+    @Nonnull
+    static EntityUpdate createRotationUpdate(int networkId, @Nonnull Direction lookDirection, @Nonnull Direction bodyDirection) {
+        ModelTransform transform = new ModelTransform();
+        transform.lookOrientation = lookDirection;
+        transform.bodyOrientation = bodyDirection;
+
+        return new EntityUpdate(
+                networkId,
+                null,
+                new ComponentUpdate[] { new TransformUpdate(transform) }
+        );
+    }
+}
@@ -2,7 +2,6 @@ package com.electro.hycitizens.managers;
 
 import com.electro.hycitizens.models.*;
 import com.electro.hycitizens.roles.RoleGenerator;
-import com.electro.hycitizens.util.ThreadedScheduler;
 import com.hypixel.hytale.component.Ref;
 import com.hypixel.hytale.math.vector.Vector3d;
 import com.hypixel.hytale.math.vector.Vector3f;
@@ -48,7 +47,6 @@ public class ScheduleManager {
     private final CitizensManager citizensManager;
     private final Map<String, ScheduleSession> sessions = new ConcurrentHashMap<>();
     private final java.util.Set<String> queuedTicks = ConcurrentHashMap.newKeySet();
-    private ThreadedScheduler task = new ThreadedScheduler();
 
     public ScheduleManager(@Nonnull CitizensManager citizensManager) {
         this.citizensManager = citizensManager;
@@ -56,15 +54,11 @@ public class ScheduleManager {
     }
 
     private void start() {
-        task.scheduleAtFixedRate("citizens-schedule-manager", () -> {
-            for (CitizenData citizen : citizensManager.getAllCitizens()) {
-                scheduleCitizenTick(citizen);
-            }
-        }, TICK_INTERVAL_MS, TICK_INTERVAL_MS, TimeUnit.MILLISECONDS);
+        citizensManager.getTickEngine().registerCitizenPhase("schedule", TICK_INTERVAL_MS, TICK_INTERVAL_MS,
+                this::scheduleCitizenTick);
     }
 
     public void shutdown() {
-        task.stop();
         queuedTicks.clear();
         sessions.clear();
     }
@@ -75,7 +69,7 @@ public class ScheduleManager {
     }
 
     public void refreshCitizen(@Nonnull CitizenData citizen) {
-        scheduleCitizenTick(citizen);
+        scheduleCitizenTick(citizen, null);
     }
 
     @Nonnull
@@ -87,7 +81,7 @@ public class ScheduleManager {
         return citizensManager.getRoleGenerator().getRoleName(citizen);
     }
 
-    private void scheduleCitizenTick(@Nonnull CitizenData citizen) {
+    private void scheduleCitizenTick(@Nonnull CitizenData citizen, @Nullable CitizenTickEngine.TickContext context) {
         if (!queuedTicks.add(citizen.getId())) {
             return;
         }
@@ -99,16 +93,24 @@ public class ScheduleManager {
             return;
         }
 
+        Runnable tick = () -> {
+            try {
+                tickCitizen(citizen);
+            } catch (Exception e) {
+                getLogger().atWarning().log("Schedule tick error for citizen " + citizen.getId() + ": " + e.getMessage());
+            } finally {
+                queuedTicks.remove(citizen.getId());
+            }
+        };
+
+        // The claim in queuedTicks is released by the tick itself, or here if its world unloads before it runs
+        Runnable release = () -> queuedTicks.remove(citizen.getId());
         try {
-            world.execute(() -> {
-                try {
-                    tickCitizen(citizen);
-                } catch (Exception e) {
-                    getLogger().atWarning().log("Schedule tick error for citizen " + citizen.getId() + ": " + e.getMessage());
-                } finally {
-                    queuedTicks.remove(citizen.getId());
-                }
-            });
+            if (context != null) {
+                context.submit(world, tick, release);
+            } else {
+                citizensManager.submitWorldTask(world, tick, release);
+            }
         } catch (Exception e) {
             queuedTicks.remove(citizen.getId());
             getLogger().atWarning().log("Failed to queue schedule tick for citizen " + citizen.getId() + ": " + e.getMessage());
@@ -662,7 +664,7 @@ public class ScheduleManager {
         if (world == null) {
             return;
         }
-        world.execute(() -> {
+        citizensManager.submitWorldTask(world, () -> {
             Ref<EntityStore> liveRef = citizen.getNpcRef();
             if (liveRef == null || !liveRef.isValid()) {
                 return;
@@ -687,7 +689,7 @@ public class ScheduleManager {
         }
 
         Vector3f targetRotation = new Vector3f(rotation);
-        world.execute(() -> {
+        citizensManager.submitWorldTask(world, () -> {
             TransformComponent transformComponent = npcRef.getStore().getComponent(npcRef, TransformComponent.getComponentType());
             if (transformComponent != null) {
                 transformComponent.setRotation(targetRotation);
@@ -721,7 +723,7 @@ public class ScheduleManager {
             return;
         }
 
-        world.execute(() -> {
+        citizensManager.submitWorldTask(world, () -> {
             NPCEntity npcEntity = npcRef.getStore().getComponent(npcRef, NPCEntity.getComponentType());
             if (npcEntity == null || npcEntity.getRole() == null) {
                 return;
@@ -0,0 +1,252 @@
+package com.electro.hycitizens.managers;
+
+import com.electro.hycitizens.util.CitizensMetrics;
+import com.hypixel.hytale.server.core.universe.world.World;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+import static com.hypixel.hytale.logger.HytaleLogger.getLogger;
+
+public class WorldTaskQueue {
+    public static final long DEFAULT_DRAIN_BUDGET_MS = 4L;
+    // A drain the world accepted but never ran (world stopping, runnable dropped) is written off after this long
+    private static final long DRAIN_STALL_NANOS = TimeUnit.SECONDS.toNanos(10L);
+
+    private static final class QueuedTask {
+        private final String metricKey;
+        private final String coalesceKey;
+        private final Runnable onDropped;
+        private volatile Runnable task;
+
+        private QueuedTask(@Nullable String metricKey, @Nullable String coalesceKey, @Nonnull Runnable task,
+                           @Nullable Runnable onDropped) {
+            this.metricKey = metricKey;
+            this.coalesceKey = coalesceKey;
+            this.task = task;
+            this.onDropped = onDropped;
+        }
+    }
+
+    private static final class WorldQueue {
+        private final Queue<QueuedTask> tasks = new ConcurrentLinkedQueue<>();
+        private final Map<String, QueuedTask> coalesced = new ConcurrentHashMap<>();
+        // System.nanoTime() the pending drain was handed to the world, or 0 when none is pending
+        private final AtomicLong drainScheduledAt = new AtomicLong(0L);
+        private final World world;
+
+        private WorldQueue(@Nonnull World world) {
+            this.world = world;
+        }
+    }
+
+    private final Map<UUID, WorldQueue> queues = new ConcurrentHashMap<>();
+    private final CitizensMetrics metrics;
+    private volatile long drainBudgetNanos;
+
+    public WorldTaskQueue(@Nonnull CitizensMetrics metrics, long drainBudgetMs) {
+        this.metrics = metrics;
+        setDrainBudgetMs(drainBudgetMs);
+    }
+
+    public void setDrainBudgetMs(long drainBudgetMs) {
+        this.drainBudgetNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1L, drainBudgetMs));
+    }
+
+    public long getDrainBudgetMs() {
+        return TimeUnit.NANOSECONDS.toMillis(drainBudgetNanos);
+    }
+
+    public void enqueue(@Nonnull World world, @Nonnull Runnable task) {
+        enqueue(world, null, task);
+    }
+
+    public void enqueue(@Nonnull World world, @Nullable String metricKey, @Nonnull Runnable task) {
+        enqueue(world, metricKey, task, null);
+    }
+
+    // onDropped runs instead of the task if the world goes away before the task gets to run, so callers that hold
+    // a flag or a claim until their task finishes can let go of it
+    public void enqueue(@Nonnull World world, @Nullable String metricKey, @Nonnull Runnable task,
+                        @Nullable Runnable onDropped) {
+        WorldQueue queue = queueFor(world);
+        queue.tasks.add(new QueuedTask(metricKey, null, task, onDropped));
+        scheduleDrain(queue);
+    }
+
+    // Keeps at most one pending task per key and world; a newer task replaces the one still waiting to run
+    public void enqueueLatest(@Nonnull World world, @Nullable String metricKey, @Nonnull String coalesceKey,
+                              @Nonnull Runnable task) {
+        WorldQueue queue = queueFor(world);
+        queue.coalesced.compute(coalesceKey, (k, pending) -> {
+            if (pending != null) {
+                pending.task = task;
+                metrics.increment("world-queue.coalesced");
+                return pending;
+            }
+
+            QueuedTask queued = new QueuedTask(metricKey, coalesceKey, task, null);
+            queue.tasks.add(queued);
+            return queued;
+        });
+        scheduleDrain(queue);
+    }
+
+    // Drops queues for worlds that are no longer loaded; whatever they still held is handed to its drop callback
+    public void pruneWorlds(@Nonnull Predicate<UUID> isLoaded) {
+        for (Map.Entry<UUID, WorldQueue> entry : queues.entrySet()) {
+            if (!isLoaded.test(entry.getKey()) && queues.remove(entry.getKey(), entry.getValue())) {
+                dropAll(entry.getValue());
+            }
+        }
+    }
+
+    public int getPendingCount() {
+        int pending = 0;
+        for (WorldQueue queue : queues.values()) {
+            pending += queue.tasks.size();
+        }
+        return pending;
+    }
+
+    public void clear() {
+        for (UUID worldUUID : queues.keySet()) {
+            WorldQueue queue = queues.remove(worldUUID);
+            if (queue != null) {
+                dropAll(queue);
+            }
+        }
+    }
+
+    @Nonnull
+    private WorldQueue queueFor(@Nonnull World world) {
+        UUID worldUUID = world.getWorldConfig().getUuid();
+        WorldQueue queue = queues.get(worldUUID);
+        if (queue != null && queue.world == world) {
+            return queue;
+        }
+
+        // A reloaded world is a new instance, and the old one will never drain again. Whatever was still waiting on
+        // it moves over in order and runs on the new world instead.
+        WorldQueue[] replaced = new WorldQueue[1];
+        WorldQueue current = queues.compute(worldUUID, (k, existing) -> {
+            if (existing != null && existing.world == world) {
+                return existing;
+            }
+            replaced[0] = existing;
+            return new WorldQueue(world);
+        });
+
+        if (replaced[0] != null) {
+            QueuedTask queued;
+            int moved = 0;
+            while ((queued = replaced[0].tasks.poll()) != null) {
+                if (queued.coalesceKey != null) {
+                    replaced[0].coalesced.remove(queued.coalesceKey, queued);
+                    current.coalesced.putIfAbsent(queued.coalesceKey, queued);
+                }
+                current.tasks.add(queued);
+                moved++;
+            }
+            metrics.add("world-queue.moved-tasks", moved);
+            if (moved > 0) {
+                scheduleDrain(current);
+            }
+        }
+        return current;
+    }
+
+    private void dropAll(@Nonnull WorldQueue queue) {
+        QueuedTask queued;
+        int dropped = 0;
+        while ((queued = queue.tasks.poll()) != null) {
+            dropped++;
+            if (queued.onDropped == null) {
+                continue;
+            }
+            try {
+                queued.onDropped.run();
+            } catch (Exception e) {
+                getLogger().atWarning().log("Citizen world task drop callback failed: " + e.getMessage());
+            }
+        }
+        queue.coalesced.clear();
+        metrics.add("world-queue.dropped-tasks", dropped);
+    }
+
+    private void scheduleDrain(@Nonnull WorldQueue queue) {
+        // Only one drain per world is ever in flight; anything queued meanwhile rides along with it
+        long now = System.nanoTime();
+        long scheduledAt = queue.drainScheduledAt.get();
+        if (scheduledAt != 0L && now - scheduledAt < DRAIN_STALL_NANOS) {
+            return;
+        }
+        if (!queue.drainScheduledAt.compareAndSet(scheduledAt, now)) {
+            return;
+        }
+        if (scheduledAt != 0L) {
+            metrics.increment("world-queue.stalled-drains");
+        }
+
+        try {
+            queue.world.execute(() -> drain(queue, now));
+        } catch (Exception e) {
+            queue.drainScheduledAt.compareAndSet(now, 0L);
+            getLogger().atWarning().log("Failed to schedule citizen world task drain: " + e.getMessage());
+        }
+    }
+
+    private void drain(@Nonnull WorldQueue queue, long token) {
+        long start = System.nanoTime();
+        long deadline = start + drainBudgetNanos;
+        int executed = 0;
+
+        try {
+            QueuedTask queued;
+            while ((queued = queue.tasks.poll()) != null) {
+                // Unmap first so a replacement that lands from here on queues a fresh task instead
+                if (queued.coalesceKey != null) {
+                    queue.coalesced.remove(queued.coalesceKey, queued);
+                }
+
+                long taskStart = System.nanoTime();
+                try {
+                    queued.task.run();
+                } catch (Exception e) {
+                    getLogger().atWarning().log("Citizen world task failed: " + e.getMessage());
+                }
+
+                long taskEnd = System.nanoTime();
+                if (queued.metricKey != null) {
+                    metrics.add(queued.metricKey, taskEnd - taskStart);
+                }
+
+                executed++;
+                if (taskEnd >= deadline) {
+                    break;
+                }
+            }
+        } finally {
+            // A drain written off as stalled may still turn up late; it must not clear its successor's slot
+            queue.drainScheduledAt.compareAndSet(token, 0L);
+        }
+
+        metrics.add("world-queue.drains", 1L);
+        metrics.add("world-queue.tasks", executed);
+        metrics.add("world-queue.drain-nanos", System.nanoTime() - start);
+
+        // Over budget: whatever is left carries over to a drain on the next world tick
+        if (!queue.tasks.isEmpty()) {
+            metrics.add("world-queue.carry-overs", 1L);
+            scheduleDrain(queue);
+        }
+    }
+}
@@ -0,0 +1,225 @@
+package com.electro.hycitizens.models;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.List;
+
+// A citizen's animation behaviours sorted into per-trigger buckets once, when the list is edited, so the
+// animation and proximity ticks never compare type strings or build keys. Only the next-fire timestamps change
+// after compilation, and those are only touched from the citizens tick thread.
+public final class AnimationBehaviorTable {
+    private static final long DEFAULT_REPLAY_INTERVAL_MS = 2_000L;
+
+    public enum Trigger {
+        DEFAULT,
+        TIMED,
+        ON_INTERACT,
+        ON_ATTACK,
+        ON_PROXIMITY_ENTER,
+        ON_PROXIMITY_EXIT;
+
+        private static final Trigger[] VALUES = values();
+
+        @Nullable
+        public static Trigger fromString(@Nullable String value) {
+            if (value == null) {
+                return null;
+            }
+            for (Trigger trigger : VALUES) {
+                if (trigger.name().equals(value)) {
+                    return trigger;
+                }
+            }
+            return null;
+        }
+    }
+
+    public static final AnimationBehaviorTable EMPTY = compile(List.of());
+
+    private final AnimationBehavior[][] byTrigger;
+
+    // DEFAULT and TIMED behaviours, in list order, with the interval each one replays at
+    private final AnimationBehavior[] scheduled;
+    private final boolean[] scheduledDefault;
+    private final long[] intervalMs;
+    private final long[] nextFireAt;
+
+    // ON_PROXIMITY_ENTER and ON_PROXIMITY_EXIT behaviours, in list order, since they share one in-range flag per player
+    private final AnimationBehavior[] proximity;
+    private final boolean[] proximityEnter;
+    private final double[] proximityRangeSq;
+
+    private final String[] defaultAnimationBySlot;
+
+    private AnimationBehaviorTable(@Nonnull AnimationBehavior[][] byTrigger, @Nonnull AnimationBehavior[] scheduled,
+                                   @Nonnull boolean[] scheduledDefault, @Nonnull long[] intervalMs,
+                                   @Nonnull AnimationBehavior[] proximity, @Nonnull boolean[] proximityEnter,
+                                   @Nonnull double[] proximityRangeSq, @Nonnull String[] defaultAnimationBySlot) {
+        this.byTrigger = byTrigger;
+        this.scheduled = scheduled;
+        this.scheduledDefault = scheduledDefault;
+        this.intervalMs = intervalMs;
+        this.nextFireAt = new long[scheduled.length];
+        this.proximity = proximity;
+        this.proximityEnter = proximityEnter;
+        this.proximityRangeSq = proximityRangeSq;
+        this.defaultAnimationBySlot = defaultAnimationBySlot;
+    }
+
+    @Nonnull
+    public static AnimationBehaviorTable compile(@Nonnull List<AnimationBehavior> behaviors) {
+        return compile(behaviors, null);
+    }
+
+    // Recompiles after an edit. Scheduled behaviours that are still there, by trigger, animation and slot, keep
+    // their place in the replay cycle instead of all firing at once on the next tick.
+    @Nonnull
+    public static AnimationBehaviorTable compile(@Nonnull List<AnimationBehavior> behaviors,
+                                                 @Nullable AnimationBehaviorTable previous) {
+        List<List<AnimationBehavior>> buckets = new ArrayList<>();
+        for (int i = 0; i < Trigger.VALUES.length; i++) {
+            buckets.add(new ArrayList<>());
+        }
+
+        List<AnimationBehavior> scheduled = new ArrayList<>();
+        List<AnimationBehavior> proximity = new ArrayList<>();
+        int maxSlot = -1;
+        for (AnimationBehavior behavior : behaviors) {
+            Trigger trigger = Trigger.fromString(behavior.getType());
+            if (trigger == null) {
+                continue;
+            }
+
+            buckets.get(trigger.ordinal()).add(behavior);
+            switch (trigger) {
+                case DEFAULT -> {
+                    scheduled.add(behavior);
+                    maxSlot = Math.max(maxSlot, behavior.getAnimationSlot());
+                }
+                case TIMED -> scheduled.add(behavior);
+                case ON_PROXIMITY_ENTER, ON_PROXIMITY_EXIT -> proximity.add(behavior);
+                default -> {
+                }
+            }
+        }
+
+        AnimationBehavior[][] byTrigger = new AnimationBehavior[Trigger.VALUES.length][];
+        for (int i = 0; i < byTrigger.length; i++) {
+            byTrigger[i] = buckets.get(i).toArray(new AnimationBehavior[0]);
+        }
+
+        boolean[] scheduledDefault = new boolean[scheduled.size()];
+        long[] intervalMs = new long[scheduled.size()];
+        for (int i = 0; i < scheduled.size(); i++) {
+            AnimationBehavior behavior = scheduled.get(i);
+            scheduledDefault[i] = "DEFAULT".equals(behavior.getType());
+            // DEFAULT animations are replayed every couple of seconds to keep them playing
+            intervalMs[i] = scheduledDefault[i]
+                    ? DEFAULT_REPLAY_INTERVAL_MS
+                    : (long) (behavior.getIntervalSeconds() * 1000);
+        }
+
+        boolean[] proximityEnter = new boolean[proximity.size()];
+        double[] proximityRangeSq = new double[proximity.size()];
+        for (int i = 0; i < proximity.size(); i++) {
+            AnimationBehavior behavior = proximity.get(i);
+            proximityEnter[i] = "ON_PROXIMITY_ENTER".equals(behavior.getType());
+            float range = behavior.getProximityRange();
+            proximityRangeSq[i] = range * range;
+        }
+
+        String[] defaultAnimationBySlot = new String[maxSlot + 1];
+        for (AnimationBehavior behavior : byTrigger[Trigger.DEFAULT.ordinal()]) {
+            int slot = behavior.getAnimationSlot();
+            if (slot >= 0 && defaultAnimationBySlot[slot] == null) {
+                defaultAnimationBySlot[slot] = behavior.getAnimationName();
+            }
+        }
+
+        AnimationBehaviorTable table = new AnimationBehaviorTable(byTrigger, scheduled.toArray(new AnimationBehavior[0]),
+                scheduledDefault, intervalMs, proximity.toArray(new AnimationBehavior[0]), proximityEnter,
+                proximityRangeSq, defaultAnimationBySlot);
+        if (previous != null) {
+            table.carryOverFireTimes(previous);
+        }
+        return table;
+    }
+
+    private void carryOverFireTimes(@Nonnull AnimationBehaviorTable previous) {
+        boolean[] claimed = new boolean[previous.scheduled.length];
+        for (int i = 0; i < scheduled.length; i++) {
+            for (int j = 0; j < previous.scheduled.length; j++) {
+                if (claimed[j] || !sameSchedule(scheduled[i], previous.scheduled[j])) {
+                    continue;
+                }
+
+                claimed[j] = true;
+                long previousFireAt = previous.nextFireAt[j];
+                if (previousFireAt != 0L) {
+                    // Count the new interval from when it last fired, so a shortened interval takes effect now
+                    nextFireAt[i] = previousFireAt - previous.intervalMs[j] + intervalMs[i];
+                }
+                break;
+            }
+        }
+    }
+
+    private static boolean sameSchedule(@Nonnull AnimationBehavior current, @Nonnull AnimationBehavior previous) {
+        return current.getType().equals(previous.getType())
+                && current.getAnimationSlot() == previous.getAnimationSlot()
+                && current.getAnimationName().equals(previous.getAnimationName());
+    }
+
+    @Nonnull
+    public AnimationBehavior[] get(@Nonnull Trigger trigger) {
+        return byTrigger[trigger.ordinal()];
+    }
+
+    public int getScheduledCount() {
+        return scheduled.length;
+    }
+
+    @Nonnull
+    public AnimationBehavior getScheduled(int index) {
+        return scheduled[index];
+    }
+
+    public boolean isScheduledDefault(int index) {
+        return scheduledDefault[index];
+    }
+
+    public boolean isDue(int index, long now) {
+        return now >= nextFireAt[index];
+    }
+
+    public void markFired(int index, long now) {
+        nextFireAt[index] = now + intervalMs[index];
+    }
+
+    public boolean hasProximity() {
+        return proximity.length > 0;
+    }
+
+    public int getProximityCount() {
+        return proximity.length;
+    }
+
+    @Nonnull
+    public AnimationBehavior getProximity(int index) {
+        return proximity[index];
+    }
+
+    public boolean isProximityEnter(int index) {
+        return proximityEnter[index];
+    }
+
+    public double getProximityRangeSq(int index) {
+        return proximityRangeSq[index];
+    }
+
+    @Nullable
+    public String getDefaultAnimation(int slot) {
+        return slot >= 0 && slot < defaultAnimationBySlot.length ? defaultAnimationBySlot[slot] : null;
+    }
+}
@@ -1,6 +1,8 @@
 package com.electro.hycitizens.models;
 
 import com.electro.hycitizens.roles.RoleGenerator;
+import com.electro.hycitizens.util.CompactUuidSet;
+import com.electro.hycitizens.util.TimerWheel;
 import com.hypixel.hytale.component.Ref;
 import com.hypixel.hytale.math.vector.Vector3d;
 import com.hypixel.hytale.math.vector.Vector3f;
@@ -16,7 +18,6 @@ import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ScheduledFuture;
 
 import static com.hypixel.hytale.logger.HytaleLogger.getLogger;
 
@@ -55,9 +56,9 @@ public class CitizenData {
     private List<UUID> hologramLineUuids = new ArrayList<>();
     private Ref<EntityStore> npcRef;
     public final Map<UUID, Direction> lastLookDirections = new ConcurrentHashMap<>();
-    private transient Map<UUID, ScheduledFuture<?>> pendingLookResetTasks = new ConcurrentHashMap<>();
+    private transient Map<UUID, TimerWheel.Timeout> pendingLookResetTasks = new ConcurrentHashMap<>();
     public final Map<UUID, Direction> lastNametagLookDirections = new ConcurrentHashMap<>();
-    private transient Map<UUID, ScheduledFuture<?>> pendingNametagLookResetTasks = new ConcurrentHashMap<>();
+    private transient Map<UUID, TimerWheel.Timeout> pendingNametagLookResetTasks = new ConcurrentHashMap<>();
     private boolean rotateTowardsPlayer;
     private float lookAtDistance = 25.0f;
     private boolean hideNametag = false;
@@ -91,27 +92,20 @@ public class CitizenData {
 
     // Behavior fields
     private List<AnimationBehavior> animationBehaviors = new ArrayList<>();
+    private transient volatile AnimationBehaviorTable animationTable;
     private MovementBehavior movementBehavior = new MovementBehavior();
     private ScheduleConfig scheduleConfig = new ScheduleConfig();
     private MessagesConfig messagesConfig = new MessagesConfig();
     private DeathConfig deathConfig = new DeathConfig();
     private String commandSelectionMode = "ALL";
-    private transient Map<UUID, Integer> sequentialMessageIndex = new ConcurrentHashMap<>();
-    private transient Map<UUID, Integer> sequentialCommandIndex = new ConcurrentHashMap<>();
-    private transient Map<UUID, Integer> sequentialDeathMessageIndex = new ConcurrentHashMap<>();
-    private transient Map<UUID, Integer> sequentialDeathCommandIndex = new ConcurrentHashMap<>();
-    private transient Map<UUID, Boolean> playersInProximity = new ConcurrentHashMap<>();
-    private transient Map<String, Long> lastTimedAnimationPlay = new ConcurrentHashMap<>();
-    private transient Map<String, java.util.concurrent.ScheduledFuture<?>> animationStopTasks = new ConcurrentHashMap<>();
+    private transient Map<String, TimerWheel.Timeout> animationStopTasks = new ConcurrentHashMap<>();
     private boolean firstInteractionEnabled = false;
     private List<CommandAction> firstInteractionCommandActions = new ArrayList<>();
     private MessagesConfig firstInteractionMessagesConfig = new MessagesConfig();
     private String firstInteractionCommandSelectionMode = "ALL";
     private String postFirstInteractionBehavior = "NORMAL";
     private boolean runNormalOnFirstInteraction = false;
-    private Set<UUID> playersWhoCompletedFirstInteraction = ConcurrentHashMap.newKeySet();
-    private transient Map<UUID, Integer> sequentialFirstInteractionMessageIndex = new ConcurrentHashMap<>();
-    private transient Map<UUID, Integer> sequentialFirstInteractionCommandIndex = new ConcurrentHashMap<>();
+    private CompactUuidSet playersWhoCompletedFirstInteraction = new CompactUuidSet();
 
     // Attitude and damage fields
     private String attitude = "PASSIVE";
@@ -145,6 +139,7 @@ public class CitizenData {
     private boolean followCitizenEnabled = false;
     private String followCitizenId = "";
     private float followDistance = 2.0f;
+    private FollowFormation followFormation = FollowFormation.RING;
 
     // New config fields for runtime role generation
     private CombatConfig combatConfig = new CombatConfig();
@@ -636,6 +631,17 @@ public class CitizenData {
 
     public void setAnimationBehaviors(@Nonnull List<AnimationBehavior> animationBehaviors) {
         this.animationBehaviors = new ArrayList<>(animationBehaviors);
+        this.animationTable = AnimationBehaviorTable.compile(this.animationBehaviors, animationTable);
+    }
+
+    @Nonnull
+    public AnimationBehaviorTable getAnimationTable() {
+        AnimationBehaviorTable table = animationTable;
+        if (table == null) {
+            table = AnimationBehaviorTable.compile(animationBehaviors);
+            animationTable = table;
+        }
+        return table;
     }
 
     @Nonnull
@@ -679,32 +685,7 @@ public class CitizenData {
     }
 
     @Nonnull
-    public Map<UUID, Integer> getSequentialMessageIndex() {
-        return sequentialMessageIndex;
-    }
-
-    @Nonnull
-    public Map<UUID, Integer> getSequentialCommandIndex() {
-        return sequentialCommandIndex;
-    }
-
-    @Nonnull
-    public Map<UUID, Integer> getSequentialDeathMessageIndex() {
-        return sequentialDeathMessageIndex;
-    }
-
-    @Nonnull
-    public Map<UUID, Integer> getSequentialDeathCommandIndex() {
-        return sequentialDeathCommandIndex;
-    }
-
-    @Nonnull
-    public Map<UUID, Boolean> getPlayersInProximity() {
-        return playersInProximity;
-    }
-
-    @Nonnull
-    public Map<UUID, ScheduledFuture<?>> getPendingLookResetTasks() {
+    public Map<UUID, TimerWheel.Timeout> getPendingLookResetTasks() {
         if (pendingLookResetTasks == null) {
             pendingLookResetTasks = new ConcurrentHashMap<>();
         }
@@ -712,7 +693,7 @@ public class CitizenData {
     }
 
     @Nonnull
-    public Map<UUID, ScheduledFuture<?>> getPendingNametagLookResetTasks() {
+    public Map<UUID, TimerWheel.Timeout> getPendingNametagLookResetTasks() {
         if (pendingNametagLookResetTasks == null) {
             pendingNametagLookResetTasks = new ConcurrentHashMap<>();
         }
@@ -720,12 +701,7 @@ public class CitizenData {
     }
 
     @Nonnull
-    public Map<String, Long> getLastTimedAnimationPlay() {
-        return lastTimedAnimationPlay;
-    }
-
-    @Nonnull
-    public Map<String, java.util.concurrent.ScheduledFuture<?>> getAnimationStopTasks() {
+    public Map<String, TimerWheel.Timeout> getAnimationStopTasks() {
         return animationStopTasks;
     }
 
@@ -781,25 +757,23 @@ public class CitizenData {
         this.runNormalOnFirstInteraction = runNormalOnFirstInteraction;
     }
 
+    // Read-only; use markFirstInteractionCompleted to record a player
     @Nonnull
     public Set<UUID> getPlayersWhoCompletedFirstInteraction() {
-        return playersWhoCompletedFirstInteraction;
+        return playersWhoCompletedFirstInteraction.asSet();
     }
 
     public void setPlayersWhoCompletedFirstInteraction(@Nonnull Set<UUID> playersWhoCompletedFirstInteraction) {
-        Set<UUID> copy = ConcurrentHashMap.newKeySet();
-        copy.addAll(playersWhoCompletedFirstInteraction);
-        this.playersWhoCompletedFirstInteraction = copy;
+        this.playersWhoCompletedFirstInteraction = new CompactUuidSet(playersWhoCompletedFirstInteraction);
     }
 
-    @Nonnull
-    public Map<UUID, Integer> getSequentialFirstInteractionMessageIndex() {
-        return sequentialFirstInteractionMessageIndex;
+    // Returns true if this was the player's first completed interaction
+    public boolean markFirstInteractionCompleted(@Nonnull UUID playerUuid) {
+        return playersWhoCompletedFirstInteraction.add(playerUuid);
     }
 
-    @Nonnull
-    public Map<UUID, Integer> getSequentialFirstInteractionCommandIndex() {
-        return sequentialFirstInteractionCommandIndex;
+    public int getFirstInteractionCompletedCount() {
+        return playersWhoCompletedFirstInteraction.size();
     }
 
     @Nonnull
@@ -963,6 +937,15 @@ public class CitizenData {
         this.followDistance = Math.max(0.1f, followDistance);
     }
 
+    @Nonnull
+    public FollowFormation getFollowFormation() {
+        return followFormation;
+    }
+
+    public void setFollowFormation(@Nullable FollowFormation followFormation) {
+        this.followFormation = followFormation != null ? followFormation : FollowFormation.RING;
+    }
+
     @Nonnull
     public ScheduleRuntimeState getCurrentScheduleRuntimeState() {
         return currentScheduleRuntimeState;
@@ -9,6 +9,7 @@ public class CitizenMessage {
     private String interactionTrigger;
     private float delaySeconds;
     private float chancePercent;
+    private transient volatile MessageTemplate template;
 
     public CitizenMessage(@Nonnull String message) {
         this(message, "BOTH", 0.0f, 100.0f);
@@ -39,6 +40,17 @@ public class CitizenMessage {
 
     public void setMessage(@Nonnull String message) {
         this.message = message;
+        this.template = null;
+    }
+
+    @Nonnull
+    public MessageTemplate getTemplate() {
+        MessageTemplate compiled = template;
+        if (compiled == null) {
+            compiled = MessageTemplate.compile(message);
+            template = compiled;
+        }
+        return compiled;
     }
 
     @Nullable
@@ -4,12 +4,15 @@ import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 
 public class CommandAction {
+    public static final String SEND_MESSAGE_PREFIX = "{SendMessage}";
+
     private String command;
     private boolean runAsServer;
     private float delaySeconds;
     @Nullable
     private String interactionTrigger;
     private float chancePercent;
+    private transient volatile MessageTemplate template;
 
     public CommandAction(@Nonnull String command, boolean runAsServer) {
         this(command, runAsServer, 0.0f, "BOTH", 100.0f);
@@ -42,6 +45,23 @@ public class CommandAction {
 
     public void setCommand(@Nonnull String command) {
         this.command = command;
+        this.template = null;
+    }
+
+    public boolean isSendMessage() {
+        return command.startsWith(SEND_MESSAGE_PREFIX);
+    }
+
+    // For {SendMessage} actions this is the message after the prefix, otherwise the command line itself
+    @Nonnull
+    public MessageTemplate getTemplate() {
+        MessageTemplate compiled = template;
+        if (compiled == null) {
+            String source = isSendMessage() ? command.substring(SEND_MESSAGE_PREFIX.length()).trim() : command;
+            compiled = MessageTemplate.compile(source);
+            template = compiled;
+        }
+        return compiled;
     }
 
     public boolean isRunAsServer() {
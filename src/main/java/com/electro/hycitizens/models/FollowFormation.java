@@ -0,0 +1,21 @@
+package com.electro.hycitizens.models;
+
+import javax.annotation.Nonnull;
+
+public enum FollowFormation {
+    RING,
+    COLUMN,
+    WEDGE;
+
+    @Nonnull
+    public static FollowFormation fromString(String value) {
+        if (value == null || value.isEmpty()) {
+            return RING;
+        }
+        try {
+            return FollowFormation.valueOf(value.trim().toUpperCase());
+        } catch (IllegalArgumentException ignored) {
+            return RING;
+        }
+    }
+}
@@ -0,0 +1,468 @@
+package com.electro.hycitizens.models;
+
+import com.hypixel.hytale.math.vector.Vector3d;
+import com.hypixel.hytale.server.core.Message;
+import com.hypixel.hytale.server.core.universe.PlayerRef;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.awt.Color;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// A chat message or command compiled once into styled segments of literal runs and placeholder slots, so sending
+// it only fills in the placeholders instead of re-running the placeholder and colour regexes on every click.
+// Templates are immutable and shared between threads.
+public final class MessageTemplate {
+    public enum Placeholder {
+        PLAYER_NAME("{PlayerName}"),
+        CITIZEN_NAME("{CitizenName}"),
+        NPC_X("{NpcX}"),
+        NPC_Y("{NpcY}"),
+        NPC_Z("{NpcZ}");
+
+        private static final Placeholder[] VALUES = values();
+
+        private final String token;
+
+        Placeholder(@Nonnull String token) {
+            this.token = token;
+        }
+
+        @Nullable
+        private static Placeholder match(@Nonnull String source, int offset) {
+            for (Placeholder placeholder : VALUES) {
+                if (source.regionMatches(true, offset, placeholder.token, 0, placeholder.token.length())) {
+                    return placeholder;
+                }
+            }
+            return null;
+        }
+    }
+
+    private static final Map<String, Color> NAMED_COLORS = Map.ofEntries(
+            Map.entry("BLACK", Color.decode("#000000")),
+            Map.entry("WHITE", Color.decode("#FFFFFF")),
+            Map.entry("RED", Color.decode("#FF0000")),
+            Map.entry("GREEN", Color.decode("#00FF00")),
+            Map.entry("BLUE", Color.decode("#0000FF")),
+            Map.entry("YELLOW", Color.decode("#FFFF00")),
+            Map.entry("ORANGE", Color.decode("#FFA500")),
+            Map.entry("PINK", Color.decode("#FFC0CB")),
+            Map.entry("PURPLE", Color.decode("#800080")),
+            Map.entry("CYAN", Color.decode("#00FFFF")),
+            Map.entry("MAGENTA", Color.decode("#FF00FF")),
+            Map.entry("LIME", Color.decode("#00FF00")),
+            Map.entry("MAROON", Color.decode("#800000")),
+            Map.entry("NAVY", Color.decode("#000080")),
+            Map.entry("TEAL", Color.decode("#008080")),
+            Map.entry("OLIVE", Color.decode("#808000")),
+            Map.entry("SILVER", Color.decode("#C0C0C0")),
+            Map.entry("GRAY", Color.decode("#808080")),
+            Map.entry("GREY", Color.decode("#808080")),
+            Map.entry("BROWN", Color.decode("#A52A2A")),
+            Map.entry("GOLD", Color.decode("#FFD700")),
+            Map.entry("ORCHID", Color.decode("#DA70D6")),
+            Map.entry("SALMON", Color.decode("#FA8072")),
+            Map.entry("TURQUOISE", Color.decode("#40E0D0")),
+            Map.entry("VIOLET", Color.decode("#EE82EE")),
+            Map.entry("INDIGO", Color.decode("#4B0082")),
+            Map.entry("CORAL", Color.decode("#FF7F50")),
+            Map.entry("CRIMSON", Color.decode("#DC143C")),
+            Map.entry("KHAKI", Color.decode("#F0E68C")),
+            Map.entry("PLUM", Color.decode("#DDA0DD")),
+            Map.entry("CHOCOLATE", Color.decode("#D2691E")),
+            Map.entry("TAN", Color.decode("#D2B48C")),
+            Map.entry("LIGHTBLUE", Color.decode("#ADD8E6")),
+            Map.entry("LIGHTGREEN", Color.decode("#90EE90")),
+            Map.entry("LIGHTGRAY", Color.decode("#D3D3D3")),
+            Map.entry("LIGHTGREY", Color.decode("#D3D3D3")),
+            Map.entry("DARKRED", Color.decode("#8B0000")),
+            Map.entry("DARKGREEN", Color.decode("#006400")),
+            Map.entry("DARKBLUE", Color.decode("#00008B")),
+            Map.entry("DARKGRAY", Color.decode("#A9A9A9")),
+            Map.entry("DARKGREY", Color.decode("#A9A9A9")),
+            Map.entry("LIGHTPINK", Color.decode("#FFB6C1")),
+            Map.entry("LIGHTYELLOW", Color.decode("#FFFFE0")),
+            Map.entry("LIGHTCYAN", Color.decode("#E0FFFF")),
+            Map.entry("LIGHTMAGENTA", Color.decode("#FF77FF")),
+            Map.entry("ORANGERED", Color.decode("#FF4500")),
+            Map.entry("DEEPSKYBLUE", Color.decode("#00BFFF"))
+    );
+
+    private static final Pattern COLOR_PATTERN = Pattern.compile("(\\{[A-Za-z]+})|(\\{#[0-9A-Fa-f]{6}})|([^\\{]+)");
+    private static final Pattern LINK_PATTERN = Pattern.compile("\\[([^\\]]+)]\\((https?://[^)\\s]+)\\)");
+
+    // Placeholders are swapped for private-use characters while the markup is parsed, so they land inside
+    // whichever colour, style and link span surrounds them
+    private static final char SLOT_BASE = '\uE000';
+    private static final char SLOT_LIMIT = '\uF8FF';
+
+    private record Slot(@Nonnull Placeholder placeholder, @Nonnull String token) {
+    }
+
+    private record Span(@Nonnull String text, @Nullable Color color, boolean bold, boolean italic, @Nullable String link) {
+    }
+
+    private record Segment(@Nonnull Object[] text, @Nullable Color color, boolean bold, boolean italic, @Nullable Object[] link) {
+    }
+
+    private final String source;
+    private final Object[] textParts;
+    private final Segment[] segments;
+    private final boolean[] uses;
+    private final boolean slotsInLinks;
+    private final boolean parseOnRender;
+
+    private MessageTemplate(@Nonnull String source, @Nonnull Object[] textParts, @Nonnull Segment[] segments,
+                            @Nonnull boolean[] uses, boolean slotsInLinks, boolean parseOnRender) {
+        this.source = source;
+        this.textParts = textParts;
+        this.segments = segments;
+        this.uses = uses;
+        this.slotsInLinks = slotsInLinks;
+        this.parseOnRender = parseOnRender;
+    }
+
+    @Nonnull
+    public static MessageTemplate compile(@Nonnull String source) {
+        List<Slot> slots = new ArrayList<>();
+        List<Object> textParts = new ArrayList<>();
+        StringBuilder marked = new StringBuilder(source.length());
+        StringBuilder literal = new StringBuilder();
+        boolean[] uses = new boolean[Placeholder.VALUES.length];
+        boolean parseOnRender = false;
+
+        int i = 0;
+        while (i < source.length()) {
+            char c = source.charAt(i);
+            Placeholder placeholder = c == '{' ? Placeholder.match(source, i) : null;
+            if (placeholder == null) {
+                // Typed text never uses the private-use area, but if it does the sentinels would be ambiguous
+                parseOnRender |= c >= SLOT_BASE && c <= SLOT_LIMIT;
+                marked.append(c);
+                literal.append(c);
+                i++;
+                continue;
+            }
+
+            Slot slot = new Slot(placeholder, source.substring(i, i + placeholder.token.length()));
+            parseOnRender |= SLOT_BASE + slots.size() > SLOT_LIMIT;
+            marked.append((char) (SLOT_BASE + Math.min(slots.size(), SLOT_LIMIT - SLOT_BASE)));
+            slots.add(slot);
+            uses[placeholder.ordinal()] = true;
+
+            if (!literal.isEmpty()) {
+                textParts.add(literal.toString());
+                literal.setLength(0);
+            }
+            textParts.add(slot);
+            i += slot.token.length();
+        }
+        if (!literal.isEmpty()) {
+            textParts.add(literal.toString());
+        }
+
+        List<Segment> segments = new ArrayList<>();
+        boolean slotsInLinks = false;
+        if (!parseOnRender) {
+            for (Span span : parseSpans(marked.toString())) {
+                Object[] link = span.link != null ? splitSlots(span.link, slots) : null;
+                slotsInLinks |= link != null && hasSlot(link);
+                segments.add(new Segment(splitSlots(span.text, slots), span.color, span.bold, span.italic, link));
+            }
+        }
+
+        return new MessageTemplate(source, textParts.toArray(), segments.toArray(new Segment[0]), uses,
+                slotsInLinks, parseOnRender);
+    }
+
+    @Nonnull
+    public String getSource() {
+        return source;
+    }
+
+    public boolean uses(@Nonnull Placeholder placeholder) {
+        return uses[placeholder.ordinal()];
+    }
+
+    // Placeholders that cannot be resolved, such as the player name with no player, are left as typed
+    @Nonnull
+    public String renderText(@Nullable PlayerRef playerRef, @Nonnull CitizenData citizen) {
+        if (textParts.length == 1 && textParts[0] instanceof String text) {
+            return text;
+        }
+        return fill(textParts, resolveValues(playerRef, citizen));
+    }
+
+    @Nullable
+    public Message renderMessage(@Nullable PlayerRef playerRef, @Nonnull CitizenData citizen) {
+        String[] values = resolveValues(playerRef, citizen);
+
+        // A value that carries markup of its own, like a coloured citizen name, has to go through the full parser
+        if (parseOnRender || containsMarkup(values)) {
+            return parseColoredMessage(fill(textParts, values));
+        }
+
+        Message result = null;
+        for (Segment segment : segments) {
+            String text = fill(segment.text, values);
+            if (text.isEmpty()) {
+                continue;
+            }
+
+            String link = segment.link != null ? fill(segment.link, values) : null;
+            result = appendMessage(result, buildPart(text, segment.color, segment.bold, segment.italic, link));
+        }
+        return result;
+    }
+
+    @Nullable
+    public static Message parseColoredMessage(@Nonnull String messageContent) {
+        Message result = null;
+        for (Span span : parseSpans(messageContent)) {
+            result = appendMessage(result, buildPart(span.text, span.color, span.bold, span.italic, span.link));
+        }
+        return result;
+    }
+
+    @Nonnull
+    public static String formatCitizenName(@Nonnull CitizenData citizen) {
+        return citizen.getName()
+                .replace("\\n", " ")
+                .replace('\r', ' ')
+                .replace('\n', ' ');
+    }
+
+    @Nonnull
+    private String[] resolveValues(@Nullable PlayerRef playerRef, @Nonnull CitizenData citizen) {
+        String[] values = new String[Placeholder.VALUES.length];
+        if (uses[Placeholder.PLAYER_NAME.ordinal()] && playerRef != null) {
+            values[Placeholder.PLAYER_NAME.ordinal()] = playerRef.getUsername();
+        }
+        if (uses[Placeholder.CITIZEN_NAME.ordinal()]) {
+            values[Placeholder.CITIZEN_NAME.ordinal()] = formatCitizenName(citizen);
+        }
+
+        if (uses[Placeholder.NPC_X.ordinal()] || uses[Placeholder.NPC_Y.ordinal()] || uses[Placeholder.NPC_Z.ordinal()]) {
+            Vector3d npcPos = citizen.getCurrentPosition() != null ? citizen.getCurrentPosition() : citizen.getPosition();
+            if (uses[Placeholder.NPC_X.ordinal()]) {
+                values[Placeholder.NPC_X.ordinal()] = String.format(Locale.ROOT, "%.2f", npcPos.x);
+            }
+            if (uses[Placeholder.NPC_Y.ordinal()]) {
+                values[Placeholder.NPC_Y.ordinal()] = String.format(Locale.ROOT, "%.2f", npcPos.y);
+            }
+            if (uses[Placeholder.NPC_Z.ordinal()]) {
+                values[Placeholder.NPC_Z.ordinal()] = String.format(Locale.ROOT, "%.2f", npcPos.z);
+            }
+        }
+        return values;
+    }
+
+    private boolean containsMarkup(@Nonnull String[] values) {
+        for (String value : values) {
+            if (value == null) {
+                continue;
+            }
+
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c == '{' || c == '*' || c == '[' || c == ']') {
+                    return true;
+                }
+                // Whitespace or a closing paren would have cut a link URL short
+                if (slotsInLinks && (c == ')' || Character.isWhitespace(c))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    @Nonnull
+    private static String fill(@Nonnull Object[] parts, @Nonnull String[] values) {
+        if (parts.length == 1 && parts[0] instanceof String text) {
+            return text;
+        }
+
+        StringBuilder builder = new StringBuilder();
+        for (Object part : parts) {
+            if (part instanceof Slot slot) {
+                String value = values[slot.placeholder.ordinal()];
+                builder.append(value != null ? value : slot.token);
+            } else {
+                builder.append((String) part);
+            }
+        }
+        return builder.toString();
+    }
+
+    @Nonnull
+    private static Object[] splitSlots(@Nonnull String marked, @Nonnull List<Slot> slots) {
+        List<Object> parts = new ArrayList<>();
+        int start = 0;
+        for (int i = 0; i < marked.length(); i++) {
+            int slotIndex = marked.charAt(i) - SLOT_BASE;
+            if (slotIndex < 0 || slotIndex >= slots.size()) {
+                continue;
+            }
+
+            if (i > start) {
+                parts.add(marked.substring(start, i));
+            }
+            parts.add(slots.get(slotIndex));
+            start = i + 1;
+        }
+        if (start < marked.length() || parts.isEmpty()) {
+            parts.add(marked.substring(start));
+        }
+        return parts.toArray();
+    }
+
+    private static boolean hasSlot(@Nonnull Object[] parts) {
+        for (Object part : parts) {
+            if (part instanceof Slot) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Nonnull
+    private static List<Span> parseSpans(@Nonnull String messageContent) {
+        List<Span> spans = new ArrayList<>();
+        Matcher matcher = COLOR_PATTERN.matcher(messageContent);
+        Color currentColor = null;
+
+        while (matcher.find()) {
+            String namedColorToken = matcher.group(1);
+            String hexColorToken = matcher.group(2);
+            String textPart = matcher.group(3);
+
+            // {RED}, {GREEN}, etc
+            if (namedColorToken != null) {
+                String colorKey = namedColorToken.substring(1, namedColorToken.length() - 1).toUpperCase();
+                currentColor = NAMED_COLORS.getOrDefault(colorKey, null);
+                continue;
+            }
+
+            // {#7CFC00}, etc
+            if (hexColorToken != null) {
+                String hex = hexColorToken.substring(1, hexColorToken.length() - 1); // remove { }
+                try {
+                    currentColor = Color.decode(hex);
+                } catch (Exception ignored) {
+                    currentColor = null;
+                }
+                continue;
+            }
+
+            // Text chunk
+            if (textPart != null && !textPart.isEmpty()) {
+                parseLinks(textPart, currentColor, spans);
+            }
+        }
+
+        return spans;
+    }
+
+    private static void parseLinks(@Nonnull String text, @Nullable Color color, @Nonnull List<Span> spans) {
+        Matcher linkMatcher = LINK_PATTERN.matcher(text);
+        int cursor = 0;
+
+        while (linkMatcher.find()) {
+            if (linkMatcher.start() > cursor) {
+                parseInlineStyles(text.substring(cursor, linkMatcher.start()), color, null, spans);
+            }
+
+            parseInlineStyles(linkMatcher.group(1), color, linkMatcher.group(2), spans);
+            cursor = linkMatcher.end();
+        }
+
+        if (cursor < text.length()) {
+            parseInlineStyles(text.substring(cursor), color, null, spans);
+        }
+    }
+
+    private static void parseInlineStyles(@Nonnull String text, @Nullable Color color, @Nullable String linkUrl,
+                                          @Nonnull List<Span> spans) {
+        int i = 0;
+
+        while (i < text.length()) {
+            boolean bold = false;
+            boolean italic = false;
+            String token;
+
+            if (text.startsWith("**", i)) {
+                int end = text.indexOf("**", i + 2);
+                if (end != -1) {
+                    token = text.substring(i + 2, end);
+                    bold = true;
+                    i = end + 2;
+                } else {
+                    token = text.substring(i);
+                    i = text.length();
+                }
+            } else if (text.startsWith("*", i)) {
+                int end = text.indexOf("*", i + 1);
+                if (end != -1) {
+                    token = text.substring(i + 1, end);
+                    italic = true;
+                    i = end + 1;
+                } else {
+                    token = text.substring(i);
+                    i = text.length();
+                }
+            } else {
+                int next = text.indexOf("*", i);
+                if (next == -1) {
+                    token = text.substring(i);
+                    i = text.length();
+                } else {
+                    token = text.substring(i, next);
+                    i = next;
+                }
+            }
+
+            if (token.isEmpty()) {
+                continue;
+            }
+
+            spans.add(new Span(token, color, bold, italic, linkUrl != null && !linkUrl.isEmpty() ? linkUrl : null));
+        }
+    }
+
+    @Nonnull
+    private static Message buildPart(@Nonnull String text, @Nullable Color color, boolean bold, boolean italic,
+                                     @Nullable String link) {
+        Message part = Message.raw(text);
+        if (color != null) {
+            part = part.color(color);
+        }
+        if (bold) {
+            part = part.bold(true);
+        }
+        if (italic) {
+            part = part.italic(true);
+        }
+        if (link != null && !link.isEmpty()) {
+            part = part.link(link);
+        }
+        return part;
+    }
+
+    @Nullable
+    private static Message appendMessage(@Nullable Message base, @Nullable Message part) {
+        if (part == null) {
+            return base;
+        }
+        if (base == null) {
+            return part;
+        }
+        return base.insert(part);
+    }
+}
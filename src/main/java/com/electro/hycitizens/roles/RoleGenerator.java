@@ -9,13 +9,19 @@ import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.LinkedHashSet;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static com.hypixel.hytale.logger.HytaleLogger.getLogger;
 
@@ -123,19 +129,6 @@ public class RoleGenerator {
         return "HyCitizens_" + citizen.getId() + "_ScheduleEntry_" + sanitizeScheduleId(entry.getId()) + "_Role";
     }
 
-    @Nonnull
-    private Set<String> getGeneratedRoleNames(@Nonnull CitizenData citizen) {
-        Set<String> roleNames = new LinkedHashSet<>();
-        roleNames.add(getRoleName(citizen));
-        roleNames.add(getScheduleFallbackTravelRoleName(citizen));
-        roleNames.add(getScheduleFallbackIdleRoleName(citizen));
-        for (ScheduleEntry entry : citizen.getScheduleConfig().getEntries()) {
-            roleNames.add(getScheduleTravelRoleName(citizen, entry));
-            roleNames.add(getScheduleEntryRoleName(citizen, entry));
-        }
-        return roleNames;
-    }
-
     @Nonnull
     public String generateRole(@Nonnull CitizenData citizen) {
         generateRoleIfChanged(citizen);
@@ -143,32 +136,39 @@ public class RoleGenerator {
     }
 
     public boolean forceRoleGeneration(@Nonnull CitizenData citizen) {
-        Set<String> activeRoleNames = getGeneratedRoleNames(citizen);
-        boolean changed = forceSingleRoleGeneration(getRoleName(citizen), generateCurrentBaseRole(citizen));
-        changed |= forceSingleRoleGeneration(getScheduleFallbackTravelRoleName(citizen),
-                generateSeekRole(citizen, citizen.getMovementBehavior().getWalkSpeed(), 0.05f, 1.0f));
-        changed |= forceSingleRoleGeneration(getScheduleFallbackIdleRoleName(citizen), generateIdleRole(citizen));
-        for (ScheduleEntry entry : citizen.getScheduleConfig().getEntries()) {
-            changed |= forceSingleRoleGeneration(getScheduleTravelRoleName(citizen, entry), generateScheduleTravelRole(citizen, entry));
-            changed |= forceSingleRoleGeneration(getScheduleEntryRoleName(citizen, entry), generateScheduleEntryRole(citizen, entry));
+        Map<String, JsonObject> roles = buildRoles(citizen);
+        boolean changed = false;
+        for (Map.Entry<String, JsonObject> role : roles.entrySet()) {
+            changed |= forceSingleRoleGeneration(role.getKey(), role.getValue());
         }
-        changed |= cleanupStaleGeneratedRoles(citizen.getId(), activeRoleNames);
+        changed |= cleanupStaleGeneratedRoles(citizen.getId(), roles.keySet());
         return changed;
     }
 
     // Returns true if the role file was actually written
     public boolean generateRoleIfChanged(@Nonnull CitizenData citizen) {
-        Set<String> activeRoleNames = getGeneratedRoleNames(citizen);
-        boolean changed = writeRoleIfChanged(getRoleName(citizen), generateCurrentBaseRole(citizen));
-        changed |= writeRoleIfChanged(getScheduleFallbackTravelRoleName(citizen),
+        Map<String, JsonObject> roles = buildRoles(citizen);
+        boolean changed = false;
+        for (Map.Entry<String, JsonObject> role : roles.entrySet()) {
+            changed |= writeRoleIfChanged(role.getKey(), role.getValue());
+        }
+        changed |= cleanupStaleGeneratedRoles(citizen.getId(), roles.keySet());
+        return changed;
+    }
+
+    // Every role a citizen can switch to, keyed by role name in the order they are written
+    @Nonnull
+    private Map<String, JsonObject> buildRoles(@Nonnull CitizenData citizen) {
+        Map<String, JsonObject> roles = new LinkedHashMap<>();
+        roles.put(getRoleName(citizen), generateCurrentBaseRole(citizen));
+        roles.put(getScheduleFallbackTravelRoleName(citizen),
                 generateSeekRole(citizen, citizen.getMovementBehavior().getWalkSpeed(), 0.05f, 1.0f));
-        changed |= writeRoleIfChanged(getScheduleFallbackIdleRoleName(citizen), generateIdleRole(citizen));
+        roles.put(getScheduleFallbackIdleRoleName(citizen), generateIdleRole(citizen));
         for (ScheduleEntry entry : citizen.getScheduleConfig().getEntries()) {
-            changed |= writeRoleIfChanged(getScheduleTravelRoleName(citizen, entry), generateScheduleTravelRole(citizen, entry));
-            changed |= writeRoleIfChanged(getScheduleEntryRoleName(citizen, entry), generateScheduleEntryRole(citizen, entry));
+            roles.put(getScheduleTravelRoleName(citizen, entry), generateScheduleTravelRole(citizen, entry));
+            roles.put(getScheduleEntryRoleName(citizen, entry), generateScheduleEntryRole(citizen, entry));
         }
-        changed |= cleanupStaleGeneratedRoles(citizen.getId(), activeRoleNames);
-        return changed;
+        return roles;
     }
 
     @Nonnull
@@ -701,9 +701,79 @@ public class RoleGenerator {
         return changed;
     }
 
-    public void regenerateAllRoles(@Nonnull Collection<CitizenData> citizens) {
+    // Startup regeneration is split into stages so the caller can time each one: rendering is CPU-bound and
+    // runs on the fork-join pool, writing is I/O-bound and runs on a small fixed pool
+    @Nonnull
+    public Map<String, String> renderAllRoles(@Nonnull Collection<CitizenData> citizens) {
+        Map<String, String> contentByRole = new ConcurrentHashMap<>();
+        citizens.parallelStream().forEach(citizen -> {
+            for (Map.Entry<String, JsonObject> role : buildRoles(citizen).entrySet()) {
+                contentByRole.put(role.getKey(), gson.toJson(role.getValue()));
+            }
+        });
+        return contentByRole;
+    }
+
+    public void writeRoleFiles(@Nonnull Map<String, String> contentByRole, int parallelism) {
+        ExecutorService ioPool = Executors.newFixedThreadPool(Math.max(1, parallelism), runnable -> {
+            Thread thread = new Thread(runnable, "hycitizens-role-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        try {
+            List<Future<?>> writes = new ArrayList<>(contentByRole.size());
+            for (Map.Entry<String, String> role : contentByRole.entrySet()) {
+                writes.add(ioPool.submit(() -> {
+                    writeRoleFile(role.getKey(), role.getValue());
+                    lastGeneratedContent.put(role.getKey(), role.getValue());
+                }));
+            }
+
+            for (Future<?> write : writes) {
+                try {
+                    write.get();
+                } catch (ExecutionException e) {
+                    getLogger().atSevere().withCause(e.getCause()).log("Failed to write a generated role file");
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            ioPool.shutdown();
+        }
+    }
+
+    // Lists the roles directory once for every citizen instead of once per citizen
+    public int cleanupStaleGeneratedRoles(@Nonnull Collection<CitizenData> citizens, @Nonnull Set<String> activeRoleNames) {
+        Set<String> citizenIds = new HashSet<>();
         for (CitizenData citizen : citizens) {
-            forceRoleGeneration(citizen);
+            citizenIds.add(citizen.getId());
+        }
+
+        File[] files = generatedRolesDir.listFiles((dir, name) -> name.startsWith("HyCitizens_") && name.endsWith(".json"));
+        if (files == null) {
+            return 0;
+        }
+
+        int removed = 0;
+        for (File roleFile : files) {
+            String fileName = roleFile.getName();
+            String roleName = fileName.substring(0, fileName.length() - ".json".length());
+            if (activeRoleNames.contains(roleName)) {
+                continue;
+            }
+
+            int idEnd = roleName.indexOf('_', "HyCitizens_".length());
+            if (idEnd < 0 || !citizenIds.contains(roleName.substring("HyCitizens_".length(), idEnd))) {
+                continue;
+            }
+
+            lastGeneratedContent.remove(roleName);
+            if (roleFile.delete()) {
+                removed++;
+            }
         }
+        return removed;
     }
 }
@@ -408,6 +408,14 @@ public class CitizensUI {
         return sb.toString();
     }
 
+    private String generateFollowFormationOptions(FollowFormation selected) {
+        StringBuilder sb = new StringBuilder();
+        appendOption(sb, FollowFormation.RING.name(), "Ring", selected == FollowFormation.RING);
+        appendOption(sb, FollowFormation.COLUMN.name(), "Column", selected == FollowFormation.COLUMN);
+        appendOption(sb, FollowFormation.WEDGE.name(), "Wedge", selected == FollowFormation.WEDGE);
+        return sb.toString();
+    }
+
     private String generateNpcAttitudeOptions(String selectedValue) {
         String normalized = normalizeNpcAttitude(selectedValue);
         StringBuilder sb = new StringBuilder();
@@ -2555,7 +2563,7 @@ public class CitizensUI {
                 }
 
                 Vector3d playerPos = new Vector3d(playerRef.getTransform().getPosition());
-                List<CitizenData> nearby = plugin.getCitizensManager().getCitizensNear(playerPos, 75.0);
+                List<CitizenData> nearby = plugin.getCitizensManager().getCitizensNear(worldUUID, playerPos, 75.0);
                 CitizenData closest = null;
                 double closestDistSq = Double.MAX_VALUE;
 
@@ -4545,6 +4553,7 @@ public class CitizensUI {
                 .setVariable("respawnOnDeath", citizen.isRespawnOnDeath())
                 .setVariable("respawnDelay", citizen.getRespawnDelaySeconds())
                 .setVariable("followDistance", citizen.getFollowDistance())
+                .setVariable("followFormationOptions", generateFollowFormationOptions(citizen.getFollowFormation()))
                 .setVariable("followTargetName", escapeHtml(followTargetName))
                 .setVariable("followTargetMeta", escapeHtml(followTargetMeta));
 
@@ -4828,6 +4837,12 @@ public class CitizensUI {
                                 <div class="form-row">
                                     {{@numberField:id=follow-distance,label=Follow Distance,value={{$followDistance}},placeholder=1,min=0.1,max=10,step=0.1,decimals=1}}
                                 </div>
+                                <div class="spacer-sm"></div>
+                                <div class="form-row">
+                                    <select id="follow-formation" data-hyui-showlabel="true">
+                                        {{{$followFormationOptions}}}
+                                    </select>
+                                </div>
 
                                 <div class="spacer-sm"></div>
                                 <div class="card">
@@ -5202,6 +5217,13 @@ public class CitizensUI {
                     plugin.getCitizensManager().saveCitizen(citizen, true);
                 });
             });
+
+            page.addEventListener("follow-formation", CustomUIEventBindingType.ValueChanged, (event, ctx) -> {
+                ctx.getValue("follow-formation", String.class).ifPresent(newFormation -> {
+                    citizen.setFollowFormation(FollowFormation.fromString(newFormation));
+                    plugin.getCitizensManager().saveCitizen(citizen, true);
+                });
+            });
         }
 
         // Add animation button
@@ -6036,7 +6058,7 @@ public class CitizensUI {
                 .setVariable("firstMessageCount", firstMsgConfig.getMessages().size())
                 .setVariable("currentCommandMode", commandMode)
                 .setVariable("currentMessageMode", messageMode)
-                .setVariable("completedCount", citizen.getPlayersWhoCompletedFirstInteraction().size());
+                .setVariable("completedCount", citizen.getFirstInteractionCompletedCount());
 
         String html = template.process(getSharedStyles() + """
                 <div class="page-overlay">
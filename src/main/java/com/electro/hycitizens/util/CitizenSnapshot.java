@@ -0,0 +1,185 @@
+package com.electro.hycitizens.util;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+
+import static com.hypixel.hytale.logger.HytaleLogger.getLogger;
+
+// Binary image of every citizen's stored data. Keys are written once into a shared dictionary and values are
+// tagged by type, so loading is a straight decode instead of lenient JSON parsing per shard.
+public final class CitizenSnapshot {
+    private static final int MAGIC = 0x4843534E; // "HCSN"
+    private static final short FORMAT_VERSION = 1;
+    // Bump whenever the tag layout below changes so older snapshots are ignored rather than misread
+    private static final int SCHEMA = 1;
+
+    private static final byte TAG_NULL = 0;
+    private static final byte TAG_FALSE = 1;
+    private static final byte TAG_TRUE = 2;
+    private static final byte TAG_NUMBER = 3;
+    private static final byte TAG_STRING = 4;
+    private static final byte TAG_LIST = 5;
+    private static final byte TAG_MAP = 6;
+
+    private CitizenSnapshot() {
+    }
+
+    public static void write(@Nonnull Path file, @Nonnull Map<String, Object> citizens, long stamp) throws IOException {
+        Map<String, Integer> dictionary = new LinkedHashMap<>();
+        for (Object citizen : citizens.values()) {
+            collectKeys(citizen, dictionary);
+        }
+
+        Path tempFile = file.resolveSibling(file.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempFile)))) {
+            out.writeInt(MAGIC);
+            out.writeShort(FORMAT_VERSION);
+            out.writeInt(SCHEMA);
+            out.writeLong(stamp);
+
+            out.writeInt(dictionary.size());
+            for (String key : dictionary.keySet()) {
+                out.writeUTF(key);
+            }
+
+            out.writeInt(citizens.size());
+            for (Map.Entry<String, Object> entry : citizens.entrySet()) {
+                out.writeUTF(entry.getKey());
+                writeValue(out, entry.getValue(), dictionary);
+            }
+        }
+
+        Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    // Returns null when the file is missing, from another format/schema, or was taken from different shards
+    @Nullable
+    public static Map<String, Object> read(@Nonnull Path file, long expectedStamp) {
+        if (!Files.exists(file)) {
+            return null;
+        }
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readShort() != FORMAT_VERSION || in.readInt() != SCHEMA) {
+                return null;
+            }
+            if (in.readLong() != expectedStamp) {
+                return null;
+            }
+
+            String[] dictionary = new String[in.readInt()];
+            for (int i = 0; i < dictionary.length; i++) {
+                dictionary[i] = in.readUTF();
+            }
+
+            int citizenCount = in.readInt();
+            Map<String, Object> citizens = new LinkedHashMap<>(Math.max(16, citizenCount * 2));
+            for (int i = 0; i < citizenCount; i++) {
+                String citizenId = in.readUTF();
+                citizens.put(citizenId, readValue(in, dictionary));
+            }
+            return citizens;
+        } catch (IOException | RuntimeException e) {
+            getLogger().atWarning().log("Ignoring unreadable citizen snapshot: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private static void collectKeys(@Nullable Object value, @Nonnull Map<String, Integer> dictionary) {
+        if (value instanceof Map<?, ?> map) {
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                dictionary.putIfAbsent(String.valueOf(entry.getKey()), dictionary.size());
+                collectKeys(entry.getValue(), dictionary);
+            }
+        } else if (value instanceof List<?> list) {
+            for (Object element : list) {
+                collectKeys(element, dictionary);
+            }
+        }
+    }
+
+    private static void writeValue(@Nonnull DataOutputStream out, @Nullable Object value,
+                                   @Nonnull Map<String, Integer> dictionary) throws IOException {
+        if (value == null) {
+            out.writeByte(TAG_NULL);
+        } else if (value instanceof Boolean bool) {
+            out.writeByte(bool ? TAG_TRUE : TAG_FALSE);
+        } else if (value instanceof Number number) {
+            out.writeByte(TAG_NUMBER);
+            out.writeDouble(number.doubleValue());
+        } else if (value instanceof Map<?, ?> map) {
+            out.writeByte(TAG_MAP);
+            out.writeInt(map.size());
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                out.writeInt(dictionary.get(String.valueOf(entry.getKey())));
+                writeValue(out, entry.getValue(), dictionary);
+            }
+        } else if (value instanceof List<?> list) {
+            out.writeByte(TAG_LIST);
+            out.writeInt(list.size());
+            for (Object element : list) {
+                writeValue(out, element, dictionary);
+            }
+        } else {
+            out.writeByte(TAG_STRING);
+            writeLongUTF(out, value.toString());
+        }
+    }
+
+    @Nullable
+    private static Object readValue(@Nonnull DataInputStream in, @Nonnull String[] dictionary) throws IOException {
+        byte tag = in.readByte();
+        switch (tag) {
+            case TAG_NULL:
+                return null;
+            case TAG_FALSE:
+                return Boolean.FALSE;
+            case TAG_TRUE:
+                return Boolean.TRUE;
+            case TAG_NUMBER:
+                // Numbers come back as doubles, same as they do from the JSON store
+                return in.readDouble();
+            case TAG_STRING:
+                return readLongUTF(in);
+            case TAG_LIST: {
+                int size = in.readInt();
+                List<Object> list = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    list.add(readValue(in, dictionary));
+                }
+                return list;
+            }
+            case TAG_MAP: {
+                int size = in.readInt();
+                Map<String, Object> map = new LinkedHashMap<>(Math.max(16, size * 2));
+                for (int i = 0; i < size; i++) {
+                    String key = dictionary[in.readInt()];
+                    map.put(key, readValue(in, dictionary));
+                }
+                return map;
+            }
+            default:
+                throw new IOException("Unknown value tag " + tag);
+        }
+    }
+
+    // writeUTF caps out at 64 KB, which long dialogue/message strings can exceed
+    private static void writeLongUTF(@Nonnull DataOutputStream out, @Nonnull String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    @Nonnull
+    private static String readLongUTF(@Nonnull DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -8,17 +8,98 @@ import com.hypixel.hytale.server.core.permissions.PermissionsModule;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import java.util.Collections;
 import java.util.LinkedHashSet;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Supplier;
 
 import static com.hypixel.hytale.logger.HytaleLogger.getLogger;
 
 public final class CommandExecutionUtil {
+    private static final int MAX_CACHED_MISSES = 256;
+
+    // One node per command-tree path that has been resolved, keyed by lower-cased token and carrying the immutable
+    // permission set collected from the root down to it. Tokens that turned out to be arguments are remembered per
+    // node so they are not matched against every sub-command again. Each hit is checked against the map it came
+    // from, and a node forgets its children as soon as its sub-command map is swapped out or changes size.
+    private static final class ResolvedCommand {
+        private final AbstractCommand command;
+        // The key the command is registered under in its parent map; alias hits are keyed by the canonical entry
+        private final String registryKey;
+        private final Set<String> permissions;
+        private final Map<String, ResolvedCommand> children = new ConcurrentHashMap<>();
+        private final Set<String> arguments = ConcurrentHashMap.newKeySet();
+        private volatile Map<String, AbstractCommand> knownSubCommands;
+        private volatile int knownSubCommandCount;
+
+        private ResolvedCommand(@Nonnull Map.Entry<String, AbstractCommand> entry, @Nonnull Set<String> parentPermissions) {
+            Set<String> permissions = new LinkedHashSet<>(parentPermissions);
+            addPermission(permissions, entry.getValue());
+            this.command = entry.getValue();
+            this.registryKey = entry.getKey();
+            this.permissions = Collections.unmodifiableSet(permissions);
+            this.knownSubCommands = command.getSubCommands();
+            this.knownSubCommandCount = sizeOf(knownSubCommands);
+        }
+
+        private boolean isCurrentIn(@Nullable Map<String, AbstractCommand> commands) {
+            return commands != null && commands.get(registryKey) == command;
+        }
+
+        @Nullable
+        private ResolvedCommand resolveChild(@Nonnull String token) {
+            Map<String, AbstractCommand> subCommands = command.getSubCommands();
+            forgetChildrenIfChanged(subCommands);
+
+            String key = token.toLowerCase(Locale.ROOT);
+            ResolvedCommand child = children.get(key);
+            if (child != null) {
+                if (child.isCurrentIn(subCommands)) {
+                    return child;
+                }
+                children.remove(key, child);
+            } else if (arguments.contains(key)) {
+                return null;
+            }
+
+            Map.Entry<String, AbstractCommand> subCommand = findCommand(subCommands, token);
+            if (subCommand == null) {
+                rememberMiss(arguments, key);
+                return null;
+            }
+
+            ResolvedCommand resolved = new ResolvedCommand(subCommand, permissions);
+            ResolvedCommand existing = children.putIfAbsent(key, resolved);
+            return existing != null ? existing : resolved;
+        }
+
+        private void forgetChildrenIfChanged(@Nullable Map<String, AbstractCommand> subCommands) {
+            int count = sizeOf(subCommands);
+            if (subCommands == knownSubCommands && count == knownSubCommandCount) {
+                return;
+            }
+
+            synchronized (this) {
+                if (subCommands == knownSubCommands && count == knownSubCommandCount) {
+                    return;
+                }
+                children.clear();
+                arguments.clear();
+                knownSubCommands = subCommands;
+                knownSubCommandCount = count;
+            }
+        }
+    }
+
+    private static final Map<String, ResolvedCommand> RESOLVED_ROOTS = new ConcurrentHashMap<>();
+    private static final Set<String> UNKNOWN_ROOTS = ConcurrentHashMap.newKeySet();
+    private static int resolvedRegistrySize = -1;
+
     private CommandExecutionUtil() {
     }
 
@@ -69,29 +150,97 @@ public final class CommandExecutionUtil {
 
     @Nonnull
     private static Set<String> getPermissionsForCommand(@Nonnull String command) {
-        Set<String> permissions = new LinkedHashSet<>();
-        String[] commandParts = command.trim().split("\\s+");
-        if (commandParts.length == 0 || commandParts[0].isBlank()) {
-            return permissions;
+        CommandManager commandManager = CommandManager.get();
+        if (commandManager == null) {
+            return Set.of();
         }
 
-        AbstractCommand resolvedCommand = findRootCommand(commandParts[0]);
-        if (resolvedCommand == null) {
-            return permissions;
+        Map<String, AbstractCommand> registry = commandManager.getCommandRegistration();
+        invalidateIfRegistryChanged(registry);
+
+        int length = command.length();
+        int tokenStart = skipWhitespace(command, 0);
+        if (tokenStart >= length) {
+            return Set.of();
         }
 
-        addPermission(permissions, resolvedCommand);
-        for (int i = 1; i < commandParts.length; i++) {
-            AbstractCommand subCommand = findSubCommand(resolvedCommand, commandParts[i]);
-            if (subCommand == null) {
+        int tokenEnd = skipToken(command, tokenStart);
+        ResolvedCommand resolved = resolveRoot(registry, command.substring(tokenStart, tokenEnd));
+        if (resolved == null) {
+            return Set.of();
+        }
+
+        while ((tokenStart = skipWhitespace(command, tokenEnd)) < length) {
+            tokenEnd = skipToken(command, tokenStart);
+            ResolvedCommand child = resolved.resolveChild(command.substring(tokenStart, tokenEnd));
+            if (child == null) {
                 break;
             }
+            resolved = child;
+        }
+
+        return resolved.permissions;
+    }
+
+    @Nullable
+    private static ResolvedCommand resolveRoot(@Nullable Map<String, AbstractCommand> registry, @Nonnull String token) {
+        String key = token.toLowerCase(Locale.ROOT);
+        ResolvedCommand resolved = RESOLVED_ROOTS.get(key);
+        if (resolved != null) {
+            // A plugin can swap a root for another of the same name without the root count moving
+            if (resolved.isCurrentIn(registry)) {
+                return resolved;
+            }
+            RESOLVED_ROOTS.remove(key, resolved);
+        } else if (UNKNOWN_ROOTS.contains(key)) {
+            return null;
+        }
+
+        Map.Entry<String, AbstractCommand> rootCommand = findCommand(registry, token);
+        if (rootCommand == null) {
+            rememberMiss(UNKNOWN_ROOTS, key);
+            return null;
+        }
+
+        resolved = new ResolvedCommand(rootCommand, Set.of());
+        ResolvedCommand existing = RESOLVED_ROOTS.putIfAbsent(key, resolved);
+        return existing != null ? existing : resolved;
+    }
+
+    // Plugins register and unregister root commands at runtime; a change in the root count drops every cached path,
+    // and resolveRoot catches a root replaced in place
+    private static synchronized void invalidateIfRegistryChanged(@Nullable Map<String, AbstractCommand> registry) {
+        int size = sizeOf(registry);
+        if (size != resolvedRegistrySize) {
+            RESOLVED_ROOTS.clear();
+            UNKNOWN_ROOTS.clear();
+            resolvedRegistrySize = size;
+        }
+    }
+
+    private static int sizeOf(@Nullable Map<String, AbstractCommand> commands) {
+        return commands != null ? commands.size() : 0;
+    }
+
+    private static void rememberMiss(@Nonnull Set<String> misses, @Nonnull String key) {
+        if (misses.size() >= MAX_CACHED_MISSES) {
+            misses.clear();
+        }
+        misses.add(key);
+    }
 
-            resolvedCommand = subCommand;
-            addPermission(permissions, resolvedCommand);
+    private static int skipWhitespace(@Nonnull String command, int index) {
+        while (index < command.length() && Character.isWhitespace(command.charAt(index))) {
+            index++;
         }
+        return index;
+    }
 
-        return permissions;
+    private static int skipToken(@Nonnull String command, int index) {
+        while (index < command.length() && !Character.isWhitespace(command.charAt(index))) {
+            index++;
+        }
+        return index;
     }
 
     @Nonnull
@@ -136,39 +285,27 @@ public final class CommandExecutionUtil {
         return execution;
     }
 
+    // Returns the matching entry so callers know which key the command is registered under
     @Nullable
-    private static AbstractCommand findRootCommand(@Nonnull String token) {
-        CommandManager commandManager = CommandManager.get();
-        if (commandManager == null) {
-            return null;
-        }
-
-        return findCommand(commandManager.getCommandRegistration(), token);
-    }
-
-    @Nullable
-    private static AbstractCommand findSubCommand(@Nonnull AbstractCommand parentCommand, @Nonnull String token) {
-        return findCommand(parentCommand.getSubCommands(), token);
-    }
-
-    @Nullable
-    private static AbstractCommand findCommand(@Nullable Map<String, AbstractCommand> commands, @Nonnull String token) {
+    private static Map.Entry<String, AbstractCommand> findCommand(@Nullable Map<String, AbstractCommand> commands,
+                                                                  @Nonnull String token) {
         if (commands == null || commands.isEmpty()) {
             return null;
         }
 
         String normalizedToken = token.toLowerCase(Locale.ROOT);
         AbstractCommand command = commands.get(token);
-        if (command == null) {
-            command = commands.get(normalizedToken);
+        if (command != null) {
+            return Map.entry(token, command);
         }
+        command = commands.get(normalizedToken);
         if (command != null) {
-            return command;
+            return Map.entry(normalizedToken, command);
         }
 
-        for (AbstractCommand candidate : commands.values()) {
-            if (matchesCommandToken(candidate, normalizedToken)) {
-                return candidate;
+        for (Map.Entry<String, AbstractCommand> candidate : commands.entrySet()) {
+            if (candidate.getKey() != null && candidate.getValue() != null && matchesCommandToken(candidate.getValue(), normalizedToken)) {
+                return Map.entry(candidate.getKey(), candidate.getValue());
             }
         }
 
@@ -0,0 +1,164 @@
+package com.electro.hycitizens.util;
+
+import javax.annotation.Nonnull;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+// Open-addressed set of UUIDs stored as raw long pairs, so each member costs 16 bytes instead of a UUID object and
+// a hash map node. Used for the per-citizen player sets that are persisted and only ever grow between resets.
+public class CompactUuidSet {
+    private static final int MIN_CAPACITY = 8;
+
+    private final Set<UUID> view = new AbstractSet<>() {
+        @Nonnull
+        @Override
+        public Iterator<UUID> iterator() {
+            return Collections.unmodifiableList(toList()).iterator();
+        }
+
+        @Override
+        public int size() {
+            return CompactUuidSet.this.size();
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return o instanceof UUID uuid && CompactUuidSet.this.contains(uuid);
+        }
+    };
+
+    private long[] bits = new long[MIN_CAPACITY * 2];
+    private int size;
+    // The all-zero UUID doubles as the empty-slot marker, so it is tracked on its own
+    private boolean containsNil;
+
+    public CompactUuidSet() {
+    }
+
+    public CompactUuidSet(@Nonnull Collection<UUID> uuids) {
+        addAll(uuids);
+    }
+
+    public synchronized boolean add(@Nonnull UUID uuid) {
+        long msb = uuid.getMostSignificantBits();
+        long lsb = uuid.getLeastSignificantBits();
+        if (msb == 0L && lsb == 0L) {
+            if (containsNil) {
+                return false;
+            }
+            containsNil = true;
+            size++;
+            return true;
+        }
+
+        if ((size + 1) * 4 > capacity() * 3) {
+            resize(capacity() * 2);
+        }
+        if (!insert(bits, msb, lsb)) {
+            return false;
+        }
+        size++;
+        return true;
+    }
+
+    public synchronized void addAll(@Nonnull Collection<UUID> uuids) {
+        for (UUID uuid : uuids) {
+            add(uuid);
+        }
+    }
+
+    public synchronized boolean contains(@Nonnull UUID uuid) {
+        long msb = uuid.getMostSignificantBits();
+        long lsb = uuid.getLeastSignificantBits();
+        if (msb == 0L && lsb == 0L) {
+            return containsNil;
+        }
+
+        int mask = capacity() - 1;
+        for (int slot = hash(msb, lsb) & mask; ; slot = (slot + 1) & mask) {
+            long slotMsb = bits[slot * 2];
+            long slotLsb = bits[slot * 2 + 1];
+            if (slotMsb == 0L && slotLsb == 0L) {
+                return false;
+            }
+            if (slotMsb == msb && slotLsb == lsb) {
+                return true;
+            }
+        }
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    public synchronized boolean isEmpty() {
+        return size == 0;
+    }
+
+    public synchronized void clear() {
+        bits = new long[MIN_CAPACITY * 2];
+        size = 0;
+        containsNil = false;
+    }
+
+    // Live, read-only Set view; each iterator walks a copy taken when it is created
+    @Nonnull
+    public Set<UUID> asSet() {
+        return view;
+    }
+
+    @Nonnull
+    public synchronized List<UUID> toList() {
+        List<UUID> list = new ArrayList<>(size);
+        if (containsNil) {
+            list.add(new UUID(0L, 0L));
+        }
+        for (int i = 0; i < bits.length; i += 2) {
+            if (bits[i] != 0L || bits[i + 1] != 0L) {
+                list.add(new UUID(bits[i], bits[i + 1]));
+            }
+        }
+        return list;
+    }
+
+    private int capacity() {
+        return bits.length / 2;
+    }
+
+    private void resize(int newCapacity) {
+        long[] resized = new long[newCapacity * 2];
+        for (int i = 0; i < bits.length; i += 2) {
+            if (bits[i] != 0L || bits[i + 1] != 0L) {
+                insert(resized, bits[i], bits[i + 1]);
+            }
+        }
+        bits = resized;
+    }
+
+    private static boolean insert(@Nonnull long[] table, long msb, long lsb) {
+        int mask = table.length / 2 - 1;
+        for (int slot = hash(msb, lsb) & mask; ; slot = (slot + 1) & mask) {
+            long slotMsb = table[slot * 2];
+            long slotLsb = table[slot * 2 + 1];
+            if (slotMsb == 0L && slotLsb == 0L) {
+                table[slot * 2] = msb;
+                table[slot * 2 + 1] = lsb;
+                return true;
+            }
+            if (slotMsb == msb && slotLsb == lsb) {
+                return false;
+            }
+        }
+    }
+
+    private static int hash(long msb, long lsb) {
+        long h = (msb ^ lsb) * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
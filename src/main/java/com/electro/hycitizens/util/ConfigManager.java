@@ -15,25 +15,77 @@ import com.hypixel.hytale.protocol.PlayerSkin;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import java.io.*;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.util.*;
+import java.util.concurrent.*;
 import static com.hypixel.hytale.logger.HytaleLogger.getLogger;
 
 public class ConfigManager {
+    private static final String CITIZENS_KEY = "citizens";
+    private static final String CITIZEN_INDEX_KEY = "citizen-index";
+    private static final String SHARD_EXTENSION = ".json";
+    private static final String IMPORT_FILE_NAME = "import.json";
+    private static final long DEFAULT_SAVE_DEBOUNCE_MS = 250L;
+    private static final long SHUTDOWN_FLUSH_TIMEOUT_MS = 10_000L;
+
+    private static final class PendingWrite {
+        private final String citizenId;
+        private final Path target;
+        private final String json;
+
+        private PendingWrite(@Nullable String citizenId, @Nonnull Path target, @Nullable String json) {
+            this.citizenId = citizenId;
+            this.target = target;
+            this.json = json;
+        }
+    }
+
+    private final Path dataFolder;
     private final Path configFile;
+    private final Path citizensFolder;
+    private final Path snapshotFile;
     private final Gson gson;
     private Map<String, Object> config;
     private boolean deferSave = false;
     private boolean dirty = false;
 
+    // Citizens live in one shard file each; data.json only keeps groups, paths and the citizen index
+    private final Set<String> dirtyCitizens = new LinkedHashSet<>();
+    private final Set<String> persistedCitizens = new HashSet<>();
+    private boolean rootDirty = false;
+    private boolean snapshotPresent = false;
+
+    private final ScheduledExecutorService writer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "hycitizens-config-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private ScheduledFuture<?> pendingSave;
+    private long saveDebounceMs = DEFAULT_SAVE_DEBOUNCE_MS;
+
     public ConfigManager(@Nonnull Path pluginDataFolder) {
+        this.dataFolder = pluginDataFolder;
         this.configFile = pluginDataFolder.resolve("data.json");
+        this.citizensFolder = pluginDataFolder.resolve(CITIZENS_KEY);
+        this.snapshotFile = pluginDataFolder.resolve("citizens.snapshot");
         this.gson = new GsonBuilder().setPrettyPrinting().create();
         this.config = new LinkedHashMap<>();
         loadConfig();
+        setSaveDebounceMs(getLong("settings.save-debounce-ms", DEFAULT_SAVE_DEBOUNCE_MS));
+    }
+
+    @Nonnull
+    public Path getDataFolder() {
+        return dataFolder;
     }
 
     public synchronized void beginBatch() {
@@ -50,8 +102,14 @@ public class ConfigManager {
     }
 
     public synchronized void loadConfig() {
+        dirtyCitizens.clear();
+        persistedCitizens.clear();
+        rootDirty = false;
+        snapshotPresent = false;
+
         if (!Files.exists(configFile)) {
             setDefaults();
+            rootDirty = true;
             saveConfig();
             return;
         }
@@ -66,6 +124,21 @@ public class ConfigManager {
             // Migrate old flat-key format to nested format
             if (needsMigration()) {
                 migrateToNested();
+                markAllDirty();
+            }
+
+            if (config.containsKey(CITIZENS_KEY)) {
+                migrateToShards();
+            } else {
+                loadCitizenShards();
+            }
+
+            Path importFile = dataFolder.resolve(IMPORT_FILE_NAME);
+            if (Files.exists(importFile)) {
+                importJson(importFile);
+            }
+
+            if (rootDirty || !dirtyCitizens.isEmpty()) {
                 saveConfig();
             }
         } catch (IOException | JsonSyntaxException | IllegalStateException e) {
@@ -74,6 +147,206 @@ public class ConfigManager {
         }
     }
 
+    @SuppressWarnings("unchecked")
+    private void loadCitizenShards() {
+        long startNanos = System.nanoTime();
+        Object indexValue = config.remove(CITIZEN_INDEX_KEY);
+        Set<String> citizenIds = new LinkedHashSet<>();
+        if (indexValue instanceof List<?> index) {
+            for (Object id : index) {
+                if (id != null) {
+                    citizenIds.add(id.toString());
+                }
+            }
+        }
+
+        // Shards that never made it into the index (e.g. a crash between writes) are still picked up
+        if (Files.isDirectory(citizensFolder)) {
+            try (DirectoryStream<Path> shards = Files.newDirectoryStream(citizensFolder, "*" + SHARD_EXTENSION)) {
+                for (Path shard : shards) {
+                    String fileName = shard.getFileName().toString();
+                    String citizenId = fromShardFileName(fileName.substring(0, fileName.length() - SHARD_EXTENSION.length()));
+                    if (citizenIds.add(citizenId)) {
+                        rootDirty = true;
+                    }
+                }
+            } catch (IOException e) {
+                getLogger().atWarning().log("Failed to list citizen shards: " + e.getMessage());
+            }
+        }
+
+        Set<String> missing = new HashSet<>();
+        long stamp = computeShardStamp(citizenIds, missing);
+        if (!missing.isEmpty()) {
+            citizenIds.removeAll(missing);
+            rootDirty = true;
+        }
+
+        // The binary snapshot is only trusted when it was taken from exactly the shards on disk
+        Map<String, Object> citizens = getBoolean("settings.binary-snapshot", true)
+                ? CitizenSnapshot.read(snapshotFile, stamp)
+                : null;
+        boolean fromSnapshot = citizens != null && citizens.keySet().equals(citizenIds);
+
+        if (fromSnapshot) {
+            persistedCitizens.addAll(citizenIds);
+            snapshotPresent = true;
+        } else {
+            citizens = new LinkedHashMap<>();
+            for (String citizenId : citizenIds) {
+                Path shard = getShardFile(citizenId);
+                try {
+                    Map<String, Object> citizen = gson.fromJson(parseLenientJsonObject(shard), LinkedHashMap.class);
+                    if (citizen != null) {
+                        citizens.put(citizenId, citizen);
+                        persistedCitizens.add(citizenId);
+                    }
+                } catch (IOException | JsonSyntaxException | IllegalStateException e) {
+                    getLogger().atWarning().log("Failed to load citizen shard '" + shard.getFileName() + "': " + e.getMessage());
+                }
+            }
+        }
+
+        if (!citizens.isEmpty()) {
+            config.put(CITIZENS_KEY, citizens);
+        }
+
+        getLogger().atInfo().log("Loaded " + citizens.size() + " citizens from "
+                + (fromSnapshot ? "binary snapshot" : "JSON shards") + " in "
+                + (System.nanoTime() - startNanos) / 1_000_000L + " ms");
+    }
+
+    private long computeShardStamp(@Nonnull Collection<String> citizenIds, @Nullable Set<String> missing) {
+        long stamp = citizenIds.size();
+        for (String citizenId : citizenIds) {
+            long modified;
+            try {
+                modified = Files.getLastModifiedTime(getShardFile(citizenId)).toMillis();
+            } catch (IOException e) {
+                if (missing != null) {
+                    missing.add(citizenId);
+                }
+                continue;
+            }
+
+            stamp = 31L * stamp + citizenId.hashCode();
+            stamp = 31L * stamp + modified;
+        }
+        return stamp;
+    }
+
+    // Written at shutdown once every shard is durable; the next startup decodes it instead of parsing each shard
+    public synchronized void writeBinarySnapshot() {
+        if (!getBoolean("settings.binary-snapshot", true)) {
+            return;
+        }
+        if (rootDirty || !dirtyCitizens.isEmpty() || (pendingSave != null && !pendingSave.isDone())) {
+            return;
+        }
+
+        @SuppressWarnings("unchecked")
+        Map<String, Object> citizens = config.get(CITIZENS_KEY) instanceof Map<?, ?> map
+                ? (Map<String, Object>) map
+                : Collections.emptyMap();
+
+        try {
+            CitizenSnapshot.write(snapshotFile, citizens, computeShardStamp(citizens.keySet(), null));
+            snapshotPresent = true;
+        } catch (IOException e) {
+            getLogger().atWarning().log("Failed to write citizen snapshot: " + e.getMessage());
+        }
+    }
+
+    // Full data in the original single-file layout, for editing by hand and feeding back in as import.json
+    public void exportJson(@Nonnull Path target) throws IOException {
+        String json;
+        synchronized (this) {
+            json = gson.toJson(config);
+        }
+
+        Files.createDirectories(target.toAbsolutePath().getParent());
+        writeAtomically(target, json);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void importJson(@Nonnull Path importFile) {
+        try {
+            Map<String, Object> imported = gson.fromJson(parseLenientJsonObject(importFile), LinkedHashMap.class);
+            if (imported == null) {
+                return;
+            }
+
+            config = imported;
+            if (needsMigration()) {
+                migrateToNested();
+            }
+            config.remove(CITIZEN_INDEX_KEY);
+            markAllDirty();
+
+            Files.move(importFile, importFile.resolveSibling(importFile.getFileName() + ".imported"),
+                    StandardCopyOption.REPLACE_EXISTING);
+            getLogger().atInfo().log("Imported " + getKeys(CITIZENS_KEY).size() + " citizens from " + importFile.getFileName());
+        } catch (IOException | JsonSyntaxException | IllegalStateException e) {
+            getLogger().atWarning().log("Failed to import " + importFile.getFileName() + ": " + e.getMessage());
+        }
+    }
+
+    private void migrateToShards() {
+        // One-time move from the single-file layout; keep the original around in case anything goes wrong
+        try {
+            Files.copy(configFile, configFile.resolveSibling("data.json.pre-shard.bak"), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            getLogger().atWarning().log("Failed to back up data.json before migrating citizens to shards: " + e.getMessage());
+        }
+
+        config.remove(CITIZEN_INDEX_KEY);
+        markAllDirty();
+        getLogger().atInfo().log("Migrating " + getKeys(CITIZENS_KEY).size() + " citizens from data.json to per-citizen files");
+    }
+
+    private void markAllDirty() {
+        rootDirty = true;
+        dirtyCitizens.addAll(getKeys(CITIZENS_KEY));
+    }
+
+    private void markDirty(@Nonnull String path) {
+        int firstDot = path.indexOf('.');
+        String root = firstDot < 0 ? path : path.substring(0, firstDot);
+        if (!CITIZENS_KEY.equals(root)) {
+            rootDirty = true;
+            return;
+        }
+
+        if (firstDot < 0) {
+            markAllDirty();
+            return;
+        }
+
+        int secondDot = path.indexOf('.', firstDot + 1);
+        String citizenId = secondDot < 0 ? path.substring(firstDot + 1) : path.substring(firstDot + 1, secondDot);
+        dirtyCitizens.add(citizenId);
+
+        // Adding or removing a whole citizen changes the index
+        if (secondDot < 0 || !persistedCitizens.contains(citizenId)) {
+            rootDirty = true;
+        }
+    }
+
+    @Nonnull
+    private Path getShardFile(@Nonnull String citizenId) {
+        return citizensFolder.resolve(toShardFileName(citizenId) + SHARD_EXTENSION);
+    }
+
+    @Nonnull
+    private static String toShardFileName(@Nonnull String citizenId) {
+        return URLEncoder.encode(citizenId, StandardCharsets.UTF_8);
+    }
+
+    @Nonnull
+    private static String fromShardFileName(@Nonnull String fileName) {
+        return URLDecoder.decode(fileName, StandardCharsets.UTF_8);
+    }
+
     @Nonnull
     private JsonObject parseLenientJsonObject(@Nonnull Path path) throws IOException {
         try (Reader fileReader = Files.newBufferedReader(path, StandardCharsets.UTF_8);
@@ -113,10 +386,12 @@ public class ConfigManager {
         config = newConfig;
     }
 
+    // Returns whether the stored value actually changed, so callers only dirty a shard for real edits
     @SuppressWarnings("unchecked")
-    private synchronized void setNestedValue(@Nonnull Map<String, Object> root, @Nonnull String path, @Nullable Object value) {
+    private synchronized boolean setNestedValue(@Nonnull Map<String, Object> root, @Nonnull String path, @Nullable Object value) {
         String[] parts = path.split("\\.");
         Map<String, Object> current = root;
+        boolean changed = false;
 
         for (int i = 0; i < parts.length - 1; i++) {
             Object existing = current.get(parts[i]);
@@ -126,15 +401,56 @@ public class ConfigManager {
                 Map<String, Object> newMap = new LinkedHashMap<>();
                 current.put(parts[i], newMap);
                 current = newMap;
+                changed = true;
             }
         }
 
         String finalKey = parts[parts.length - 1];
         if (value == null) {
-            current.remove(finalKey);
-        } else {
-            current.put(finalKey, value);
+            return current.remove(finalKey) != null || changed;
         }
+
+        Object previous = current.put(finalKey, value);
+        return changed || !sameValue(previous, value);
+    }
+
+    // Loaded values come back from JSON as doubles, so numbers compare by value at the precision that was written
+    private static boolean sameValue(@Nullable Object a, @Nullable Object b) {
+        if (a == b) {
+            return true;
+        }
+        if (a == null || b == null) {
+            return false;
+        }
+        if (a instanceof Number na && b instanceof Number nb) {
+            if (a instanceof Float || b instanceof Float) {
+                return Float.compare(na.floatValue(), nb.floatValue()) == 0;
+            }
+            return Double.compare(na.doubleValue(), nb.doubleValue()) == 0;
+        }
+        if (a instanceof Map<?, ?> ma && b instanceof Map<?, ?> mb) {
+            if (ma.size() != mb.size()) {
+                return false;
+            }
+            for (Map.Entry<?, ?> entry : ma.entrySet()) {
+                if (!mb.containsKey(entry.getKey()) || !sameValue(entry.getValue(), mb.get(entry.getKey()))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        if (a instanceof List<?> la && b instanceof List<?> lb) {
+            if (la.size() != lb.size()) {
+                return false;
+            }
+            for (int i = 0; i < la.size(); i++) {
+                if (!sameValue(la.get(i), lb.get(i))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return a.equals(b);
     }
 
     @SuppressWarnings("unchecked")
@@ -155,11 +471,10 @@ public class ConfigManager {
     }
 
     @SuppressWarnings("unchecked")
-    private synchronized void removeNestedValue(@Nonnull String path) {
+    private synchronized boolean removeNestedValue(@Nonnull String path) {
         String[] parts = path.split("\\.");
         if (parts.length == 1) {
-            config.remove(parts[0]);
-            return;
+            return config.remove(parts[0]) != null;
         }
 
         // Walk to the parent of the target
@@ -173,12 +488,14 @@ public class ConfigManager {
                 current = (Map<String, Object>) existing;
                 parents.add(current);
             } else {
-                return; // Path doesn't exist
+                return false; // Path doesn't exist
             }
         }
 
         // Remove the target key
-        current.remove(parts[parts.length - 1]);
+        if (current.remove(parts[parts.length - 1]) == null) {
+            return false;
+        }
 
         // Clean up empty parent maps (walk backwards)
         for (int i = parts.length - 2; i >= 0; i--) {
@@ -190,30 +507,182 @@ public class ConfigManager {
                 break;
             }
         }
+        return true;
     }
 
+    // Saves are coalesced: the first change opens a debounce window and everything dirtied inside it
+    // goes out in one background write
     public synchronized void saveConfig() {
+        if (pendingSave != null && !pendingSave.isDone()) {
+            return;
+        }
+
         try {
-            Files.createDirectories(configFile.getParent());
+            pendingSave = writer.schedule(this::writeSnapshot, saveDebounceMs, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            // Writer already shut down; nothing left to hand the save to but the caller
+            writeSnapshot();
+        }
+    }
+
+    // Completes with false when any shard failed to write; those go back on the dirty list for the next save
+    @Nonnull
+    public synchronized CompletableFuture<Boolean> flush() {
+        if (pendingSave != null) {
+            pendingSave.cancel(false);
+            pendingSave = null;
+        }
+
+        try {
+            return CompletableFuture.supplyAsync(this::writeSnapshot, writer);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.completedFuture(writeSnapshot());
+        }
+    }
+
+    public boolean awaitDurable(long timeout, @Nonnull TimeUnit unit) {
+        try {
+            if (flush().get(timeout, unit)) {
+                return true;
+            }
+            getLogger().atWarning().log("Some citizen data failed to write to disk and will be retried with the next save");
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (ExecutionException | TimeoutException e) {
+            getLogger().atWarning().log("Failed to flush config to disk: " + e.getMessage());
+            return false;
+        }
+    }
+
+    public void shutdown() {
+        awaitDurable(SHUTDOWN_FLUSH_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        writer.shutdown();
+    }
+
+    public synchronized void setSaveDebounceMs(long saveDebounceMs) {
+        this.saveDebounceMs = Math.max(0L, saveDebounceMs);
+    }
+
+    private boolean writeSnapshot() {
+        List<PendingWrite> writes = new ArrayList<>();
+        boolean invalidateSnapshot;
+
+        // Serialise under the lock so callers can keep mutating while the disk work happens
+        synchronized (this) {
+            pendingSave = null;
+            invalidateSnapshot = snapshotPresent;
+
+            @SuppressWarnings("unchecked")
+            Map<String, Object> citizens = config.get(CITIZENS_KEY) instanceof Map<?, ?> map
+                    ? (Map<String, Object>) map
+                    : Collections.emptyMap();
+
+            for (String citizenId : dirtyCitizens) {
+                Object citizen = citizens.get(citizenId);
+                writes.add(new PendingWrite(citizenId, getShardFile(citizenId), citizen != null ? gson.toJson(citizen) : null));
+            }
+            dirtyCitizens.clear();
+
+            if (rootDirty) {
+                // Drop shards for citizens that disappeared without a per-citizen path being touched
+                for (String citizenId : persistedCitizens) {
+                    if (!citizens.containsKey(citizenId)) {
+                        writes.add(new PendingWrite(citizenId, getShardFile(citizenId), null));
+                    }
+                }
 
-            Path tempFile = configFile.getParent().resolve("data.json.tmp");
-            try (Writer writer = Files.newBufferedWriter(tempFile)) {
-                gson.toJson(config, writer);
+                Map<String, Object> root = new LinkedHashMap<>(config);
+                root.remove(CITIZENS_KEY);
+                root.put(CITIZEN_INDEX_KEY, new ArrayList<>(citizens.keySet()));
+                writes.add(new PendingWrite(null, configFile, gson.toJson(root)));
+                rootDirty = false;
             }
+        }
+
+        if (writes.isEmpty()) {
+            return true;
+        }
 
-            Files.move(
-                    tempFile,
-                    configFile,
-                    StandardCopyOption.REPLACE_EXISTING,
-                    StandardCopyOption.ATOMIC_MOVE
-            );
+        synchronized (this) {
+            snapshotPresent = false;
+        }
 
+        // Any shard write makes the binary snapshot stale; drop it before the shards change
+        if (invalidateSnapshot) {
+            try {
+                Files.deleteIfExists(snapshotFile);
+            } catch (IOException e) {
+                getLogger().atWarning().log("Failed to delete stale citizen snapshot: " + e.getMessage());
+            }
+        }
+
+        try {
+            Files.createDirectories(citizensFolder);
         } catch (IOException e) {
             System.err.println("Failed to save config: " + e.getMessage());
         }
+
+        List<PendingWrite> failed = new ArrayList<>();
+        for (PendingWrite write : writes) {
+            try {
+                if (write.json == null) {
+                    Files.deleteIfExists(write.target);
+                } else {
+                    writeAtomically(write.target, write.json);
+                }
+            } catch (IOException e) {
+                System.err.println("Failed to save config: " + e.getMessage());
+                failed.add(write);
+            }
+        }
+
+        synchronized (this) {
+            for (PendingWrite write : writes) {
+                if (write.citizenId == null) {
+                    continue;
+                }
+                if (write.json == null) {
+                    persistedCitizens.remove(write.citizenId);
+                } else {
+                    persistedCitizens.add(write.citizenId);
+                }
+            }
+
+            // Anything that failed goes back on the dirty list and rides along with the next save
+            for (PendingWrite write : failed) {
+                if (write.citizenId != null) {
+                    dirtyCitizens.add(write.citizenId);
+                } else {
+                    rootDirty = true;
+                }
+            }
+        }
+        return failed.isEmpty();
+    }
+
+    private void writeAtomically(@Nonnull Path target, @Nonnull String json) throws IOException {
+        Path tempFile = target.resolveSibling(target.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(tempFile,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.wrap(json.getBytes(StandardCharsets.UTF_8));
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+
+        Files.move(
+                tempFile,
+                target,
+                StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE
+        );
     }
 
-    private synchronized void conditionalSave() {
+    private synchronized void conditionalSave(@Nonnull String path) {
+        markDirty(path);
         if (deferSave) {
             dirty = true;
         } else {
@@ -232,6 +701,25 @@ public class ConfigManager {
         return value != null ? value : defaultValue;
     }
 
+    // Every child branch of path as its own detached section, for callers that read a lot of them and should not
+    // hold the lock while they do. All of them are taken under a single lock acquisition
+    @Nonnull
+    public synchronized Map<String, ConfigSection> getChildSections(@Nonnull String path) {
+        if (!(getNestedValue(path) instanceof Map<?, ?> parent)) {
+            return Collections.emptyMap();
+        }
+
+        Map<String, ConfigSection> sections = new LinkedHashMap<>();
+        for (Map.Entry<?, ?> entry : parent.entrySet()) {
+            if (ConfigSection.copyTree(entry.getValue()) instanceof Map<?, ?> copy) {
+                @SuppressWarnings("unchecked")
+                Map<String, Object> branch = (Map<String, Object>) copy;
+                sections.put(String.valueOf(entry.getKey()), new ConfigSection(branch));
+            }
+        }
+        return sections;
+    }
+
     @Nullable
     public synchronized String getString(@Nonnull String path) {
         Object value = get(path);
@@ -286,23 +774,14 @@ public class ConfigManager {
 
     @Nullable
     public synchronized Vector3f getVector3f(@Nonnull String path) {
-        Object value = get(path);
-        if (!(value instanceof Map<?, ?> map)) return null;
-
-        try {
-            float x = ((Number) map.get("x")).floatValue();
-            float y = ((Number) map.get("y")).floatValue();
-            float z = ((Number) map.get("z")).floatValue();
-            return new Vector3f(x, y, z);
-        } catch (Exception e) {
-            return null;
-        }
+        return ConfigSection.toVector3f(get(path));
     }
 
     public synchronized void setVector3f(@Nonnull String path, @Nullable Vector3f vec) {
         if (vec == null) {
-            removeNestedValue(path);
-            conditionalSave();
+            if (removeNestedValue(path)) {
+                conditionalSave(path);
+            }
             return;
         }
 
@@ -311,29 +790,21 @@ public class ConfigManager {
         map.put("y", vec.y);
         map.put("z", vec.z);
 
-        setNestedValue(config, path, map);
-        conditionalSave();
+        if (setNestedValue(config, path, map)) {
+            conditionalSave(path);
+        }
     }
 
     @Nullable
     public synchronized Vector3d getVector3d(@Nonnull String path) {
-        Object value = get(path);
-        if (!(value instanceof Map<?, ?> map)) return null;
-
-        try {
-            double x = ((Number) map.get("x")).doubleValue();
-            double y = ((Number) map.get("y")).doubleValue();
-            double z = ((Number) map.get("z")).doubleValue();
-            return new Vector3d(x, y, z);
-        } catch (Exception e) {
-            return null;
-        }
+        return ConfigSection.toVector3d(get(path));
     }
 
     public synchronized void setVector3d(@Nonnull String path, @Nullable Vector3d vec) {
         if (vec == null) {
-            removeNestedValue(path);
-            conditionalSave();
+            if (removeNestedValue(path)) {
+                conditionalSave(path);
+            }
             return;
         }
 
@@ -342,61 +813,32 @@ public class ConfigManager {
         map.put("y", vec.y);
         map.put("z", vec.z);
 
-        setNestedValue(config, path, map);
-        conditionalSave();
+        if (setNestedValue(config, path, map)) {
+            conditionalSave(path);
+        }
     }
 
     @Nullable
     public synchronized UUID getUUID(@Nonnull String path) {
-        Object value = get(path);
-        if (!(value instanceof String str)) return null;
-
-        try {
-            return UUID.fromString(str);
-        } catch (IllegalArgumentException e) {
-            return null;
-        }
+        return ConfigSection.toUUID(get(path));
     }
 
     @Nullable
     public synchronized List<UUID> getUUIDList(@Nonnull String path) {
-        Object value = get(path);
-        if (value == null) return null;
-
-        List<UUID> uuids = new ArrayList<>();
-
-        if (value instanceof List<?> list) {
-            for (Object obj : list) {
-                if (!(obj instanceof String str)) continue;
-
-                try {
-                    uuids.add(UUID.fromString(str));
-                } catch (IllegalArgumentException ignored) {
-                }
-            }
-        } else if (value instanceof String str) {
-            // Backwards compatibility
-            try {
-                uuids.add(UUID.fromString(str));
-            } catch (IllegalArgumentException ignored) {
-            }
-        }
-
-        return uuids.isEmpty() ? null : uuids;
+        return ConfigSection.toUUIDList(get(path));
     }
 
     public synchronized void setUUID(@Nonnull String path, @Nullable UUID uuid) {
-        if (uuid == null) {
-            removeNestedValue(path);
-        } else {
-            setNestedValue(config, path, uuid.toString());
+        boolean changed = uuid == null ? removeNestedValue(path) : setNestedValue(config, path, uuid.toString());
+        if (changed) {
+            conditionalSave(path);
         }
-        conditionalSave();
     }
 
     public synchronized void setUUIDList(@Nonnull String path, @Nullable List<UUID> uuids) {
+        boolean changed;
         if (uuids == null || uuids.isEmpty()) {
-            removeNestedValue(path);
+            changed = removeNestedValue(path);
         } else {
             List<String> uuidStrings = new ArrayList<>();
             for (UUID uuid : uuids) {
@@ -405,23 +847,19 @@ public class ConfigManager {
                 }
             }
 
-            if (uuidStrings.isEmpty()) {
-                removeNestedValue(path);
-            } else {
-                setNestedValue(config, path, uuidStrings);
-            }
+            changed = uuidStrings.isEmpty() ? removeNestedValue(path) : setNestedValue(config, path, uuidStrings);
         }
 
-        conditionalSave();
+        if (changed) {
+            conditionalSave(path);
+        }
     }
 
     public synchronized void set(@Nonnull String path, @Nullable Object value) {
-        if (value == null) {
-            removeNestedValue(path);
-        } else {
-            setNestedValue(config, path, value);
+        boolean changed = value == null ? removeNestedValue(path) : setNestedValue(config, path, value);
+        if (changed) {
+            conditionalSave(path);
         }
-        conditionalSave();
     }
 
     private synchronized void setDefaults() {
@@ -437,53 +875,21 @@ public class ConfigManager {
         return new LinkedHashMap<>(config);
     }
 
-    @SuppressWarnings("unchecked")
     @Nonnull
     public synchronized Set<String> getKeys(@Nonnull String path) {
-        Object value = getNestedValue(path);
-        if (value instanceof Map) {
-            return new LinkedHashSet<>(((Map<String, Object>) value).keySet());
-        }
-        return Collections.emptySet();
+        return ConfigSection.toKeys(getNestedValue(path));
     }
 
     @Nullable
     public synchronized PlayerSkin getPlayerSkin(@Nonnull String path) {
-        Object value = get(path);
-        if (!(value instanceof Map<?, ?> map)) return null;
-
-        try {
-            return new PlayerSkin(
-                    (String) map.get("bodyCharacteristic"),
-                    (String) map.get("underwear"),
-                    (String) map.get("face"),
-                    (String) map.get("eyes"),
-                    (String) map.get("ears"),
-                    (String) map.get("mouth"),
-                    (String) map.get("facialHair"),
-                    (String) map.get("haircut"),
-                    (String) map.get("eyebrows"),
-                    (String) map.get("pants"),
-                    (String) map.get("overpants"),
-                    (String) map.get("undertop"),
-                    (String) map.get("overtop"),
-                    (String) map.get("shoes"),
-                    (String) map.get("headAccessory"),
-                    (String) map.get("faceAccessory"),
-                    (String) map.get("earAccessory"),
-                    (String) map.get("skinFeature"),
-                    (String) map.get("gloves"),
-                    (String) map.get("cape")
-            );
-        } catch (Exception e) {
-            return null;
-        }
+        return ConfigSection.toPlayerSkin(get(path));
     }
 
     public synchronized void setPlayerSkin(@Nonnull String path, @Nullable PlayerSkin skin) {
         if (skin == null) {
-            removeNestedValue(path);
-            conditionalSave();
+            if (removeNestedValue(path)) {
+                conditionalSave(path);
+            }
             return;
         }
 
@@ -509,34 +915,22 @@ public class ConfigManager {
         map.put("gloves", skin.gloves);
         map.put("cape", skin.cape);
 
-        setNestedValue(config, path, map);
-        conditionalSave();
+        if (setNestedValue(config, path, map)) {
+            conditionalSave(path);
+        }
     }
 
     @Nullable
     public synchronized List<String> getStringList(@Nonnull String path) {
-        Object value = get(path);
-        if (value == null) return null;
-
-        List<String> strings = new ArrayList<>();
-
-        if (value instanceof List<?> list) {
-            for (Object obj : list) {
-                if (obj != null) {
-                    strings.add(obj.toString());
-                }
-            }
-        }
-
-        return strings.isEmpty() ? null : strings;
+        return ConfigSection.toStringList(get(path));
     }
 
     public synchronized void setStringList(@Nonnull String path, @Nullable List<String> strings) {
-        if (strings == null || strings.isEmpty()) {
-            removeNestedValue(path);
-        } else {
-            setNestedValue(config, path, new ArrayList<>(strings));
+        boolean changed = strings == null || strings.isEmpty()
+                ? removeNestedValue(path)
+                : setNestedValue(config, path, new ArrayList<>(strings));
+        if (changed) {
+            conditionalSave(path);
         }
-        conditionalSave();
     }
 }
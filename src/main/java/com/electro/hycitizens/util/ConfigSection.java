@@ -0,0 +1,250 @@
+package com.electro.hycitizens.util;
+
+import com.hypixel.hytale.math.vector.Vector3d;
+import com.hypixel.hytale.math.vector.Vector3f;
+import com.hypixel.hytale.protocol.PlayerSkin;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.*;
+
+// Read-only view over a detached copy of one branch of the config, with paths relative to that branch. Nothing in
+// here locks, so decoding many sections can run side by side without queueing on the ConfigManager monitor.
+public final class ConfigSection {
+    private final Map<String, Object> root;
+
+    ConfigSection(@Nonnull Map<String, Object> root) {
+        this.root = root;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Nullable
+    public Object get(@Nonnull String path) {
+        Object current = root;
+        int start = 0;
+        while (true) {
+            if (!(current instanceof Map)) {
+                return null;
+            }
+            int dot = path.indexOf('.', start);
+            String part = dot < 0 ? path.substring(start) : path.substring(start, dot);
+            current = ((Map<String, Object>) current).get(part);
+            if (dot < 0) {
+                return current;
+            }
+            start = dot + 1;
+        }
+    }
+
+    @Nullable
+    public String getString(@Nonnull String path) {
+        Object value = get(path);
+        return value != null ? value.toString() : null;
+    }
+
+    public String getString(@Nonnull String path, @Nullable String defaultValue) {
+        String value = getString(path);
+        return value != null ? value : defaultValue;
+    }
+
+    public int getInt(@Nonnull String path, int defaultValue) {
+        return get(path) instanceof Number number ? number.intValue() : defaultValue;
+    }
+
+    public float getFloat(@Nonnull String path, float defaultValue) {
+        return get(path) instanceof Number number ? number.floatValue() : defaultValue;
+    }
+
+    public long getLong(@Nonnull String path, long defaultValue) {
+        return get(path) instanceof Number number ? number.longValue() : defaultValue;
+    }
+
+    public double getDouble(@Nonnull String path, double defaultValue) {
+        return get(path) instanceof Number number ? number.doubleValue() : defaultValue;
+    }
+
+    public boolean getBoolean(@Nonnull String path, boolean defaultValue) {
+        return get(path) instanceof Boolean bool ? bool : defaultValue;
+    }
+
+    @Nullable
+    public Vector3f getVector3f(@Nonnull String path) {
+        return toVector3f(get(path));
+    }
+
+    @Nullable
+    public Vector3d getVector3d(@Nonnull String path) {
+        return toVector3d(get(path));
+    }
+
+    @Nullable
+    public UUID getUUID(@Nonnull String path) {
+        return toUUID(get(path));
+    }
+
+    @Nullable
+    public List<UUID> getUUIDList(@Nonnull String path) {
+        return toUUIDList(get(path));
+    }
+
+    @Nullable
+    public List<String> getStringList(@Nonnull String path) {
+        return toStringList(get(path));
+    }
+
+    @Nullable
+    public PlayerSkin getPlayerSkin(@Nonnull String path) {
+        return toPlayerSkin(get(path));
+    }
+
+    @Nonnull
+    public Set<String> getKeys(@Nonnull String path) {
+        return toKeys(get(path));
+    }
+
+    // Conversions shared with ConfigManager, so both readers agree on how a stored value is interpreted
+
+    @Nullable
+    static Vector3f toVector3f(@Nullable Object value) {
+        if (!(value instanceof Map<?, ?> map)) return null;
+
+        try {
+            float x = ((Number) map.get("x")).floatValue();
+            float y = ((Number) map.get("y")).floatValue();
+            float z = ((Number) map.get("z")).floatValue();
+            return new Vector3f(x, y, z);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    @Nullable
+    static Vector3d toVector3d(@Nullable Object value) {
+        if (!(value instanceof Map<?, ?> map)) return null;
+
+        try {
+            double x = ((Number) map.get("x")).doubleValue();
+            double y = ((Number) map.get("y")).doubleValue();
+            double z = ((Number) map.get("z")).doubleValue();
+            return new Vector3d(x, y, z);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    @Nullable
+    static UUID toUUID(@Nullable Object value) {
+        if (!(value instanceof String str)) return null;
+
+        try {
+            return UUID.fromString(str);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    @Nullable
+    static List<UUID> toUUIDList(@Nullable Object value) {
+        if (value == null) return null;
+
+        List<UUID> uuids = new ArrayList<>();
+
+        if (value instanceof List<?> list) {
+            for (Object obj : list) {
+                if (!(obj instanceof String str)) continue;
+
+                try {
+                    uuids.add(UUID.fromString(str));
+                } catch (IllegalArgumentException ignored) {
+                }
+            }
+        } else if (value instanceof String str) {
+            // Backwards compatibility
+            try {
+                uuids.add(UUID.fromString(str));
+            } catch (IllegalArgumentException ignored) {
+            }
+        }
+
+        return uuids.isEmpty() ? null : uuids;
+    }
+
+    @Nullable
+    static List<String> toStringList(@Nullable Object value) {
+        if (value == null) return null;
+
+        List<String> strings = new ArrayList<>();
+
+        if (value instanceof List<?> list) {
+            for (Object obj : list) {
+                if (obj != null) {
+                    strings.add(obj.toString());
+                }
+            }
+        }
+
+        return strings.isEmpty() ? null : strings;
+    }
+
+    @Nullable
+    static PlayerSkin toPlayerSkin(@Nullable Object value) {
+        if (!(value instanceof Map<?, ?> map)) return null;
+
+        try {
+            return new PlayerSkin(
+                    (String) map.get("bodyCharacteristic"),
+                    (String) map.get("underwear"),
+                    (String) map.get("face"),
+                    (String) map.get("eyes"),
+                    (String) map.get("ears"),
+                    (String) map.get("mouth"),
+                    (String) map.get("facialHair"),
+                    (String) map.get("haircut"),
+                    (String) map.get("eyebrows"),
+                    (String) map.get("pants"),
+                    (String) map.get("overpants"),
+                    (String) map.get("undertop"),
+                    (String) map.get("overtop"),
+                    (String) map.get("shoes"),
+                    (String) map.get("headAccessory"),
+                    (String) map.get("faceAccessory"),
+                    (String) map.get("earAccessory"),
+                    (String) map.get("skinFeature"),
+                    (String) map.get("gloves"),
+                    (String) map.get("cape")
+            );
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    @Nonnull
+    static Set<String> toKeys(@Nullable Object value) {
+        if (value instanceof Map) {
+            return new LinkedHashSet<>(((Map<String, Object>) value).keySet());
+        }
+        return Collections.emptySet();
+    }
+
+    // Maps and lists are copied so the section stays valid however the live config changes afterwards; leaves
+    // are strings, numbers and booleans, which are immutable already
+    @Nullable
+    static Object copyTree(@Nullable Object value) {
+        if (value instanceof Map<?, ?> map) {
+            Map<String, Object> copy = new LinkedHashMap<>(Math.max(4, map.size() * 4 / 3 + 1));
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                copy.put(String.valueOf(entry.getKey()), copyTree(entry.getValue()));
+            }
+            return copy;
+        }
+        if (value instanceof List<?> list) {
+            List<Object> copy = new ArrayList<>(list.size());
+            for (Object element : list) {
+                copy.add(copyTree(element));
+            }
+            return copy;
+        }
+        return value;
+    }
+}
@@ -0,0 +1,281 @@
+package com.electro.hycitizens.util;
+
+import com.hypixel.hytale.math.vector.Vector3d;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.*;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static com.hypixel.hytale.logger.HytaleLogger.getLogger;
+
+public class PositionJournal {
+    private static final int MAGIC = 0x4843504A; // "HCPJ"
+    private static final byte VERSION = 1;
+
+    private final Path journalFile;
+    private final Path rotatedFile;
+    private final Map<String, Vector3d> lastAppended = new HashMap<>();
+    private Map<String, Vector3d> pendingCompaction = new LinkedHashMap<>();
+    private DataOutputStream out;
+    private long bytesWritten;
+
+    public PositionJournal(@Nonnull Path dataFolder) {
+        this.journalFile = dataFolder.resolve("positions.journal");
+        this.rotatedFile = dataFolder.resolve("positions.journal.old");
+    }
+
+    // Returns the newest journaled position per citizen; the rotated file is replayed first so a compaction
+    // that never reached disk is not lost
+    @Nonnull
+    public synchronized Map<String, Vector3d> replay() {
+        Map<String, Vector3d> positions = new LinkedHashMap<>();
+        boolean rotated = Files.exists(rotatedFile);
+        replayFile(rotatedFile, positions);
+        long journalLength = replayFile(journalFile, positions);
+        if (!rotated) {
+            truncateTornTail(journalLength);
+        }
+
+        lastAppended.putAll(positions);
+        pendingCompaction.putAll(positions);
+        if (rotated) {
+            mergeRotated(positions);
+        }
+        return positions;
+    }
+
+    // A compaction left over from the last run folds back into the live journal, which then holds the only copy;
+    // otherwise the rotated file would block every later compaction
+    private void mergeRotated(@Nonnull Map<String, Vector3d> positions) {
+        closeStream();
+        Path tempFile = journalFile.resolveSibling(journalFile.getFileName() + ".tmp");
+        try {
+            try (FileOutputStream fileOut = new FileOutputStream(tempFile.toFile());
+                 DataOutputStream stream = new DataOutputStream(new BufferedOutputStream(fileOut))) {
+                stream.writeInt(MAGIC);
+                stream.writeByte(VERSION);
+                long now = System.currentTimeMillis();
+                for (Map.Entry<String, Vector3d> entry : positions.entrySet()) {
+                    writeRecord(stream, entry.getKey(), entry.getValue(), now);
+                }
+                stream.flush();
+                fileOut.getFD().sync();
+                bytesWritten = stream.size();
+            }
+
+            Files.move(tempFile, journalFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            Files.deleteIfExists(rotatedFile);
+        } catch (IOException e) {
+            getLogger().atWarning().log("Failed to merge rotated position journal: " + e.getMessage());
+        }
+    }
+
+    // Returns how many bytes of the file held complete records, or -1 if there was nothing usable to replay
+    private long replayFile(@Nonnull Path file, @Nonnull Map<String, Vector3d> positions) {
+        if (!Files.exists(file)) {
+            return -1L;
+        }
+
+        long length;
+        try {
+            length = Files.size(file);
+        } catch (IOException e) {
+            getLogger().atWarning().log("Failed to replay position journal " + file.getFileName() + ": " + e.getMessage());
+            return -1L;
+        }
+
+        long valid = 0L;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readByte() != VERSION) {
+                getLogger().atWarning().log("Ignoring position journal with unknown format: " + file.getFileName());
+                return -1L;
+            }
+            valid = 5L;
+
+            while (true) {
+                String citizenId;
+                double x;
+                double y;
+                double z;
+                try {
+                    citizenId = in.readUTF();
+                    x = in.readDouble();
+                    y = in.readDouble();
+                    z = in.readDouble();
+                    in.readLong(); // Timestamp, kept for debugging journals by hand
+                } catch (EOFException e) {
+                    // Clean end of file, or a record cut short by a crash mid-append
+                    break;
+                }
+                positions.put(citizenId, new Vector3d(x, y, z));
+                valid += recordLength(citizenId);
+            }
+        } catch (EOFException e) {
+            // Crashed before the header made it out; the whole file is a torn tail
+        } catch (IOException e) {
+            getLogger().atWarning().log("Failed to replay position journal " + file.getFileName() + ": " + e.getMessage());
+            return -1L;
+        }
+        return Math.min(valid, length);
+    }
+
+    // Anything past the last complete record is a half-written append. Appending after it would shift every
+    // later record out of alignment, so it is cut off before the journal is reopened.
+    private void truncateTornTail(long validLength) {
+        if (validLength < 0L) {
+            return;
+        }
+
+        try (FileChannel channel = FileChannel.open(journalFile, StandardOpenOption.WRITE)) {
+            if (channel.size() > validLength) {
+                getLogger().atWarning().log("Truncating " + (channel.size() - validLength) + " torn bytes from position journal");
+                channel.truncate(validLength);
+                channel.force(true);
+            }
+        } catch (IOException e) {
+            getLogger().atWarning().log("Failed to truncate position journal: " + e.getMessage());
+        }
+    }
+
+    private static long recordLength(@Nonnull String citizenId) {
+        // writeUTF's two-byte length plus modified UTF-8, then three doubles and the timestamp
+        long utfLength = 0L;
+        for (int i = 0; i < citizenId.length(); i++) {
+            char c = citizenId.charAt(i);
+            utfLength += c >= 0x0001 && c <= 0x007F ? 1L : c <= 0x07FF ? 2L : 3L;
+        }
+        return 2L + utfLength + 4L * Long.BYTES;
+    }
+
+    public synchronized void append(@Nonnull String citizenId, @Nullable Vector3d position) {
+        if (position == null) {
+            return;
+        }
+
+        Vector3d last = lastAppended.get(citizenId);
+        if (last != null && last.x == position.x && last.y == position.y && last.z == position.z) {
+            return;
+        }
+
+        try {
+            DataOutputStream stream = openStream();
+            int before = stream.size();
+            writeRecord(stream, citizenId, position, System.currentTimeMillis());
+            bytesWritten += stream.size() - before;
+
+            Vector3d copy = new Vector3d(position.x, position.y, position.z);
+            lastAppended.put(citizenId, copy);
+            pendingCompaction.put(citizenId, copy);
+        } catch (IOException e) {
+            getLogger().atWarning().log("Failed to append to position journal: " + e.getMessage());
+            closeStream();
+        }
+    }
+
+    private static void writeRecord(@Nonnull DataOutputStream stream, @Nonnull String citizenId,
+                                    @Nonnull Vector3d position, long timestamp) throws IOException {
+        stream.writeUTF(citizenId);
+        stream.writeDouble(position.x);
+        stream.writeDouble(position.y);
+        stream.writeDouble(position.z);
+        stream.writeLong(timestamp);
+    }
+
+    public synchronized void flush() {
+        if (out == null) {
+            return;
+        }
+
+        try {
+            out.flush();
+        } catch (IOException e) {
+            getLogger().atWarning().log("Failed to flush position journal: " + e.getMessage());
+        }
+    }
+
+    public synchronized long getBytesWritten() {
+        return bytesWritten;
+    }
+
+    public synchronized boolean isCompactionInProgress() {
+        return Files.exists(rotatedFile);
+    }
+
+    // Moves the live journal aside and hands back everything it held, so the caller can fold it into the
+    // main store. The rotated file must only be deleted once that store is durable.
+    @Nullable
+    public synchronized Map<String, Vector3d> beginCompaction() {
+        if (Files.exists(rotatedFile)) {
+            return null;
+        }
+
+        closeStream();
+        try {
+            if (Files.exists(journalFile)) {
+                Files.move(journalFile, rotatedFile, StandardCopyOption.ATOMIC_MOVE);
+            }
+        } catch (IOException e) {
+            getLogger().atWarning().log("Failed to rotate position journal: " + e.getMessage());
+            return null;
+        }
+
+        Map<String, Vector3d> compacted = pendingCompaction;
+        pendingCompaction = new LinkedHashMap<>();
+        bytesWritten = 0L;
+        return compacted;
+    }
+
+    public synchronized void finishCompaction() {
+        try {
+            Files.deleteIfExists(rotatedFile);
+        } catch (IOException e) {
+            getLogger().atWarning().log("Failed to delete compacted position journal: " + e.getMessage());
+        }
+    }
+
+    public synchronized void forget(@Nonnull String citizenId) {
+        lastAppended.remove(citizenId);
+        pendingCompaction.remove(citizenId);
+    }
+
+    public synchronized void close() {
+        closeStream();
+    }
+
+    @Nonnull
+    private DataOutputStream openStream() throws IOException {
+        if (out != null) {
+            return out;
+        }
+
+        Files.createDirectories(journalFile.getParent());
+        boolean fresh = !Files.exists(journalFile) || Files.size(journalFile) == 0L;
+        out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(journalFile.toFile(), true)));
+        if (fresh) {
+            out.writeInt(MAGIC);
+            out.writeByte(VERSION);
+        }
+        return out;
+    }
+
+    private void closeStream() {
+        if (out == null) {
+            return;
+        }
+
+        try {
+            out.close();
+        } catch (IOException e) {
+            getLogger().atWarning().log("Failed to close position journal: " + e.getMessage());
+        }
+        out = null;
+    }
+}
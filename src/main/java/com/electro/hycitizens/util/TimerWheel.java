@@ -0,0 +1,173 @@
+package com.electro.hycitizens.util;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+// Hashed timing wheel for short-lived timers that are cancelled far more often than they fire. Scheduling and
+// cancelling are O(1) list splices; firing is batched by world so the owner can run each batch on its world thread.
+// Resolution is one tick, so a timer can fire up to one tick early or late.
+public class TimerWheel {
+    private static final int PENDING = 0;
+    private static final int FIRING = 1;
+    private static final int CANCELLED = 2;
+    private static final int DONE = 3;
+
+    public static final class Timeout {
+        private final TimerWheel wheel;
+        private final UUID worldUuid;
+        private final Consumer<Timeout> task;
+        private long remainingRounds;
+        private int bucket = -1;
+        private Timeout prev;
+        private Timeout next;
+        private volatile int state = PENDING;
+
+        private Timeout(@Nonnull TimerWheel wheel, @Nullable UUID worldUuid, @Nonnull Consumer<Timeout> task) {
+            this.wheel = wheel;
+            this.worldUuid = worldUuid;
+            this.task = task;
+        }
+
+        @Nullable
+        public UUID getWorldUuid() {
+            return worldUuid;
+        }
+
+        public boolean isDone() {
+            int current = state;
+            return current == CANCELLED || current == DONE;
+        }
+
+        public boolean cancel() {
+            return wheel.cancel(this);
+        }
+
+        // Runs the task unless it was cancelled after expiring but before its batch got to it
+        public void run() {
+            synchronized (wheel) {
+                if (state != FIRING) {
+                    return;
+                }
+                state = DONE;
+            }
+            task.accept(this);
+        }
+    }
+
+    private final long tickMs;
+    private final Timeout[] buckets;
+    private final int mask;
+    private final long startMs;
+    private long currentTick;
+    private int pending;
+
+    public TimerWheel(long tickMs, int wheelSize) {
+        if (Integer.bitCount(wheelSize) != 1) {
+            throw new IllegalArgumentException("Wheel size must be a power of two: " + wheelSize);
+        }
+
+        this.tickMs = Math.max(1L, tickMs);
+        this.buckets = new Timeout[wheelSize];
+        this.mask = wheelSize - 1;
+        this.startMs = System.currentTimeMillis();
+    }
+
+    @Nonnull
+    public synchronized Timeout schedule(@Nullable UUID worldUuid, long delayMs, @Nonnull Consumer<Timeout> task) {
+        Timeout timeout = new Timeout(this, worldUuid, task);
+        long ticks = Math.max(1L, (Math.max(0L, delayMs) + tickMs - 1L) / tickMs);
+
+        // The bucket is visited once per revolution before the deadline comes round
+        timeout.remainingRounds = (ticks - 1L) / buckets.length;
+        timeout.bucket = (int) ((currentTick + ticks) & mask);
+        link(timeout);
+        pending++;
+        return timeout;
+    }
+
+    public synchronized boolean cancel(@Nonnull Timeout timeout) {
+        if (timeout.state == PENDING) {
+            unlink(timeout);
+            pending--;
+        } else if (timeout.state != FIRING) {
+            return false;
+        }
+
+        timeout.state = CANCELLED;
+        return true;
+    }
+
+    // Advances to the current time and hands back everything that expired on the way, grouped by world
+    @Nonnull
+    public synchronized Map<UUID, List<Timeout>> advance(long nowMs) {
+        Map<UUID, List<Timeout>> expired = new HashMap<>();
+        long targetTick = (nowMs - startMs) / tickMs;
+
+        while (currentTick < targetTick) {
+            currentTick++;
+            Timeout timeout = buckets[(int) (currentTick & mask)];
+            while (timeout != null) {
+                Timeout next = timeout.next;
+                if (timeout.remainingRounds > 0L) {
+                    timeout.remainingRounds--;
+                } else {
+                    unlink(timeout);
+                    pending--;
+                    timeout.state = FIRING;
+                    expired.computeIfAbsent(timeout.worldUuid, k -> new ArrayList<>()).add(timeout);
+                }
+                timeout = next;
+            }
+        }
+
+        return expired;
+    }
+
+    public synchronized int getPendingCount() {
+        return pending;
+    }
+
+    public synchronized void clear() {
+        for (int i = 0; i < buckets.length; i++) {
+            Timeout timeout = buckets[i];
+            while (timeout != null) {
+                Timeout next = timeout.next;
+                timeout.state = CANCELLED;
+                timeout.prev = null;
+                timeout.next = null;
+                timeout = next;
+            }
+            buckets[i] = null;
+        }
+        pending = 0;
+    }
+
+    private void link(@Nonnull Timeout timeout) {
+        Timeout head = buckets[timeout.bucket];
+        timeout.prev = null;
+        timeout.next = head;
+        if (head != null) {
+            head.prev = timeout;
+        }
+        buckets[timeout.bucket] = timeout;
+    }
+
+    private void unlink(@Nonnull Timeout timeout) {
+        if (timeout.prev != null) {
+            timeout.prev.next = timeout.next;
+        } else {
+            buckets[timeout.bucket] = timeout.next;
+        }
+        if (timeout.next != null) {
+            timeout.next.prev = timeout.prev;
+        }
+        timeout.prev = null;
+        timeout.next = null;
+    }
+}
@@ -0,0 +1,108 @@
+package com.electro.hycitizens.managers;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FollowFormationRegistryTest {
+    @Test
+    void slotsFollowIdOrderWhateverTheJoinOrder() {
+        FollowFormationRegistry registry = new FollowFormationRegistry();
+        registry.assign("c", "leader");
+        registry.assign("a", "leader");
+        registry.assign("b", "leader");
+
+        assertEquals(new FollowFormationRegistry.Slot(0, 3), registry.assign("a", "leader"));
+        assertEquals(new FollowFormationRegistry.Slot(1, 3), registry.assign("b", "leader"));
+        assertEquals(new FollowFormationRegistry.Slot(2, 3), registry.assign("c", "leader"));
+    }
+
+    @Test
+    void joiningShiftsLaterFollowersBack() {
+        FollowFormationRegistry registry = new FollowFormationRegistry();
+        registry.assign("b", "leader");
+        registry.assign("c", "leader");
+
+        assertEquals(new FollowFormationRegistry.Slot(0, 3), registry.assign("a", "leader"));
+        assertEquals(new FollowFormationRegistry.Slot(1, 3), registry.assign("b", "leader"));
+        assertEquals(new FollowFormationRegistry.Slot(2, 3), registry.assign("c", "leader"));
+    }
+
+    @Test
+    void leavingClosesTheGap() {
+        FollowFormationRegistry registry = new FollowFormationRegistry();
+        registry.assign("a", "leader");
+        registry.assign("b", "leader");
+        registry.assign("c", "leader");
+
+        registry.remove("a");
+
+        assertEquals(new FollowFormationRegistry.Slot(0, 2), registry.assign("b", "leader"));
+        assertEquals(new FollowFormationRegistry.Slot(1, 2), registry.assign("c", "leader"));
+    }
+
+    @Test
+    void removingAnUnknownFollowerIsANoOp() {
+        FollowFormationRegistry registry = new FollowFormationRegistry();
+        registry.assign("a", "leader");
+
+        registry.remove("nobody");
+
+        assertEquals(new FollowFormationRegistry.Slot(0, 1), registry.assign("a", "leader"));
+    }
+
+    @Test
+    void leadersKeepSeparateSlots() {
+        FollowFormationRegistry registry = new FollowFormationRegistry();
+        registry.assign("a", "first");
+        registry.assign("b", "second");
+
+        assertEquals(new FollowFormationRegistry.Slot(0, 1), registry.assign("a", "first"));
+        assertEquals(new FollowFormationRegistry.Slot(0, 1), registry.assign("b", "second"));
+    }
+
+    @Test
+    void switchingLeaderMovesTheFollower() {
+        FollowFormationRegistry registry = new FollowFormationRegistry();
+        registry.assign("a", "first");
+        registry.assign("b", "first");
+        registry.assign("c", "second");
+
+        assertEquals(new FollowFormationRegistry.Slot(0, 2), registry.assign("a", "second"));
+
+        assertEquals(new FollowFormationRegistry.Slot(0, 1), registry.assign("b", "first"));
+        assertEquals(new FollowFormationRegistry.Slot(1, 2), registry.assign("c", "second"));
+    }
+
+    @Test
+    void everyFollowerOfALeaderGetsADistinctSlot() {
+        FollowFormationRegistry registry = new FollowFormationRegistry();
+        // Whatever formation each of them uses, none may share a slot with another follower of the same leader
+        List<String> followers = List.of("ring-1", "column-1", "wedge-1", "ring-2", "column-2");
+        for (String follower : followers) {
+            registry.assign(follower, "leader");
+        }
+
+        Set<Integer> indices = new HashSet<>();
+        for (String follower : followers) {
+            FollowFormationRegistry.Slot slot = registry.assign(follower, "leader");
+            assertEquals(followers.size(), slot.count());
+            assertTrue(indices.add(slot.index()), "slot " + slot.index() + " handed out twice");
+        }
+    }
+
+    @Test
+    void clearForgetsEveryone() {
+        FollowFormationRegistry registry = new FollowFormationRegistry();
+        registry.assign("a", "leader");
+        registry.assign("b", "leader");
+
+        registry.clear();
+
+        assertEquals(new FollowFormationRegistry.Slot(0, 1), registry.assign("b", "leader"));
+    }
+}
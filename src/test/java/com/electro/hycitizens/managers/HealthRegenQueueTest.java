@@ -0,0 +1,117 @@
+package com.electro.hycitizens.managers;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HealthRegenQueueTest {
+    @Test
+    void pollsOnlyWhatIsDueInDueOrder() {
+        HealthRegenQueue queue = new HealthRegenQueue();
+        queue.schedule("late", 300L);
+        queue.schedule("early", 100L);
+        queue.schedule("middle", 200L);
+
+        assertTrue(queue.pollDue(99L).isEmpty());
+        assertEquals(List.of("early", "middle"), queue.pollDue(200L));
+        assertEquals(1, queue.size());
+        assertEquals(List.of("late"), queue.pollDue(1_000L));
+        assertEquals(0, queue.size());
+    }
+
+    @Test
+    void supersededEarlierEntryIsSkipped() {
+        HealthRegenQueue queue = new HealthRegenQueue();
+        queue.schedule("guard", 100L);
+        // Hit again: regen is pushed back, but the first entry is still in the heap
+        queue.schedule("guard", 500L);
+
+        assertTrue(queue.pollDue(100L).isEmpty());
+        assertEquals(1, queue.size());
+        assertEquals(List.of("guard"), queue.pollDue(500L));
+        assertTrue(queue.pollDue(10_000L).isEmpty());
+    }
+
+    @Test
+    void supersededLaterEntryDoesNotFireTwice() {
+        HealthRegenQueue queue = new HealthRegenQueue();
+        queue.schedule("guard", 500L);
+        queue.schedule("guard", 100L);
+
+        assertEquals(List.of("guard"), queue.pollDue(100L));
+        assertTrue(queue.pollDue(500L).isEmpty());
+        assertEquals(0, queue.size());
+    }
+
+    @Test
+    void scheduleIfAbsentKeepsTheExistingDueTime() {
+        HealthRegenQueue queue = new HealthRegenQueue();
+        queue.schedule("guard", 500L);
+        queue.scheduleIfAbsent("guard", 100L);
+
+        assertTrue(queue.pollDue(100L).isEmpty());
+        assertEquals(List.of("guard"), queue.pollDue(500L));
+
+        queue.scheduleIfAbsent("guard", 600L);
+        assertEquals(List.of("guard"), queue.pollDue(600L));
+    }
+
+    @Test
+    void removedCitizenNeverComesDue() {
+        HealthRegenQueue queue = new HealthRegenQueue();
+        queue.schedule("guard", 100L);
+        queue.schedule("merchant", 100L);
+
+        queue.remove("guard");
+
+        assertEquals(1, queue.size());
+        assertEquals(List.of("merchant"), queue.pollDue(100L));
+    }
+
+    @Test
+    void removedThenRescheduledCitizenUsesOnlyTheNewEntry() {
+        HealthRegenQueue queue = new HealthRegenQueue();
+        queue.schedule("guard", 100L);
+        queue.remove("guard");
+        queue.schedule("guard", 300L);
+
+        assertTrue(queue.pollDue(200L).isEmpty());
+        assertEquals(List.of("guard"), queue.pollDue(300L));
+    }
+
+    @Test
+    void pilesOfSupersededEntriesStillYieldEachCitizenOnce() {
+        HealthRegenQueue queue = new HealthRegenQueue();
+        // Enough repeat hits to push the heap past its rebuild threshold
+        for (int hit = 0; hit < 200; hit++) {
+            queue.schedule("guard", 1_000L + hit);
+            queue.schedule("merchant", 5_000L - hit);
+        }
+        queue.schedule("bystander", 10L);
+
+        assertEquals(List.of("bystander"), queue.pollDue(10L));
+        assertEquals(2, queue.size());
+
+        // Both live entries survive the rebuild with their latest due times
+        assertTrue(queue.pollDue(1_198L).isEmpty());
+        assertEquals(List.of("guard"), queue.pollDue(1_199L));
+        assertTrue(queue.pollDue(4_800L).isEmpty());
+        assertEquals(List.of("merchant"), queue.pollDue(4_801L));
+        assertEquals(0, queue.size());
+        assertTrue(queue.pollDue(Long.MAX_VALUE).isEmpty());
+    }
+
+    @Test
+    void clearDropsEverything() {
+        HealthRegenQueue queue = new HealthRegenQueue();
+        queue.schedule("guard", 100L);
+        queue.schedule("guard", 200L);
+
+        queue.clear();
+
+        assertEquals(0, queue.size());
+        assertTrue(queue.pollDue(Long.MAX_VALUE).isEmpty());
+    }
+}
@@ -0,0 +1,78 @@
+package com.electro.hycitizens.models;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AnimationBehaviorTableTest {
+    @Test
+    void freshTableHasEverythingDue() {
+        AnimationBehaviorTable table = AnimationBehaviorTable.compile(List.of(timed("Wave", 0, 10.0f)));
+
+        assertTrue(table.isDue(0, 0L));
+    }
+
+    @Test
+    void recompileKeepsFireTimesOfBehavioursThatStillMatch() {
+        AnimationBehaviorTable previous = AnimationBehaviorTable.compile(List.of(
+                timed("Wave", 0, 10.0f),
+                timed("Sit", 1, 10.0f)));
+        previous.markFired(0, 1_000L);
+        previous.markFired(1, 1_000L);
+
+        // Sit is dropped and a new behaviour is added in front of Wave
+        AnimationBehaviorTable table = AnimationBehaviorTable.compile(List.of(
+                timed("Dance", 0, 10.0f),
+                timed("Wave", 0, 10.0f)), previous);
+
+        assertTrue(table.isDue(0, 1_000L));
+        assertFalse(table.isDue(1, 10_999L));
+        assertTrue(table.isDue(1, 11_000L));
+    }
+
+    @Test
+    void changedIntervalCountsFromTheLastFire() {
+        AnimationBehaviorTable previous = AnimationBehaviorTable.compile(List.of(timed("Wave", 0, 10.0f)));
+        previous.markFired(0, 1_000L);
+
+        AnimationBehaviorTable table = AnimationBehaviorTable.compile(List.of(timed("Wave", 0, 4.0f)), previous);
+
+        assertFalse(table.isDue(0, 4_999L));
+        assertTrue(table.isDue(0, 5_000L));
+    }
+
+    @Test
+    void sameAnimationOnAnotherSlotStartsFresh() {
+        AnimationBehaviorTable previous = AnimationBehaviorTable.compile(List.of(timed("Wave", 0, 10.0f)));
+        previous.markFired(0, 1_000L);
+
+        AnimationBehaviorTable table = AnimationBehaviorTable.compile(List.of(timed("Wave", 2, 10.0f)), previous);
+
+        assertTrue(table.isDue(0, 1_000L));
+    }
+
+    @Test
+    void duplicateBehavioursEachKeepTheirOwnFireTime() {
+        AnimationBehaviorTable previous = AnimationBehaviorTable.compile(List.of(
+                timed("Wave", 0, 10.0f),
+                timed("Wave", 0, 10.0f)));
+        previous.markFired(0, 1_000L);
+        previous.markFired(1, 3_000L);
+
+        AnimationBehaviorTable table = AnimationBehaviorTable.compile(List.of(
+                timed("Wave", 0, 10.0f),
+                timed("Wave", 0, 10.0f),
+                timed("Wave", 0, 10.0f)), previous);
+
+        assertTrue(table.isDue(0, 11_000L));
+        assertFalse(table.isDue(1, 11_000L));
+        assertTrue(table.isDue(1, 13_000L));
+        assertTrue(table.isDue(2, 0L));
+    }
+
+    private static AnimationBehavior timed(String animation, int slot, float intervalSeconds) {
+        return new AnimationBehavior("TIMED", animation, slot, intervalSeconds, 8.0f);
+    }
+}
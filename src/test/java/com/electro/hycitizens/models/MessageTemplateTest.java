@@ -0,0 +1,118 @@
+package com.electro.hycitizens.models;
+
+import com.hypixel.hytale.math.vector.Vector3d;
+import com.hypixel.hytale.math.vector.Vector3f;
+import com.hypixel.hytale.server.core.Message;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MessageTemplateTest {
+    private static final Pattern CITIZEN_NAME_PATTERN = Pattern.compile("\\{CitizenName}", Pattern.CASE_INSENSITIVE);
+    private static final Pattern NPC_X_PATTERN = Pattern.compile("\\{NpcX}", Pattern.CASE_INSENSITIVE);
+    private static final Pattern NPC_Y_PATTERN = Pattern.compile("\\{NpcY}", Pattern.CASE_INSENSITIVE);
+    private static final Pattern NPC_Z_PATTERN = Pattern.compile("\\{NpcZ}", Pattern.CASE_INSENSITIVE);
+
+    static Stream<Arguments> templates() {
+        return Stream.of(
+                Arguments.of("plain text", "Hello there", "Guard"),
+                Arguments.of("named colour", "{RED}Stop {GREEN}go", "Guard"),
+                Arguments.of("hex colour", "{#7CFC00}Lawn {#FFFFFF}white", "Guard"),
+                Arguments.of("unknown colour resets", "{RED}red {NOTACOLOR}plain", "Guard"),
+                Arguments.of("bold", "Some **bold** text", "Guard"),
+                Arguments.of("italic", "Some *italic* text", "Guard"),
+                Arguments.of("bold and italic", "**a** and *b* and **c**", "Guard"),
+                Arguments.of("unclosed bold", "Some **bold text", "Guard"),
+                Arguments.of("link", "Visit [our site](https://example.com) today", "Guard"),
+                Arguments.of("coloured bold link", "{GOLD}[**Shop**](https://example.com/shop)", "Guard"),
+                Arguments.of("placeholder in link text", "[Talk to {CitizenName}](https://example.com)", "Guard"),
+                Arguments.of("placeholder in link url", "[Profile](https://example.com/{CitizenName})", "Guard"),
+                Arguments.of("placeholder breaks link url", "[Profile](https://example.com/{CitizenName})", "Old Guard"),
+                Arguments.of("placeholder in colour", "{RED}Hi, I am **{CitizenName}**", "Guard"),
+                Arguments.of("coloured citizen name", "Hi, I am {CitizenName}!", "{GOLD}Guard"),
+                Arguments.of("styled citizen name", "{RED}I am {CitizenName} *ok*", "**Guard**"),
+                Arguments.of("bracketed citizen name", "[{CitizenName}](https://example.com)", "[Guard]"),
+                Arguments.of("citizen name with newline", "I am {CitizenName}", "Old\\nGuard"),
+                Arguments.of("lower-case placeholder", "I am {citizenname}", "Guard"),
+                Arguments.of("coordinates", "{CYAN}At {NpcX}, {NpcY}, {NpcZ}", "Guard"),
+                Arguments.of("unresolved player name", "Hello {PlayerName}!", "Guard"),
+                Arguments.of("unresolved player name in colour", "{GREEN}Hello **{PlayerName}**", "Guard"),
+                Arguments.of("unresolved player name in link", "[Hi {PlayerName}](https://example.com/{PlayerName})", "Guard")
+        );
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("templates")
+    void renderMessageMatchesSubstituteThenParse(@Nonnull String description, @Nonnull String source,
+                                                 @Nonnull String citizenName) {
+        CitizenData citizen = citizen(citizenName);
+
+        Message expected = MessageTemplate.parseColoredMessage(substitute(source, citizen));
+        Message actual = MessageTemplate.compile(source).renderMessage(null, citizen);
+
+        assertEquals(formatted(expected), formatted(actual), description);
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("templates")
+    void renderTextMatchesSubstitute(@Nonnull String description, @Nonnull String source,
+                                     @Nonnull String citizenName) {
+        CitizenData citizen = citizen(citizenName);
+
+        assertEquals(substitute(source, citizen), MessageTemplate.compile(source).renderText(null, citizen), description);
+    }
+
+    @Test
+    void usesReportsOnlyPlaceholdersPresent() {
+        MessageTemplate template = MessageTemplate.compile("{RED}Hi {playername}, at {NpcY}");
+
+        assertTrue(template.uses(MessageTemplate.Placeholder.PLAYER_NAME));
+        assertTrue(template.uses(MessageTemplate.Placeholder.NPC_Y));
+        assertFalse(template.uses(MessageTemplate.Placeholder.CITIZEN_NAME));
+        assertFalse(template.uses(MessageTemplate.Placeholder.NPC_X));
+    }
+
+    @Test
+    void emptySourceRendersNothing() {
+        assertNull(MessageTemplate.compile("").renderMessage(null, citizen("Guard")));
+    }
+
+    // The path messages took before templates: substitute into the raw string, then parse the whole result.
+    // Without a player the player name stays as typed, which is what templates do as well.
+    @Nonnull
+    private static String substitute(@Nonnull String text, @Nonnull CitizenData citizen) {
+        Vector3d npcPos = citizen.getCurrentPosition() != null ? citizen.getCurrentPosition() : citizen.getPosition();
+        String result = CITIZEN_NAME_PATTERN.matcher(text)
+                .replaceAll(Matcher.quoteReplacement(MessageTemplate.formatCitizenName(citizen)));
+        result = NPC_X_PATTERN.matcher(result)
+                .replaceAll(Matcher.quoteReplacement(String.format(Locale.ROOT, "%.2f", npcPos.x)));
+        result = NPC_Y_PATTERN.matcher(result)
+                .replaceAll(Matcher.quoteReplacement(String.format(Locale.ROOT, "%.2f", npcPos.y)));
+        return NPC_Z_PATTERN.matcher(result)
+                .replaceAll(Matcher.quoteReplacement(String.format(Locale.ROOT, "%.2f", npcPos.z)));
+    }
+
+    @Nullable
+    private static Object formatted(@Nullable Message message) {
+        return message != null ? message.getFormattedMessage() : null;
+    }
+
+    @Nonnull
+    private static CitizenData citizen(@Nonnull String name) {
+        return new CitizenData("test", name, "Player", UUID.randomUUID(), new Vector3d(12.5, 64.0, -3.25),
+                new Vector3f(0.0f, 0.0f, 0.0f), 1.0f, null, null, "", "", List.of(), false, false,
+                null, null, 0L, false);
+    }
+}
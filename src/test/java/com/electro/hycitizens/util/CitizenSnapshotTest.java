@@ -0,0 +1,159 @@
+package com.electro.hycitizens.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CitizenSnapshotTest {
+    private static final long STAMP = 0x5EED_CAFEL;
+
+    @TempDir
+    Path dataFolder;
+
+    @Test
+    void writeThenReadRoundTrips() throws IOException {
+        Path file = snapshotFile();
+        Map<String, Object> citizens = sampleCitizens();
+
+        CitizenSnapshot.write(file, citizens, STAMP);
+        Map<String, Object> read = CitizenSnapshot.read(file, STAMP);
+
+        assertEquals(citizens, read);
+        assertEquals(List.copyOf(citizens.keySet()), List.copyOf(read.keySet()));
+        assertFalse(Files.exists(dataFolder.resolve("citizens.snapshot.tmp")));
+    }
+
+    @Test
+    void numbersComeBackAsDoubles() throws IOException {
+        Path file = snapshotFile();
+        Map<String, Object> citizen = new LinkedHashMap<>();
+        citizen.put("int", 7);
+        citizen.put("long", 1_700_000_000_000L);
+        citizen.put("float", 0.5f);
+
+        CitizenSnapshot.write(file, Map.of("npc", citizen), STAMP);
+        Map<?, ?> read = (Map<?, ?>) CitizenSnapshot.read(file, STAMP).get("npc");
+
+        assertEquals(7.0, read.get("int"));
+        assertEquals(1_700_000_000_000.0, read.get("long"));
+        assertEquals(0.5, read.get("float"));
+    }
+
+    @Test
+    void stringsLongerThanWriteUtfAllowsRoundTrip() throws IOException {
+        Path file = snapshotFile();
+        char[] text = new char[100_000];
+        Arrays.fill(text, '\u00E9');
+        String longMessage = new String(text);
+
+        CitizenSnapshot.write(file, Map.of("npc", Map.of("message", longMessage)), STAMP);
+        Map<?, ?> read = (Map<?, ?>) CitizenSnapshot.read(file, STAMP).get("npc");
+
+        assertEquals(longMessage, read.get("message"));
+    }
+
+    @Test
+    void emptySnapshotRoundTrips() throws IOException {
+        Path file = snapshotFile();
+
+        CitizenSnapshot.write(file, Map.of(), STAMP);
+
+        Map<String, Object> read = CitizenSnapshot.read(file, STAMP);
+        assertNotNull(read);
+        assertTrue(read.isEmpty());
+    }
+
+    @Test
+    void staleStampIsIgnored() throws IOException {
+        Path file = snapshotFile();
+        CitizenSnapshot.write(file, sampleCitizens(), STAMP);
+
+        assertNull(CitizenSnapshot.read(file, STAMP + 1));
+    }
+
+    @Test
+    void rewriteReplacesTheOlderSnapshot() throws IOException {
+        Path file = snapshotFile();
+        CitizenSnapshot.write(file, sampleCitizens(), STAMP);
+        Map<String, Object> updated = Map.of("other", Map.of("name", "Merchant"));
+
+        CitizenSnapshot.write(file, updated, STAMP + 1);
+
+        assertNull(CitizenSnapshot.read(file, STAMP));
+        assertEquals(updated, CitizenSnapshot.read(file, STAMP + 1));
+    }
+
+    @Test
+    void missingFileReadsAsNull() {
+        assertNull(CitizenSnapshot.read(snapshotFile(), STAMP));
+    }
+
+    @Test
+    void foreignFileReadsAsNull() throws IOException {
+        Path file = snapshotFile();
+        Files.writeString(file, "{\"citizens\": {}}");
+
+        assertNull(CitizenSnapshot.read(file, STAMP));
+    }
+
+    @Test
+    void truncatedFileReadsAsNull() throws IOException {
+        Path file = snapshotFile();
+        CitizenSnapshot.write(file, sampleCitizens(), STAMP);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() / 2);
+        }
+
+        assertNull(CitizenSnapshot.read(file, STAMP));
+    }
+
+    @Nonnull
+    private Path snapshotFile() {
+        return dataFolder.resolve("citizens.snapshot");
+    }
+
+    @Nonnull
+    private static Map<String, Object> sampleCitizens() {
+        Map<String, Object> position = new LinkedHashMap<>();
+        position.put("x", 12.5);
+        position.put("y", 64.0);
+        position.put("z", -3.25);
+
+        List<Object> commands = new ArrayList<>();
+        commands.add(Map.of("command", "give {PlayerName} diamond", "run-as-server", true));
+        commands.add(Map.of("command", "say hi", "run-as-server", false));
+
+        Map<String, Object> guard = new LinkedHashMap<>();
+        guard.put("name", "{GOLD}Guard");
+        guard.put("position", position);
+        guard.put("hidden", false);
+        guard.put("scale", 1.5);
+        guard.put("commands", commands);
+        guard.put("hologram-uuids", List.of("0b7b2c6e-6f0e-4a4e-9a57-7f1d0f3c2a11"));
+        guard.put("skin", null);
+
+        Map<String, Object> merchant = new LinkedHashMap<>();
+        merchant.put("name", "Merchant \u2713");
+        merchant.put("position", Map.of("x", 0.0, "y", 0.0, "z", 0.0));
+        merchant.put("commands", List.of());
+        merchant.put("tags", List.of("shop", List.of("nested", 2.0)));
+
+        Map<String, Object> citizens = new LinkedHashMap<>();
+        citizens.put("guard", guard);
+        citizens.put("merchant", merchant);
+        return citizens;
+    }
+}
@@ -0,0 +1,161 @@
+package com.electro.hycitizens.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompactUuidSetTest {
+    private static final UUID NIL = new UUID(0L, 0L);
+
+    @Test
+    void addReportsWhetherTheSetChanged() {
+        CompactUuidSet set = new CompactUuidSet();
+        UUID uuid = UUID.randomUUID();
+
+        assertTrue(set.add(uuid));
+        assertFalse(set.add(uuid));
+        assertFalse(set.add(new UUID(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits())));
+        assertEquals(1, set.size());
+        assertTrue(set.contains(uuid));
+        assertFalse(set.contains(UUID.randomUUID()));
+    }
+
+    @Test
+    void keepsEveryMemberAcrossResizes() {
+        CompactUuidSet set = new CompactUuidSet();
+        List<UUID> added = new ArrayList<>();
+        for (int i = 0; i < 1_000; i++) {
+            UUID uuid = UUID.randomUUID();
+            added.add(uuid);
+            assertTrue(set.add(uuid));
+        }
+
+        assertEquals(added.size(), set.size());
+        for (UUID uuid : added) {
+            assertTrue(set.contains(uuid), "lost " + uuid);
+        }
+        assertEquals(new HashSet<>(added), new HashSet<>(set.toList()));
+        assertEquals(added.size(), set.toList().size());
+    }
+
+    @Test
+    void duplicatesAtTheResizeThresholdDoNotGrowTheSize() {
+        CompactUuidSet set = new CompactUuidSet();
+        List<UUID> added = new ArrayList<>();
+        // Six members fill the initial table to its load limit, so the next add resizes first
+        for (int i = 0; i < 6; i++) {
+            UUID uuid = UUID.randomUUID();
+            added.add(uuid);
+            set.add(uuid);
+        }
+
+        for (UUID uuid : added) {
+            assertFalse(set.add(uuid));
+        }
+        assertEquals(6, set.size());
+        for (UUID uuid : added) {
+            assertTrue(set.contains(uuid));
+        }
+    }
+
+    @Test
+    void sequentialUuidsDoNotCollideIntoEachOther() {
+        CompactUuidSet set = new CompactUuidSet();
+        for (long i = 1; i <= 200; i++) {
+            assertTrue(set.add(new UUID(0L, i)));
+            assertTrue(set.add(new UUID(i, 0L)));
+        }
+
+        assertEquals(400, set.size());
+        for (long i = 1; i <= 200; i++) {
+            assertTrue(set.contains(new UUID(0L, i)));
+            assertTrue(set.contains(new UUID(i, 0L)));
+        }
+        assertFalse(set.contains(new UUID(0L, 201L)));
+    }
+
+    @Test
+    void nilUuidIsAnOrdinaryMember() {
+        CompactUuidSet set = new CompactUuidSet();
+        assertFalse(set.contains(NIL));
+
+        assertTrue(set.add(NIL));
+        assertFalse(set.add(NIL));
+        assertTrue(set.contains(NIL));
+        assertEquals(1, set.size());
+        assertEquals(List.of(NIL), set.toList());
+    }
+
+    @Test
+    void nilUuidSurvivesResizesAlongsideOtherMembers() {
+        CompactUuidSet set = new CompactUuidSet();
+        set.add(NIL);
+        List<UUID> added = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            UUID uuid = UUID.randomUUID();
+            added.add(uuid);
+            set.add(uuid);
+        }
+
+        assertEquals(101, set.size());
+        assertTrue(set.contains(NIL));
+        Set<UUID> listed = new HashSet<>(set.toList());
+        assertTrue(listed.contains(NIL));
+        assertTrue(listed.containsAll(added));
+        assertEquals(101, listed.size());
+    }
+
+    @Test
+    void clearEmptiesEverythingIncludingNil() {
+        CompactUuidSet set = new CompactUuidSet(List.of(NIL, UUID.randomUUID(), UUID.randomUUID()));
+        assertEquals(3, set.size());
+
+        set.clear();
+
+        assertTrue(set.isEmpty());
+        assertFalse(set.contains(NIL));
+        assertTrue(set.toList().isEmpty());
+        assertTrue(set.add(NIL));
+    }
+
+    @Test
+    void setViewIsLiveAndReadOnly() {
+        CompactUuidSet set = new CompactUuidSet();
+        Set<UUID> view = set.asSet();
+        UUID uuid = UUID.randomUUID();
+
+        assertTrue(view.isEmpty());
+        set.add(uuid);
+        set.add(NIL);
+
+        assertEquals(2, view.size());
+        assertTrue(view.contains(uuid));
+        assertTrue(view.contains(NIL));
+        assertFalse(view.contains("not a uuid"));
+        assertEquals(Set.of(uuid, NIL), new HashSet<>(view));
+        assertThrows(UnsupportedOperationException.class, () -> view.add(UUID.randomUUID()));
+        assertThrows(UnsupportedOperationException.class, () -> view.iterator().remove());
+    }
+
+    @Test
+    void viewIteratorWalksASnapshot() {
+        CompactUuidSet set = new CompactUuidSet(List.of(UUID.randomUUID()));
+        int seen = 0;
+        for (UUID ignored : set.asSet()) {
+            // Growing the set mid-iteration must neither throw nor show up in this walk
+            for (int i = 0; i < 20; i++) {
+                set.add(UUID.randomUUID());
+            }
+            seen++;
+        }
+
+        assertEquals(1, seen);
+        assertEquals(21, set.size());
+    }
+}
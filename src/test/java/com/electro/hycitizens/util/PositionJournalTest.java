@@ -0,0 +1,195 @@
+package com.electro.hycitizens.util;
+
+import com.hypixel.hytale.math.vector.Vector3d;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PositionJournalTest {
+    @TempDir
+    Path dataFolder;
+
+    @Test
+    void replayReturnsTheNewestPositionPerCitizen() {
+        PositionJournal journal = new PositionJournal(dataFolder);
+        journal.append("a", new Vector3d(1, 2, 3));
+        journal.append("b", new Vector3d(4, 5, 6));
+        journal.append("a", new Vector3d(7, 8, 9));
+        journal.close();
+
+        Map<String, Vector3d> replayed = new PositionJournal(dataFolder).replay();
+
+        assertEquals(2, replayed.size());
+        assertPosition(replayed.get("a"), 7, 8, 9);
+        assertPosition(replayed.get("b"), 4, 5, 6);
+    }
+
+    @Test
+    void unchangedPositionIsNotAppendedAgain() {
+        PositionJournal journal = new PositionJournal(dataFolder);
+        journal.append("a", new Vector3d(1, 2, 3));
+        long written = journal.getBytesWritten();
+
+        journal.append("a", new Vector3d(1, 2, 3));
+        journal.append("a", null);
+
+        assertEquals(written, journal.getBytesWritten());
+        journal.close();
+    }
+
+    @Test
+    void tornTailIsSkippedAndCutOffBeforeNewAppends() throws IOException {
+        PositionJournal journal = new PositionJournal(dataFolder);
+        journal.append("a", new Vector3d(1, 2, 3));
+        journal.append("b", new Vector3d(4, 5, 6));
+        journal.close();
+
+        // Crash part-way through writing b's record
+        truncateBy(journalFile(), 10L);
+
+        PositionJournal restarted = new PositionJournal(dataFolder);
+        Map<String, Vector3d> replayed = restarted.replay();
+        assertEquals(1, replayed.size());
+        assertPosition(replayed.get("a"), 1, 2, 3);
+
+        restarted.append("c", new Vector3d(7, 8, 9));
+        restarted.close();
+
+        Map<String, Vector3d> afterAppend = new PositionJournal(dataFolder).replay();
+        assertEquals(2, afterAppend.size());
+        assertPosition(afterAppend.get("a"), 1, 2, 3);
+        assertPosition(afterAppend.get("c"), 7, 8, 9);
+    }
+
+    @Test
+    void tornHeaderStartsAFreshJournal() throws IOException {
+        Files.write(journalFile(), new byte[]{0x48, 0x43});
+
+        PositionJournal journal = new PositionJournal(dataFolder);
+        assertTrue(journal.replay().isEmpty());
+
+        journal.append("a", new Vector3d(1, 2, 3));
+        journal.close();
+
+        Map<String, Vector3d> replayed = new PositionJournal(dataFolder).replay();
+        assertEquals(1, replayed.size());
+        assertPosition(replayed.get("a"), 1, 2, 3);
+    }
+
+    @Test
+    void interruptedCompactionIsMergedBackOnReplay() {
+        PositionJournal journal = new PositionJournal(dataFolder);
+        journal.append("a", new Vector3d(1, 1, 1));
+        journal.append("b", new Vector3d(2, 2, 2));
+
+        Map<String, Vector3d> compacted = journal.beginCompaction();
+        assertNotNull(compacted);
+        assertEquals(2, compacted.size());
+        assertTrue(journal.isCompactionInProgress());
+
+        // Newer positions land in a fresh live journal, then the server dies before the main store is durable
+        journal.append("a", new Vector3d(3, 3, 3));
+        journal.append("c", new Vector3d(4, 4, 4));
+        journal.close();
+
+        PositionJournal restarted = new PositionJournal(dataFolder);
+        Map<String, Vector3d> replayed = restarted.replay();
+        assertEquals(3, replayed.size());
+        assertPosition(replayed.get("a"), 3, 3, 3);
+        assertPosition(replayed.get("b"), 2, 2, 2);
+        assertPosition(replayed.get("c"), 4, 4, 4);
+
+        // The rotated file is folded into the live journal, which no longer depends on it
+        assertFalse(restarted.isCompactionInProgress());
+        assertFalse(Files.exists(rotatedFile()));
+        restarted.close();
+
+        Map<String, Vector3d> again = new PositionJournal(dataFolder).replay();
+        assertEquals(replayed.keySet(), again.keySet());
+        assertPosition(again.get("a"), 3, 3, 3);
+        assertPosition(again.get("b"), 2, 2, 2);
+    }
+
+    @Test
+    void mergedJournalKeepsAcceptingAppends() {
+        PositionJournal journal = new PositionJournal(dataFolder);
+        journal.append("a", new Vector3d(1, 1, 1));
+        journal.beginCompaction();
+        journal.close();
+
+        PositionJournal restarted = new PositionJournal(dataFolder);
+        restarted.replay();
+        restarted.append("b", new Vector3d(2, 2, 2));
+        restarted.close();
+
+        Map<String, Vector3d> replayed = new PositionJournal(dataFolder).replay();
+        assertPosition(replayed.get("a"), 1, 1, 1);
+        assertPosition(replayed.get("b"), 2, 2, 2);
+    }
+
+    @Test
+    void compactionWaitsForTheLastOneToFinish() {
+        PositionJournal journal = new PositionJournal(dataFolder);
+        journal.append("a", new Vector3d(1, 1, 1));
+
+        assertNotNull(journal.beginCompaction());
+        journal.append("b", new Vector3d(2, 2, 2));
+        assertNull(journal.beginCompaction());
+
+        journal.finishCompaction();
+        assertFalse(journal.isCompactionInProgress());
+
+        Map<String, Vector3d> next = journal.beginCompaction();
+        assertNotNull(next);
+        assertEquals(1, next.size());
+        assertPosition(next.get("b"), 2, 2, 2);
+        journal.close();
+    }
+
+    @Test
+    void forgottenCitizenIsLeftOutOfTheNextCompaction() {
+        PositionJournal journal = new PositionJournal(dataFolder);
+        journal.append("a", new Vector3d(1, 1, 1));
+        journal.append("b", new Vector3d(2, 2, 2));
+
+        journal.forget("a");
+
+        Map<String, Vector3d> compacted = journal.beginCompaction();
+        assertNotNull(compacted);
+        assertEquals(1, compacted.size());
+        assertTrue(compacted.containsKey("b"));
+        journal.close();
+    }
+
+    @Nonnull
+    private Path journalFile() {
+        return dataFolder.resolve("positions.journal");
+    }
+
+    @Nonnull
+    private Path rotatedFile() {
+        return dataFolder.resolve("positions.journal.old");
+    }
+
+    private static void truncateBy(@Nonnull Path file, long bytes) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - bytes);
+        }
+    }
+
+    private static void assertPosition(Vector3d position, double x, double y, double z) {
+        assertNotNull(position);
+        assertEquals(x, position.x, 0.0);
+        assertEquals(y, position.y, 0.0);
+        assertEquals(z, position.z, 0.0);
+    }
+}
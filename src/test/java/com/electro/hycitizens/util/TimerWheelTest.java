@@ -0,0 +1,190 @@
+package com.electro.hycitizens.util;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.annotation.Nonnull;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TimerWheelTest {
+    // Ticks long enough that the wall-clock gap between building the wheel and reading the base never crosses one
+    private static final long TICK_MS = 1_000L;
+    private static final int WHEEL_SIZE = 512;
+
+    private TimerWheel wheel;
+    private long base;
+
+    @BeforeEach
+    void setUp() {
+        wheel = new TimerWheel(TICK_MS, WHEEL_SIZE);
+        base = System.currentTimeMillis();
+    }
+
+    @Test
+    void rejectsWheelSizeThatIsNotAPowerOfTwo() {
+        assertThrows(IllegalArgumentException.class, () -> new TimerWheel(TICK_MS, 500));
+    }
+
+    @Test
+    void firesOnceItsTickComesRound() {
+        AtomicInteger fired = new AtomicInteger();
+        wheel.schedule(null, 3 * TICK_MS, timeout -> fired.incrementAndGet());
+
+        assertTrue(runExpired(atTick(2)).isEmpty());
+        assertEquals(1, wheel.getPendingCount());
+
+        runExpired(atTick(3));
+        assertEquals(1, fired.get());
+        assertEquals(0, wheel.getPendingCount());
+    }
+
+    @Test
+    void zeroDelayFiresOnTheNextTick() {
+        AtomicInteger fired = new AtomicInteger();
+        wheel.schedule(null, 0L, timeout -> fired.incrementAndGet());
+
+        runExpired(atTick(1));
+        assertEquals(1, fired.get());
+    }
+
+    @Test
+    void timerPastOneRevolutionWaitsOutItsRounds() {
+        AtomicInteger fired = new AtomicInteger();
+        wheel.schedule(null, (WHEEL_SIZE + 1) * TICK_MS, timeout -> fired.incrementAndGet());
+
+        // Its bucket comes round at tick 1 and again at tick 513; only the second visit is due
+        runExpired(atTick(1));
+        runExpired(atTick(WHEEL_SIZE));
+        assertEquals(0, fired.get());
+        assertEquals(1, wheel.getPendingCount());
+
+        runExpired(atTick(WHEEL_SIZE + 1));
+        assertEquals(1, fired.get());
+        assertEquals(0, wheel.getPendingCount());
+    }
+
+    @Test
+    void timerOnAnExactMultipleOfTheWheelFiresOnTime() {
+        AtomicInteger fired = new AtomicInteger();
+        wheel.schedule(null, 2L * WHEEL_SIZE * TICK_MS, timeout -> fired.incrementAndGet());
+
+        runExpired(atTick(2 * WHEEL_SIZE - 1));
+        assertEquals(0, fired.get());
+
+        runExpired(atTick(2 * WHEEL_SIZE));
+        assertEquals(1, fired.get());
+    }
+
+    @Test
+    void timersSharingABucketFireInTheirOwnRound() {
+        AtomicInteger early = new AtomicInteger();
+        AtomicInteger late = new AtomicInteger();
+        wheel.schedule(null, 5 * TICK_MS, timeout -> early.incrementAndGet());
+        wheel.schedule(null, (WHEEL_SIZE + 5) * TICK_MS, timeout -> late.incrementAndGet());
+
+        runExpired(atTick(5));
+        assertEquals(1, early.get());
+        assertEquals(0, late.get());
+
+        runExpired(atTick(WHEEL_SIZE + 5));
+        assertEquals(1, late.get());
+    }
+
+    @Test
+    void cancelledPendingTimerNeverFires() {
+        AtomicInteger fired = new AtomicInteger();
+        TimerWheel.Timeout timeout = wheel.schedule(null, 2 * TICK_MS, t -> fired.incrementAndGet());
+
+        assertTrue(timeout.cancel());
+        assertTrue(timeout.isDone());
+        assertEquals(0, wheel.getPendingCount());
+        assertFalse(timeout.cancel());
+
+        assertTrue(runExpired(atTick(10)).isEmpty());
+        assertEquals(0, fired.get());
+    }
+
+    @Test
+    void cancelWhileFiringStopsTheTask() {
+        AtomicInteger fired = new AtomicInteger();
+        TimerWheel.Timeout timeout = wheel.schedule(null, TICK_MS, t -> fired.incrementAndGet());
+
+        Map<UUID, List<TimerWheel.Timeout>> expired = wheel.advance(atTick(1));
+        assertEquals(List.of(timeout), expired.get(null));
+        assertFalse(timeout.isDone());
+
+        // Expired and handed out, but its batch has not reached it yet
+        assertTrue(timeout.cancel());
+        timeout.run();
+
+        assertEquals(0, fired.get());
+        assertTrue(timeout.isDone());
+    }
+
+    @Test
+    void cancelAfterRunningFails() {
+        AtomicInteger fired = new AtomicInteger();
+        TimerWheel.Timeout timeout = wheel.schedule(null, TICK_MS, t -> fired.incrementAndGet());
+
+        runExpired(atTick(1));
+        assertEquals(1, fired.get());
+        assertTrue(timeout.isDone());
+        assertFalse(timeout.cancel());
+
+        // A second run of the same timeout is a no-op
+        timeout.run();
+        assertEquals(1, fired.get());
+    }
+
+    @Test
+    void expiredTimersAreGroupedByWorld() {
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+        TimerWheel.Timeout a = wheel.schedule(first, TICK_MS, t -> { });
+        TimerWheel.Timeout b = wheel.schedule(second, TICK_MS, t -> { });
+        TimerWheel.Timeout c = wheel.schedule(first, 2 * TICK_MS, t -> { });
+
+        Map<UUID, List<TimerWheel.Timeout>> expired = wheel.advance(atTick(2));
+
+        assertEquals(2, expired.size());
+        assertEquals(2, expired.get(first).size());
+        assertTrue(expired.get(first).containsAll(List.of(a, c)));
+        assertEquals(List.of(b), expired.get(second));
+        assertEquals(first, a.getWorldUuid());
+    }
+
+    @Test
+    void clearCancelsEverythingPending() {
+        AtomicInteger fired = new AtomicInteger();
+        TimerWheel.Timeout near = wheel.schedule(null, TICK_MS, t -> fired.incrementAndGet());
+        TimerWheel.Timeout far = wheel.schedule(null, (WHEEL_SIZE + 1) * TICK_MS, t -> fired.incrementAndGet());
+
+        wheel.clear();
+
+        assertEquals(0, wheel.getPendingCount());
+        assertTrue(near.isDone());
+        assertTrue(far.isDone());
+        assertTrue(runExpired(atTick(WHEEL_SIZE + 1)).isEmpty());
+        assertEquals(0, fired.get());
+    }
+
+    private long atTick(long tick) {
+        return base + tick * TICK_MS;
+    }
+
+    @Nonnull
+    private Map<UUID, List<TimerWheel.Timeout>> runExpired(long nowMs) {
+        Map<UUID, List<TimerWheel.Timeout>> expired = wheel.advance(nowMs);
+        for (List<TimerWheel.Timeout> batch : expired.values()) {
+            for (TimerWheel.Timeout timeout : batch) {
+                timeout.run();
+            }
+        }
+        return expired;
+    }
+}